@@ -0,0 +1,172 @@
+package edu.example.edu.Config;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+/**
+ * Non-blocking async appender for logback-spring.xml.
+ *
+ * Request threads only do a bounded queue offer; one daemon thread drains the queue in batches
+ * into the attached appenders (the console). When the queue is full the event is dropped and
+ * counted instead of blocking the caller - see {@link #totalDropped()} (metric logging.async.dropped).
+ * Unlike logback's AsyncAppender nothing is discarded by level while there is still room.
+ */
+public class AsyncLogAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private static final Set<AsyncLogAppender> INSTANCES = ConcurrentHashMap.newKeySet();
+    private static final int BATCH = 256;
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private int queueSize = 8192;
+    private int shutdownFlushMillis = 1000;
+
+    private BlockingQueue<ILoggingEvent> queue;
+    private Thread worker;
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public void setShutdownFlushMillis(int shutdownFlushMillis) {
+        this.shutdownFlushMillis = shutdownFlushMillis;
+    }
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (queueSize < 1) {
+            addError("queueSize must be positive");
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueSize);
+        worker = new Thread(this::drainLoop, "async-log-" + getName());
+        worker.setDaemon(true);
+        super.start();
+        worker.start();
+        INSTANCES.add(this);
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        INSTANCES.remove(this);
+        worker.interrupt();
+        try {
+            worker.join(shutdownFlushMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // freeze MDC / message args on the calling thread, the worker formats later
+        event.prepareForDeferredProcessing();
+        if (!queue.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drainLoop() {
+        List<ILoggingEvent> batch = new ArrayList<>(BATCH);
+        while (isStarted()) {
+            try {
+                ILoggingEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH - 1);
+                writeAll(batch);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        // shutdown: flush whatever is left
+        queue.drainTo(batch);
+        writeAll(batch);
+    }
+
+    private void writeAll(List<ILoggingEvent> batch) {
+        for (ILoggingEvent event : batch) {
+            appenders.appendLoopOnAppenders(event);
+        }
+        batch.clear();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getQueued() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    // Totals over all started instances (normally just the one from logback-spring.xml)
+    public static long totalDropped() {
+        return INSTANCES.stream().mapToLong(AsyncLogAppender::getDropped).sum();
+    }
+
+    public static int totalQueued() {
+        return INSTANCES.stream().mapToInt(AsyncLogAppender::getQueued).sum();
+    }
+
+    // ---------------- AppenderAttachable ----------------
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> newAppender) {
+        appenders.addAppender(newAppender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,64 @@
+package edu.example.edu.Config;
+
+import java.security.Principal;
+import java.time.Instant;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Authenticated caller, built once by JwtFilter from the verified token claims.
+ * Inject in controllers with {@code @AuthenticationPrincipal AuthenticatedUser me},
+ * or use {@link #current()} from services - no extra token parse or DB lookup needed.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class AuthenticatedUser implements Principal {
+
+    private final Long userId;
+    private final String email;
+    private final String role;
+    private final Long schoolId;
+    private final Long classroomId;
+    private final String displayName;
+    private final String tokenId;      // JWT "jti" (null for tokens issued before revocation support)
+    private final Instant tokenExpiresAt;
+
+    // role is passed in already normalised by the filter (upper-case, defaults to USER)
+    public static AuthenticatedUser fromClaims(Claims claims, String role) {
+        return new AuthenticatedUser(
+                JwtUtil.getLongClaim(claims, "userId"),
+                claims.getSubject(),
+                role,
+                JwtUtil.getLongClaim(claims, "schoolId"),
+                JwtUtil.getLongClaim(claims, "classroomId"),
+                (String) claims.get("name"),
+                claims.getId(),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    // Current caller, or null when the request is anonymous
+    public static AuthenticatedUser current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return user;
+        }
+        return null;
+    }
+
+    public boolean hasRole(String r) {
+        return r.equalsIgnoreCase(role);
+    }
+
+    // Principal name stays the email, same as before this class existed
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,48 @@
+package edu.example.edu.Config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Worker pool for DocumentIndexer (text extraction of uploaded Assignment / Syllabus files).
+ * Small and bounded so a burst of uploads cannot take CPU or memory from request threads;
+ * a task rejected by a full queue is not lost, the indexer's reconcile run picks it up later.
+ */
+@Configuration
+public class DocumentIndexExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService documentIndexExecutor(
+            @Value("${files.index.threads:2}") int threads,
+            @Value("${files.index.queue-capacity:1000}") int queueCapacity,
+            MeterRegistry registry) {
+
+        int poolSize = Math.max(1, threads);
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "document-index-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // publishes executor.queued / executor.active / executor.completed with name=document-index
+        return ExecutorServiceMetrics.monitor(registry, executor, "document-index");
+    }
+}
@@ -0,0 +1,114 @@
+package edu.example.edu.Config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Bounded cache of already verified JWT claims, keyed by a SHA-256 digest of the raw token.
+ * Entries never outlive the token's own "exp", so a hit is always as good as a fresh parse.
+ */
+@Component
+public class JwtClaimsCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter expiredEvictions;
+    private final Counter sizeEvictions;
+
+    public JwtClaimsCache(@Value("${jwt.claims-cache.max-size:20000}") int maxSize, MeterRegistry registry) {
+        this.maxSize = maxSize;
+        this.hits = registry.counter("jwt.claims.cache", "result", "hit");
+        this.misses = registry.counter("jwt.claims.cache", "result", "miss");
+        this.expiredEvictions = registry.counter("jwt.claims.cache.evictions", "cause", "expired");
+        this.sizeEvictions = registry.counter("jwt.claims.cache.evictions", "cause", "size");
+        registry.gaugeMapSize("jwt.claims.cache.size", Tags.empty(), entries);
+    }
+
+    // Returns cached claims or null (unknown token or expired entry)
+    public Claims get(String token) {
+        String key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            if (entries.remove(key, entry)) {
+                expiredEvictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.claims;
+    }
+
+    // Only call with claims that were just verified by JwtUtil
+    public void put(String token, Claims claims) {
+        if (maxSize <= 0 || claims.getExpiration() == null) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(digest(token), new Entry(claims, claims.getExpiration().getTime()));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    // Drop expired entries first; if still full, drop arbitrary entries down to 90% capacity
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> {
+            if (e.getValue().expiresAt <= now) {
+                expiredEvictions.increment();
+                return true;
+            }
+            return false;
+        });
+
+        int target = (int) (maxSize * 0.9);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    static String digest(String token) {
+        MessageDigest md = SHA256.get();
+        md.reset();
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    private record Entry(Claims claims, long expiresAt) {
+    }
+}
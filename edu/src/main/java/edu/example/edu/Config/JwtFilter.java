@@ -1,8 +1,14 @@
 package edu.example.edu.Config;
 
 import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -10,6 +16,8 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import edu.example.edu.Service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,9 +26,21 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
+    // per-request security log: successes are sampled (all of them at DEBUG), failures always logged
+    private static final Logger securityLog = LoggerFactory.getLogger("edu.example.edu.security");
+
+    @Value("${logging.security.sample-rate:0.01}")
+    private double securityLogSampleRate;
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private JwtClaimsCache jwtClaimsCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -28,20 +48,28 @@ public class JwtFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader("Authorization");
 
         String email = null;
-        String token = null;
+        Claims claims = null;
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
+            String token = authHeader.substring(7);
             try {
-                email = jwtUtil.extractUsername(token);
+                // Parse + verify once per request; repeat tokens skip crypto entirely
+                claims = jwtClaimsCache.get(token);
+                if (claims == null) {
+                    claims = jwtUtil.parseClaims(token);
+                    jwtClaimsCache.put(token, claims);
+                }
+                email = claims.getSubject();
             } catch (Exception e) {
-                logger.error("JWT token Invalid or expired");
+                securityLog.warn("JWT rejected: invalid or expired token ({} {})", request.getMethod(), request.getRequestURI());
             }
         }
 
         if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(token, email)) {
-                String role = jwtUtil.extractRole(token);
+            // revocation: Bloom filter probe, exact check only on a (rare) positive
+            if (claims.getExpiration() != null && claims.getExpiration().after(new Date())
+                    && !tokenRevocationService.isRevoked(claims)) {
+                String role = (String) claims.get("role");
 
                 if (role != null) {
                     role = role.trim().toUpperCase();
@@ -54,23 +82,33 @@ public class JwtFilter extends OncePerRequestFilter {
                         new SimpleGrantedAuthority(role),
                         new SimpleGrantedAuthority("ROLE_" + role));
 
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(email, null,
+                // 🔹 Typed principal (userId / schoolId / classroomId) built from the already parsed claims
+                AuthenticatedUser principal = AuthenticatedUser.fromClaims(claims, role);
+
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(principal, null,
                         authorities);
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
 
-                // 🔹 DEBUG: log authorities
-                System.out.println(">>> JWT FILTER: Authentication successful for: " + email);
-                System.out.println(">>> JWT FILTER: Authorities set: " + authorities);
+                if (securityLog.isDebugEnabled() || (securityLog.isInfoEnabled() && sampled())) {
+                    securityLog.info("JWT ok: user={} authorities={} {} {}", principal.getUserId(), authorities,
+                            request.getMethod(), request.getRequestURI());
+                }
             } else {
-                System.out.println(">>> JWT FILTER: Token validation FAILED for: " + email);
+                securityLog.warn("JWT rejected: expired or revoked token for user={} ({} {})",
+                        JwtUtil.getLongClaim(claims, "userId"), request.getMethod(), request.getRequestURI());
             }
         } else if (email != null) {
-            System.out.println(">>> JWT FILTER: User already authenticated or context not null for: " + email);
+            securityLog.debug("JWT skipped: request already authenticated for {}", email);
         }
 
         chain.doFilter(request, response);
     }
 
+    private boolean sampled() {
+        return securityLogSampleRate >= 1.0
+                || (securityLogSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < securityLogSampleRate);
+    }
+
 }
@@ -71,6 +71,7 @@ package edu.example.edu.Config;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 import org.springframework.stereotype.Component;
 
@@ -94,11 +95,15 @@ public class JwtUtil {
         claims.put("classroomId", classroomId); // NEW claim
         claims.put("name", name);
 
+        long now = System.currentTimeMillis();
+        claims.put("iatMs", now); // "iat" only has second precision; revocation compares against this
+
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString()) // jti, lets a single token be revoked
                 .setSubject(email)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_VALIDITY))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + TOKEN_VALIDITY))
                 .signWith(SignatureAlgorithm.HS256, SECRET_KEY)
                 .compact();
     }
@@ -131,6 +136,21 @@ public class JwtUtil {
         return v == null ? null : Long.valueOf(String.valueOf(v));
     }
 
+    // Parse + verify signature and expiry ONCE; throws JwtException if invalid or expired
+    public Claims parseClaims(String token) {
+        return getClaims(token);
+    }
+
+    public long getTokenValidityMillis() {
+        return TOKEN_VALIDITY;
+    }
+
+    // Read a numeric claim (userId / schoolId / classroomId) from already parsed claims
+    public static Long getLongClaim(Claims claims, String name) {
+        Object v = claims.get(name);
+        return v == null ? null : Long.valueOf(String.valueOf(v));
+    }
+
     // Validate token
     public boolean validateToken(String token, String email) {
         final String username = extractUsername(token);
@@ -0,0 +1,24 @@
+package edu.example.edu.Config;
+
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Exposes the async log appender's ring buffer: events dropped because it was full,
+ * and events currently waiting to be written.
+ */
+@Configuration
+public class LoggingMetricsConfig {
+
+    public LoggingMetricsConfig(MeterRegistry registry) {
+        FunctionCounter.builder("logging.async.dropped", AsyncLogAppender.class, c -> AsyncLogAppender.totalDropped())
+                .description("Log events dropped because the async queue was full")
+                .register(registry);
+        Gauge.builder("logging.async.queued", AsyncLogAppender.class, c -> AsyncLogAppender.totalQueued())
+                .description("Log events waiting for the async writer")
+                .register(registry);
+    }
+}
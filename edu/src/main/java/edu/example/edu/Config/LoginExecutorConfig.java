@@ -0,0 +1,48 @@
+package edu.example.edu.Config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Bulkhead for BCrypt password checks on /api/users/login.
+ * Hashing runs on a small fixed pool with a bounded queue; when both are full the
+ * submit is rejected (AbortPolicy) and LoginService answers 503 right away.
+ */
+@Configuration
+public class LoginExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService loginExecutor(
+            @Value("${login.executor.threads:0}") int threads,
+            @Value("${login.executor.queue-capacity:200}") int queueCapacity,
+            MeterRegistry registry) {
+
+        // 0 = half the cores, so logins can never take the whole CPU away from other endpoints
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "login-bcrypt-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // publishes executor.queued / executor.active / executor.completed with name=login
+        return ExecutorServiceMetrics.monitor(registry, executor, "login");
+    }
+}
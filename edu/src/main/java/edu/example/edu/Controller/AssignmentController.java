@@ -1,22 +1,22 @@
 package edu.example.edu.Controller;
 
 import java.util.List;
-import java.io.File;
 import java.io.IOException;
 import java.time.LocalDate;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
 import edu.example.edu.DTO.AssignmentDTO;
 import edu.example.edu.Service.AssignmentService;
+import edu.example.edu.Service.FileDownloadService;
+import edu.example.edu.Service.FileStorageService.Area;
+import edu.example.edu.Service.MultipartUploadService;
+import edu.example.edu.Service.MultipartUploadService.StreamedUpload;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/assignments")
@@ -25,66 +25,35 @@ public class AssignmentController {
     @Autowired
     private AssignmentService assignmentService;
 
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    @Autowired
+    private MultipartUploadService multipartUploadService;
+
     @PostMapping(consumes = { "multipart/form-data" })
     @PreAuthorize("hasAnyAuthority('CRT','ROLE_CRT','STUDENT','ROLE_STUDENT','TEACHER','ROLE_TEACHER','SCHOOLADMIN','ROLE_SCHOOLADMIN','PRINCIPAL','ROLE_PRINCIPAL','ADMIN','ROLE_ADMIN')")
-    public ResponseEntity<AssignmentDTO> saveAssignment(
-            @RequestParam(value = "file", required = false) MultipartFile file,
-            @RequestParam("classroomId") Long classroomId,
-            @RequestParam("subjectId") Long subjectId,
-            @RequestParam("teacherId") Long teacherId,
-            @RequestParam("title") String title,
-            @RequestParam("description") String description,
-            @RequestParam("dueDate") String dueDate) throws IOException {
+    public ResponseEntity<AssignmentDTO> saveAssignment(HttpServletRequest request) throws IOException {
+        // form fields: file (optional), classroomId, subjectId, teacherId, title, description, dueDate
+        StreamedUpload upload = multipartUploadService.receive(request, Area.ASSIGNMENTS, "file");
 
         AssignmentDTO dto = new AssignmentDTO();
-        dto.setClassroomId(classroomId);
-        dto.setSubjectId(subjectId);
-        dto.setTeacherId(teacherId);
-        dto.setTitle(title);
-        dto.setDescription(description);
-        dto.setDueDate(LocalDate.parse(dueDate));
-
-        if (file != null && !file.isEmpty()) {
-            String projectRoot = System.getProperty("user.dir");
-            String uploadDir = projectRoot + java.io.File.separator + "uploads" + java.io.File.separator + "assignments"
-                    + java.io.File.separator;
-            File directory = new File(uploadDir);
-            if (!directory.exists())
-                directory.mkdirs();
-
-            String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            File dest = new File(uploadDir + fileName);
-            file.transferTo(dest);
-            dto.setFileLink("/api/assignments/files/" + fileName);
-        }
+        dto.setClassroomId(upload.requiredLong("classroomId"));
+        dto.setSubjectId(upload.requiredLong("subjectId"));
+        dto.setTeacherId(upload.requiredLong("teacherId"));
+        dto.setTitle(upload.requiredField("title"));
+        dto.setDescription(upload.requiredField("description"));
+        dto.setDueDate(LocalDate.parse(upload.requiredField("dueDate")));
+        dto.setFileLink(upload.getFileLink());
 
         return ResponseEntity.ok(assignmentService.saveAssignment(dto));
     }
 
-    // Get file
+    // Download (ETag / 304, Range, immutable caching) - see FileDownloadService
     @GetMapping("/files/{fileName}")
-    public ResponseEntity<Resource> getFile(@PathVariable String fileName) throws IOException {
-        String projectRoot = System.getProperty("user.dir");
-        String filePath = projectRoot + java.io.File.separator + "uploads" + java.io.File.separator + "assignments"
-                + java.io.File.separator + fileName;
-        File file = new File(filePath);
-        if (!file.exists())
-            return ResponseEntity.notFound().build();
-
-        Resource resource = new UrlResource(file.toURI());
-
-        String contentType = "application/octet-stream";
-        if (fileName.endsWith(".pdf"))
-            contentType = "application/pdf";
-        else if (fileName.endsWith(".doc"))
-            contentType = "application/msword";
-        else if (fileName.endsWith(".docx"))
-            contentType = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.getName() + "\"")
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(resource);
+    public void getFile(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        fileDownloadService.serve(Area.ASSIGNMENTS, fileName, request, response);
     }
 
     @GetMapping
@@ -0,0 +1,37 @@
+package edu.example.edu.Controller;
+
+import java.nio.file.AccessDeniedException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.example.edu.Config.AuthenticatedUser;
+import edu.example.edu.DTO.DocumentSearchHitDTO;
+import edu.example.edu.Service.DocumentIndexer;
+
+// Full-text search over assignment and syllabus files (titles, descriptions and extracted text)
+@RestController
+@RequestMapping("/api/documents")
+public class DocumentSearchController {
+
+    @Autowired
+    private DocumentIndexer documentIndexer;
+
+    // /api/documents/search?q=chapter 5 notes&classroomId=3&limit=20 (every word must match, the last as a prefix)
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyAuthority('ADMIN','SCHOOLADMIN','PRINCIPAL','TEACHER','STUDENT')")
+    public List<DocumentSearchHitDTO> search(
+            @RequestParam String q,
+            @RequestParam(required = false) Long schoolId,
+            @RequestParam(required = false) Long classroomId,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        return documentIndexer.search(q, schoolId, classroomId, limit, me);
+    }
+}
@@ -0,0 +1,47 @@
+package edu.example.edu.Controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.example.edu.DTO.FileGcReportDTO;
+import edu.example.edu.DTO.FileMigrationReportDTO;
+import edu.example.edu.Service.FileStorageMigration;
+import edu.example.edu.Service.OrphanFileCollector;
+
+// Maintenance endpoints for the uploads store
+@RestController
+@RequestMapping("/api/files/admin")
+public class FileAdminController {
+
+    @Autowired
+    private FileStorageMigration fileStorageMigration;
+
+    @Autowired
+    private OrphanFileCollector orphanFileCollector;
+
+    // Move pre-blob uploads (flat or sharded) into the content-addressed blob store and rewrite their fileLink values
+    @PostMapping("/migrate")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public FileMigrationReportDTO migrate(@RequestParam(defaultValue = "false") boolean dryRun) {
+        return fileStorageMigration.migrate(dryRun);
+    }
+
+    // Report of the last orphan collection (scheduled or manual); null before the first run
+    @GetMapping("/gc")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public FileGcReportDTO lastGc() {
+        return orphanFileCollector.getLastReport();
+    }
+
+    // Run an orphan collection now; dryRun only counts what would be quarantined / deleted
+    @PostMapping("/gc")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public FileGcReportDTO gc(@RequestParam(defaultValue = "false") boolean dryRun) {
+        return orphanFileCollector.run(dryRun);
+    }
+}
@@ -0,0 +1,70 @@
+package edu.example.edu.Controller;
+
+import java.io.IOException;
+
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.example.edu.Config.AuthenticatedUser;
+import edu.example.edu.DTO.UploadInitiateDTO;
+import edu.example.edu.DTO.UploadSessionDTO;
+import edu.example.edu.Service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resumable upload protocol (large submissions / syllabus files on unreliable networks):
+ *   POST   /api/uploads                      {area, fileName, totalSize} -> session (offset 0)
+ *   PUT    /api/uploads/{id}?offset=N        raw bytes (application/octet-stream) -> new offset
+ *   GET    /api/uploads/{id}                 current offset, to resume after a failure
+ *   DELETE /api/uploads/{id}                 abandon
+ * then POST /api/submissions/uploads/{id}/complete or /api/syllabus/uploads/{id}/complete.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class ResumableUploadController {
+
+    private final ResumableUploadService resumableUploadService;
+
+    public ResumableUploadController(ResumableUploadService resumableUploadService) {
+        this.resumableUploadService = resumableUploadService;
+    }
+
+    @PostMapping
+    @PreAuthorize("hasAnyAuthority('CRT','ROLE_CRT','STUDENT','ROLE_STUDENT','TEACHER','ROLE_TEACHER','SCHOOLADMIN','ROLE_SCHOOLADMIN','PRINCIPAL','ROLE_PRINCIPAL','ADMIN','ROLE_ADMIN')")
+    public UploadSessionDTO initiate(@RequestBody UploadInitiateDTO request,
+                                     @AuthenticationPrincipal AuthenticatedUser me) throws IOException {
+        return resumableUploadService.initiate(request, me);
+    }
+
+    @PutMapping(value = "/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasAnyAuthority('CRT','ROLE_CRT','STUDENT','ROLE_STUDENT','TEACHER','ROLE_TEACHER','SCHOOLADMIN','ROLE_SCHOOLADMIN','PRINCIPAL','ROLE_PRINCIPAL','ADMIN','ROLE_ADMIN')")
+    public UploadSessionDTO uploadChunk(@PathVariable String uploadId,
+                                        @RequestParam("offset") long offset,
+                                        HttpServletRequest request,
+                                        @AuthenticationPrincipal AuthenticatedUser me) throws IOException {
+        return resumableUploadService.appendChunk(uploadId, offset, request.getInputStream(),
+                request.getContentLengthLong(), me);
+    }
+
+    @GetMapping("/{uploadId}")
+    @PreAuthorize("hasAnyAuthority('CRT','ROLE_CRT','STUDENT','ROLE_STUDENT','TEACHER','ROLE_TEACHER','SCHOOLADMIN','ROLE_SCHOOLADMIN','PRINCIPAL','ROLE_PRINCIPAL','ADMIN','ROLE_ADMIN')")
+    public UploadSessionDTO status(@PathVariable String uploadId, @AuthenticationPrincipal AuthenticatedUser me) {
+        return resumableUploadService.status(uploadId, me);
+    }
+
+    @DeleteMapping("/{uploadId}")
+    @PreAuthorize("hasAnyAuthority('CRT','ROLE_CRT','STUDENT','ROLE_STUDENT','TEACHER','ROLE_TEACHER','SCHOOLADMIN','ROLE_SCHOOLADMIN','PRINCIPAL','ROLE_PRINCIPAL','ADMIN','ROLE_ADMIN')")
+    public void abort(@PathVariable String uploadId, @AuthenticationPrincipal AuthenticatedUser me) throws IOException {
+        resumableUploadService.abort(uploadId, me);
+    }
+}
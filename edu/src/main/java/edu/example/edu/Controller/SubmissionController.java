@@ -1,16 +1,15 @@
 package edu.example.edu.Controller;
 
-import java.io.File;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -19,84 +18,89 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.multipart.MultipartFile;
 
+import edu.example.edu.Config.AuthenticatedUser;
 import edu.example.edu.DTO.SubmissionDTO;
 import edu.example.edu.DTO.SubmissionComplianceDTO;
+import edu.example.edu.Service.FileDownloadService;
+import edu.example.edu.Service.FileStorageService.Area;
+import edu.example.edu.Service.MultipartUploadService;
+import edu.example.edu.Service.MultipartUploadService.StreamedUpload;
+import edu.example.edu.Service.MultipartUploadService.UploadRejectedException;
+import edu.example.edu.Service.ResumableUploadService;
+import edu.example.edu.Service.SubmissionExportService;
 import edu.example.edu.Service.SubmissionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/submissions")
 public class SubmissionController {
 
-    private final SubmissionService submissionService;
+    private static final Logger log = LoggerFactory.getLogger(SubmissionController.class);
 
-    public SubmissionController(SubmissionService submissionService) {
+    private final SubmissionService submissionService;
+    private final FileDownloadService fileDownloadService;
+    private final MultipartUploadService multipartUploadService;
+    private final ResumableUploadService resumableUploadService;
+    private final SubmissionExportService submissionExportService;
+
+    public SubmissionController(SubmissionService submissionService, FileDownloadService fileDownloadService,
+            MultipartUploadService multipartUploadService, ResumableUploadService resumableUploadService,
+            SubmissionExportService submissionExportService) {
         this.submissionService = submissionService;
+        this.fileDownloadService = fileDownloadService;
+        this.multipartUploadService = multipartUploadService;
+        this.resumableUploadService = resumableUploadService;
+        this.submissionExportService = submissionExportService;
     }
 
     // ✅ Upload a file
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasAnyAuthority('CRT','ROLE_CRT','STUDENT','ROLE_STUDENT','TEACHER','ROLE_TEACHER','SCHOOLADMIN','ROLE_SCHOOLADMIN','PRINCIPAL','ROLE_PRINCIPAL','ADMIN','ROLE_ADMIN')")
 
-    public SubmissionDTO uploadSubmission(
-            @RequestParam("file") MultipartFile file,
-            @RequestParam("assignmentId") Long assignmentId,
-            @RequestParam("studentId") Long studentId) throws IOException {
+    public SubmissionDTO uploadSubmission(HttpServletRequest request) throws IOException {
+        // form fields: file, assignmentId, studentId - streamed, see MultipartUploadService
+        StreamedUpload upload = multipartUploadService.receive(request, Area.SUBMISSIONS, "file");
+        Long assignmentId = upload.requiredLong("assignmentId");
+        Long studentId = upload.requiredLong("studentId");
 
-        System.out.println(">>> SUBMISSION CONTROLLER: Received upload request");
-        System.out.println(">>> AssignmentId: " + assignmentId + ", StudentId: " + studentId);
-        System.out.println(">>> File: " + (file != null ? file.getOriginalFilename() : "No file"));
+        log.debug("Upload request: assignmentId={} studentId={} file={} size={}", assignmentId, studentId,
+                upload.getFileName() != null ? upload.getFileName() : "No file", upload.getSize());
 
-        String projectRoot = System.getProperty("user.dir");
-        String uploadDir = projectRoot + File.separator + "uploads" + File.separator + "submissions" + File.separator;
-        File directory = new File(uploadDir);
-        if (!directory.exists())
-            directory.mkdirs();
+        if (upload.getFileLink() == null) {
+            throw new UploadRejectedException(HttpStatus.BAD_REQUEST, "Missing file");
+        }
+        return createSubmission(assignmentId, studentId, upload.getFileLink());
+    }
 
-        String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-        File dest = new File(uploadDir + fileName);
-        file.transferTo(dest);
+    // ✅ Finish a resumable upload (see ResumableUploadController) and create the submission
+    @PostMapping("/uploads/{uploadId}/complete")
+    @PreAuthorize("hasAnyAuthority('CRT','ROLE_CRT','STUDENT','ROLE_STUDENT','TEACHER','ROLE_TEACHER','SCHOOLADMIN','ROLE_SCHOOLADMIN','PRINCIPAL','ROLE_PRINCIPAL','ADMIN','ROLE_ADMIN')")
+    public SubmissionDTO completeUpload(
+            @PathVariable String uploadId,
+            @RequestParam("assignmentId") Long assignmentId,
+            @RequestParam("studentId") Long studentId,
+            @AuthenticationPrincipal AuthenticatedUser me) throws IOException {
+        return resumableUploadService.complete(uploadId, Area.SUBMISSIONS, me,
+                fileLink -> createSubmission(assignmentId, studentId, fileLink));
+    }
 
+    private SubmissionDTO createSubmission(Long assignmentId, Long studentId, String fileLink) {
         SubmissionDTO dto = new SubmissionDTO();
         dto.setAssignmentId(assignmentId);
         dto.setStudentId(studentId);
-        dto.setFileLink("/api/submissions/files/" + fileName);
+        dto.setFileLink(fileLink);
         dto.setSubmissionDate(LocalDate.now());
 
         return submissionService.saveSubmission(dto);
     }
 
-    // ✅ Download file
+    // Download (ETag / 304, Range, immutable caching) - see FileDownloadService
     @GetMapping("/files/{fileName}")
-    public ResponseEntity<Resource> getFile(@PathVariable String fileName) throws IOException {
-        String projectRoot = System.getProperty("user.dir");
-        String filePath = projectRoot + File.separator + "uploads" + File.separator + "submissions" + File.separator
-                + fileName;
-        File file = new File(filePath);
-        if (!file.exists())
-            return ResponseEntity.notFound().build();
-
-        Resource resource = new UrlResource(file.toURI());
-
-        String contentType;
-        if (fileName.endsWith(".pdf"))
-            contentType = "application/pdf";
-        else if (fileName.endsWith(".doc"))
-            contentType = "application/msword";
-        else if (fileName.endsWith(".docx"))
-            contentType = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
-        else if (fileName.endsWith(".xls"))
-            contentType = "application/vnd.ms-excel";
-        else if (fileName.endsWith(".xlsx"))
-            contentType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-        else
-            contentType = "application/octet-stream";
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.getName() + "\"")
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(resource);
+    public void getFile(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        fileDownloadService.serve(Area.SUBMISSIONS, fileName, request, response);
     }
 
     // ✅ Get all submissions
@@ -113,6 +117,15 @@ public class SubmissionController {
         return submissionService.getSubmissionsByAssignment(assignmentId);
     }
 
+    // ✅ All submissions of an assignment as one streamed ZIP (optional manifest.csv with grades / feedback)
+    @GetMapping("/assignment/{assignmentId}/zip")
+    @PreAuthorize("hasAnyAuthority('TEACHER','SCHOOLADMIN','PRINCIPAL')")
+    public void downloadSubmissionsZip(@PathVariable Long assignmentId,
+            @RequestParam(value = "manifest", defaultValue = "false") boolean manifest,
+            HttpServletResponse response) throws IOException {
+        submissionExportService.streamZip(assignmentId, manifest, response);
+    }
+
     // ✅ Get submissions by assignment + student (only student’s own)
     @GetMapping("/assignment/{assignmentId}/student/{studentId}")
     @PreAuthorize("hasAnyAuthority('STUDENT','TEACHER','SCHOOLADMIN','PRINCIPAL')")
@@ -127,7 +140,7 @@ public class SubmissionController {
     @PreAuthorize("hasAnyAuthority('TEACHER','SCHOOLADMIN')")
     public SubmissionDTO gradeSubmission(@PathVariable Long submissionId,
             @RequestParam String grade) {
-        System.out.println("Grading submissionId " + submissionId + " with grade: " + grade);
+        log.debug("Grading submissionId {} with grade {}", submissionId, grade);
         return submissionService.gradeSubmission(submissionId, grade);
     }
 
@@ -3,12 +3,8 @@ package edu.example.edu.Controller;
 import java.io.IOException;
 import java.util.List;
 
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -16,31 +12,64 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.multipart.MultipartFile;
 
+import edu.example.edu.Config.AuthenticatedUser;
 import edu.example.edu.DTO.SyllabusDTO;
+import edu.example.edu.Service.FileDownloadService;
+import edu.example.edu.Service.FileStorageService.Area;
+import edu.example.edu.Service.MultipartUploadService;
+import edu.example.edu.Service.MultipartUploadService.StreamedUpload;
+import edu.example.edu.Service.ResumableUploadService;
 import edu.example.edu.Service.SyllabusService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/syllabus")
 public class SyllabusController {
 
     private final SyllabusService syllabusService;
+    private final FileDownloadService fileDownloadService;
+    private final MultipartUploadService multipartUploadService;
+    private final ResumableUploadService resumableUploadService;
 
-    public SyllabusController(SyllabusService syllabusService) {
+    public SyllabusController(SyllabusService syllabusService, FileDownloadService fileDownloadService,
+            MultipartUploadService multipartUploadService, ResumableUploadService resumableUploadService) {
         this.syllabusService = syllabusService;
+        this.fileDownloadService = fileDownloadService;
+        this.multipartUploadService = multipartUploadService;
+        this.resumableUploadService = resumableUploadService;
     }
 
     // Create or update
     @PostMapping(consumes = { "multipart/form-data" })
     @PreAuthorize("hasAnyAuthority('CRT','ROLE_CRT','STUDENT','ROLE_STUDENT','TEACHER','ROLE_TEACHER','SCHOOLADMIN','ROLE_SCHOOLADMIN','PRINCIPAL','ROLE_PRINCIPAL','ADMIN','ROLE_ADMIN')")
-    public SyllabusDTO createOrUpdate(
-            @RequestParam(value = "file", required = false) MultipartFile file,
+    public SyllabusDTO createOrUpdate(HttpServletRequest request) throws IOException {
+        // form fields: file (optional), classSubjectId, title, description, moduleName, uploadedById
+        StreamedUpload upload = multipartUploadService.receive(request, Area.SYLLABUS, "file");
+
+        SyllabusDTO dto = new SyllabusDTO();
+        dto.setClassSubjectId(upload.requiredLong("classSubjectId"));
+        dto.setTitle(upload.requiredField("title"));
+        dto.setDescription(upload.requiredField("description"));
+        dto.setModuleName(upload.requiredField("moduleName"));
+        dto.setUploadedById(upload.requiredLong("uploadedById"));
+        dto.setFileLink(upload.getFileLink());
+
+        return syllabusService.saveSyllabus(dto);
+    }
+
+    // Finish a resumable upload (see ResumableUploadController) and create the syllabus
+    @PostMapping("/uploads/{uploadId}/complete")
+    @PreAuthorize("hasAnyAuthority('CRT','ROLE_CRT','STUDENT','ROLE_STUDENT','TEACHER','ROLE_TEACHER','SCHOOLADMIN','ROLE_SCHOOLADMIN','PRINCIPAL','ROLE_PRINCIPAL','ADMIN','ROLE_ADMIN')")
+    public SyllabusDTO completeUpload(
+            @PathVariable String uploadId,
             @RequestParam("classSubjectId") Long classSubjectId,
             @RequestParam("title") String title,
             @RequestParam("description") String description,
             @RequestParam("moduleName") String moduleName,
-            @RequestParam("uploadedById") Long uploadedById) throws IOException {
+            @RequestParam("uploadedById") Long uploadedById,
+            @AuthenticationPrincipal AuthenticatedUser me) throws IOException {
 
         SyllabusDTO dto = new SyllabusDTO();
         dto.setClassSubjectId(classSubjectId);
@@ -48,48 +77,18 @@ public class SyllabusController {
         dto.setDescription(description);
         dto.setModuleName(moduleName);
         dto.setUploadedById(uploadedById);
-
-        if (file != null && !file.isEmpty()) {
-            String projectRoot = System.getProperty("user.dir");
-            String uploadDir = projectRoot + java.io.File.separator + "uploads" + java.io.File.separator + "syllabus"
-                    + java.io.File.separator;
-            java.io.File directory = new java.io.File(uploadDir);
-            if (!directory.exists())
-                directory.mkdirs();
-
-            String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            java.io.File dest = new java.io.File(uploadDir + fileName);
-            file.transferTo(dest);
-            dto.setFileLink("/api/syllabus/files/" + fileName);
-        }
-
-        return syllabusService.saveSyllabus(dto);
+        // the upload stays open if the syllabus cannot be saved
+        return resumableUploadService.complete(uploadId, Area.SYLLABUS, me, fileLink -> {
+            dto.setFileLink(fileLink);
+            return syllabusService.saveSyllabus(dto);
+        });
     }
 
-    // Get file
+    // Download (ETag / 304, Range, immutable caching) - see FileDownloadService
     @GetMapping("/files/{fileName}")
-    public ResponseEntity<Resource> getFile(@PathVariable String fileName) throws java.io.IOException {
-        String projectRoot = System.getProperty("user.dir");
-        String filePath = projectRoot + java.io.File.separator + "uploads" + java.io.File.separator + "syllabus"
-                + java.io.File.separator + fileName;
-        java.io.File file = new java.io.File(filePath);
-        if (!file.exists())
-            return ResponseEntity.notFound().build();
-
-        Resource resource = new UrlResource(file.toURI());
-
-        String contentType = "application/octet-stream";
-        if (fileName.endsWith(".pdf"))
-            contentType = "application/pdf";
-        else if (fileName.endsWith(".ppt"))
-            contentType = "application/vnd.ms-powerpoint";
-        else if (fileName.endsWith(".pptx"))
-            contentType = "application/vnd.openxmlformats-officedocument.presentationml.presentation";
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.getName() + "\"")
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(resource);
+    public void getFile(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        fileDownloadService.serve(Area.SYLLABUS, fileName, request, response);
     }
 
     // Get all syllabuses
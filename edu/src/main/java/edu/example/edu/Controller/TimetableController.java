@@ -1,8 +1,13 @@
 package edu.example.edu.Controller;
 
+import java.nio.file.AccessDeniedException;
 import java.util.List;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,9 +17,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import edu.example.edu.Config.AuthenticatedUser;
+import edu.example.edu.DTO.TeacherTimetableEntryDTO;
 import edu.example.edu.DTO.TimetableDTO;
+import edu.example.edu.DTO.TimetableGenerateRequestDTO;
+import edu.example.edu.DTO.TimetableGenerateResultDTO;
+import edu.example.edu.DTO.TimetableGridCellDTO;
+import edu.example.edu.DTO.TimetableGridResultDTO;
 import edu.example.edu.Entity.User;
+import edu.example.edu.Service.ClassTimetableCache;
+import edu.example.edu.Service.TimetableGeneratorService;
+import edu.example.edu.Service.TimetableGridService;
 import edu.example.edu.Service.TimetableService;
 
 @RestController
@@ -22,9 +37,14 @@ import edu.example.edu.Service.TimetableService;
 public class TimetableController {
 
     private final TimetableService timetableService;
+    private final TimetableGridService timetableGridService;
+    private final TimetableGeneratorService timetableGeneratorService;
 
-    public TimetableController(TimetableService timetableService) {
+    public TimetableController(TimetableService timetableService, TimetableGridService timetableGridService,
+            TimetableGeneratorService timetableGeneratorService) {
         this.timetableService = timetableService;
+        this.timetableGridService = timetableGridService;
+        this.timetableGeneratorService = timetableGeneratorService;
     }
 
     // Create
@@ -71,10 +91,57 @@ public class TimetableController {
         return timetableService.getTeachersForClassSubject(classId, subjectId);
     }
 
+    // Save a class's whole week in one go (cells missing from the list are cleared);
+    // 409 with the per-cell report when anything conflicts, nothing is written then
+    @PutMapping("/class/{classId}/grid")
+    @PreAuthorize("hasAnyAuthority('SCHOOLADMIN','PRINCIPAL')")
+    public ResponseEntity<TimetableGridResultDTO> saveGrid(
+            @PathVariable Long classId,
+            @RequestBody List<TimetableGridCellDTO> cells,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        TimetableGridResultDTO result = timetableGridService.saveGrid(classId, cells, dryRun, me);
+        return ResponseEntity.status(result.getConflicts() > 0 ? HttpStatus.CONFLICT : HttpStatus.OK).body(result);
+    }
+
+    // Generate the whole school's timetable from ClassSubject rows (dryRun in the body to preview)
+    @PostMapping("/generate")
+    @PreAuthorize("hasAnyAuthority('SCHOOLADMIN','PRINCIPAL','ADMIN')")
+    public TimetableGenerateResultDTO generate(@RequestBody TimetableGenerateRequestDTO request,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        return timetableGeneratorService.generate(request, me);
+    }
+
+    // A teacher's week (optionally one day) with class and subject names
+    @GetMapping("/teacher/{teacherId}")
+    @PreAuthorize("hasAnyAuthority('TEACHER','SCHOOLADMIN','PRINCIPAL','ADMIN')")
+    public List<TeacherTimetableEntryDTO> getByTeacher(
+            @PathVariable Long teacherId,
+            @RequestParam(required = false) String day,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        return timetableService.getTeacherTimetable(teacherId, day, me);
+    }
+
+    // The caller's own week
+    @GetMapping("/teacher/me")
+    @PreAuthorize("hasAnyAuthority('TEACHER')")
+    public List<TeacherTimetableEntryDTO> getMine(
+            @RequestParam(required = false) String day,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        return timetableService.getTeacherTimetable(me.getUserId(), day, me);
+    }
+
     // FINAL: Get timetable for a class (DTO)
     @GetMapping("/class/{classId}")
     @PreAuthorize("hasAnyAuthority('STUDENT','TEACHER','SCHOOLADMIN','PRINCIPAL')")
-    public List<TimetableDTO> getByClass(@PathVariable Long classId) {
-        return timetableService.getTimetableDTOsByClass(classId);
+    public ResponseEntity<List<TimetableDTO>> getByClass(@PathVariable Long classId, WebRequest request) {
+        ClassTimetableCache.View view = timetableService.getClassWeek(classId);
+        if (request.checkNotModified(view.etag())) {
+            return null;   // 304, headers already set
+        }
+        return ResponseEntity.ok()
+                .eTag(view.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(view.entries());
     }
 }
@@ -0,0 +1,23 @@
+package edu.example.edu.Controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import edu.example.edu.Service.MultipartUploadService.UploadRejectedException;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Writes rejected uploads (413 / 415 / 400) directly. Going through sendError would re-dispatch
+ * to /error, which the security chain answers with 403.
+ */
+@RestControllerAdvice
+public class UploadExceptionHandler {
+
+    @ExceptionHandler(UploadRejectedException.class)
+    public ResponseEntity<String> uploadRejected(UploadRejectedException e, HttpServletResponse response) {
+        // the rest of the body was not read; don't keep the connection for the next request
+        response.setHeader("Connection", "close");
+        return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
+    }
+}
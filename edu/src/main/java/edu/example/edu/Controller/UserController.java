@@ -201,12 +201,17 @@
 // }
 package edu.example.edu.Controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.AccessDeniedException;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -217,15 +222,24 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
-import edu.example.edu.Config.JwtUtil;
+import edu.example.edu.Config.AuthenticatedUser;
+import edu.example.edu.DTO.BulkApprovalRequestDTO;
+import edu.example.edu.DTO.BulkApprovalResultDTO;
 import edu.example.edu.DTO.LoginDTO;
 import edu.example.edu.DTO.RegisterDTO;
 import edu.example.edu.DTO.UserDTO;
+import edu.example.edu.DTO.UserImportJobDTO;
+import edu.example.edu.DTO.UserPageDTO;
 import edu.example.edu.Entity.School;
 import edu.example.edu.Entity.User;
 import edu.example.edu.Repository.SchoolRepository;
 import edu.example.edu.Repository.UserRepository;
+import edu.example.edu.Service.LoginService;
+import edu.example.edu.Service.TokenRevocationService;
+import edu.example.edu.Service.UserImportService;
+import edu.example.edu.Service.UserSearchIndex;
 import edu.example.edu.Service.UserService;
 
 @RestController
@@ -244,7 +258,16 @@ public class UserController {
     private PasswordEncoder passwordEncoder;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private LoginService loginService;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
 
     public UserController(UserService userService) {
         this.userService = userService;
@@ -270,6 +293,7 @@ public class UserController {
         }
 
         userRepository.save(user);
+        userSearchIndex.upsert(user);
 
         UserDTO userDTO = new UserDTO();
         userDTO.setUserId(user.getUserId());
@@ -283,41 +307,18 @@ public class UserController {
 
     // ------------------------------------------------------
     // LOGIN  🚨 BLOCK PENDING & REJECTED USERS
+    // BCrypt runs on the bounded login pool (LoginService); 503 when saturated
     // ------------------------------------------------------
     @PostMapping("/login")
-    public String login(@RequestBody LoginDTO dto) {
-        Optional<User> optionalUser = userRepository.findByEmail(dto.getEmail());
-        User user = optionalUser.orElseThrow(() -> new RuntimeException("Invalid credentials"));
-
-        if (!passwordEncoder.matches(dto.getPassword(), user.getPassword())) {
-            throw new RuntimeException("Invalid credentials");
-        }
-
-        // ❌ BLOCK PENDING OR REJECTED USERS
-        if (user.getApprovalStatus() != User.ApprovalStatus.APPROVED) {
-            throw new RuntimeException("Your account is " + user.getApprovalStatus() + ". Contact school admin.");
-        }
-
-        Long schoolId = user.getSchool() != null ? user.getSchool().getSchoolId() : null;
-
-        // Include classroomId if exists
-        Long classroomId = null;
-        try {
-            if (user.getClassroom() != null) {
-                classroomId = user.getClassroom().getClassId();
-            }
-        } catch (Exception e) {
-            classroomId = null;
-        }
+    public CompletableFuture<String> login(@RequestBody LoginDTO dto) {
+        return loginService.login(dto);
+    }
 
-        return jwtUtil.generateToken(
-                user.getUserId(),
-                user.getEmail(),
-                user.getRole().name(),
-                schoolId,
-                classroomId,
-                user.getName()
-        );
+    // Revokes the calling token (other sessions of the user stay valid)
+    @PostMapping("/logout")
+    public String logout(@AuthenticationPrincipal AuthenticatedUser me) {
+        tokenRevocationService.revokeToken(me.getTokenId(), me.getTokenExpiresAt(), me.getUserId(), "logout");
+        return "Logged out";
     }
 
     // ------------------------------------------------------
@@ -325,10 +326,47 @@ public class UserController {
     // ------------------------------------------------------
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ADMIN','SCHOOLADMIN','PRINCIPAL')")
-    public List<UserDTO> getAllUsers() {
+    public List<UserDTO> getAllUsers(@AuthenticationPrincipal AuthenticatedUser me) {
+        // school admins / principals only get their own school (use /page for large schools)
+        if (me != null && !me.hasRole("ADMIN") && me.getSchoolId() != null) {
+            return userService.getUsersBySchool(me.getSchoolId());
+        }
         return userService.getAllUsers();
     }
 
+    // Paged directory: /api/users/page?after={nextCursor}&limit=50&schoolId=&role=&status=&classroomId=
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyAuthority('ADMIN','SCHOOLADMIN','PRINCIPAL','TEACHER')")
+    public UserPageDTO getUserPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long schoolId,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long classroomId,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        return userService.getUserDirectory(after, limit, schoolId, role, status, classroomId, me);
+    }
+
+    // Typeahead: /api/users/search?q=ann&role=STUDENT&limit=10 (matches name / email word prefixes)
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyAuthority('ADMIN','SCHOOLADMIN','PRINCIPAL','TEACHER')")
+    public List<UserDTO> searchUsers(
+            @RequestParam String q,
+            @RequestParam(required = false) Long schoolId,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        return userService.searchUsers(q, schoolId, role, limit, me);
+    }
+
+    // Batch profile lookup: /api/users/batch?ids=3,4,5 (unknown ids are skipped, max 500)
+    @GetMapping("/batch")
+    @PreAuthorize("hasAnyAuthority('ADMIN','SCHOOLADMIN','PRINCIPAL','TEACHER','STUDENT')")
+    public List<UserDTO> getUsersByIds(@RequestParam List<Long> ids) {
+        return userService.getUsersByIds(ids);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ADMIN','SCHOOLADMIN','PRINCIPAL','TEACHER','STUDENT')")
     public UserDTO getUserById(@PathVariable Long id) {
@@ -348,47 +386,84 @@ public class UserController {
         return userService.getPendingUsersBySchool(schoolId);
     }
 
+    // School scoping uses the caller's schoolId from the token; the path value is only a fallback
     @PutMapping("/{userId}/approve/{adminSchoolId}")
     @PreAuthorize("hasAnyAuthority('SCHOOLADMIN','PRINCIPAL')")
-    public UserDTO approveUser(@PathVariable Long userId, @PathVariable Long adminSchoolId) throws AccessDeniedException {
-        return userService.approveUser(userId, adminSchoolId);
+    public UserDTO approveUser(@PathVariable Long userId, @PathVariable Long adminSchoolId,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        return userService.approveUser(userId, callerSchoolId(me, adminSchoolId));
     }
 
     @PutMapping("/{userId}/reject/{adminSchoolId}")
     @PreAuthorize("hasAnyAuthority('SCHOOLADMIN','PRINCIPAL')")
-    public UserDTO rejectUser(@PathVariable Long userId, @PathVariable Long adminSchoolId) throws AccessDeniedException {
-        return userService.rejectUser(userId, adminSchoolId);
+    public UserDTO rejectUser(@PathVariable Long userId, @PathVariable Long adminSchoolId,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        return userService.rejectUser(userId, callerSchoolId(me, adminSchoolId));
+    }
+
+    // Bulk approve / reject for the caller's school: explicit userIds or all PENDING users (optional role)
+    @PutMapping("/approval/bulk")
+    @PreAuthorize("hasAnyAuthority('SCHOOLADMIN','PRINCIPAL')")
+    public BulkApprovalResultDTO bulkApproval(@RequestBody BulkApprovalRequestDTO request,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        return userService.bulkUpdateApproval(request, me);
     }
 
+    // {principalId} is kept for API compatibility; the caller is taken from the token
     @PutMapping("/{userId}/role/{principalId}")
     @PreAuthorize("hasAnyAuthority('PRINCIPAL','ADMIN')")
     public UserDTO updateUserRole(
             @PathVariable Long userId,
             @PathVariable Long principalId,
-            @RequestBody String newRole) throws AccessDeniedException {
+            @RequestBody String newRole,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        return userService.updateUserRole(userId, newRole, me);
+    }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
+    // Small imports: runs inline and returns the created users (duplicates / invalid rows are skipped)
+    @PostMapping("/bulk-register")
+    @PreAuthorize("hasAnyAuthority('ADMIN','SCHOOLADMIN','PRINCIPAL')")
+    public List<UserDTO> bulkRegister(@RequestBody List<RegisterDTO> usersDto,
+            @AuthenticationPrincipal AuthenticatedUser me) {
+        return userImportService.importNow(usersDto, me);
+    }
 
-        User.Role roleEnum = User.Role.valueOf(newRole.toUpperCase());
-        user.setRole(roleEnum);
-        userRepository.save(user);
+    // ------------------------------------------------------
+    // BULK IMPORT (background job, poll for progress / skipped and failed rows)
+    // ------------------------------------------------------
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('ADMIN','SCHOOLADMIN','PRINCIPAL')")
+    public ResponseEntity<UserImportJobDTO> importJson(InputStream body,
+            @AuthenticationPrincipal AuthenticatedUser me) throws IOException {
+        return ResponseEntity.accepted().body(userImportService.startImport(body, UserImportService.Format.JSON, me));
+    }
 
-        UserDTO userDTO = new UserDTO();
-        userDTO.setUserId(user.getUserId());
-        userDTO.setName(user.getName());
-        userDTO.setEmail(user.getEmail());
-        userDTO.setRole(user.getRole().name());
-        userDTO.setSchoolId(user.getSchool().getSchoolId());
-        userDTO.setApprovalStatus(user.getApprovalStatus().name());
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasAnyAuthority('ADMIN','SCHOOLADMIN','PRINCIPAL')")
+    public ResponseEntity<UserImportJobDTO> importCsv(InputStream body,
+            @AuthenticationPrincipal AuthenticatedUser me) throws IOException {
+        return ResponseEntity.accepted().body(userImportService.startImport(body, UserImportService.Format.CSV, me));
+    }
 
-        return userDTO;
+    // multipart upload: .csv is read as CSV, anything else as a JSON array
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyAuthority('ADMIN','SCHOOLADMIN','PRINCIPAL')")
+    public ResponseEntity<UserImportJobDTO> importFile(@RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal AuthenticatedUser me) throws IOException {
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase() : "";
+        try (InputStream in = file.getInputStream()) {
+            UserImportService.Format format = name.endsWith(".csv")
+                    ? UserImportService.Format.CSV : UserImportService.Format.JSON;
+            return ResponseEntity.accepted().body(userImportService.startImport(in, format, me));
+        }
     }
 
-    @PostMapping("/bulk-register")
+    @GetMapping("/import/{jobId}")
     @PreAuthorize("hasAnyAuthority('ADMIN','SCHOOLADMIN','PRINCIPAL')")
-    public List<UserDTO> bulkRegister(@RequestBody List<RegisterDTO> usersDto) {
-        return userService.bulkRegister(usersDto);
+    public UserImportJobDTO getImportJob(@PathVariable String jobId,
+            @RequestParam(defaultValue = "true") boolean includeResults,
+            @AuthenticationPrincipal AuthenticatedUser me) throws AccessDeniedException {
+        return userImportService.getJob(jobId, includeResults, me);
     }
 
     @PostMapping("/forgot-password")
@@ -410,4 +485,8 @@ public class UserController {
     public List<UserDTO> getTeachersBySchool(@RequestParam Long schoolId) {
         return userService.getUsersBySchoolAndRole(schoolId, User.Role.TEACHER);
     }
+
+    private Long callerSchoolId(AuthenticatedUser me, Long fallback) {
+        return me != null && me.getSchoolId() != null ? me.getSchoolId() : fallback;
+    }
 }
@@ -0,0 +1,12 @@
+package edu.example.edu.DTO;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class BulkApprovalRequestDTO {
+    private String action;        // APPROVE or REJECT
+    private List<Long> userIds;   // explicit ids, OR leave empty to use the filter below
+    private String role;          // filter: PENDING users of the caller's school with this role (null = any role)
+}
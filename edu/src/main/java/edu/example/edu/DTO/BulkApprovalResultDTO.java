@@ -0,0 +1,13 @@
+package edu.example.edu.DTO;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class BulkApprovalResultDTO {
+    private String action;
+    private int requested;
+    private int updated;
+    private List<Long> rejectedIds;   // ids not found or not in the caller's school
+}
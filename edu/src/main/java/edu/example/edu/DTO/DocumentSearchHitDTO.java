@@ -0,0 +1,13 @@
+package edu.example.edu.DTO;
+
+import lombok.Data;
+
+@Data
+public class DocumentSearchHitDTO {
+    private String docType;            // ASSIGNMENT or SYLLABUS
+    private Long docId;                // assignmentId / syllabusId
+    private Long classroomId;
+    private String title;
+    private String fileLink;
+    private double score;              // tf-idf, higher is better
+}
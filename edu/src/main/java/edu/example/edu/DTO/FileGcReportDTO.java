@@ -0,0 +1,23 @@
+package edu.example.edu.DTO;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class FileGcReportDTO {
+    private boolean dryRun;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private boolean passComplete;      // this run reached the end of the store (next run starts over)
+    private int scanned;               // files checked against fileLink / file_blobs
+    private int quarantined;           // unreferenced and older than the grace period, moved aside
+    private long quarantinedBytes;
+    private int restored;              // quarantined files that became referenced again
+    private int deleted;               // quarantined past the grace period, or stale upload temp files
+    private long reclaimedBytes;
+    private int failed;
+    private List<String> errors = new ArrayList<>();   // first few failures only
+}
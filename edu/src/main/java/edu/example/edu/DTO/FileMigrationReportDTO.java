@@ -0,0 +1,16 @@
+package edu.example.edu.DTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class FileMigrationReportDTO {
+    private boolean dryRun;
+    private int scanned;           // files found in the old flat directories
+    private int moved;
+    private int linksRewritten;    // entity rows whose fileLink now points at the new key
+    private int failed;
+    private List<String> errors = new ArrayList<>();   // first few failures only
+}
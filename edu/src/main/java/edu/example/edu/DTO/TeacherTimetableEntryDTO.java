@@ -0,0 +1,19 @@
+package edu.example.edu.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeacherTimetableEntryDTO {
+    private Long timetableId;
+    private String dayOfWeek;
+    private Integer periodNumber;
+    private Long classroomId;
+    private String classroomName;
+    private String section;
+    private Long subjectId;
+    private String subjectName;
+}
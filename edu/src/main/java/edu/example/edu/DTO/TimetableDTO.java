@@ -10,4 +10,5 @@ public class TimetableDTO {
     private Long teacherId;
     private String dayOfWeek;   
     private Integer periodNumber;
+    private Long substituteTeacherId;   // read only: today's cover for this lesson (class week view)
 }
\ No newline at end of file
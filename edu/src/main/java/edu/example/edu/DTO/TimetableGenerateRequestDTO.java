@@ -0,0 +1,17 @@
+package edu.example.edu.DTO;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class TimetableGenerateRequestDTO {
+    private Long schoolId;                  // ADMIN only; everyone else generates for their own school
+    private Integer days;                   // 5 = MON..FRI (default), 6 = MON..SAT
+    private Integer periodsPerDay;          // default 8
+    private Integer firstPeriod;            // number of the first period of a day (default 1)
+    private Integer defaultPeriodsPerWeek;  // subjects without a target (default 4)
+    private List<TimetablePeriodTargetDTO> targets;
+    private Long seed;                      // same seed + same input = same timetable
+    private boolean dryRun;                 // solve and report, write nothing
+}
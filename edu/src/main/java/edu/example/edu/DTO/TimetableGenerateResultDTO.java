@@ -0,0 +1,25 @@
+package edu.example.edu.DTO;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class TimetableGenerateResultDTO {
+    private Long schoolId;
+    private int classrooms;
+    private int teachers;
+    private int lessons;
+    private boolean solved;         // clash-free timetable found
+    private int clashes;            // left in the best attempt when not solved
+    private int unevenDays;         // lessons beyond an even spread of a subject over the week
+    private int restarts;
+    private long iterations;
+    private long solveMillis;
+    private boolean applied;        // written through the bulk grid save
+    private int inserted;
+    private int updated;
+    private int deleted;
+    private String message;
+    private List<TimetableGridResultDTO> grids;   // per class, for dry runs and when nothing was written
+}
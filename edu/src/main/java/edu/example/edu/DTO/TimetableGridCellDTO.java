@@ -0,0 +1,15 @@
+package edu.example.edu.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableGridCellDTO {
+    private String dayOfWeek;       // MON..SAT
+    private Integer periodNumber;
+    private Long subjectId;         // null (with teacherId null) = free period
+    private Long teacherId;
+}
@@ -0,0 +1,18 @@
+package edu.example.edu.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableGridCellResultDTO {
+    private String dayOfWeek;
+    private Integer periodNumber;
+    private String status;      // INSERTED, UPDATED, UNCHANGED, DELETED, CONFLICT
+    private Long timetableId;
+    private Long subjectId;
+    private Long teacherId;
+    private String message;     // why the cell conflicts
+}
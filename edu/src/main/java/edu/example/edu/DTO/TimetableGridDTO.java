@@ -0,0 +1,16 @@
+package edu.example.edu.DTO;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A classroom's whole week: slots missing from cells are cleared
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableGridDTO {
+    private Long classroomId;
+    private List<TimetableGridCellDTO> cells;
+}
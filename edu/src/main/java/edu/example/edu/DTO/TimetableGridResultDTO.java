@@ -0,0 +1,17 @@
+package edu.example.edu.DTO;
+
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class TimetableGridResultDTO {
+    private Long classroomId;
+    private boolean applied;    // false = nothing written (conflicts, or dry run)
+    private int inserted;
+    private int updated;
+    private int deleted;
+    private int unchanged;
+    private int conflicts;
+    private List<TimetableGridCellResultDTO> cells;
+}
@@ -0,0 +1,14 @@
+package edu.example.edu.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetablePeriodTargetDTO {
+    private Long classroomId;       // null = every class that takes the subject
+    private Long subjectId;
+    private Integer periodsPerWeek;
+}
@@ -0,0 +1,10 @@
+package edu.example.edu.DTO;
+
+import lombok.Data;
+
+@Data
+public class UploadInitiateDTO {
+    private String area;            // SUBMISSIONS or SYLLABUS
+    private String fileName;
+    private Long totalSize;
+}
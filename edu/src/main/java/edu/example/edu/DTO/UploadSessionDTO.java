@@ -0,0 +1,16 @@
+package edu.example.edu.DTO;
+
+import java.time.Instant;
+
+import lombok.Data;
+
+@Data
+public class UploadSessionDTO {
+    private String uploadId;
+    private String area;            // SUBMISSIONS or SYLLABUS
+    private String fileName;
+    private long totalSize;
+    private long offset;            // bytes received so far = where the next chunk starts
+    private long maxChunkBytes;
+    private Instant expiresAt;      // if no chunk arrives before then
+}
@@ -0,0 +1,22 @@
+package edu.example.edu.DTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class UserImportJobDTO {
+    private String jobId;
+    private String status;      // RUNNING, COMPLETED, FAILED
+    private int totalRows;      // rows read so far (the file is streamed); final once not RUNNING
+    private int processedRows;
+    private int created;
+    private int skipped;
+    private int failed;
+    private String message;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private List<UserImportRowResultDTO> results;   // skipped / failed rows only, first users.import.max-reported-rows
+    private boolean resultsTruncated;
+}
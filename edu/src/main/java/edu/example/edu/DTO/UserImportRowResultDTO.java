@@ -0,0 +1,16 @@
+package edu.example.edu.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportRowResultDTO {
+    private int rowNumber;      // 1-based position in the uploaded file
+    private String email;
+    private String status;      // CREATED, SKIPPED_DUPLICATE, FAILED
+    private Long userId;
+    private String message;
+}
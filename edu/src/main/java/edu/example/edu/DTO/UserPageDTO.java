@@ -0,0 +1,13 @@
+package edu.example.edu.DTO;
+
+import java.util.List;
+
+import lombok.Data;
+
+// One page of the user directory; pass nextCursor back as "after" to get the next page
+@Data
+public class UserPageDTO {
+    private List<UserDTO> items;
+    private Long nextCursor;   // null when this is the last page
+    private boolean hasMore;
+}
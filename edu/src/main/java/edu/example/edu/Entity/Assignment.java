@@ -6,7 +6,9 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Entity
-@Table(name = "assignments")
+@Table(name = "assignments", indexes = {
+        @Index(name = "idx_assignments_file_link", columnList = "fileLink")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
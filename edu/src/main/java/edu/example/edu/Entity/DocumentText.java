@@ -0,0 +1,60 @@
+package edu.example.edu.Entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Extracted text of one Assignment / Syllabus file, as fed into DocumentSearchIndex.
+ * Kept so the in-memory index can be rebuilt at startup (and followed by other instances)
+ * without opening every file again. indexedAt moves on every change, including removal
+ * (status REMOVED, content cleared), so instances can poll for what changed.
+ */
+@Entity
+@Table(name = "document_texts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_document_texts_doc", columnNames = { "docType", "docId" }),
+        indexes = @Index(name = "idx_document_texts_indexed_at", columnList = "indexedAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentText {
+
+    public enum DocType { ASSIGNMENT, SYLLABUS }
+
+    public enum Status { INDEXED, NO_TEXT, FAILED, REMOVED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private DocType docType;
+
+    @Column(nullable = false)
+    private Long docId;
+
+    // file the content was extracted from (null = title / description only)
+    private String fileLink;
+
+    private Long schoolId;
+
+    private Long classroomId;
+
+    private String title;
+
+    // description (and module name for a syllabus) at the time of indexing
+    @Column(length = 1000)
+    private String description;
+
+    // text extracted from the file, capped at files.index.max-chars
+    @Lob
+    private String content;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Status status;
+
+    private Instant indexedAt;
+}
@@ -0,0 +1,34 @@
+package edu.example.edu.Entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One content-addressed upload (uploads/blobs/{ab}/{cd}/{sha256}).
+ * refCount = number of Assignment / Submission / Syllabus rows whose fileLink points at it;
+ * a blob at 0 is only removed by the orphan collector after a grace period.
+ */
+@Entity
+@Table(name = "file_blobs", indexes = {
+        @Index(name = "idx_file_blobs_ref_count", columnList = "refCount")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileBlob {
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    private long size;
+
+    private long refCount;
+
+    private Instant createdAt;
+
+    // last time refCount was decremented (grace period for the orphan collector)
+    private Instant releasedAt;
+}
@@ -0,0 +1,36 @@
+package edu.example.edu.Entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One revocation: either a single token (tokenId = JWT "jti") or every token of a user
+ * issued before notBefore (password change, role change, rejection, delete).
+ * Rows are only useful until expiresAt (= latest possible expiry of an affected token).
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String tokenId;
+
+    private Long userId;
+
+    private Instant notBefore;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    private String reason;
+}
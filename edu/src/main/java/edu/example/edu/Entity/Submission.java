@@ -5,7 +5,9 @@ import lombok.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "submissions")
+@Table(name = "submissions", indexes = {
+        @Index(name = "idx_submissions_file_link", columnList = "fileLink")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -4,7 +4,12 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "timetables")
+@Table(name = "timetables", uniqueConstraints = {
+        // final guard behind TimetableOccupancyIndex: one lesson per teacher / classroom per slot;
+        // also the (teacher | classroom, day, period) indexes the teacher and class timetable queries use
+        @UniqueConstraint(name = "uk_timetables_teacher_slot", columnNames = { "teacher_id", "dayOfWeek", "periodNumber" }),
+        @UniqueConstraint(name = "uk_timetables_classroom_slot", columnNames = { "classroom_id", "dayOfWeek", "periodNumber" })
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,30 @@
+package edu.example.edu.Entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One change to a class's week (a timetable row, or a substitution for today), written in the same
+ * transaction as the change. Other instances poll these by changedAt to drop their cached copy of
+ * the week (ClassTimetableCache); rows are purged after an hour.
+ */
+@Entity
+@Table(name = "timetable_changes",
+        indexes = @Index(name = "idx_timetable_changes_changed_at", columnList = "changedAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long classId;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+}
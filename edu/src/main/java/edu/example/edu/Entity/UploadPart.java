@@ -0,0 +1,35 @@
+package edu.example.edu.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One accepted chunk of a resumable upload (UploadSession). The bytes are in the BlobStore under
+ * partName, which is unique per write attempt; a row is only inserted in the transaction whose
+ * conditional UPDATE moved the session offset, so a retried or raced chunk that lost never
+ * replaces the part that was accepted. Parts are read back in partOffset order.
+ */
+@Entity
+@Table(name = "upload_parts", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_upload_parts_offset", columnNames = { "uploadId", "partOffset" })
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadPart {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 32)
+    private String uploadId;
+
+    private long partOffset;
+
+    private long size;
+
+    // object / file name under the upload's parts directory: {offset}-{random}
+    @Column(nullable = false, length = 40)
+    private String partName;
+}
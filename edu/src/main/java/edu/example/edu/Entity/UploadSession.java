@@ -0,0 +1,49 @@
+package edu.example.edu.Entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One resumable upload in progress (ResumableUploadService). The bytes live in the BlobStore as
+ * one part per chunk; receivedBytes is the offset the next chunk must start at.
+ * Completed or aborted sessions are deleted; idle ones expire. state moves OPEN -> COMPLETING in
+ * one conditional UPDATE, so exactly one instance turns the parts into a file.
+ */
+@Entity
+@Table(name = "upload_sessions", indexes = {
+        @Index(name = "idx_upload_sessions_updated_at", columnList = "updatedAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    public enum State { OPEN, COMPLETING }
+
+    @Id
+    @Column(length = 32)
+    private String uploadId;
+
+    // FileStorageService.Area name
+    @Column(nullable = false, length = 20)
+    private String area;
+
+    private String fileName;
+
+    private long totalSize;
+
+    private long receivedBytes;
+
+    // null on rows created before the column existed = OPEN
+    @Enumerated(EnumType.STRING)
+    @Column(length = 12)
+    private State state;
+
+    private Long ownerId;
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+}
@@ -9,6 +9,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -18,7 +19,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "users")
+// Keyset directory paging (UserRepository.findDirectoryPage): each filter combination
+// seeks on an index ending in user_id, so "where ... and user_id > :after order by user_id" never sorts
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_school_role_id", columnList = "school_id, role, userId"),
+        @Index(name = "idx_users_school_status_id", columnList = "school_id, approvalStatus, userId"),
+        @Index(name = "idx_users_classroom_id", columnList = "classroom_id, userId"),
+        @Index(name = "idx_users_role_status_id", columnList = "role, approvalStatus, userId")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -1,9 +1,16 @@
 package edu.example.edu.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.example.edu.Entity.Assignment;
 
@@ -12,4 +19,30 @@ public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     List<Assignment> findByClassroom_ClassId(Long classId);  // use classId
     List<Assignment> findByTeacher_UserId(Long teacherId);   // already correct
     List<Assignment> findBySubject_SubjectId(Long subjectId); // already correct
+
+    // file storage migration: point every row at the relocated file
+    @Modifying
+    @Transactional
+    @Query("update Assignment a set a.fileLink = :newLink where a.fileLink = :oldLink")
+    int replaceFileLink(@Param("oldLink") String oldLink, @Param("newLink") String newLink);
+
+    // orphan collector: which of these links are still referenced
+    @Query("select distinct a.fileLink from Assignment a where a.fileLink in :links")
+    List<String> findReferencedFileLinks(@Param("links") Collection<String> links);
+
+    @Query("select count(a) > 0 from Assignment a where a.fileLink like :prefix")
+    boolean existsByFileLinkPrefix(@Param("prefix") String prefix);
+
+    // document indexer: rows whose current file (or lack of one) has no extracted text yet
+    @Query("select a.assignmentId from Assignment a where not exists (select 1 from DocumentText d"
+            + " where d.docType = edu.example.edu.Entity.DocumentText.DocType.ASSIGNMENT and d.docId = a.assignmentId"
+            + " and d.status <> edu.example.edu.Entity.DocumentText.Status.REMOVED"
+            + " and (d.fileLink = a.fileLink or (d.fileLink is null and a.fileLink is null)))"
+            + " order by a.assignmentId")
+    List<Long> findUnindexedIds(Limit limit);
+
+    @Query("select a.title as title, a.description as description, a.fileLink as fileLink,"
+            + " c.classId as classroomId, c.school.schoolId as schoolId"
+            + " from Assignment a join a.classroom c where a.assignmentId = :id")
+    Optional<DocumentTextRepository.SourceRow> findIndexSource(@Param("id") Long id);
 }
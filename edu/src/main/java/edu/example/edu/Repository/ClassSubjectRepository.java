@@ -1,8 +1,11 @@
 package edu.example.edu.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import edu.example.edu.Entity.ClassSubject;
@@ -16,4 +19,15 @@ public interface ClassSubjectRepository extends JpaRepository<ClassSubject, Long
     List<ClassSubject> findByClassroomAndSubject(Classroom classroom, Subject subject);
 
     boolean existsByClassroomAndSubjectAndTeacher(Classroom classroom, Subject subject, User teacher);
+
+    // Who teaches which subject in the given classrooms, ids only (bulk timetable validation)
+    interface AssignmentRow {
+        Long getClassroomId();
+        Long getSubjectId();
+        Long getTeacherId();
+    }
+
+    @Query("select cs.classroom.classId as classroomId, cs.subject.subjectId as subjectId, t.userId as teacherId"
+            + " from ClassSubject cs left join cs.teacher t where cs.classroom.classId in :classIds")
+    List<AssignmentRow> findAssignments(@Param("classIds") Collection<Long> classIds);
 }
@@ -1,8 +1,11 @@
 package edu.example.edu.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import edu.example.edu.Entity.Classroom;
@@ -10,4 +13,19 @@ import edu.example.edu.Entity.Classroom;
 @Repository
 public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
     List<Classroom> findBySchool_SchoolId(Long schoolId);
+
+    // Id, name and school only - no eager school / teacher / student loading
+    interface ClassroomRow {
+        Long getClassId();
+        String getName();
+        Long getSchoolId();
+    }
+
+    @Query("select c.classId as classId, c.name as name, c.school.schoolId as schoolId from Classroom c"
+            + " where c.classId in :ids")
+    List<ClassroomRow> findRowsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("select c.classId as classId, c.name as name, c.school.schoolId as schoolId from Classroom c"
+            + " where c.school.schoolId = :schoolId order by c.classId")
+    List<ClassroomRow> findRowsBySchool(@Param("schoolId") Long schoolId);
 }
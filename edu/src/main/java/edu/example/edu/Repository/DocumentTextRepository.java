@@ -0,0 +1,52 @@
+package edu.example.edu.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.example.edu.Entity.DocumentText;
+import edu.example.edu.Entity.DocumentText.DocType;
+
+@Repository
+public interface DocumentTextRepository extends JpaRepository<DocumentText, Long> {
+
+    // What DocumentIndexer reads from an Assignment / Syllabus (AssignmentRepository / SyllabusRepository.findIndexSource)
+    interface SourceRow {
+        String getTitle();
+        String getDescription();
+        String getFileLink();
+        Long getClassroomId();
+        Long getSchoolId();
+    }
+
+    Optional<DocumentText> findByDocTypeAndDocId(DocType docType, Long docId);
+
+    // startup load, keyset by id
+    List<DocumentText> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // changes made since the last poll (this or another instance)
+    List<DocumentText> findByIndexedAtGreaterThanOrderByIndexedAtAsc(Instant after, Limit limit);
+
+    // rows still indexed although their Assignment / Syllabus is gone (a removal that never ran)
+    @Query("select d from DocumentText d where d.status <> edu.example.edu.Entity.DocumentText.Status.REMOVED and ("
+            + "(d.docType = edu.example.edu.Entity.DocumentText.DocType.ASSIGNMENT"
+            + " and not exists (select 1 from Assignment a where a.assignmentId = d.docId))"
+            + " or (d.docType = edu.example.edu.Entity.DocumentText.DocType.SYLLABUS"
+            + " and not exists (select 1 from Syllabus s where s.syllabusId = d.docId)))"
+            + " order by d.id")
+    List<DocumentText> findOrphaned(Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("delete from DocumentText d where d.status = edu.example.edu.Entity.DocumentText.Status.REMOVED"
+            + " and d.indexedAt < :before")
+    int purgeRemoved(@Param("before") Instant before);
+}
@@ -0,0 +1,46 @@
+package edu.example.edu.Repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.example.edu.Entity.FileBlob;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    // Counter updates are single UPDATEs so concurrent saves never lose an increment
+    @Modifying
+    @Transactional
+    @Query("update FileBlob b set b.refCount = b.refCount + 1 where b.sha256 = :sha256")
+    int retain(@Param("sha256") String sha256);
+
+    // file storage migration: `count` rows switched to this blob at once
+    @Modifying
+    @Transactional
+    @Query("update FileBlob b set b.refCount = b.refCount + :count where b.sha256 = :sha256")
+    int retain(@Param("sha256") String sha256, @Param("count") int count);
+
+    @Modifying
+    @Transactional
+    @Query("update FileBlob b set b.refCount = b.refCount - 1, b.releasedAt = :now"
+            + " where b.sha256 = :sha256 and b.refCount > 0")
+    int release(@Param("sha256") String sha256, @Param("now") Instant now);
+
+    // dedup hit on an unreferenced blob: restart its grace period so the collector keeps it until retain()
+    @Modifying
+    @Transactional
+    @Query("update FileBlob b set b.releasedAt = :now where b.sha256 = :sha256 and b.refCount = 0")
+    int touchUnreferenced(@Param("sha256") String sha256, @Param("now") Instant now);
+
+    // orphan collector: final removal only while still unreferenced
+    @Modifying
+    @Transactional
+    @Query("delete from FileBlob b where b.sha256 = :sha256 and b.refCount = 0")
+    int deleteIfUnreferenced(@Param("sha256") String sha256);
+}
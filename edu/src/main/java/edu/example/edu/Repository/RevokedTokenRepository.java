@@ -0,0 +1,20 @@
+package edu.example.edu.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.example.edu.Entity.RevokedToken;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    // Incremental resync: everything after the last id this node has seen
+    List<RevokedToken> findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(Long id, Instant now);
+
+    @Transactional
+    long deleteByExpiresAtBefore(Instant now);
+}
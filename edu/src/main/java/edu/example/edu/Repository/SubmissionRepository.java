@@ -1,9 +1,16 @@
 package edu.example.edu.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.example.edu.Entity.Submission;
 
@@ -13,4 +20,34 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     List<Submission> findByStudent_UserId(Long studentId);
     List<Submission> findByAssignment_AssignmentIdAndStudent_UserId(Long assignmentId, Long studentId);
 
+    // file storage migration: point every row at the relocated file
+    @Modifying
+    @Transactional
+    @Query("update Submission s set s.fileLink = :newLink where s.fileLink = :oldLink")
+    int replaceFileLink(@Param("oldLink") String oldLink, @Param("newLink") String newLink);
+
+    // orphan collector: which of these links are still referenced
+    @Query("select distinct s.fileLink from Submission s where s.fileLink in :links")
+    List<String> findReferencedFileLinks(@Param("links") Collection<String> links);
+
+    @Query("select count(s) > 0 from Submission s where s.fileLink like :prefix")
+    boolean existsByFileLinkPrefix(@Param("prefix") String prefix);
+
+    // ZIP export: keyset pages of just the columns the archive and manifest need
+    @Query("select s.submissionId as submissionId, st.userId as studentId, st.name as studentName,"
+            + " s.submissionDate as submissionDate, s.fileLink as fileLink, s.grade as grade, s.feedback as feedback"
+            + " from Submission s join s.student st"
+            + " where s.assignment.assignmentId = :assignmentId and s.submissionId > :afterId"
+            + " order by s.submissionId")
+    List<ExportRow> findExportPage(@Param("assignmentId") Long assignmentId, @Param("afterId") Long afterId, Limit limit);
+
+    interface ExportRow {
+        Long getSubmissionId();
+        Long getStudentId();
+        String getStudentName();
+        LocalDate getSubmissionDate();
+        String getFileLink();
+        String getGrade();
+        String getFeedback();
+    }
 }
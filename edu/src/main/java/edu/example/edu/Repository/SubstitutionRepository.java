@@ -1,9 +1,12 @@
 package edu.example.edu.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import edu.example.edu.Entity.Substitution;
@@ -13,4 +16,20 @@ import edu.example.edu.Entity.User;
 public interface SubstitutionRepository extends JpaRepository<Substitution, Long> {
     List<Substitution> findByDate(LocalDate date);
     List<Substitution> findBySubstituteTeacher(User teacher);
+
+    // Who covers which lesson of a class on a day (ClassTimetableCache)
+    interface CoverRow {
+        Long getTimetableId();
+        Long getSubstituteTeacherId();
+    }
+
+    @Query("select s.timetable.timetableId as timetableId, s.substituteTeacher.userId as substituteTeacherId"
+            + " from Substitution s where s.date = :date and s.timetable.classroom.classId = :classId")
+    List<CoverRow> findCoverForClass(@Param("classId") Long classId, @Param("date") LocalDate date);
+
+    // Which of these lessons still have substitutions before a date (TimetableGridService keeps that history)
+    @Query("select distinct s.timetable.timetableId from Substitution s"
+            + " where s.timetable.timetableId in :timetableIds and s.date < :date")
+    List<Long> findTimetableIdsWithSubstitutionsBefore(@Param("timetableIds") Collection<Long> timetableIds,
+                                                       @Param("date") LocalDate date);
 }
@@ -1,14 +1,46 @@
 package edu.example.edu.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.example.edu.Entity.Syllabus;
 
 @Repository
 public interface SyllabusRepository extends JpaRepository<Syllabus, Long> {
     List<Syllabus> findByClassSubject_Id(Long classSubjectId);
-    
+
+    // file storage migration: point every row at the relocated file
+    @Modifying
+    @Transactional
+    @Query("update Syllabus s set s.fileLink = :newLink where s.fileLink = :oldLink")
+    int replaceFileLink(@Param("oldLink") String oldLink, @Param("newLink") String newLink);
+
+    // orphan collector: which of these links are still referenced
+    @Query("select distinct s.fileLink from Syllabus s where s.fileLink in :links")
+    List<String> findReferencedFileLinks(@Param("links") Collection<String> links);
+
+    @Query("select count(s) > 0 from Syllabus s where s.fileLink like :prefix")
+    boolean existsByFileLinkPrefix(@Param("prefix") String prefix);
+
+    // document indexer: rows whose current file (or lack of one) has no extracted text yet
+    @Query("select s.syllabusId from Syllabus s where not exists (select 1 from DocumentText d"
+            + " where d.docType = edu.example.edu.Entity.DocumentText.DocType.SYLLABUS and d.docId = s.syllabusId"
+            + " and d.status <> edu.example.edu.Entity.DocumentText.Status.REMOVED"
+            + " and (d.fileLink = s.fileLink or (d.fileLink is null and s.fileLink is null)))"
+            + " order by s.syllabusId")
+    List<Long> findUnindexedIds(Limit limit);
+
+    @Query("select s.title as title, concat(coalesce(s.moduleName, ''), ' ', coalesce(s.description, '')) as description,"
+            + " s.fileLink as fileLink, c.classId as classroomId, c.school.schoolId as schoolId"
+            + " from Syllabus s join s.classSubject cs join cs.classroom c where s.syllabusId = :id")
+    Optional<DocumentTextRepository.SourceRow> findIndexSource(@Param("id") Long id);
 }
@@ -0,0 +1,26 @@
+package edu.example.edu.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.example.edu.Entity.TimetableChange;
+
+@Repository
+public interface TimetableChangeRepository extends JpaRepository<TimetableChange, Long> {
+
+    // changes made since the last poll (this or another instance)
+    List<TimetableChange> findByChangedAtGreaterThanOrderByChangedAtAsc(Instant after, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("delete from TimetableChange c where c.changedAt < :before")
+    int purgeBefore(@Param("before") Instant before);
+}
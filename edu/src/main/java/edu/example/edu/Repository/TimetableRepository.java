@@ -14,10 +14,15 @@
 // }
 package edu.example.edu.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import edu.example.edu.Entity.Classroom;
 import edu.example.edu.Entity.Timetable;
 import edu.example.edu.Entity.User;
 
@@ -51,4 +56,91 @@ public interface TimetableRepository extends JpaRepository<Timetable, Long> {
                         Timetable.DayOfWeek dayOfWeek,
                         Integer periodNumber,
                         Long timetableId);
+
+        // ✅ Lesson already holding a classroom slot (conflict message), ignoring the row being edited
+        java.util.Optional<Timetable> findFirstByClassroomAndDayOfWeekAndPeriodNumberAndTimetableIdNot(
+                        Classroom classroom,
+                        Timetable.DayOfWeek dayOfWeek,
+                        Integer periodNumber,
+                        Long timetableId);
+
+        // ✅ TimetableOccupancyIndex load: one compact row per timetable entry, keyset by id
+        interface OccupancyRow {
+                Long getTimetableId();
+                Long getSchoolId();
+                Long getClassroomId();
+                Long getTeacherId();
+                Timetable.DayOfWeek getDayOfWeek();
+                int getPeriodNumber();
+        }
+
+        @Query("select t.timetableId as timetableId, c.school.schoolId as schoolId, c.classId as classroomId,"
+                        + " tt.userId as teacherId, t.dayOfWeek as dayOfWeek, t.periodNumber as periodNumber"
+                        + " from Timetable t join t.classroom c left join t.teacher tt"
+                        + " where t.timetableId > :after order by t.timetableId")
+        List<OccupancyRow> findOccupancyPage(@Param("after") Long after, Limit limit);
+
+        // ✅ Bulk grid save: current lessons of the given classrooms, ids only
+        interface GridRow {
+                Long getTimetableId();
+                Long getClassroomId();
+                Long getSubjectId();
+                Long getTeacherId();
+                Timetable.DayOfWeek getDayOfWeek();
+                int getPeriodNumber();
+        }
+
+        @Query("select t.timetableId as timetableId, t.classroom.classId as classroomId, t.subject.subjectId as subjectId,"
+                        + " tt.userId as teacherId, t.dayOfWeek as dayOfWeek, t.periodNumber as periodNumber"
+                        + " from Timetable t left join t.teacher tt where t.classroom.classId in :classIds")
+        List<GridRow> findGridRows(@Param("classIds") Collection<Long> classIds);
+
+        // ✅ Which of these rows still exist (confirms clashes reported by TimetableOccupancyIndex)
+        @Query("select t.timetableId from Timetable t where t.timetableId in :ids")
+        List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+        // ✅ Startup check (TimetableSlotConstraintCheck): slots held by more than one lesson, which keep
+        // ddl-auto from adding uk_timetables_teacher_slot / uk_timetables_classroom_slot
+        interface SlotClashRow {
+                Long getOwnerId();
+                Timetable.DayOfWeek getDayOfWeek();
+                int getPeriodNumber();
+                long getLessons();
+        }
+
+        @Query("select t.teacher.userId as ownerId, t.dayOfWeek as dayOfWeek, t.periodNumber as periodNumber,"
+                        + " count(t) as lessons from Timetable t where t.teacher is not null and t.dayOfWeek is not null"
+                        + " group by t.teacher.userId, t.dayOfWeek, t.periodNumber having count(t) > 1")
+        List<SlotClashRow> findTeacherSlotClashes(Limit limit);
+
+        @Query("select t.classroom.classId as ownerId, t.dayOfWeek as dayOfWeek, t.periodNumber as periodNumber,"
+                        + " count(t) as lessons from Timetable t where t.dayOfWeek is not null"
+                        + " group by t.classroom.classId, t.dayOfWeek, t.periodNumber having count(t) > 1")
+        List<SlotClashRow> findClassroomSlotClashes(Limit limit);
+
+        // ✅ Teacher's lessons with class and subject names in one query (served by uk_timetables_teacher_slot)
+        interface TeacherSlotRow {
+                Long getTimetableId();
+                Timetable.DayOfWeek getDayOfWeek();
+                int getPeriodNumber();
+                Long getClassroomId();
+                String getClassroomName();
+                String getSection();
+                Long getSubjectId();
+                String getSubjectName();
+        }
+
+        @Query("select t.timetableId as timetableId, t.dayOfWeek as dayOfWeek, t.periodNumber as periodNumber,"
+                        + " c.classId as classroomId, c.name as classroomName, c.section as section,"
+                        + " s.subjectId as subjectId, s.name as subjectName"
+                        + " from Timetable t join t.classroom c join t.subject s"
+                        + " where t.teacher.userId = :teacherId")
+        List<TeacherSlotRow> findTeacherWeek(@Param("teacherId") Long teacherId);
+
+        @Query("select t.timetableId as timetableId, t.dayOfWeek as dayOfWeek, t.periodNumber as periodNumber,"
+                        + " c.classId as classroomId, c.name as classroomName, c.section as section,"
+                        + " s.subjectId as subjectId, s.name as subjectName"
+                        + " from Timetable t join t.classroom c join t.subject s"
+                        + " where t.teacher.userId = :teacherId and t.dayOfWeek = :day order by t.periodNumber")
+        List<TeacherSlotRow> findTeacherDay(@Param("teacherId") Long teacherId, @Param("day") Timetable.DayOfWeek day);
 }
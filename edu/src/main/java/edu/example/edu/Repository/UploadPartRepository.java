@@ -0,0 +1,23 @@
+package edu.example.edu.Repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.example.edu.Entity.UploadPart;
+
+@Repository
+public interface UploadPartRepository extends JpaRepository<UploadPart, Long> {
+
+    List<UploadPart> findByUploadIdOrderByPartOffsetAsc(String uploadId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from UploadPart p where p.uploadId = :uploadId")
+    int deleteByUploadId(@Param("uploadId") String uploadId);
+}
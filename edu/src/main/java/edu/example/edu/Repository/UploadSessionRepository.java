@@ -0,0 +1,44 @@
+package edu.example.edu.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.example.edu.Entity.UploadSession;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    // Moves the offset only if nobody else did in the meantime and the upload is not being completed
+    @Modifying
+    @Transactional
+    @Query("update UploadSession s set s.receivedBytes = :to, s.updatedAt = :now"
+            + " where s.uploadId = :uploadId and s.receivedBytes = :from"
+            + " and (s.state is null or s.state = edu.example.edu.Entity.UploadSession.State.OPEN)")
+    int advance(@Param("uploadId") String uploadId, @Param("from") long from, @Param("to") long to,
+                @Param("now") Instant now);
+
+    // OPEN -> COMPLETING for a fully received upload; 0 = another request (on any instance) got there first
+    @Modifying
+    @Transactional
+    @Query("update UploadSession s set s.state = edu.example.edu.Entity.UploadSession.State.COMPLETING, s.updatedAt = :now"
+            + " where s.uploadId = :uploadId and s.receivedBytes = s.totalSize"
+            + " and (s.state is null or s.state = edu.example.edu.Entity.UploadSession.State.OPEN)")
+    int claimForCompletion(@Param("uploadId") String uploadId, @Param("now") Instant now);
+
+    // Completion failed before the Submission / Syllabus row was created: the client may try again
+    @Modifying
+    @Transactional
+    @Query("update UploadSession s set s.state = edu.example.edu.Entity.UploadSession.State.OPEN, s.updatedAt = :now"
+            + " where s.uploadId = :uploadId and s.state = edu.example.edu.Entity.UploadSession.State.COMPLETING")
+    int reopen(@Param("uploadId") String uploadId, @Param("now") Instant now);
+
+    List<UploadSession> findByUpdatedAtBefore(Instant cutoff, Limit limit);
+}
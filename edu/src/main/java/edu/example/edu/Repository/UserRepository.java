@@ -1,9 +1,15 @@
 package edu.example.edu.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import edu.example.edu.Entity.User;
 import edu.example.edu.Entity.User.ApprovalStatus;
 
@@ -25,4 +31,69 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByRole(User.Role role);
 
     List<User> findByClassroom_ClassId(Long classroomId);
+
+    // ---- set-based approval (school guard lives in the WHERE clause) ----
+    @Modifying
+    @Transactional
+    @Query("update User u set u.approvalStatus = :status where u.userId in :ids and u.school.schoolId = :schoolId")
+    int updateApprovalStatusByIds(@Param("ids") Collection<Long> ids, @Param("schoolId") Long schoolId,
+                                  @Param("status") ApprovalStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.approvalStatus = :status where u.school.schoolId = :schoolId"
+            + " and u.approvalStatus = edu.example.edu.Entity.User.ApprovalStatus.PENDING"
+            + " and (:role is null or u.role = :role)")
+    int updatePendingApprovalStatus(@Param("schoolId") Long schoolId, @Param("role") User.Role role,
+                                    @Param("status") ApprovalStatus status);
+
+    @Query("select u.userId from User u where u.userId in :ids and u.school.schoolId = :schoolId")
+    List<Long> findIdsInSchool(@Param("ids") Collection<Long> ids, @Param("schoolId") Long schoolId);
+
+    // ---- keyset-paginated directory (only the DTO columns, no School/Classroom entity loads) ----
+    @Query("select u.userId as userId, u.name as name, u.email as email, u.role as role,"
+            + " u.approvalStatus as approvalStatus, u.school.schoolId as schoolId, u.classroom.classId as classroomId"
+            + " from User u"
+            + " where u.userId > :afterId"
+            + " and (:schoolId is null or u.school.schoolId = :schoolId)"
+            + " and (:role is null or u.role = :role)"
+            + " and (:status is null or u.approvalStatus = :status)"
+            + " and (:classroomId is null or u.classroom.classId = :classroomId)"
+            + " order by u.userId asc")
+    List<DirectoryRow> findDirectoryPage(@Param("afterId") Long afterId,
+                                         @Param("schoolId") Long schoolId,
+                                         @Param("role") User.Role role,
+                                         @Param("status") ApprovalStatus status,
+                                         @Param("classroomId") Long classroomId,
+                                         Limit limit);
+
+    // Batch profile load (UserProfileCache misses)
+    @Query("select u.userId as userId, u.name as name, u.email as email, u.role as role,"
+            + " u.approvalStatus as approvalStatus, u.school.schoolId as schoolId, u.classroom.classId as classroomId"
+            + " from User u where u.userId in :ids")
+    List<DirectoryRow> findDirectoryRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface DirectoryRow {
+        Long getUserId();
+        String getName();
+        String getEmail();
+        User.Role getRole();
+        ApprovalStatus getApprovalStatus();
+        Long getSchoolId();
+        Long getClassroomId();
+    }
+
+    // Chunked existence / id lookup for bulk import (selects only id + email)
+    List<IdAndEmail> findByEmailIn(Collection<String> emails);
+
+    interface IdAndEmail {
+        Long getUserId();
+        String getEmail();
+    }
+
+    // Password-only update (login rehash) without merging the whole entity graph
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :password where u.userId = :userId")
+    int updatePassword(@Param("userId") Long userId, @Param("password") String password);
 }
@@ -5,10 +5,12 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.example.edu.DTO.AssignmentDTO;
 import edu.example.edu.Entity.Assignment;
 import edu.example.edu.Entity.Classroom;
+import edu.example.edu.Entity.DocumentText.DocType;
 import edu.example.edu.Entity.Subject;
 import edu.example.edu.Entity.User;
 import edu.example.edu.Repository.AssignmentRepository;
@@ -31,6 +33,15 @@ public class AssignmentService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Autowired
+    private DocumentIndexer documentIndexer;
+
     // Convert Entity to DTO
     private AssignmentDTO toDTO(Assignment assignment) {
         AssignmentDTO dto = new AssignmentDTO();
@@ -69,9 +80,17 @@ public class AssignmentService {
     }
 
     // Save or update assignment
+    @Transactional
     public AssignmentDTO saveAssignment(AssignmentDTO dto) {
+        String oldLink = dto.getAssignmentId() == null ? null
+                : assignmentRepository.findById(dto.getAssignmentId()).map(Assignment::getFileLink).orElse(null);
         Assignment assignment = toEntity(dto);
         Assignment saved = assignmentRepository.save(assignment);
+        fileStorageService.replace(oldLink, saved.getFileLink());
+        if (oldLink != null && !oldLink.equals(saved.getFileLink())) {
+            hotFileCache.invalidate(oldLink);
+        }
+        documentIndexer.submit(DocType.ASSIGNMENT, saved.getAssignmentId());
         return toDTO(saved);
     }
 
@@ -104,7 +123,13 @@ public class AssignmentService {
     }
 
     // Delete assignment
+    @Transactional
     public void deleteAssignment(Long assignmentId) {
+        assignmentRepository.findById(assignmentId).ifPresent(a -> {
+            fileStorageService.release(a.getFileLink());
+            hotFileCache.invalidate(a.getFileLink());
+        });
         assignmentRepository.deleteById(assignmentId);
+        documentIndexer.remove(DocType.ASSIGNMENT, assignmentId);
     }
 }
@@ -0,0 +1,68 @@
+package edu.example.edu.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Where content-addressed upload blobs (and in-flight resumable upload parts) are kept.
+ *
+ * Selected with files.storage.backend: "filesystem" (FileSystemBlobStore, a directory that every
+ * app instance mounts) or "s3" (S3BlobStore, any S3-compatible object store). Nothing here is
+ * node-local except the spool directory incoming bytes are hashed into before put(), so any
+ * instance can serve any upload. Reads and writes are streams or files, never whole byte arrays.
+ */
+public interface BlobStore {
+
+    // Size and last-modified time (epoch millis) of one stored blob
+    record BlobInfo(String sha256, long size, long lastModified) {
+    }
+
+    // Fresh file to spool an upload into; put() consumes it (same filesystem as the store when there is one)
+    Path newSpoolFile() throws IOException;
+
+    // Directory of newSpoolFile(); the orphan collector removes stale files from it
+    Path spoolDir();
+
+    // Stores the spooled file under sha256 (idempotent: the same hash always means the same bytes)
+    void put(String sha256, Path spooled) throws IOException;
+
+    // null when the blob does not exist
+    BlobInfo stat(String sha256) throws IOException;
+
+    // Stream starting at offset; only the first length bytes are meaningful to the caller
+    InputStream open(String sha256, long offset, long length) throws IOException;
+
+    // The blob as a local file when the backend has one (lets downloads use sendfile), else null
+    Path localFile(String sha256);
+
+    // Short-lived URL the client can download from directly, or null when downloads go through the app
+    URI downloadUrl(String sha256, String downloadName, String contentType);
+
+    // Blobs in hash order after afterSha256 (null = from the start), at most limit
+    List<BlobInfo> list(String afterSha256, int limit) throws IOException;
+
+    // ---------------- ORPHAN COLLECTION ----------------
+
+    // Moves a blob aside; its lastModified becomes the time it was quarantined
+    void quarantine(String sha256) throws IOException;
+
+    List<BlobInfo> listQuarantined(String afterSha256, int limit) throws IOException;
+
+    void restore(String sha256) throws IOException;
+
+    void deleteQuarantined(String sha256) throws IOException;
+
+    // ---------------- RESUMABLE UPLOADS ----------------
+
+    // Stores one received chunk of an upload under a name unique to this write (consumes the chunk file)
+    void writePart(String uploadId, String partName, Path chunk) throws IOException;
+
+    // The named parts of an upload concatenated in the given order (the accepted ones, from upload_parts)
+    InputStream openParts(String uploadId, List<String> partNames) throws IOException;
+
+    // Deletes every part written for the upload, accepted or not
+    void deleteParts(String uploadId) throws IOException;
+}
@@ -0,0 +1,272 @@
+package edu.example.edu.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.example.edu.DTO.TimetableDTO;
+import edu.example.edu.Entity.Timetable.DayOfWeek;
+import edu.example.edu.Entity.TimetableChange;
+import edu.example.edu.Repository.SubstitutionRepository;
+import edu.example.edu.Repository.TimetableChangeRepository;
+import edu.example.edu.Repository.TimetableRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Read-through cache of a class's rendered week (GET /api/timetables/class/{classId}), with an ETag.
+ *
+ * A miss is two projection queries (the class's rows, today's substitutions for it) instead of
+ * loading Timetable entities with their classroom / subject / teacher. Entries are dropped when a
+ * timetable row of the class changes (TimetableService, TimetableGridService) or a substitution for
+ * today touches it (SubstitutionService), always after the change commits. An entry only serves the
+ * day it was rendered on.
+ *
+ * Every invalidation also writes a timetable_changes row in the writer's transaction; each instance
+ * polls those every timetable.class-cache.poll-interval-ms and drops the classes changed elsewhere,
+ * so another instance's write is visible within one poll interval. The TTL is only the backstop for
+ * a poll that cannot run or an instance clock more than POLL_OVERLAP behind.
+ */
+@Service
+public class ClassTimetableCache {
+
+    private static final int POLL_PAGE = 1000;
+    // change rows written just before the last poll may carry a slightly older clock, or commit late
+    private static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+    private static final Duration CHANGE_RETENTION = Duration.ofHours(1);
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(10);
+
+    private final TimetableRepository timetableRepository;
+    private final SubstitutionRepository substitutionRepository;
+    private final TimetableChangeRepository changeRepository;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // bumped on every invalidation; a render that raced with one is not cached (it may be stale)
+    private final AtomicLong generation = new AtomicLong();
+    // change rows already applied here (own writes, earlier polls) -> changedAt, kept for the overlap
+    private final Map<Long, Instant> applied = new ConcurrentHashMap<>();
+    private volatile Instant lastPoll = Instant.now();
+    private volatile Instant nextPurge = Instant.now();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+    private final Counter evictions;
+
+    // Rendered week of one class and its validator
+    public record View(List<TimetableDTO> entries, String etag) {
+    }
+
+    public ClassTimetableCache(TimetableRepository timetableRepository,
+                               SubstitutionRepository substitutionRepository,
+                               TimetableChangeRepository changeRepository,
+                               @Value("${timetable.class-cache.max-size:5000}") int maxSize,
+                               @Value("${timetable.class-cache.ttl-seconds:600}") long ttlSeconds,
+                               MeterRegistry registry) {
+        this.timetableRepository = timetableRepository;
+        this.substitutionRepository = substitutionRepository;
+        this.changeRepository = changeRepository;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.hits = registry.counter("timetable.class.cache", "result", "hit");
+        this.misses = registry.counter("timetable.class.cache", "result", "miss");
+        this.invalidations = registry.counter("timetable.class.cache.invalidations");
+        this.evictions = registry.counter("timetable.class.cache.evictions");
+        registry.gaugeMapSize("timetable.class.cache.size", Tags.empty(), entries);
+        registry.gauge("timetable.class.cache.hit.ratio", Tags.empty(), this, ClassTimetableCache::hitRatio);
+    }
+
+    public View get(Long classId) {
+        LocalDate today = LocalDate.now();
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(classId);
+        if (entry != null && entry.expiresAt > now && entry.day.equals(today)) {
+            hits.increment();
+            return new View(copy(entry.view.entries()), entry.view.etag());
+        }
+        misses.increment();
+
+        long gen = generation.get();
+        View view = render(classId, today);
+        if (maxSize > 0 && generation.get() == gen) {
+            if (entries.size() >= maxSize) {
+                evict(now);
+            }
+            entries.put(classId, new Entry(view, today, now + ttlMillis));
+        }
+        return new View(copy(view.entries()), view.etag());
+    }
+
+    // ✅ Drop a class's week once the current transaction commits (right away outside one)
+    public void invalidate(Long classId) {
+        invalidateAll(List.of(classId));
+    }
+
+    public void invalidateAll(Collection<Long> classIds) {
+        List<Long> ids = classIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        // for the other instances; commits or rolls back together with the change itself
+        Instant now = Instant.now();
+        List<TimetableChange> changes = changeRepository.saveAll(
+                ids.stream().map(id -> new TimetableChange(null, id, now)).toList());
+        Runnable apply = () -> {
+            remove(ids);
+            changes.forEach(c -> applied.put(c.getId(), c.getChangedAt()));   // no second drop from our own poll
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    // ✅ Drop weeks changed by other instances since the last poll
+    @Scheduled(initialDelayString = "${timetable.class-cache.poll-interval-ms:5000}",
+            fixedDelayString = "${timetable.class-cache.poll-interval-ms:5000}")
+    public void poll() {
+        Instant startedAt = Instant.now();
+        Instant after = lastPoll.minus(POLL_OVERLAP);
+        List<TimetableChange> rows;
+        do {
+            rows = changeRepository.findByChangedAtGreaterThanOrderByChangedAtAsc(after, Limit.of(POLL_PAGE));
+            for (TimetableChange row : rows) {
+                if (applied.putIfAbsent(row.getId(), row.getChangedAt()) == null) {
+                    remove(List.of(row.getClassId()));
+                }
+                after = row.getChangedAt();
+            }
+        } while (rows.size() == POLL_PAGE);
+        lastPoll = startedAt;
+        // the next poll starts at startedAt - POLL_OVERLAP; nothing older comes back
+        Instant forgetBefore = startedAt.minus(POLL_OVERLAP);
+        applied.values().removeIf(t -> t.isBefore(forgetBefore));
+        if (startedAt.isAfter(nextPurge)) {
+            nextPurge = startedAt.plus(PURGE_INTERVAL);
+            changeRepository.purgeBefore(startedAt.minus(CHANGE_RETENTION));
+        }
+    }
+
+    private void remove(List<Long> classIds) {
+        // a render that started before the commit must not be cached either
+        generation.incrementAndGet();
+        for (Long id : classIds) {
+            if (entries.remove(id) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    private View render(Long classId, LocalDate today) {
+        Map<Long, Long> cover = new HashMap<>();   // timetableId -> substitute teacher today
+        for (SubstitutionRepository.CoverRow row : substitutionRepository.findCoverForClass(classId, today)) {
+            cover.put(row.getTimetableId(), row.getSubstituteTeacherId());
+        }
+
+        List<TimetableDTO> week = new ArrayList<>();
+        for (TimetableRepository.GridRow row : timetableRepository.findGridRows(List.of(classId))) {
+            TimetableDTO dto = new TimetableDTO();
+            dto.setTimetableId(row.getTimetableId());
+            dto.setClassroomId(row.getClassroomId());
+            dto.setSubjectId(row.getSubjectId());
+            dto.setTeacherId(row.getTeacherId());
+            dto.setDayOfWeek(row.getDayOfWeek() != null ? row.getDayOfWeek().name() : null);
+            dto.setPeriodNumber(row.getPeriodNumber());
+            dto.setSubstituteTeacherId(cover.get(row.getTimetableId()));
+            week.add(dto);
+        }
+        week.sort(Comparator.comparing((TimetableDTO t) -> dayOrder(t.getDayOfWeek()))
+                .thenComparing(TimetableDTO::getPeriodNumber)
+                .thenComparing(TimetableDTO::getTimetableId));
+        return new View(week, etag(week, today));
+    }
+
+    private static int dayOrder(String day) {
+        return day == null ? Integer.MAX_VALUE : DayOfWeek.valueOf(day).ordinal();
+    }
+
+    // Content hash, so every instance hands out the same ETag for the same week
+    private static String etag(List<TimetableDTO> week, LocalDate day) {
+        StringBuilder sb = new StringBuilder(day.toString());
+        for (TimetableDTO t : week) {
+            sb.append('|').append(t.getTimetableId()).append(',').append(t.getSubjectId())
+                    .append(',').append(t.getTeacherId()).append(',').append(t.getDayOfWeek())
+                    .append(',').append(t.getPeriodNumber()).append(',').append(t.getSubstituteTeacherId());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(week.size()) + "\"";
+    }
+
+    // Same policy as UserProfileCache: expired first, then arbitrary entries down to 90%
+    private void evict(long now) {
+        entries.entrySet().removeIf(e -> {
+            if (e.getValue().expiresAt <= now) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        });
+
+        int target = (int) (maxSize * 0.9);
+        Iterator<Long> it = entries.keySet().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    // TimetableDTO is mutable, so callers never get the cached instances
+    private static List<TimetableDTO> copy(List<TimetableDTO> week) {
+        List<TimetableDTO> out = new ArrayList<>(week.size());
+        for (TimetableDTO t : week) {
+            TimetableDTO dto = new TimetableDTO();
+            dto.setTimetableId(t.getTimetableId());
+            dto.setClassroomId(t.getClassroomId());
+            dto.setSubjectId(t.getSubjectId());
+            dto.setTeacherId(t.getTeacherId());
+            dto.setDayOfWeek(t.getDayOfWeek());
+            dto.setPeriodNumber(t.getPeriodNumber());
+            dto.setSubstituteTeacherId(t.getSubstituteTeacherId());
+            out.add(dto);
+        }
+        return out;
+    }
+
+    private record Entry(View view, LocalDate day, long expiresAt) {
+    }
+}
@@ -0,0 +1,348 @@
+package edu.example.edu.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AccessDeniedException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import edu.example.edu.Config.AuthenticatedUser;
+import edu.example.edu.DTO.DocumentSearchHitDTO;
+import edu.example.edu.Entity.DocumentText;
+import edu.example.edu.Entity.DocumentText.DocType;
+import edu.example.edu.Entity.DocumentText.Status;
+import edu.example.edu.Repository.AssignmentRepository;
+import edu.example.edu.Repository.DocumentTextRepository;
+import edu.example.edu.Repository.SyllabusRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Background text extraction for Assignment / Syllabus files, feeding DocumentSearchIndex.
+ *
+ * AssignmentService / SyllabusService call submit() / remove(); the work is queued after their
+ * transaction commits and runs on documentIndexExecutor, so an upload never waits for it.
+ * Each result is stored in document_texts: at startup the index is loaded from there instead of
+ * re-reading every file, and a short poll on indexedAt applies what other instances indexed.
+ * A periodic reconcile queues anything that was missed (full queue, restart, failed node).
+ */
+@Service
+public class DocumentIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentIndexer.class);
+
+    private static final int LOAD_PAGE = 1000;
+    // rows written just before the last poll may carry a slightly older clock (other instances)
+    private static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+    private static final Duration REMOVED_RETENTION = Duration.ofDays(7);
+
+    private final DocumentTextRepository documentTextRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final SyllabusRepository syllabusRepository;
+    private final FileStorageService fileStorageService;
+    private final DocumentTextExtractor extractor;
+    private final DocumentSearchIndex searchIndex;
+    private final ExecutorService executor;
+
+    private final boolean enabled;
+    private final long maxFileBytes;
+    private final int reconcileBatch;
+
+    private final MeterRegistry registry;
+    private final Timer extractTimer;
+
+    // documents queued but not started yet; a second save before the worker gets to it is a no-op
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private volatile Instant lastPoll;
+
+    public DocumentIndexer(DocumentTextRepository documentTextRepository,
+                           AssignmentRepository assignmentRepository,
+                           SyllabusRepository syllabusRepository,
+                           FileStorageService fileStorageService,
+                           DocumentTextExtractor extractor,
+                           DocumentSearchIndex searchIndex,
+                           @Qualifier("documentIndexExecutor") ExecutorService executor,
+                           @Value("${files.index.enabled:true}") boolean enabled,
+                           @Value("${files.index.max-file-size:25MB}") DataSize maxFileSize,
+                           @Value("${files.index.reconcile-batch-size:500}") int reconcileBatch,
+                           MeterRegistry registry) {
+        this.documentTextRepository = documentTextRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.syllabusRepository = syllabusRepository;
+        this.fileStorageService = fileStorageService;
+        this.extractor = extractor;
+        this.searchIndex = searchIndex;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.maxFileBytes = maxFileSize.toBytes();
+        this.reconcileBatch = reconcileBatch;
+        this.registry = registry;
+        this.extractTimer = registry.timer("files.index.extract");
+    }
+
+    // ---------------- QUEUEING ----------------
+
+    // ✅ (Re)index a document once the caller's transaction has committed; never blocks the caller
+    public void submit(DocType type, Long docId) {
+        if (!enabled || docId == null) {
+            return;
+        }
+        afterCommit(() -> enqueue(type, docId));
+    }
+
+    // ✅ Drop a deleted document from the index (same timing as submit)
+    public void remove(DocType type, Long docId) {
+        submit(type, docId);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void enqueue(DocType type, Long docId) {
+        String key = type + ":" + docId;
+        if (!queued.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                queued.remove(key);
+                index(type, docId);
+            });
+        } catch (RejectedExecutionException e) {
+            // pool and queue full: reconcile() finds the document again later
+            queued.remove(key);
+            count("rejected");
+        }
+    }
+
+    // ---------------- WORKER ----------------
+
+    // Extracts the current file of the document (or tombstones it when the row is gone)
+    void index(DocType type, Long docId) {
+        try {
+            Optional<DocumentTextRepository.SourceRow> source = type == DocType.ASSIGNMENT
+                    ? assignmentRepository.findIndexSource(docId)
+                    : syllabusRepository.findIndexSource(docId);
+            DocumentText row = documentTextRepository.findByDocTypeAndDocId(type, docId).orElse(null);
+
+            if (source.isEmpty()) {
+                if (row != null && row.getStatus() != Status.REMOVED) {
+                    row.setStatus(Status.REMOVED);
+                    row.setContent(null);
+                    row.setIndexedAt(Instant.now());
+                    documentTextRepository.save(row);
+                }
+                searchIndex.remove(type, docId);
+                count("removed");
+                return;
+            }
+
+            DocumentTextRepository.SourceRow src = source.get();
+            if (row == null) {
+                row = new DocumentText();
+                row.setDocType(type);
+                row.setDocId(docId);
+            }
+            boolean sameFile = row.getId() != null && row.getFileLink() != null
+                    && row.getFileLink().equals(src.getFileLink())
+                    && (row.getStatus() == Status.INDEXED || row.getStatus() == Status.NO_TEXT);
+            if (!sameFile) {
+                // a metadata-only edit keeps the text already extracted from the same file
+                extractInto(row, type, src.getFileLink());
+            }
+            row.setFileLink(src.getFileLink());
+            row.setSchoolId(src.getSchoolId());
+            row.setClassroomId(src.getClassroomId());
+            row.setTitle(truncate(src.getTitle(), 255));
+            row.setDescription(truncate(src.getDescription(), 1000));
+            row.setIndexedAt(Instant.now());
+            if (src.getFileLink() == null) {
+                row.setContent(null);
+                row.setStatus(Status.NO_TEXT);
+            }
+            documentTextRepository.save(row);
+            apply(row);
+            count(row.getStatus().name().toLowerCase());
+        } catch (DataIntegrityViolationException e) {
+            // another instance inserted the row first; its result arrives with the next poll
+            log.debug("Document {} {} indexed concurrently", type, docId);
+        } catch (RuntimeException e) {
+            count("error");
+            log.warn("Could not index {} {}: {}", type, docId, e.getMessage());
+        }
+    }
+
+    private void extractInto(DocumentText row, DocType type, String fileLink) {
+        row.setContent(null);
+        row.setStatus(Status.NO_TEXT);
+        FileStorageService.Area area = type == DocType.ASSIGNMENT
+                ? FileStorageService.Area.ASSIGNMENTS : FileStorageService.Area.SYLLABUS;
+        String key = area.keyOf(fileLink);
+        if (key == null) {
+            return;
+        }
+        String name = FileStorageService.displayName(key);
+        if (!extractor.supports(name)) {
+            return;
+        }
+        try {
+            FileStorageService.StoredFile file = fileStorageService.locate(area, key);
+            if (file == null) {
+                row.setStatus(Status.FAILED);
+                return;
+            }
+            if (file.getSize() > maxFileBytes) {
+                return;
+            }
+            String text;
+            long start = System.nanoTime();
+            try (InputStream in = file.open(0, file.getSize())) {
+                text = extractor.extract(name, in);
+            } finally {
+                extractTimer.record(Duration.ofNanos(System.nanoTime() - start));
+            }
+            if (!text.isEmpty()) {
+                row.setContent(text);
+                row.setStatus(Status.INDEXED);
+            }
+        } catch (IOException | RuntimeException e) {
+            row.setStatus(Status.FAILED);
+            log.warn("Text extraction failed for {}: {}", fileLink, e.getMessage());
+        }
+    }
+
+    private void apply(DocumentText row) {
+        if (row.getStatus() == Status.REMOVED) {
+            searchIndex.remove(row.getDocType(), row.getDocId());
+        } else {
+            searchIndex.upsert(row.getDocType(), row.getDocId(), row.getSchoolId(), row.getClassroomId(),
+                    row.getTitle(), row.getFileLink(), row.getDescription(), row.getContent());
+        }
+    }
+
+    // ---------------- LOAD / FOLLOW / RECONCILE ----------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Instant startedAt = Instant.now();
+        long after = 0;
+        List<DocumentText> rows;
+        do {
+            rows = documentTextRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(LOAD_PAGE));
+            for (DocumentText row : rows) {
+                apply(row);
+                after = row.getId();
+            }
+        } while (rows.size() == LOAD_PAGE);
+        lastPoll = startedAt;
+    }
+
+    // Rows (re)written since the last poll, by this or any other instance
+    @Scheduled(fixedDelayString = "${files.index.refresh-interval-ms:30000}")
+    public void poll() {
+        Instant since = lastPoll;
+        if (since == null) {
+            return;
+        }
+        Instant startedAt = Instant.now();
+        Instant after = since.minus(POLL_OVERLAP);
+        List<DocumentText> rows;
+        do {
+            rows = documentTextRepository.findByIndexedAtGreaterThanOrderByIndexedAtAsc(after, Limit.of(LOAD_PAGE));
+            for (DocumentText row : rows) {
+                apply(row);
+                after = row.getIndexedAt();
+            }
+        } while (rows.size() == LOAD_PAGE);
+        lastPoll = startedAt;
+    }
+
+    // Queues documents whose current file has no stored text yet or that were deleted unnoticed,
+    // and purges old tombstones
+    @Scheduled(initialDelayString = "${files.index.reconcile-initial-delay-ms:60000}",
+            fixedDelayString = "${files.index.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        int queuedNow = 0;
+        for (Long id : assignmentRepository.findUnindexedIds(Limit.of(reconcileBatch))) {
+            enqueue(DocType.ASSIGNMENT, id);
+            queuedNow++;
+        }
+        for (Long id : syllabusRepository.findUnindexedIds(Limit.of(reconcileBatch))) {
+            enqueue(DocType.SYLLABUS, id);
+            queuedNow++;
+        }
+        for (DocumentText orphan : documentTextRepository.findOrphaned(Limit.of(reconcileBatch))) {
+            enqueue(orphan.getDocType(), orphan.getDocId());
+            queuedNow++;
+        }
+        int purged = documentTextRepository.purgeRemoved(Instant.now().minus(REMOVED_RETENTION));
+        if (queuedNow > 0 || purged > 0) {
+            log.info("Document index reconcile: queued={} tombstonesPurged={}", queuedNow, purged);
+        }
+    }
+
+    // ---------------- SEARCH ----------------
+
+    // Hits limited to the caller's school (ADMIN: schoolId, or every school) and, for students, their classroom
+    public List<DocumentSearchHitDTO> search(String query, Long schoolId, Long classroomId, Integer limit,
+                                             AuthenticatedUser caller) throws AccessDeniedException {
+        if (caller != null && !caller.hasRole("ADMIN")) {
+            if (caller.getSchoolId() == null || (schoolId != null && !schoolId.equals(caller.getSchoolId()))) {
+                throw new AccessDeniedException("You can only search documents from your school.");
+            }
+            schoolId = caller.getSchoolId();
+            if (caller.hasRole("STUDENT")) {
+                if (caller.getClassroomId() == null
+                        || (classroomId != null && !classroomId.equals(caller.getClassroomId()))) {
+                    throw new AccessDeniedException("You can only search documents of your classroom.");
+                }
+                classroomId = caller.getClassroomId();
+            }
+        }
+        int topN = limit == null || limit <= 0 ? 20 : Math.min(limit, 100);
+        return searchIndex.search(schoolId, classroomId, query, topN);
+    }
+
+    // ---------------- HELPERS ----------------
+
+    private void count(String result) {
+        registry.counter("files.index", "result", result).increment();
+    }
+
+    private static String truncate(String s, int max) {
+        return s == null || s.length() <= max ? s : s.substring(0, max);
+    }
+}
@@ -0,0 +1,256 @@
+package edu.example.edu.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Service;
+
+import edu.example.edu.DTO.DocumentSearchHitDTO;
+import edu.example.edu.Entity.DocumentText.DocType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Embedded inverted index over Assignment / Syllabus titles, descriptions and file text.
+ *
+ * One sorted term map per school (term -> document -> term frequency), so a query never looks
+ * outside the caller's school and the last query word can be matched as a prefix with a range scan.
+ * All query words must match; hits are ranked by tf-idf with title words counting extra.
+ * Filled by DocumentIndexer (from document_texts at startup, then after every extraction).
+ */
+@Service
+public class DocumentSearchIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final int TITLE_WEIGHT = 5;
+    private static final int DESCRIPTION_WEIGHT = 2;
+    // terms a prefix query word may expand to
+    private static final int MAX_PREFIX_TERMS = 50;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it", "of", "on",
+            "or", "that", "the", "this", "to", "was", "with");
+
+    private final Timer searchTimer;
+
+    private final Map<String, Doc> docs = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableMap<String, Map<String, Integer>>> schools = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> schoolSizes = new ConcurrentHashMap<>();
+
+    public DocumentSearchIndex(MeterRegistry registry) {
+        this.searchTimer = registry.timer("documents.search");
+        registry.gaugeMapSize("documents.search.indexed", Tags.empty(), docs);
+    }
+
+    // ---------------- UPDATES ----------------
+
+    public synchronized void upsert(DocType type, Long docId, Long schoolId, Long classroomId,
+                                    String title, String fileLink, String description, String content) {
+        String key = key(type, docId);
+        Doc old = docs.get(key);
+        if (old != null) {
+            unlink(old);
+        }
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, title, TITLE_WEIGHT);
+        addTerms(terms, description, DESCRIPTION_WEIGHT);
+        addTerms(terms, content, 1);
+        Doc doc = new Doc(key, type, docId, schoolId, classroomId, title, fileLink, terms);
+        docs.put(key, doc);
+
+        NavigableMap<String, Map<String, Integer>> index = schools.computeIfAbsent(schoolKey(schoolId),
+                k -> new ConcurrentSkipListMap<>());
+        for (Map.Entry<String, Integer> t : terms.entrySet()) {
+            index.computeIfAbsent(t.getKey(), k -> new ConcurrentHashMap<>()).put(key, t.getValue());
+        }
+        schoolSizes.computeIfAbsent(schoolKey(schoolId), k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public synchronized void remove(DocType type, Long docId) {
+        Doc old = docs.remove(key(type, docId));
+        if (old != null) {
+            unlink(old);
+        }
+    }
+
+    private void unlink(Doc old) {
+        Long school = schoolKey(old.schoolId);
+        NavigableMap<String, Map<String, Integer>> index = schools.get(school);
+        if (index != null) {
+            for (String term : old.terms.keySet()) {
+                index.computeIfPresent(term, (k, postings) -> {
+                    postings.remove(old.key);
+                    return postings.isEmpty() ? null : postings;
+                });
+            }
+        }
+        AtomicInteger size = schoolSizes.get(school);
+        if (size != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    // ---------------- SEARCH ----------------
+
+    // Top-N documents of the school (all schools when schoolId is null) containing every query word;
+    // classroomId narrows the hits to one classroom
+    public List<DocumentSearchHitDTO> search(Long schoolId, Long classroomId, String query, int limit) {
+        return searchTimer.record(() -> doSearch(schoolId, classroomId, query, limit));
+    }
+
+    private List<DocumentSearchHitDTO> doSearch(Long schoolId, Long classroomId, String query, int limit) {
+        List<String> words = new ArrayList<>(terms(query, false));
+        // stop words are not indexed; the last word stays, it may be the start of a longer one ("th")
+        for (int w = words.size() - 2; w >= 0; w--) {
+            if (STOP_WORDS.contains(words.get(w))) {
+                words.remove(w);
+            }
+        }
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<Long> scope = schoolId != null ? List.of(schoolId) : new ArrayList<>(schools.keySet());
+
+        List<Hit> hits = new ArrayList<>();
+        for (Long school : scope) {
+            NavigableMap<String, Map<String, Integer>> index = schools.get(school);
+            if (index != null) {
+                collect(index, schoolSize(school), words, classroomId, hits);
+            }
+        }
+        hits.sort(Comparator.comparingDouble((Hit h) -> -h.score)
+                .thenComparing(h -> h.doc.type)
+                .thenComparing(h -> h.doc.docId));
+
+        List<DocumentSearchHitDTO> result = new ArrayList<>();
+        for (Hit h : hits.subList(0, Math.min(limit, hits.size()))) {
+            result.add(h.toDTO());
+        }
+        return result;
+    }
+
+    private void collect(NavigableMap<String, Map<String, Integer>> index, int docCount, List<String> words,
+                         Long classroomId, List<Hit> hits) {
+        // per query word: document -> weighted score; the last word also matches longer terms (typing)
+        List<Map<String, Double>> perWord = new ArrayList<>();
+        for (int w = 0; w < words.size(); w++) {
+            String word = words.get(w);
+            Map<String, Double> scores = new HashMap<>();
+            if (w == words.size() - 1) {
+                int expanded = 0;
+                for (Map.Entry<String, Map<String, Integer>> t
+                        : index.subMap(word, true, word + Character.MAX_VALUE, false).entrySet()) {
+                    addScores(scores, t.getValue(), docCount);
+                    if (++expanded >= MAX_PREFIX_TERMS) {
+                        break;
+                    }
+                }
+            } else {
+                Map<String, Integer> postings = index.get(word);
+                if (postings != null) {
+                    addScores(scores, postings, docCount);
+                }
+            }
+            if (scores.isEmpty()) {
+                return;
+            }
+            perWord.add(scores);
+        }
+
+        // walk the rarest word's documents and require the others
+        perWord.sort(Comparator.comparingInt(Map::size));
+        for (Map.Entry<String, Double> candidate : perWord.get(0).entrySet()) {
+            Doc doc = docs.get(candidate.getKey());
+            if (doc == null || (classroomId != null && !classroomId.equals(doc.classroomId))) {
+                continue;
+            }
+            double score = candidate.getValue();
+            for (int w = 1; w < perWord.size() && score > 0; w++) {
+                Double s = perWord.get(w).get(candidate.getKey());
+                score = s == null ? 0 : score + s;
+            }
+            if (score > 0) {
+                hits.add(new Hit(doc, score));
+            }
+        }
+    }
+
+    private static void addScores(Map<String, Double> scores, Map<String, Integer> postings, int docCount) {
+        double idf = Math.log(1 + (double) Math.max(docCount, postings.size()) / postings.size());
+        for (Map.Entry<String, Integer> p : postings.entrySet()) {
+            // dampened tf so a long document repeating a word does not bury a short one naming it
+            scores.merge(p.getKey(), (1 + Math.log(p.getValue())) * idf, Double::sum);
+        }
+    }
+
+    private int schoolSize(Long school) {
+        AtomicInteger size = schoolSizes.get(school);
+        return size == null ? 0 : size.get();
+    }
+
+    // ---------------- HELPERS ----------------
+
+    // documents without a school are kept under -1 and only found by unscoped (admin) searches
+    private static Long schoolKey(Long schoolId) {
+        return schoolId != null ? schoolId : -1L;
+    }
+
+    private static String key(DocType type, Long docId) {
+        return type.name().charAt(0) + ":" + docId;
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String t : terms(text, true)) {
+            terms.merge(t, weight, Integer::sum);
+        }
+    }
+
+    // Lower-cased, accent-free words; single characters are kept only when they are digits ("chapter 5")
+    static List<String> terms(String text, boolean dropStopWords) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> out = new ArrayList<>();
+        for (String w : NON_WORD.split(folded)) {
+            if (w.isEmpty() || w.length() > MAX_TERM_LENGTH
+                    || (w.length() == 1 && !Character.isDigit(w.charAt(0)))
+                    || (dropStopWords && STOP_WORDS.contains(w))) {
+                continue;
+            }
+            out.add(w);
+        }
+        return out;
+    }
+
+    private record Doc(String key, DocType type, Long docId, Long schoolId, Long classroomId,
+                       String title, String fileLink, Map<String, Integer> terms) {
+    }
+
+    private record Hit(Doc doc, double score) {
+        DocumentSearchHitDTO toDTO() {
+            DocumentSearchHitDTO dto = new DocumentSearchHitDTO();
+            dto.setDocType(doc.type.name());
+            dto.setDocId(doc.docId);
+            dto.setClassroomId(doc.classroomId);
+            dto.setTitle(doc.title);
+            dto.setFileLink(doc.fileLink);
+            dto.setScore(Math.round(score * 1000) / 1000.0);
+            return dto;
+        }
+    }
+}
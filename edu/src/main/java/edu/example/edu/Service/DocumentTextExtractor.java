@@ -0,0 +1,216 @@
+package edu.example.edu.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Plain text of uploaded documents, for DocumentSearchIndex.
+ *
+ * Everything is read as a stream and the output is capped at files.index.max-chars:
+ * - DOCX / PPTX: the w:t / a:t runs of word/document.xml and ppt/slides/slide*.xml (StAX, no DTDs)
+ * - PDF: see PdfTextScanner. Scanned pages yield nothing; the document is then found by title only.
+ * - TXT: read as UTF-8
+ * Decompression is capped per file at files.index.max-inflated-size, counting the zip entries that are
+ * only skipped; a file that hits the cap keeps the text found before it.
+ */
+@Service
+public class DocumentTextExtractor {
+
+    private static final Set<String> SUPPORTED = Set.of("pdf", "docx", "pptx", "txt");
+
+    private final int maxChars;
+    private final long maxInflated;
+    private final PdfTextScanner.BufferBudget pdfBuffer;
+    private final XMLInputFactory xmlInputFactory;
+
+    public DocumentTextExtractor(@Value("${files.index.max-chars:500000}") int maxChars,
+                                 @Value("${files.index.max-inflated-size:100MB}") DataSize maxInflated,
+                                 @Value("${files.index.pdf-buffer:32MB}") DataSize pdfBuffer) {
+        this.maxChars = maxChars;
+        this.maxInflated = maxInflated.toBytes();
+        this.pdfBuffer = new PdfTextScanner.BufferBudget(pdfBuffer.toBytes());
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    public boolean supports(String fileName) {
+        return SUPPORTED.contains(extension(fileName));
+    }
+
+    // Text of the file ("" when there is none we can read); the stream is not closed
+    public String extract(String fileName, InputStream in) throws IOException {
+        TextSink out = new TextSink(maxChars);
+        switch (extension(fileName)) {
+            case "pdf" -> new PdfTextScanner(out, pdfBuffer, maxInflated).scan(in);
+            case "docx" -> extractOoxml(in, out, name -> name.equals("word/document.xml"));
+            case "pptx" -> extractOoxml(in, out, name -> name.startsWith("ppt/slides/slide") && name.endsWith(".xml"));
+            case "txt" -> extractPlain(in, out);
+            default -> {
+            }
+        }
+        return out.toString();
+    }
+
+    private static String extension(String fileName) {
+        int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    // ---------------- TXT ----------------
+
+    private static void extractPlain(InputStream in, TextSink out) throws IOException {
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        char[] buf = new char[8192];
+        int n;
+        while (!out.full() && (n = reader.read(buf)) != -1) {
+            for (int i = 0; i < n; i++) {
+                out.append(buf[i]);
+            }
+        }
+    }
+
+    // ---------------- DOCX / PPTX ----------------
+
+    private void extractOoxml(InputStream in, TextSink out, Predicate<String> wanted) throws IOException {
+        CappedZipInputStream zip = new CappedZipInputStream(in, maxInflated);
+        try {
+            readEntries(zip, out, wanted);
+        } catch (IOException e) {
+            if (!zip.overLimit) {
+                throw e;
+            }
+            // inflated too much: keep what was read so far
+        }
+    }
+
+    private void readEntries(ZipInputStream zip, TextSink out, Predicate<String> wanted) throws IOException {
+        ZipEntry entry;
+        while (!out.full() && (entry = zip.getNextEntry()) != null) {
+            if (!wanted.test(entry.getName())) {
+                continue;
+            }
+            try {
+                XMLStreamReader xml = xmlInputFactory.createXMLStreamReader(new FilterInputStream(zip) {
+                    @Override
+                    public void close() {
+                        // the parser closes its input at the end of the document; the next entry still needs it
+                    }
+                });
+                boolean inText = false;
+                while (!out.full() && xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        inText = "t".equals(xml.getLocalName());
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        inText = false;
+                        if ("p".equals(xml.getLocalName())) {
+                            out.newline();
+                        }
+                    } else if (inText && event == XMLStreamConstants.CHARACTERS) {
+                        out.append(xml.getText());
+                    }
+                }
+                xml.close();
+            } catch (XMLStreamException e) {
+                throw new IOException("Unreadable " + entry.getName() + ": " + e.getMessage(), e);
+            }
+            out.newline();
+        }
+    }
+
+    // Counts every inflated byte - getNextEntry() and closeEntry() skip entries by reading them through here
+    private static final class CappedZipInputStream extends ZipInputStream {
+        private final long maxInflated;
+        private long inflated;
+        private boolean overLimit;
+
+        CappedZipInputStream(InputStream in, long maxInflated) {
+            super(in);
+            this.maxInflated = maxInflated;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0 && (inflated += n) > maxInflated) {
+                overLimit = true;
+                throw new IOException("More than " + maxInflated + " bytes inflated");
+            }
+            return n;
+        }
+    }
+
+    // ---------------- OUTPUT ----------------
+
+    // Capped text buffer that collapses runs of whitespace and drops control characters
+    static final class TextSink {
+        private final StringBuilder text = new StringBuilder();
+        private final int maxChars;
+
+        TextSink(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        boolean full() {
+            return text.length() >= maxChars;
+        }
+
+        void append(CharSequence s) {
+            for (int i = 0; i < s.length() && !full(); i++) {
+                append(s.charAt(i));
+            }
+        }
+
+        void append(char c) {
+            if (c == '\n') {
+                newline();
+            } else if (Character.isWhitespace(c) || Character.isISOControl(c) || c == '\u00a0') {
+                space();
+            } else if (!full()) {
+                text.append(c);
+            }
+        }
+
+        void space() {
+            if (!full() && text.length() > 0 && !Character.isWhitespace(text.charAt(text.length() - 1))) {
+                text.append(' ');
+            }
+        }
+
+        void newline() {
+            if (full() || text.length() == 0) {
+                return;
+            }
+            char last = text.charAt(text.length() - 1);
+            if (last == ' ') {
+                text.setCharAt(text.length() - 1, '\n');
+            } else if (last != '\n') {
+                text.append('\n');
+            }
+        }
+
+        @Override
+        public String toString() {
+            return text.toString().strip();
+        }
+    }
+}
@@ -20,13 +20,19 @@ public class EnrollmentService {
     private final EnrollmentRepository enrollmentRepository;
     private final ClassroomRepository classroomRepository;
     private final UserRepository userRepository;
+    private final UserSearchIndex userSearchIndex;
+    private final UserProfileCache userProfileCache;
 
     public EnrollmentService(EnrollmentRepository enrollmentRepository,
                              ClassroomRepository classroomRepository,
-                             UserRepository userRepository) {
+                             UserRepository userRepository,
+                             UserSearchIndex userSearchIndex,
+                             UserProfileCache userProfileCache) {
         this.enrollmentRepository = enrollmentRepository;
         this.classroomRepository = classroomRepository;
         this.userRepository = userRepository;
+        this.userSearchIndex = userSearchIndex;
+        this.userProfileCache = userProfileCache;
     }
 
     private EnrollmentDTO convertToDTO(Enrollment enrollment) {
@@ -54,6 +60,8 @@ public class EnrollmentService {
         // ✅ IMPORTANT: update student's classroom
         student.setClassroom(classroom);
         userRepository.save(student);
+        userSearchIndex.upsert(student);
+        userProfileCache.invalidate(student.getUserId());
 
         Enrollment enrollment = new Enrollment();
         enrollment.setClassroom(classroom);
@@ -0,0 +1,341 @@
+package edu.example.edu.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import edu.example.edu.Service.FileStorageService.StoredFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * One download pipeline for every /api/{submissions,assignments,syllabus}/files/** endpoint.
+ *
+ * - strong ETag + Last-Modified, answering If-None-Match / If-Modified-Since with 304; the ETag is the
+ *   sha256 for content-addressed keys, so a copy / restore with a new mtime keeps client caches valid
+ * - single "bytes=" Range requests (206 / 416, If-Range aware) so PDF viewers can seek
+ * - Cache-Control immutable: stored file names are unique and never rewritten
+ * - body via Tomcat sendfile when the connector offers it (kernel copy, no user-space buffer),
+ *   otherwise FileChannel.transferTo into the response channel
+ * - small hot assignment / syllabus files straight from memory (HotFileCache), same validators
+ * - blobs in an object store: a redirect to a presigned URL when the store offers one, otherwise
+ *   streamed through with a fixed-size buffer (Range passed on to the store)
+ */
+@Service
+public class FileDownloadService {
+
+    private static final String CACHE_CONTROL = "private, max-age=31536000, immutable";
+
+    // Tomcat NIO connector sendfile contract (same attributes its DefaultServlet uses)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+            Map.entry("pdf", "application/pdf"),
+            Map.entry("doc", "application/msword"),
+            Map.entry("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+            Map.entry("xls", "application/vnd.ms-excel"),
+            Map.entry("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+            Map.entry("ppt", "application/vnd.ms-powerpoint"),
+            Map.entry("pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation"),
+            Map.entry("txt", "text/plain"),
+            Map.entry("png", "image/png"),
+            Map.entry("jpg", "image/jpeg"),
+            Map.entry("jpeg", "image/jpeg"),
+            Map.entry("mp4", "video/mp4"),
+            Map.entry("zip", "application/zip"));
+
+    private final FileStorageService fileStorageService;
+    private final HotFileCache hotFileCache;
+    private final long sendfileThreshold;
+
+    private final Counter fullResponses;
+    private final Counter partialResponses;
+    private final Counter notModified;
+    private final Counter notFound;
+    private final Counter redirected;
+    private final Counter bytesSent;
+
+    public FileDownloadService(FileStorageService fileStorageService,
+                               HotFileCache hotFileCache,
+                               @Value("${files.download.sendfile-threshold-bytes:49152}") long sendfileThreshold,
+                               MeterRegistry registry) {
+        this.fileStorageService = fileStorageService;
+        this.hotFileCache = hotFileCache;
+        this.sendfileThreshold = sendfileThreshold;
+        this.fullResponses = registry.counter("files.download", "result", "full");
+        this.partialResponses = registry.counter("files.download", "result", "partial");
+        this.notModified = registry.counter("files.download", "result", "not_modified");
+        this.notFound = registry.counter("files.download", "result", "not_found");
+        this.redirected = registry.counter("files.download", "result", "redirect");
+        this.bytesSent = registry.counter("files.download.bytes");
+    }
+
+    // key comes straight from the URL; FileStorageService rejects anything that is not a single segment
+    public void serve(FileStorageService.Area area, String key, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        HotFileCache.Entry cached = hotFileCache.caches(area) ? hotFileCache.get(area, key) : null;
+        String downloadName = FileStorageService.displayName(key);
+        String sha256 = FileStorageService.blobHashOf(key);
+        if (cached == null) {
+            StoredFile file = fileStorageService.locate(area, key);
+            if (file == null) {
+                notFound.increment();
+                // setStatus, not sendError: the /error dispatch would be rejected by the security chain
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            if (hotFileCache.caches(area)) {
+                cached = hotFileCache.load(area, key, file);
+            }
+            if (cached == null) {
+                serve(file, sha256, downloadName, request, response);
+                return;
+            }
+        }
+        ByteBuffer data = cached.getData();
+        respond(data.capacity(), cached.getLastModified(), sha256, downloadName, request, response,
+                (start, count) -> {
+                    ByteBuffer slice = data.duplicate();
+                    slice.position((int) start).limit((int) (start + count));
+                    OutputStream out = response.getOutputStream();
+                    WritableByteChannel target = Channels.newChannel(out);
+                    while (slice.hasRemaining()) {
+                        target.write(slice);
+                    }
+                    out.flush();
+                    hotFileCache.recordServed(count);
+                });
+    }
+
+    private void serve(StoredFile file, String sha256, String downloadName, HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        if (file.getLocalPath() != null) {
+            serve(file.getLocalPath(), file.getSize(), file.getLastModified(), sha256, downloadName, request, response);
+            return;
+        }
+        URI direct = file.getBlobStore().downloadUrl(file.getBlobHash(), downloadName, contentType(downloadName));
+        if (direct != null) {
+            // the store answers Range / conditional requests itself
+            redirected.increment();
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            response.setHeader(HttpHeaders.LOCATION, direct.toString());
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            return;
+        }
+        respond(file.getSize(), file.getLastModified(), sha256, downloadName, request, response, (start, count) -> {
+            try (InputStream in = file.open(start, count)) {
+                OutputStream out = response.getOutputStream();
+                byte[] buffer = new byte[64 * 1024];
+                long remaining = count;
+                int n;
+                while (remaining > 0 && (n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                    out.write(buffer, 0, n);
+                    remaining -= n;
+                }
+                out.flush();
+            }
+        });
+    }
+
+    private void serve(Path file, long size, long lastModified, String sha256, String downloadName,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        respond(size, lastModified, sha256, downloadName, request, response, (start, count) -> {
+            long end = start + count - 1;
+            if (count >= sendfileThreshold && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);   // exclusive
+                return;
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                OutputStream out = response.getOutputStream();
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = start;
+                long remaining = count;
+                while (remaining > 0) {
+                    long sent = channel.transferTo(position, remaining, target);
+                    if (sent <= 0) {
+                        break;
+                    }
+                    position += sent;
+                    remaining -= sent;
+                }
+                out.flush();
+            }
+        });
+    }
+
+    // Writes bytes [start, start + count) of the body
+    private interface BodyWriter {
+        void write(long start, long count) throws IOException;
+    }
+
+    // Validators, conditional requests and Range handling shared by file and cached bodies;
+    // sha256 = content hash of a content-addressed key, null for legacy keys (size + mtime ETag)
+    private void respond(long length, long lastModifiedMillis, String sha256, String downloadName,
+                         HttpServletRequest request, HttpServletResponse response, BodyWriter body) throws IOException {
+        long lastModified = lastModifiedMillis / 1000 * 1000;   // HTTP dates have second precision
+        String etag = sha256 != null
+                ? "\"" + sha256 + "\""
+                : "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (isNotModified(request, etag, lastModified)) {
+            notModified.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;   // inclusive
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+
+        response.setContentType(contentType(downloadName));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                (StandardCharsets.US_ASCII.newEncoder().canEncode(downloadName)
+                        ? ContentDisposition.inline().filename(downloadName)
+                        : ContentDisposition.inline().filename(downloadName, StandardCharsets.UTF_8)).build().toString());
+        response.setContentLengthLong(Math.max(count, 0));
+
+        if (response.getStatus() == HttpServletResponse.SC_PARTIAL_CONTENT) {
+            partialResponses.increment();
+        } else {
+            fullResponses.increment();
+        }
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+        bytesSent.increment(count);
+        body.write(start, count);
+    }
+
+    // If-None-Match wins over If-Modified-Since (RFC 9110 13.2.2)
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return etagListMatches(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);   // strong comparison only
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date != -1 && date == lastModified;
+    }
+
+    private static boolean etagListMatches(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*") || c.equals(etag) || c.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Single-range parser. Returns {start, end} (inclusive), an empty array when the header
+     * should be ignored (not "bytes=", multiple ranges, malformed) and null when unsatisfiable.
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String from = spec.substring(0, dash).trim();
+            String to = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (from.isEmpty()) {
+                // suffix range: last N bytes
+                long suffix = Long.parseLong(to);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(from);
+                end = to.isEmpty() ? length - 1 : Math.min(Long.parseLong(to), length - 1);
+                if (end < start) {
+                    return start >= length ? null : new long[0];
+                }
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    static String contentType(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return "application/octet-stream";
+        }
+        return CONTENT_TYPES.getOrDefault(fileName.substring(dot + 1).toLowerCase(Locale.ROOT), "application/octet-stream");
+    }
+}
@@ -0,0 +1,131 @@
+package edu.example.edu.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.example.edu.DTO.FileMigrationReportDTO;
+import edu.example.edu.Repository.AssignmentRepository;
+import edu.example.edu.Repository.FileBlobRepository;
+import edu.example.edu.Repository.SubmissionRepository;
+import edu.example.edu.Repository.SyllabusRepository;
+import edu.example.edu.Service.FileStorageService.Area;
+
+/**
+ * One-off move of pre-content-addressed files into the BlobStore.
+ *
+ * Covers the flat uploads/{area}/{millis}_{name} layout and files an earlier run of this migration
+ * put into the sharded uploads/{area}/{ab}/{cd}/{id}_{name} layout. Per file: store() it like an
+ * upload (hash, blob, {sha256}_{name} link), then rewrite the fileLink rows and take their references
+ * in one transaction, then drop the old file - downloads of the old link keep working until the
+ * rows point at the new one. With files.storage.backend=s3 the migrated files are served by every node.
+ * Directory entries are streamed, never listed into memory; safe to re-run.
+ */
+@Service
+public class FileStorageMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(FileStorageMigration.class);
+    private static final int MAX_REPORTED_ERRORS = 50;
+    // area dir itself (flat legacy files) plus the two shard levels
+    private static final int LAYOUT_DEPTH = 3;
+
+    private final FileStorageService fileStorageService;
+    private final AssignmentRepository assignmentRepository;
+    private final SubmissionRepository submissionRepository;
+    private final SyllabusRepository syllabusRepository;
+    private final FileBlobRepository fileBlobRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public FileStorageMigration(FileStorageService fileStorageService,
+                                AssignmentRepository assignmentRepository,
+                                SubmissionRepository submissionRepository,
+                                SyllabusRepository syllabusRepository,
+                                FileBlobRepository fileBlobRepository,
+                                TransactionTemplate transactionTemplate) {
+        this.fileStorageService = fileStorageService;
+        this.assignmentRepository = assignmentRepository;
+        this.submissionRepository = submissionRepository;
+        this.syllabusRepository = syllabusRepository;
+        this.fileBlobRepository = fileBlobRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public synchronized FileMigrationReportDTO migrate(boolean dryRun) {
+        FileMigrationReportDTO report = new FileMigrationReportDTO();
+        report.setDryRun(dryRun);
+        for (Area area : Area.values()) {
+            migrateArea(area, dryRun, report);
+        }
+        log.info("File storage migration{}: scanned={} moved={} linksRewritten={} failed={}",
+                dryRun ? " (dry run)" : "", report.getScanned(), report.getMoved(),
+                report.getLinksRewritten(), report.getFailed());
+        return report;
+    }
+
+    private void migrateArea(Area area, boolean dryRun, FileMigrationReportDTO report) {
+        Path dir = fileStorageService.areaDir(area);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        // legacy flat files and old sharded files; Files.find walks lazily
+        try (Stream<Path> files = Files.find(dir, LAYOUT_DEPTH, (path, attrs) -> attrs.isRegularFile()
+                && FileStorageService.isValidKey(path.getFileName().toString()))) {
+            for (Path legacy : (Iterable<Path>) files::iterator) {
+                report.setScanned(report.getScanned() + 1);
+                if (!dryRun) {
+                    migrateFile(area, legacy, report);
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            fail(report, area.getDir() + ": " + e.getMessage());
+        }
+    }
+
+    private void migrateFile(Area area, Path legacy, FileMigrationReportDTO report) {
+        String oldKey = legacy.getFileName().toString();
+        try {
+            String newLink;
+            try (InputStream in = Files.newInputStream(legacy)) {
+                newLink = fileStorageService.store(area, FileStorageService.displayName(oldKey), in);
+            }
+            // rows and reference count move together; if this fails the blob stays unreferenced and
+            // the orphan collector drops it after the grace period, the legacy file is still served
+            String sha256 = FileStorageService.blobHashOf(newLink);
+            int rows = transactionTemplate.execute(status -> {
+                int n = replaceLink(area, area.link(oldKey), newLink);
+                if (n > 0) {
+                    fileBlobRepository.retain(sha256, n);
+                }
+                return n;
+            });
+
+            Files.delete(legacy);
+            report.setMoved(report.getMoved() + 1);
+            report.setLinksRewritten(report.getLinksRewritten() + rows);
+        } catch (IOException | RuntimeException e) {
+            fail(report, area.getDir() + "/" + oldKey + ": " + e.getMessage());
+        }
+    }
+    private int replaceLink(Area area, String oldLink, String newLink) {
+        return switch (area) {
+            case ASSIGNMENTS -> assignmentRepository.replaceFileLink(oldLink, newLink);
+            case SUBMISSIONS -> submissionRepository.replaceFileLink(oldLink, newLink);
+            case SYLLABUS -> syllabusRepository.replaceFileLink(oldLink, newLink);
+        };
+    }
+
+    private static void fail(FileMigrationReportDTO report, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(message);
+        }
+    }
+}
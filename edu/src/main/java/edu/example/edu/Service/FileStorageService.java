@@ -0,0 +1,326 @@
+package edu.example.edu.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import edu.example.edu.Entity.FileBlob;
+import edu.example.edu.Repository.FileBlobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+
+/**
+ * Single place that decides where uploaded files live.
+ *
+ * New uploads are content-addressed: the SHA-256 computed while streaming the upload names the
+ * blob and the key is "{sha256}_{sanitised name}", so the same bytes uploaded again (any area,
+ * any name) reuse the existing blob and cost no extra storage. Blobs are kept by the configured
+ * BlobStore (shared filesystem or S3-compatible), so they are reachable from every app instance.
+ * FileBlob.refCount counts the Assignment / Submission / Syllabus rows pointing at a blob
+ * (retain / release / replace from the services).
+ *
+ * Older keys are still served from {root}: "{random id}_{name}" from {root}/{area}/{ab}/{cd}/{key}
+ * (ab/cd = first bytes of SHA-256(key)) and, until FileStorageMigration has run, the flat layout.
+ */
+@Service
+public class FileStorageService {
+
+    public enum Area {
+        SUBMISSIONS("submissions", "/api/submissions/files/"),
+        ASSIGNMENTS("assignments", "/api/assignments/files/"),
+        SYLLABUS("syllabus", "/api/syllabus/files/");
+
+        private final String dir;
+        private final String linkPrefix;
+
+        Area(String dir, String linkPrefix) {
+            this.dir = dir;
+            this.linkPrefix = linkPrefix;
+        }
+
+        public String getDir() {
+            return dir;
+        }
+
+        public String getLinkPrefix() {
+            return linkPrefix;
+        }
+
+        public String link(String key) {
+            return linkPrefix + key;
+        }
+
+        // key of a fileLink in this area, or null when the link belongs elsewhere
+        public String keyOf(String fileLink) {
+            return fileLink != null && fileLink.startsWith(linkPrefix) ? fileLink.substring(linkPrefix.length()) : null;
+        }
+    }
+
+    // A stored upload, wherever it lives; localPath is set when it is a plain file on this node's view of the disk
+    @Getter
+    public static final class StoredFile {
+        private final long size;
+        private final long lastModified;
+        private final Path localPath;
+        private final String blobHash;
+        private final BlobStore blobStore;
+
+        StoredFile(long size, long lastModified, Path localPath, String blobHash, BlobStore blobStore) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.localPath = localPath;
+            this.blobHash = blobHash;
+            this.blobStore = blobStore;
+        }
+
+        // Bytes from offset on; only the first length are meaningful
+        public InputStream open(long offset, long length) throws IOException {
+            if (localPath != null) {
+                return Channels.newInputStream(FileChannel.open(localPath, StandardOpenOption.READ).position(offset));
+            }
+            return blobStore.open(blobHash, offset, length);
+        }
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int HASH_HEX_LENGTH = 64;
+
+    private final Path root;
+    private final BlobStore blobStore;
+    private final FileBlobRepository fileBlobRepository;
+
+    private final Counter dedupHits;
+    private final Counter dedupMisses;
+    private final Counter bytesDeduplicated;
+
+    public FileStorageService(@Value("${files.storage.root:}") String root,
+                              BlobStore blobStore,
+                              FileBlobRepository fileBlobRepository,
+                              MeterRegistry registry) {
+        this.root = rootPath(root);
+        this.blobStore = blobStore;
+        this.fileBlobRepository = fileBlobRepository;
+        this.dedupHits = registry.counter("files.blobs.store", "result", "duplicate");
+        this.dedupMisses = registry.counter("files.blobs.store", "result", "new");
+        this.bytesDeduplicated = registry.counter("files.blobs.deduplicated.bytes");
+    }
+
+    // files.storage.root, blank = ${user.dir}/uploads
+    static Path rootPath(String configured) {
+        return (configured == null || configured.isBlank()
+                ? Paths.get(System.getProperty("user.dir"), "uploads")
+                : Paths.get(configured)).toAbsolutePath().normalize();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public BlobStore getBlobStore() {
+        return blobStore;
+    }
+
+    public Path areaDir(Area area) {
+        return root.resolve(area.getDir());
+    }
+
+    // ✅ Store an upload; returns the fileLink to save on the entity (then call retain).
+    // Streams into a spool file while hashing, then either drops it (blob already there) or hands it to the blob store
+    public String store(Area area, String originalName, InputStream in) throws IOException {
+        Path spool = blobStore.newSpoolFile();
+
+        MessageDigest md = newSha256();
+        long size;
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(spool), md)) {
+            size = in.transferTo(out);
+        } catch (IOException | RuntimeException e) {   // includes uploads rejected mid-stream
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        String sha256 = HexFormat.of().formatHex(md.digest());
+        try {
+            commitBlob(spool, sha256, size);
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+        return area.link(sha256 + "_" + sanitize(originalName));
+    }
+
+    private void commitBlob(Path spool, String sha256, long size) throws IOException {
+        if (blobStore.stat(sha256) != null) {
+            dedupHits.increment();
+            bytesDeduplicated.increment(size);
+        } else {
+            blobStore.put(sha256, spool);
+            dedupMisses.increment();
+        }
+        ensureBlobRow(sha256, size);
+    }
+
+    private void ensureBlobRow(String sha256, long size) {
+        Instant now = Instant.now();
+        if (fileBlobRepository.touchUnreferenced(sha256, now) > 0 || fileBlobRepository.existsById(sha256)) {
+            return;
+        }
+        try {
+            // releasedAt = now: a blob nobody ends up referencing is collectable after the grace period
+            fileBlobRepository.save(new FileBlob(sha256, size, 0, now, now));
+        } catch (DataIntegrityViolationException alreadyInserted) {
+            // concurrent upload of the same content
+        }
+    }
+
+    // ---------------- REFERENCE COUNTS ----------------
+
+    // A row now points at fileLink
+    public void retain(String fileLink) {
+        String sha256 = blobHashOf(fileLink);
+        if (sha256 != null) {
+            fileBlobRepository.retain(sha256);
+        }
+    }
+
+    // A row no longer points at fileLink (deleted or replaced)
+    public void release(String fileLink) {
+        String sha256 = blobHashOf(fileLink);
+        if (sha256 != null) {
+            fileBlobRepository.release(sha256, Instant.now());
+        }
+    }
+
+    public void replace(String oldLink, String newLink) {
+        if (Objects.equals(oldLink, newLink)) {
+            return;
+        }
+        retain(newLink);
+        release(oldLink);
+    }
+
+    // sha256 of a content-addressed fileLink ("/api/x/files/{sha256}_{name}"), null for other links
+    public static String blobHashOf(String fileLink) {
+        if (fileLink == null) {
+            return null;
+        }
+        String key = fileLink.substring(fileLink.lastIndexOf('/') + 1);
+        return isContentKey(key) ? key.substring(0, HASH_HEX_LENGTH) : null;
+    }
+
+    static boolean isContentKey(String key) {
+        if (key.length() <= HASH_HEX_LENGTH + 1 || key.charAt(HASH_HEX_LENGTH) != '_') {
+            return false;
+        }
+        for (int i = 0; i < HASH_HEX_LENGTH; i++) {
+            char c = key.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ---------------- LOOKUP ----------------
+
+    // Existing file for a key (blob, then sharded, then the legacy flat directory), or null
+    public StoredFile locate(Area area, String key) throws IOException {
+        if (!isValidKey(key)) {
+            return null;
+        }
+        if (isContentKey(key)) {
+            String sha256 = key.substring(0, HASH_HEX_LENGTH);
+            BlobStore.BlobInfo info = blobStore.stat(sha256);
+            return info == null ? null
+                    : new StoredFile(info.size(), info.lastModified(), blobStore.localFile(sha256), sha256, blobStore);
+        }
+        Path file = shardedPath(area, key);
+        if (!Files.isRegularFile(file)) {
+            file = areaDir(area).resolve(key);
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+        }
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        return new StoredFile(attrs.size(), attrs.lastModifiedTime().toMillis(), file, null, blobStore);
+    }
+
+    public Path shardedPath(Area area, String key) {
+        byte[] hash = sha256(key);
+        String shard1 = HexFormat.of().toHexDigits(hash[0]);
+        String shard2 = HexFormat.of().toHexDigits(hash[1]);
+        return areaDir(area).resolve(shard1).resolve(shard2).resolve(key);
+    }
+
+    // Original name without the "{id}_" / "{sha256}_" prefix (used as the download name)
+    public static String displayName(String key) {
+        int underscore = key.indexOf('_');
+        return underscore > 0 && underscore < key.length() - 1 ? key.substring(underscore + 1) : key;
+    }
+
+    // One path segment, no separators or traversal
+    public static boolean isValidKey(String key) {
+        return key != null && !key.isEmpty() && !key.equals(".") && !key.equals("..")
+                && key.indexOf('/') < 0 && key.indexOf('\\') < 0 && key.indexOf('\0') < 0;
+    }
+
+    static String sanitize(String originalName) {
+        String name = originalName == null ? "" : originalName;
+        // some browsers send the full client path
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+        StringBuilder sb = new StringBuilder(name.length());
+        for (char c : name.toCharArray()) {
+            sb.append((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '-' || c == '_' ? c : '_');
+        }
+        String clean = sb.toString().replaceAll("^\\.+", "");
+        if (clean.isEmpty()) {
+            clean = "file";
+        }
+        if (clean.length() > MAX_NAME_LENGTH) {
+            // keep the extension, it drives the download content type
+            int dot = clean.lastIndexOf('.');
+            String ext = dot > 0 && clean.length() - dot <= 10 ? clean.substring(dot) : "";
+            clean = clean.substring(0, MAX_NAME_LENGTH - ext.length()) + ext;
+        }
+        return clean;
+    }
+
+    private static byte[] sha256(String key) {
+        MessageDigest md = SHA256.get();
+        md.reset();
+        return md.digest(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
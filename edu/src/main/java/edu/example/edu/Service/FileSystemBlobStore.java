@@ -0,0 +1,246 @@
+package edu.example.edu.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Blobs as files under {files.storage.root}/blobs/{ab}/{cd}/{sha256}.
+ *
+ * For more than one app instance the root must be a shared mount (NFS, EFS, SMB): uploads are
+ * spooled into blobs/.tmp on the same filesystem, so put() is an atomic rename and a half-written
+ * blob is never visible to another node. Quarantined blobs live in {root}/quarantine/blobs and
+ * resumable upload parts in blobs/.uploads/{uploadId}/{offset}-{random}.
+ */
+@Service
+@ConditionalOnProperty(name = "files.storage.backend", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemBlobStore implements BlobStore {
+
+    private final Path blobDir;
+    private final Path quarantineDir;
+
+    public FileSystemBlobStore(@Value("${files.storage.root:}") String root) {
+        Path base = FileStorageService.rootPath(root);
+        this.blobDir = base.resolve("blobs");
+        this.quarantineDir = base.resolve("quarantine").resolve("blobs");
+    }
+
+    @Override
+    public Path newSpoolFile() throws IOException {
+        Files.createDirectories(spoolDir());
+        return spoolDir().resolve(UUID.randomUUID().toString());
+    }
+
+    @Override
+    public Path spoolDir() {
+        return blobDir.resolve(".tmp");
+    }
+
+    @Override
+    public void put(String sha256, Path spooled) throws IOException {
+        Path blob = shardPath(blobDir, sha256);
+        Files.createDirectories(blob.getParent());
+        // same bytes racing in from two uploads end up identical either way
+        Files.move(spooled, blob, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public BlobInfo stat(String sha256) throws IOException {
+        return statFile(sha256, shardPath(blobDir, sha256));
+    }
+
+    @Override
+    public InputStream open(String sha256, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(shardPath(blobDir, sha256), StandardOpenOption.READ);
+        return Channels.newInputStream(channel.position(offset));
+    }
+
+    @Override
+    public Path localFile(String sha256) {
+        Path blob = shardPath(blobDir, sha256);
+        return Files.isRegularFile(blob) ? blob : null;
+    }
+
+    @Override
+    public URI downloadUrl(String sha256, String downloadName, String contentType) {
+        return null;
+    }
+
+    @Override
+    public List<BlobInfo> list(String afterSha256, int limit) throws IOException {
+        return listTree(blobDir, afterSha256, limit);
+    }
+
+    // ---------------- ORPHAN COLLECTION ----------------
+
+    @Override
+    public void quarantine(String sha256) throws IOException {
+        Path target = shardPath(quarantineDir, sha256);
+        Files.createDirectories(target.getParent());
+        Files.move(shardPath(blobDir, sha256), target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // the quarantine clock starts now
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+    }
+
+    @Override
+    public List<BlobInfo> listQuarantined(String afterSha256, int limit) throws IOException {
+        return listTree(quarantineDir, afterSha256, limit);
+    }
+
+    @Override
+    public void restore(String sha256) throws IOException {
+        Path target = shardPath(blobDir, sha256);
+        Files.createDirectories(target.getParent());
+        Files.move(shardPath(quarantineDir, sha256), target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void deleteQuarantined(String sha256) throws IOException {
+        Files.deleteIfExists(shardPath(quarantineDir, sha256));
+    }
+
+    // ---------------- RESUMABLE UPLOADS ----------------
+
+    @Override
+    public void writePart(String uploadId, String partName, Path chunk) throws IOException {
+        Path dir = partsDir(uploadId);
+        Files.createDirectories(dir);
+        Files.move(chunk, dir.resolve(partName), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public InputStream openParts(String uploadId, List<String> partNames) throws IOException {
+        Path dir = partsDir(uploadId);
+        for (String name : partNames) {
+            if (!Files.isRegularFile(dir.resolve(name))) {
+                throw new IOException("Upload " + uploadId + " is missing part " + name);
+            }
+        }
+
+        Iterator<String> names = partNames.iterator();
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return names.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return Files.newInputStream(dir.resolve(names.next()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void deleteParts(String uploadId) throws IOException {
+        Path dir = partsDir(uploadId);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path p : entries) {
+                Files.deleteIfExists(p);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private Path partsDir(String uploadId) {
+        return blobDir.resolve(".uploads").resolve(uploadId);
+    }
+
+    // ---------------- LAYOUT ----------------
+
+    private static Path shardPath(Path base, String sha256) {
+        return base.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private static BlobInfo statFile(String sha256, Path file) throws IOException {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            return attrs.isRegularFile() ? new BlobInfo(sha256, attrs.size(), attrs.lastModifiedTime().toMillis()) : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // Walks the {ab}/{cd} shards in order, so only one shard directory is listed at a time
+    private static List<BlobInfo> listTree(Path base, String after, int limit) throws IOException {
+        List<BlobInfo> result = new ArrayList<>();
+        if (!Files.isDirectory(base)) {
+            return result;
+        }
+        String afterShard = after == null ? "" : after.substring(0, 4);
+        for (String s1 : shardNames(base)) {
+            if (s1.compareTo(afterShard.isEmpty() ? "" : afterShard.substring(0, 2)) < 0) {
+                continue;
+            }
+            for (String s2 : shardNames(base.resolve(s1))) {
+                if ((s1 + s2).compareTo(afterShard) < 0) {
+                    continue;
+                }
+                TreeSet<String> names = new TreeSet<>();
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(base.resolve(s1).resolve(s2))) {
+                    for (Path p : entries) {
+                        String name = p.getFileName().toString();
+                        if (name.length() == 64 && (after == null || name.compareTo(after) > 0)) {
+                            names.add(name);
+                        }
+                    }
+                }
+                for (String name : names) {
+                    BlobInfo info = statFile(name, base.resolve(s1).resolve(s2).resolve(name));
+                    if (info != null) {
+                        result.add(info);
+                        if (result.size() >= limit) {
+                            return result;
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // two-hex-digit shard directories, sorted (at most 256 names)
+    private static List<String> shardNames(Path dir) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, "[0-9a-f][0-9a-f]")) {
+            for (Path p : entries) {
+                if (Files.isDirectory(p)) {
+                    names.add(p.getFileName().toString());
+                }
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+}
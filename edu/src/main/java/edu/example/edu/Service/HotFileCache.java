@@ -0,0 +1,337 @@
+package edu.example.edu.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import edu.example.edu.Service.FileStorageService.Area;
+import edu.example.edu.Service.FileStorageService.StoredFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+
+/**
+ * Byte-bounded cache of small, hot assignment / syllabus files, held in direct (off-heap)
+ * ByteBuffers so a whole class downloading the same handout is served from memory.
+ *
+ * Policy is W-TinyLFU: new files enter a small LRU window; a file leaving the window only gets
+ * into the main SLRU (probation -> protected) if a count-min sketch of recent accesses says it is
+ * requested more often than the main victim it would displace, so a burst of one-off downloads
+ * cannot flush the files everybody reads. The sketch halves its counters periodically so
+ * popularity ages out.
+ *
+ * Entries are keyed by area + key (the fileLink tail) and invalidated by the services when an
+ * assignment or syllabus row stops pointing at a link. Direct buffers are released by the GC once
+ * evicted and no download still holds them. Concurrent misses on the same file share one load.
+ */
+@Service
+public class HotFileCache {
+
+    @Getter
+    public static class Entry {
+        private final String cacheKey;
+        private final ByteBuffer data;   // read-only view; use duplicate() per response
+        private final long lastModified;
+
+        Entry(String cacheKey, ByteBuffer data, long lastModified) {
+            this.cacheKey = cacheKey;
+            this.data = data;
+            this.lastModified = lastModified;
+        }
+
+        public int size() {
+            return data.capacity();
+        }
+    }
+
+    private final boolean enabled;
+    private final long maxFileBytes;
+    private final long windowMax;
+    private final long mainMax;
+    private final long protectedMax;
+
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Entry> protectedSegment = new LinkedHashMap<>();
+    private long windowBytes;
+    private long probationBytes;
+    private long protectedBytes;
+
+    private final FrequencySketch sketch;
+    // loads in progress by cache key; later misses wait for the first one instead of reading again
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bytesSaved;
+    private final Counter evictions;
+    private final Counter rejections;
+    private final Counter invalidations;
+    private final Counter coalescedLoads;
+
+    public HotFileCache(@Value("${files.hot-cache.enabled:true}") boolean enabled,
+                        @Value("${files.hot-cache.capacity:64MB}") DataSize capacity,
+                        @Value("${files.hot-cache.max-file-size:2MB}") DataSize maxFileSize,
+                        MeterRegistry registry) {
+        this.enabled = enabled;
+        this.maxFileBytes = maxFileSize.toBytes();
+        long total = capacity.toBytes();
+        // 1% window as in W-TinyLFU, but always big enough to hold one file
+        this.windowMax = Math.min(total, Math.max(total / 100, maxFileBytes));
+        this.mainMax = total - windowMax;
+        this.protectedMax = mainMax * 8 / 10;
+        // width sized for the number of small files that fit, at least 1024 slots
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(1024, total / 16384)));
+
+        this.hits = registry.counter("files.hot_cache", "result", "hit");
+        this.misses = registry.counter("files.hot_cache", "result", "miss");
+        this.bytesSaved = registry.counter("files.hot_cache.bytes_saved");
+        this.evictions = registry.counter("files.hot_cache.evictions");
+        this.rejections = registry.counter("files.hot_cache.admission_rejected");
+        this.invalidations = registry.counter("files.hot_cache.invalidations");
+        this.coalescedLoads = registry.counter("files.hot_cache.loads_coalesced");
+        Gauge.builder("files.hot_cache.hit_ratio", this, c -> {
+            double lookups = c.hits.count() + c.misses.count();
+            return lookups == 0 ? 0 : c.hits.count() / lookups;
+        }).register(registry);
+        Gauge.builder("files.hot_cache.size_bytes", this, HotFileCache::sizeBytes).register(registry);
+        Gauge.builder("files.hot_cache.entries", this, HotFileCache::entryCount).register(registry);
+    }
+
+    public boolean caches(Area area) {
+        return enabled && (area == Area.ASSIGNMENTS || area == Area.SYLLABUS);
+    }
+
+    // Cached entry, or null (counts the access for the admission policy either way)
+    public Entry get(Area area, String key) {
+        String cacheKey = cacheKey(area, key);
+        Entry entry;
+        synchronized (this) {
+            sketch.increment(cacheKey.hashCode());
+            entry = window.get(cacheKey);
+            if (entry != null) {
+                window.remove(cacheKey);
+                window.put(cacheKey, entry);
+            } else if ((entry = protectedSegment.get(cacheKey)) != null) {
+                protectedSegment.remove(cacheKey);
+                protectedSegment.put(cacheKey, entry);
+            } else if ((entry = probation.remove(cacheKey)) != null) {
+                probationBytes -= entry.size();
+                promote(entry);
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    // Loads a small file that just missed; null when it is too big to cache
+    public Entry load(Area area, String key, StoredFile file) throws IOException {
+        if (file.getSize() > maxFileBytes || file.getSize() > windowMax) {
+            return null;
+        }
+        String cacheKey = cacheKey(area, key);
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            coalescedLoads.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            Entry entry = read(cacheKey, file);
+            insert(entry);
+            mine.complete(entry);
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, mine);
+            mine.cancel(false);   // no-op unless an Error got past the catch; waiters must not hang
+        }
+    }
+
+    private Entry read(String cacheKey, StoredFile file) throws IOException {
+        ByteBuffer data = ByteBuffer.allocateDirect((int) file.getSize());
+        try (ReadableByteChannel channel = file.getLocalPath() != null
+                ? FileChannel.open(file.getLocalPath(), StandardOpenOption.READ)
+                : Channels.newChannel(file.open(0, file.getSize()))) {
+            while (data.hasRemaining() && channel.read(data) >= 0) {
+                // fill
+            }
+        }
+        data.flip();
+        return new Entry(cacheKey, data.asReadOnlyBuffer(), file.getLastModified());
+    }
+
+    private synchronized void insert(Entry entry) {
+        removeKey(entry.cacheKey);
+        window.put(entry.cacheKey, entry);
+        windowBytes += entry.size();
+        while (windowBytes > windowMax) {
+            Iterator<Entry> it = window.values().iterator();
+            Entry candidate = it.next();
+            it.remove();
+            windowBytes -= candidate.size();
+            admit(candidate);
+        }
+    }
+
+    public void recordServed(long bytes) {
+        bytesSaved.increment(bytes);
+    }
+
+    // fileLink of an assignment / syllabus row that was replaced or deleted
+    public void invalidate(String fileLink) {
+        if (fileLink == null) {
+            return;
+        }
+        for (Area area : new Area[] { Area.ASSIGNMENTS, Area.SYLLABUS }) {
+            String key = area.keyOf(fileLink);
+            if (key != null) {
+                synchronized (this) {
+                    if (removeKey(cacheKey(area, key))) {
+                        invalidations.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    // Window victim tries to enter the main space: it has to be more popular than what it pushes out
+    private void admit(Entry candidate) {
+        // capacity under 2x max-file-size leaves a main space smaller than some window entries
+        if (candidate.size() > mainMax) {
+            rejections.increment();
+            return;
+        }
+        int candidateFreq = sketch.frequency(candidate.cacheKey.hashCode());
+        while (probationBytes + protectedBytes + candidate.size() > mainMax) {
+            LinkedHashMap<String, Entry> victims = probation.isEmpty() ? protectedSegment : probation;
+            Entry victim = victims.values().iterator().next();
+            if (candidateFreq <= sketch.frequency(victim.cacheKey.hashCode())) {
+                rejections.increment();
+                return;
+            }
+            removeKey(victim.cacheKey);
+            evictions.increment();
+        }
+        probation.put(candidate.cacheKey, candidate);
+        probationBytes += candidate.size();
+    }
+
+    // Probation hit: move to protected, demoting protected's LRU entries back to probation if needed
+    private void promote(Entry entry) {
+        protectedSegment.put(entry.cacheKey, entry);
+        protectedBytes += entry.size();
+        while (protectedBytes > protectedMax && protectedSegment.size() > 1) {
+            Iterator<Entry> it = protectedSegment.values().iterator();
+            Entry demoted = it.next();
+            it.remove();
+            protectedBytes -= demoted.size();
+            probation.put(demoted.cacheKey, demoted);
+            probationBytes += demoted.size();
+        }
+    }
+
+    private boolean removeKey(String cacheKey) {
+        Entry e;
+        if ((e = window.remove(cacheKey)) != null) {
+            windowBytes -= e.size();
+        } else if ((e = probation.remove(cacheKey)) != null) {
+            probationBytes -= e.size();
+        } else if ((e = protectedSegment.remove(cacheKey)) != null) {
+            protectedBytes -= e.size();
+        }
+        return e != null;
+    }
+
+    private synchronized long sizeBytes() {
+        return windowBytes + probationBytes + protectedBytes;
+    }
+
+    private synchronized long entryCount() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    private static String cacheKey(Area area, String key) {
+        return area.name() + ":" + key;
+    }
+
+    /**
+     * Count-min sketch with 4-bit counters (4 rows), halved every 10 x width increments so the
+     * frequencies describe recent traffic rather than all time.
+     */
+    static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+        private final byte[][] counters;
+        private final int mask;
+        private final int resetAt;
+        private int additions;
+
+        FrequencySketch(int width) {
+            int w = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+            this.counters = new byte[DEPTH][w];
+            this.mask = w - 1;
+            this.resetAt = 10 * w;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                int idx = index(hash, i);
+                if (counters[i][idx] < 15) {
+                    counters[i][idx]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= resetAt) {
+                for (byte[] row : counters) {
+                    for (int j = 0; j < row.length; j++) {
+                        row[j] >>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, counters[i][index(hash, i)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 16;
+            return h & mask;
+        }
+    }
+}
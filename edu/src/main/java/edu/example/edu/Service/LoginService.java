@@ -0,0 +1,89 @@
+package edu.example.edu.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import edu.example.edu.Config.JwtUtil;
+import edu.example.edu.DTO.LoginDTO;
+import edu.example.edu.Entity.User;
+import edu.example.edu.Repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@Service
+public class LoginService {
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtUtil jwtUtil;
+    private final ExecutorService loginExecutor;
+
+    private final Timer hashTimer;
+    private final Counter rejected;
+    private final Counter rehashed;
+
+    public LoginService(UserRepository userRepository,
+                        PasswordEncoder passwordEncoder,
+                        JwtUtil jwtUtil,
+                        @Qualifier("loginExecutor") ExecutorService loginExecutor,
+                        MeterRegistry registry) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtUtil = jwtUtil;
+        this.loginExecutor = loginExecutor;
+        this.hashTimer = registry.timer("login.bcrypt.verify");
+        this.rejected = registry.counter("login.rejected");
+        this.rehashed = registry.counter("login.rehashed");
+    }
+
+    // ✅ Login: DB lookup on the request thread, BCrypt on the bounded login pool
+    public CompletableFuture<String> login(LoginDTO dto) {
+        User user = userRepository.findByEmail(dto.getEmail())
+                .orElseThrow(() -> new RuntimeException("Invalid credentials"));
+
+        try {
+            return CompletableFuture.supplyAsync(() -> verifyAndIssueToken(user, dto.getPassword()), loginExecutor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many logins in progress, please retry");
+        }
+    }
+
+    private String verifyAndIssueToken(User user, String rawPassword) {
+        boolean matches = hashTimer.record(() -> passwordEncoder.matches(rawPassword, user.getPassword()));
+        if (!matches) {
+            throw new RuntimeException("Invalid credentials");
+        }
+
+        // ❌ BLOCK PENDING OR REJECTED USERS
+        if (user.getApprovalStatus() != User.ApprovalStatus.APPROVED) {
+            throw new RuntimeException("Your account is " + user.getApprovalStatus() + ". Contact school admin.");
+        }
+
+        // 🔁 Transparent rehash: stored hash uses an older/lower BCrypt cost than configured
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            userRepository.updatePassword(user.getUserId(), passwordEncoder.encode(rawPassword));
+            rehashed.increment();
+        }
+
+        Long schoolId = user.getSchool() != null ? user.getSchool().getSchoolId() : null;
+        Long classroomId = user.getClassroom() != null ? user.getClassroom().getClassId() : null;
+
+        return jwtUtil.generateToken(
+                user.getUserId(),
+                user.getEmail(),
+                user.getRole().name(),
+                schoolId,
+                classroomId,
+                user.getName()
+        );
+    }
+}
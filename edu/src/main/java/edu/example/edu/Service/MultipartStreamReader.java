@@ -0,0 +1,228 @@
+package edu.example.edu.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Minimal streaming reader for multipart/form-data (RFC 7578).
+ *
+ * Each part body is handed out as an InputStream that ends at the next boundary, read through
+ * one fixed buffer straight from the request - nothing is spooled to disk or collected in memory
+ * except part headers. Usage: while (nextPart()) { headers(); body() ... }.
+ */
+final class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+    private static final byte[] HEADER_END = { '\r', '\n', '\r', '\n' };
+
+    private final InputStream in;
+    private final byte[] delimiter;   // CRLF "--" boundary
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private boolean atDelimiter;
+    private boolean finished;
+
+    MultipartStreamReader(InputStream in, String boundary) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        // the first boundary has no leading CRLF; pretend it has so every boundary looks the same
+        buf[0] = '\r';
+        buf[1] = '\n';
+        limit = 2;
+    }
+
+    // boundary parameter of a multipart Content-Type, or null
+    static String boundaryOf(String contentType) {
+        String boundary = headerParam(contentType, "boundary");
+        return boundary == null || boundary.isEmpty() || boundary.length() > 70 ? null : boundary;
+    }
+
+    // Skips the rest of the current part (or the preamble); false once the closing boundary is reached
+    boolean nextPart() throws IOException {
+        if (finished) {
+            return false;
+        }
+        byte[] skip = new byte[8192];
+        while (readBody(skip, 0, skip.length) != -1) {
+            // drain
+        }
+        pos += delimiter.length;
+        atDelimiter = false;
+
+        if (!ensure(2)) {
+            throw new EOFException("Multipart body ended after a boundary");
+        }
+        if (buf[pos] == '-' && buf[pos + 1] == '-') {
+            finished = true;
+            return false;
+        }
+        // optional transport padding, then CRLF
+        while (true) {
+            if (!ensure(2)) {
+                throw new EOFException("Multipart body ended after a boundary");
+            }
+            if (buf[pos] == '\r' && buf[pos + 1] == '\n') {
+                pos += 2;
+                return true;
+            }
+            if (buf[pos] != ' ' && buf[pos] != '\t') {
+                throw new IOException("Malformed multipart boundary line");
+            }
+            pos++;
+        }
+    }
+
+    // Headers of the current part, names lower-cased; call once, right after nextPart()
+    Map<String, String> headers() throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        if (ensure(2) && buf[pos] == '\r' && buf[pos + 1] == '\n') {
+            pos += 2;   // no headers
+            return headers;
+        }
+        int end;
+        // only look MAX_HEADER_BYTES ahead, whether or not more is already buffered
+        while ((end = indexOf(HEADER_END, pos, Math.min(limit, pos + MAX_HEADER_BYTES + HEADER_END.length))) < 0) {
+            if (limit - pos >= MAX_HEADER_BYTES + HEADER_END.length) {
+                throw new IOException("Multipart part headers too large");
+            }
+            if (!fill()) {
+                throw new EOFException("Multipart body ended inside part headers");
+            }
+        }
+        // browsers send raw UTF-8 file names
+        String block = new String(buf, pos, end - pos, StandardCharsets.UTF_8);
+        pos = end + HEADER_END.length;
+        for (String line : block.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    // Body of the current part; ends (-1) at the next boundary
+    InputStream body() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return readBody(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return len == 0 ? 0 : readBody(b, off, len);
+            }
+        };
+    }
+
+    private int readBody(byte[] b, int off, int len) throws IOException {
+        while (!atDelimiter) {
+            int idx = indexOf(delimiter, pos, limit);
+            if (idx == pos) {
+                atDelimiter = true;
+                break;
+            }
+            // bytes before a possible (partial) delimiter at the end of the buffer are safe to hand out
+            int safe = idx >= 0 ? idx : limit - (delimiter.length - 1);
+            if (safe > pos) {
+                int n = Math.min(len, safe - pos);
+                System.arraycopy(buf, pos, b, off, n);
+                pos += n;
+                return n;
+            }
+            if (!fill()) {
+                throw new EOFException("Multipart body ended inside a part");
+            }
+        }
+        return -1;
+    }
+
+    private boolean ensure(int n) throws IOException {
+        while (limit - pos < n) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Compacts and reads more; false at end of stream
+    private boolean fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        int n = in.read(buf, limit, buf.length - limit);
+        if (n <= 0) {
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    private int indexOf(byte[] pattern, int from, int to) {
+        byte first = pattern[0];
+        outer:
+        for (int i = from; i <= to - pattern.length; i++) {
+            if (buf[i] != first) {
+                continue;
+            }
+            for (int j = 1; j < pattern.length; j++) {
+                if (buf[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // Parameter of a header like: form-data; name="file"; filename="a.pdf"
+    static String headerParam(String header, String name) {
+        if (header == null) {
+            return null;
+        }
+        int i = header.indexOf(';');
+        while (i >= 0 && i < header.length()) {
+            int eq = header.indexOf('=', i);
+            if (eq < 0) {
+                return null;
+            }
+            String key = header.substring(i + 1, eq).trim();
+            String value;
+            int next;
+            if (eq + 1 < header.length() && header.charAt(eq + 1) == '"') {
+                StringBuilder sb = new StringBuilder();
+                int j = eq + 2;
+                while (j < header.length() && header.charAt(j) != '"') {
+                    char c = header.charAt(j);
+                    if (c == '\\' && j + 1 < header.length()) {
+                        c = header.charAt(++j);
+                    }
+                    sb.append(c);
+                    j++;
+                }
+                value = sb.toString();
+                next = header.indexOf(';', j);
+            } else {
+                next = header.indexOf(';', eq);
+                value = (next < 0 ? header.substring(eq + 1) : header.substring(eq + 1, next)).trim();
+            }
+            if (key.equalsIgnoreCase(name)) {
+                return value;
+            }
+            i = next;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,273 @@
+package edu.example.edu.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import edu.example.edu.Service.FileStorageService.Area;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Getter;
+
+/**
+ * Streaming multipart/form-data ingestion for the upload endpoints.
+ *
+ * The request body is parsed as it arrives (MultipartStreamReader) instead of letting the
+ * container spool it to a temp file first: the file part goes straight into FileStorageService,
+ * which hashes it on the way to the blob store, so every upload is written to disk once.
+ * Limits are checked before and while reading - Content-Length up front, then a running byte
+ * count and a signature check of the first bytes against the file extension - and a rejected
+ * upload stops reading immediately (its partial blob temp file is deleted).
+ *
+ * Form fields are only the small text parts; controllers using this must not declare
+ * @RequestParam / MultipartFile (that would make the container parse the body first).
+ */
+@Service
+public class MultipartUploadService {
+
+    private static final int SNIFF_BYTES = 512;
+    private static final int MAX_FIELD_BYTES = 64 * 1024;
+    private static final int MAX_FIELDS = 50;
+
+    private static final byte[] PDF = { '%', 'P', 'D', 'F', '-' };
+    private static final byte[] ZIP = { 'P', 'K', 3, 4 };
+    private static final byte[] OLE2 = { (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1 };
+    private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final byte[] JPEG = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF };
+
+    // Rejected upload: answered with its status by UploadExceptionHandler
+    public static class UploadRejectedException extends ResponseStatusException {
+        public UploadRejectedException(HttpStatus status, String reason) {
+            super(status, reason);
+        }
+    }
+
+    // Text fields of the form plus the stored file (fileLink null when no file was sent)
+    @Getter
+    public static class StreamedUpload {
+        private final Map<String, String> fields = new HashMap<>();
+        private String fileLink;
+        private String fileName;
+        private long size;
+
+        public String field(String name) {
+            return fields.get(name);
+        }
+
+        public String requiredField(String name) {
+            String value = fields.get(name);
+            if (value == null) {
+                throw new UploadRejectedException(HttpStatus.BAD_REQUEST, "Missing form field: " + name);
+            }
+            return value;
+        }
+
+        public Long requiredLong(String name) {
+            try {
+                return Long.valueOf(requiredField(name).trim());
+            } catch (NumberFormatException e) {
+                throw new UploadRejectedException(HttpStatus.BAD_REQUEST, "Form field " + name + " must be a number");
+            }
+        }
+    }
+
+    private final FileStorageService fileStorageService;
+    private final long maxFileSize;
+    private final long maxRequestSize;
+    private final Set<String> allowedExtensions;
+
+    private final Counter stored;
+    private final Counter tooLarge;
+    private final Counter badType;
+    private final Counter bytesReceived;
+
+    public MultipartUploadService(FileStorageService fileStorageService,
+                                  @Value("${spring.servlet.multipart.max-file-size:50MB}") DataSize maxFileSize,
+                                  @Value("${spring.servlet.multipart.max-request-size:50MB}") DataSize maxRequestSize,
+                                  @Value("${files.upload.allowed-extensions:pdf,doc,docx,xls,xlsx,ppt,pptx,txt,png,jpg,jpeg,mp4,zip}") String allowedExtensions,
+                                  MeterRegistry registry) {
+        this.fileStorageService = fileStorageService;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxRequestSize = maxRequestSize.toBytes();
+        this.allowedExtensions = Arrays.stream(allowedExtensions.split(","))
+                .map(s -> s.trim().toLowerCase(Locale.ROOT))
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toSet());
+        this.stored = registry.counter("files.upload", "result", "stored");
+        this.tooLarge = registry.counter("files.upload", "result", "too_large");
+        this.badType = registry.counter("files.upload", "result", "bad_type");
+        this.bytesReceived = registry.counter("files.upload.bytes");
+    }
+
+    // ✅ Parse the request body; the part named fileField is stored in area
+    public StreamedUpload receive(HttpServletRequest request, Area area, String fileField) throws IOException {
+        String contentType = request.getContentType();
+        String boundary = MultipartStreamReader.boundaryOf(contentType);
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/form-data") || boundary == null) {
+            throw new UploadRejectedException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Expected multipart/form-data");
+        }
+        if (request.getContentLengthLong() > maxRequestSize) {
+            tooLarge.increment();
+            throw new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE, "Request larger than " + maxRequestSize + " bytes");
+        }
+
+        StreamedUpload upload = new StreamedUpload();
+        MultipartStreamReader reader = new MultipartStreamReader(
+                new CappedInputStream(request.getInputStream(), maxRequestSize), boundary);
+        try {
+            while (reader.nextPart()) {
+                String disposition = reader.headers().get("content-disposition");
+                String name = MultipartStreamReader.headerParam(disposition, "name");
+                String fileName = MultipartStreamReader.headerParam(disposition, "filename");
+                if (name == null) {
+                    continue;
+                }
+                if (fileName == null) {
+                    readField(reader.body(), name, upload);
+                } else if (name.equals(fileField) && upload.fileLink == null) {
+                    storeFile(reader.body(), area, fileName, upload);
+                }
+                // any other file part is skipped by nextPart()
+            }
+        } catch (UploadRejectedException e) {
+            if (HttpStatus.PAYLOAD_TOO_LARGE.equals(e.getStatusCode())) {
+                tooLarge.increment();
+            }
+            throw e;
+        }
+        return upload;
+    }
+
+    private void readField(InputStream body, String name, StreamedUpload upload) throws IOException {
+        if (upload.fields.size() >= MAX_FIELDS) {
+            throw new UploadRejectedException(HttpStatus.BAD_REQUEST, "Too many form fields");
+        }
+        byte[] value = body.readNBytes(MAX_FIELD_BYTES + 1);
+        if (value.length > MAX_FIELD_BYTES) {
+            throw new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE, "Form field " + name + " too large");
+        }
+        upload.fields.putIfAbsent(name, new String(value, StandardCharsets.UTF_8));
+    }
+
+    private void storeFile(InputStream body, Area area, String fileName, StreamedUpload upload) throws IOException {
+        if (fileName.isEmpty()) {
+            return;   // browsers send an empty file part when nothing was chosen
+        }
+        String extension = extension(fileName);
+        if (!isAllowedExtension(fileName)) {
+            badType.increment();
+            throw new UploadRejectedException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "File type not allowed: " + fileName);
+        }
+
+        CappedInputStream capped = new CappedInputStream(body, maxFileSize);
+        PushbackInputStream in = new PushbackInputStream(capped, SNIFF_BYTES);
+        byte[] head = in.readNBytes(SNIFF_BYTES);
+        if (head.length == 0) {
+            return;   // empty file = no file, like MultipartFile.isEmpty()
+        }
+        if (!matchesSignature(extension, head)) {
+            badType.increment();
+            throw new UploadRejectedException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "File content does not match its extension: " + fileName);
+        }
+        in.unread(head);
+
+        upload.fileLink = fileStorageService.store(area, fileName, in);
+        upload.fileName = fileName;
+        upload.size = capped.count;
+        stored.increment();
+        bytesReceived.increment(capped.count);
+    }
+
+    boolean isAllowedExtension(String fileName) {
+        return allowedExtensions.contains(extension(fileName));
+    }
+
+    static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    // Magic numbers for the binary formats; text must not contain NUL bytes
+    static boolean matchesSignature(String extension, byte[] head) {
+        return switch (extension) {
+            case "pdf" -> startsWith(head, PDF, 0);
+            case "docx", "xlsx", "pptx", "zip" -> startsWith(head, ZIP, 0);
+            case "doc", "xls", "ppt" -> startsWith(head, OLE2, 0);
+            case "png" -> startsWith(head, PNG, 0);
+            case "jpg", "jpeg" -> startsWith(head, JPEG, 0);
+            case "mp4" -> startsWith(head, new byte[] { 'f', 't', 'y', 'p' }, 4);
+            case "txt" -> {
+                for (byte b : head) {
+                    if (b == 0) {
+                        yield false;
+                    }
+                }
+                yield true;
+            }
+            default -> true;   // allowed extension without a known signature
+        };
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix, int offset) {
+        if (data.length < offset + prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Stops the upload the moment more than max bytes have been read
+    private static final class CappedInputStream extends FilterInputStream {
+        private final long max;
+        private long count;
+
+        CappedInputStream(InputStream in, long max) {
+            super(in);
+            this.max = max;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                advance(n);
+            }
+            return n;
+        }
+
+        private void advance(int n) {
+            count += n;
+            if (count > max) {
+                throw new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE, "Upload larger than " + max + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,512 @@
+package edu.example.edu.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import edu.example.edu.DTO.FileGcReportDTO;
+import edu.example.edu.Entity.FileBlob;
+import edu.example.edu.Repository.AssignmentRepository;
+import edu.example.edu.Repository.FileBlobRepository;
+import edu.example.edu.Repository.SubmissionRepository;
+import edu.example.edu.Repository.SyllabusRepository;
+import edu.example.edu.Service.BlobStore.BlobInfo;
+import edu.example.edu.Service.FileStorageService.Area;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Reclaims upload files nothing points at any more (deleted rows, saves that failed after the
+ * file was stored, blobs whose refCount reached 0).
+ *
+ * Each run walks the area directories one shard at a time ({area}/{ab}/{cd}), streaming entries
+ * and checking them in batches against the fileLink columns, then pages through the BlobStore in
+ * hash order checking blobs against file_blobs. An unreferenced file older than the grace period
+ * is moved to {root}/quarantine (blobs: the BlobStore's quarantine); only after a second grace
+ * period there is it deleted, and a file that has become referenced again in the meantime is put
+ * back instead. Runs are incremental (a cursor remembers the last finished shard or blob,
+ * files-per-run is capped) and throttled to a files/second
+ * rate so the scan never competes with downloads for disk.
+ */
+@Service
+public class OrphanFileCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(OrphanFileCollector.class);
+    private static final int MAX_REPORTED_ERRORS = 50;
+    private static final String BLOBS = "BLOBS";
+
+    private final FileStorageService fileStorageService;
+    private final AssignmentRepository assignmentRepository;
+    private final SubmissionRepository submissionRepository;
+    private final SyllabusRepository syllabusRepository;
+    private final FileBlobRepository fileBlobRepository;
+
+    private final boolean enabled;
+    private final Duration grace;
+    private final Duration quarantineGrace;
+    private final int batchSize;
+    private final int maxFilesPerSecond;
+    private final int maxFilesPerRun;
+
+    private final Counter quarantinedCounter;
+    private final Counter deletedCounter;
+    private final Counter restoredCounter;
+    private final Counter reclaimedBytes;
+
+    // last shard fully checked ("SUBMISSIONS/ab/cd"); null = start of a new pass
+    private String cursor;
+    private volatile FileGcReportDTO lastReport;
+
+    public OrphanFileCollector(FileStorageService fileStorageService,
+                               AssignmentRepository assignmentRepository,
+                               SubmissionRepository submissionRepository,
+                               SyllabusRepository syllabusRepository,
+                               FileBlobRepository fileBlobRepository,
+                               @Value("${files.gc.enabled:true}") boolean enabled,
+                               @Value("${files.gc.grace-hours:24}") long graceHours,
+                               @Value("${files.gc.quarantine-hours:72}") long quarantineHours,
+                               @Value("${files.gc.batch-size:500}") int batchSize,
+                               @Value("${files.gc.max-files-per-second:500}") int maxFilesPerSecond,
+                               @Value("${files.gc.max-files-per-run:50000}") int maxFilesPerRun,
+                               MeterRegistry registry) {
+        this.fileStorageService = fileStorageService;
+        this.assignmentRepository = assignmentRepository;
+        this.submissionRepository = submissionRepository;
+        this.syllabusRepository = syllabusRepository;
+        this.fileBlobRepository = fileBlobRepository;
+        this.enabled = enabled;
+        this.grace = Duration.ofHours(graceHours);
+        this.quarantineGrace = Duration.ofHours(quarantineHours);
+        this.batchSize = batchSize;
+        this.maxFilesPerSecond = maxFilesPerSecond;
+        this.maxFilesPerRun = maxFilesPerRun;
+        this.quarantinedCounter = registry.counter("files.gc.quarantined");
+        this.deletedCounter = registry.counter("files.gc.deleted");
+        this.restoredCounter = registry.counter("files.gc.restored");
+        this.reclaimedBytes = registry.counter("files.gc.reclaimed.bytes");
+    }
+
+    @Scheduled(initialDelayString = "${files.gc.initial-delay-ms:600000}", fixedDelayString = "${files.gc.interval-ms:3600000}")
+    public void scheduledRun() {
+        if (enabled) {
+            run(false);
+        }
+    }
+
+    public FileGcReportDTO getLastReport() {
+        return lastReport;
+    }
+
+    public synchronized FileGcReportDTO run(boolean dryRun) {
+        FileGcReportDTO report = new FileGcReportDTO();
+        report.setDryRun(dryRun);
+        report.setStartedAt(Instant.now());
+        Throttle throttle = new Throttle(maxFilesPerSecond);
+
+        purgeQuarantine(report, dryRun, throttle);
+        sweepTemp(report, dryRun);
+        String reached = scan(dryRun ? null : cursor, report, dryRun, throttle);
+        report.setPassComplete(reached == null);
+        if (!dryRun) {
+            cursor = reached;
+        }
+
+        report.setFinishedAt(Instant.now());
+        lastReport = report;
+        log.info("Orphan file collection{}: scanned={} quarantined={} ({} bytes) deleted={} reclaimed={} bytes restored={} failed={} passComplete={}",
+                dryRun ? " (dry run)" : "", report.getScanned(), report.getQuarantined(), report.getQuarantinedBytes(),
+                report.getDeleted(), report.getReclaimedBytes(), report.getRestored(), report.getFailed(),
+                report.isPassComplete());
+        return report;
+    }
+
+    // ---------------- SCAN ----------------
+
+    /**
+     * Checks shard directories after 'from' in a fixed order until the per-run budget is used.
+     * Returns the last finished shard, or null when the whole store was covered.
+     */
+    private String scan(String from, FileGcReportDTO report, boolean dryRun, Throttle throttle) {
+        for (Area area : Area.values()) {
+            Path root = fileStorageService.areaDir(area);
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            // the root itself holds the legacy flat files, then the two shard levels
+            String unit = area.name() + "/";
+            if (isAfter(unit, from)) {
+                scanDirectory(area, root, report, dryRun, throttle);
+                if (report.getScanned() >= maxFilesPerRun) {
+                    return unit;
+                }
+            }
+            for (String level1 : shardNames(root)) {
+                for (String level2 : shardNames(root.resolve(level1))) {
+                    unit = area.name() + "/" + level1 + "/" + level2;
+                    if (!isAfter(unit, from)) {
+                        continue;
+                    }
+                    scanDirectory(area, root.resolve(level1).resolve(level2), report, dryRun, throttle);
+                    if (report.getScanned() >= maxFilesPerRun) {
+                        return unit;
+                    }
+                }
+            }
+        }
+
+        // blobs come from the BlobStore in hash order; their unit is "BLOBS/{last sha256 checked}"
+        String after = from != null && from.startsWith(BLOBS + "/") ? from.substring(BLOBS.length() + 1) : null;
+        try {
+            List<BlobInfo> page;
+            do {
+                page = blobStore().list(after, batchSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                checkBlobBatch(page, report, dryRun);
+                throttle.pace(page.size());
+                after = page.get(page.size() - 1).sha256();
+                if (report.getScanned() >= maxFilesPerRun) {
+                    return BLOBS + "/" + after;
+                }
+            } while (page.size() == batchSize);
+        } catch (IOException e) {
+            fail(report, "blob listing: " + e.getMessage());
+        }
+        return null;
+    }
+
+    // unit order = roots in scan order, then shard names; cursor compares within that order
+    private static boolean isAfter(String unit, String from) {
+        if (from == null) {
+            return true;
+        }
+        String unitRoot = unit.substring(0, unit.indexOf('/'));
+        String fromRoot = from.substring(0, from.indexOf('/'));
+        if (!unitRoot.equals(fromRoot)) {
+            return rootOrder(unitRoot) > rootOrder(fromRoot);
+        }
+        return unit.compareTo(from) > 0;
+    }
+
+    private static int rootOrder(String rootName) {
+        return BLOBS.equals(rootName) ? Area.values().length : Area.valueOf(rootName).ordinal();
+    }
+
+    // two-hex-digit shard directories, sorted (at most 256 names in memory)
+    private static Set<String> shardNames(Path dir) {
+        Set<String> names = new TreeSet<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir,
+                p -> p.getFileName().toString().matches("[0-9a-f]{2}") && Files.isDirectory(p))) {
+            for (Path p : entries) {
+                names.add(p.getFileName().toString());
+            }
+        } catch (IOException e) {
+            log.warn("Cannot list {}: {}", dir, e.getMessage());
+        }
+        return names;
+    }
+
+    private void scanDirectory(Area area, Path dir, FileGcReportDTO report, boolean dryRun, Throttle throttle) {
+        List<Path> batch = new ArrayList<>(batchSize);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, Files::isRegularFile)) {
+            for (Path file : entries) {
+                batch.add(file);
+                if (batch.size() >= batchSize) {
+                    checkBatch(area, batch, report, dryRun);
+                    throttle.pace(batch.size());
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            fail(report, dir + ": " + e.getMessage());
+        }
+        if (!batch.isEmpty()) {
+            checkBatch(area, batch, report, dryRun);
+            throttle.pace(batch.size());
+        }
+    }
+
+    private void checkBatch(Area area, List<Path> batch, FileGcReportDTO report, boolean dryRun) {
+        report.setScanned(report.getScanned() + batch.size());
+        Instant cutoff = Instant.now().minus(grace);
+        for (Path file : unreferencedAreaFiles(area, batch)) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                // young files may belong to an upload whose row is still being saved
+                if (attrs.lastModifiedTime().toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+                if (!dryRun) {
+                    quarantine(file);
+                    quarantinedCounter.increment();
+                }
+                report.setQuarantined(report.getQuarantined() + 1);
+                report.setQuarantinedBytes(report.getQuarantinedBytes() + attrs.size());
+            } catch (IOException e) {
+                fail(report, file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Set<Path> unreferencedAreaFiles(Area area, List<Path> batch) {
+        Map<String, Path> byLink = new HashMap<>();
+        for (Path file : batch) {
+            byLink.put(area.link(file.getFileName().toString()), file);
+        }
+        List<String> referenced = referencedLinks(area, byLink.keySet());
+        referenced.forEach(byLink::remove);
+        return new HashSet<>(byLink.values());
+    }
+
+    private void checkBlobBatch(List<BlobInfo> batch, FileGcReportDTO report, boolean dryRun) {
+        report.setScanned(report.getScanned() + batch.size());
+        Instant cutoff = Instant.now().minus(grace);
+        Map<String, FileBlob> rows = new HashMap<>();
+        for (FileBlob row : fileBlobRepository.findAllById(batch.stream().map(BlobInfo::sha256).toList())) {
+            rows.put(row.getSha256(), row);
+        }
+        for (BlobInfo blob : batch) {
+            FileBlob row = rows.get(blob.sha256());
+            boolean released = row == null
+                    || (row.getRefCount() == 0 && (row.getReleasedAt() == null || row.getReleasedAt().isBefore(cutoff)));
+            // young blobs may belong to an upload whose row is still being saved
+            if (!released || Instant.ofEpochMilli(blob.lastModified()).isAfter(cutoff)) {
+                continue;
+            }
+            // refCount is the fast path; the fileLink check is a safety net for the few candidates
+            if (blobReferenced(blob.sha256())) {
+                continue;
+            }
+            try {
+                if (!dryRun) {
+                    blobStore().quarantine(blob.sha256());
+                    quarantinedCounter.increment();
+                }
+                report.setQuarantined(report.getQuarantined() + 1);
+                report.setQuarantinedBytes(report.getQuarantinedBytes() + blob.size());
+            } catch (IOException e) {
+                fail(report, "blob " + blob.sha256() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private List<String> referencedLinks(Area area, Set<String> links) {
+        return switch (area) {
+            case ASSIGNMENTS -> assignmentRepository.findReferencedFileLinks(links);
+            case SUBMISSIONS -> submissionRepository.findReferencedFileLinks(links);
+            case SYLLABUS -> syllabusRepository.findReferencedFileLinks(links);
+        };
+    }
+
+    private boolean blobReferenced(String sha256) {
+        return assignmentRepository.existsByFileLinkPrefix(Area.ASSIGNMENTS.link(sha256) + "%")
+                || submissionRepository.existsByFileLinkPrefix(Area.SUBMISSIONS.link(sha256) + "%")
+                || syllabusRepository.existsByFileLinkPrefix(Area.SYLLABUS.link(sha256) + "%");
+    }
+
+    // ---------------- QUARANTINE ----------------
+
+    private BlobStore blobStore() {
+        return fileStorageService.getBlobStore();
+    }
+
+    private Path quarantineDir() {
+        return fileStorageService.getRoot().resolve("quarantine");
+    }
+
+    private void quarantine(Path file) throws IOException {
+        Path target = quarantineDir().resolve(fileStorageService.getRoot().relativize(file));
+        Files.createDirectories(target.getParent());
+        Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // the quarantine clock starts now
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+    }
+
+    // Deletes files quarantined longer than the second grace period, restoring any that are referenced again
+    private void purgeQuarantine(FileGcReportDTO report, boolean dryRun, Throttle throttle) {
+        purgeBlobQuarantine(report, dryRun, throttle);
+        Path quarantine = quarantineDir();
+        if (!Files.isDirectory(quarantine)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(quarantineGrace);
+        int seen = 0;
+        try (Stream<Path> files = Files.walk(quarantine)) {
+            // quarantine/blobs belongs to the BlobStore (purgeBlobQuarantine)
+            Path blobs = quarantine.resolve("blobs");
+            for (Path file : (Iterable<Path>) files.filter(p -> !p.startsWith(blobs) && Files.isRegularFile(p))::iterator) {
+                if (++seen % batchSize == 0) {
+                    throttle.pace(batchSize);
+                }
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attrs.lastModifiedTime().toInstant().isAfter(cutoff)) {
+                        continue;
+                    }
+                    Path original = fileStorageService.getRoot().resolve(quarantine.relativize(file));
+                    if (isReferenced(quarantine.relativize(file))) {
+                        if (!Files.exists(original)) {
+                            if (!dryRun) {
+                                Files.createDirectories(original.getParent());
+                                Files.move(file, original, StandardCopyOption.ATOMIC_MOVE);
+                                restoredCounter.increment();
+                            }
+                            report.setRestored(report.getRestored() + 1);
+                            continue;
+                        }
+                        // re-uploaded meanwhile: the live copy already exists, this one is redundant
+                    }
+                    if (!dryRun) {
+                        Files.delete(file);
+                    }
+                    reclaimed(report, attrs.size());
+                } catch (IOException | RuntimeException e) {
+                    fail(report, file + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            fail(report, quarantine + ": " + e.getMessage());
+        }
+    }
+
+    private void purgeBlobQuarantine(FileGcReportDTO report, boolean dryRun, Throttle throttle) {
+        Instant cutoff = Instant.now().minus(quarantineGrace);
+        String after = null;
+        List<BlobInfo> page;
+        try {
+            do {
+                page = blobStore().listQuarantined(after, batchSize);
+                for (BlobInfo blob : page) {
+                    after = blob.sha256();
+                    if (Instant.ofEpochMilli(blob.lastModified()).isAfter(cutoff)) {
+                        continue;
+                    }
+                    try {
+                        boolean referenced = fileBlobRepository.findById(blob.sha256()).map(b -> b.getRefCount() > 0).orElse(false)
+                                || blobReferenced(blob.sha256());
+                        if (referenced && blobStore().stat(blob.sha256()) == null) {
+                            if (!dryRun) {
+                                blobStore().restore(blob.sha256());
+                                restoredCounter.increment();
+                            }
+                            report.setRestored(report.getRestored() + 1);
+                            continue;
+                        }
+                        // unreferenced, or re-uploaded meanwhile so the live copy already exists
+                        if (!dryRun) {
+                            blobStore().deleteQuarantined(blob.sha256());
+                            fileBlobRepository.deleteIfUnreferenced(blob.sha256());
+                        }
+                        reclaimed(report, blob.size());
+                    } catch (IOException | RuntimeException e) {
+                        fail(report, "quarantined blob " + blob.sha256() + ": " + e.getMessage());
+                    }
+                }
+                throttle.pace(page.size());
+            } while (page.size() == batchSize);
+        } catch (IOException e) {
+            fail(report, "quarantined blob listing: " + e.getMessage());
+        }
+    }
+
+    private boolean isReferenced(Path relative) {
+        String name = relative.getFileName().toString();
+        String top = relative.getName(0).toString();
+        for (Area area : Area.values()) {
+            if (area.getDir().equals(top)) {
+                return !referencedLinks(area, Set.of(area.link(name))).isEmpty();
+            }
+        }
+        return false;
+    }
+
+    // Upload temp files are never referenced; anything this old is a dead, interrupted upload
+    private void sweepTemp(FileGcReportDTO report, boolean dryRun) {
+        Path tmp = blobStore().spoolDir();
+        if (!Files.isDirectory(tmp)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(grace);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(tmp, Files::isRegularFile)) {
+            for (Path file : entries) {
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attrs.lastModifiedTime().toInstant().isBefore(cutoff)) {
+                        if (!dryRun) {
+                            Files.delete(file);
+                        }
+                        reclaimed(report, attrs.size());
+                    }
+                } catch (IOException e) {
+                    fail(report, file + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            fail(report, tmp + ": " + e.getMessage());
+        }
+    }
+
+    private void reclaimed(FileGcReportDTO report, long bytes) {
+        report.setDeleted(report.getDeleted() + 1);
+        report.setReclaimedBytes(report.getReclaimedBytes() + bytes);
+        if (!report.isDryRun()) {
+            deletedCounter.increment();
+            reclaimedBytes.increment(bytes);
+        }
+    }
+
+    private static void fail(FileGcReportDTO report, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(message);
+        }
+    }
+
+    // Sleeps just enough to keep the average at maxPerSecond files
+    private static final class Throttle {
+        private final int maxPerSecond;
+        private final long started = System.nanoTime();
+        private long processed;
+
+        Throttle(int maxPerSecond) {
+            this.maxPerSecond = maxPerSecond;
+        }
+
+        void pace(int files) {
+            processed += files;
+            if (maxPerSecond <= 0) {
+                return;
+            }
+            long dueNanos = processed * 1_000_000_000L / maxPerSecond;
+            long aheadMillis = (dueNanos - (System.nanoTime() - started)) / 1_000_000;
+            if (aheadMillis > 0) {
+                try {
+                    Thread.sleep(aheadMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,637 @@
+package edu.example.edu.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Text of a PDF in one forward pass over the file, for DocumentTextExtractor.
+ *
+ * Page content streams (plain or FlateDecode) are decoded and kept until the end of the file,
+ * because the fonts they use - and the ToUnicode CMaps that turn glyph codes back into text -
+ * usually come after them. Fonts are resolved by resource name (/F1 -> font object -> CMap),
+ * which is exact for the one-resource-set-per-file output of browsers and office suites.
+ * The held-back content comes out of one BufferBudget shared by every scan in the process; content
+ * that does not fit is decoded right away with whatever fonts are known. Inflating stops for good
+ * once the file has produced maxInflated bytes, and an object that cannot be parsed is skipped.
+ * Not handled: compressed object streams hiding font dictionaries, Type3 fonts, encrypted files.
+ */
+final class PdfTextScanner {
+
+    // one decompressed stream; anything bigger is not a page of text
+    private static final int MAX_STREAM = 8 * 1024 * 1024;
+    // bytes kept before a "stream" / "endobj" keyword to read the object dictionary from
+    private static final int WINDOW = 16 * 1024;
+    // glyph codes one bfrange may expand to
+    private static final int MAX_RANGE = 65536;
+
+    private static final byte[] STREAM = "stream".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ENDOBJ = "endobj".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ENDSTREAM = "endstream".getBytes(StandardCharsets.US_ASCII);
+
+    private static final Pattern OBJ_HEADER = Pattern.compile("(\\d+)\\s+\\d+\\s+obj\\s*$");
+    private static final Pattern FONT_DICT = Pattern.compile("/Font\\s*<<(.*?)>>", Pattern.DOTALL);
+    private static final Pattern FONT_ENTRY = Pattern.compile("/([^\\s/<>\\[\\]()]+)\\s*(\\d+)\\s+\\d+\\s+R");
+    private static final Pattern BLANK = Pattern.compile("\\s*");
+    private static final Pattern TO_UNICODE = Pattern.compile("/ToUnicode\\s*(\\d+)\\s+\\d+\\s+R");
+    private static final Pattern CODESPACE = Pattern.compile("begincodespacerange\\s*<([0-9A-Fa-f]+)>");
+    private static final Pattern BFCHAR = Pattern.compile("beginbfchar(.*?)endbfchar", Pattern.DOTALL);
+    private static final Pattern BFCHAR_PAIR = Pattern.compile("<([0-9A-Fa-f]+)>\\s*<([0-9A-Fa-f]*)>");
+    private static final Pattern BFRANGE = Pattern.compile("beginbfrange(.*?)endbfrange", Pattern.DOTALL);
+    private static final Pattern BFRANGE_ENTRY =
+            Pattern.compile("<([0-9A-Fa-f]+)>\\s*<([0-9A-Fa-f]+)>\\s*(<[0-9A-Fa-f]*>|\\[[^\\]]*\\])");
+    private static final Pattern HEX_STRING = Pattern.compile("<([0-9A-Fa-f]*)>");
+
+    /**
+     * Bytes of decoded content all scans together may hold back. Without it every index worker
+     * could buffer its own full share, so memory would grow with the pool size.
+     */
+    static final class BufferBudget {
+        private final AtomicLong available;
+
+        BufferBudget(long bytes) {
+            this.available = new AtomicLong(bytes);
+        }
+
+        boolean tryReserve(long bytes) {
+            long left;
+            do {
+                left = available.get();
+                if (left < bytes) {
+                    return false;
+                }
+            } while (!available.compareAndSet(left, left - bytes));
+            return true;
+        }
+
+        void release(long bytes) {
+            available.addAndGet(bytes);
+        }
+
+        long available() {
+            return available.get();
+        }
+    }
+
+    private final DocumentTextExtractor.TextSink out;
+    private final BufferBudget budget;
+    private final long maxInflated;
+    private long inflated;
+    private boolean exhausted;
+
+    private final Map<String, Integer> fontResources = new HashMap<>();   // /F1 -> font object
+    private final Map<Integer, Integer> toUnicode = new HashMap<>();       // font object -> CMap object
+    private final Map<Integer, CMap> cmaps = new HashMap<>();              // CMap object -> mapping
+    private final List<byte[]> pending = new ArrayList<>();
+    private long reserved;
+
+    private final byte[] window = new byte[WINDOW];
+    private int windowPos;
+    private boolean windowFull;
+
+    PdfTextScanner(DocumentTextExtractor.TextSink out, BufferBudget budget, long maxInflated) {
+        this.out = out;
+        this.budget = budget;
+        this.maxInflated = maxInflated;
+    }
+
+    void scan(InputStream raw) throws IOException {
+        try {
+            scanObjects(raw);
+            for (byte[] content : pending) {
+                parseSafely(content);
+            }
+        } finally {
+            pending.clear();
+            budget.release(reserved);
+            reserved = 0;
+        }
+    }
+
+    private void scanObjects(InputStream raw) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(new BufferedInputStream(raw, 65536), 8192);
+        int streamMatched = 0;
+        int endobjMatched = 0;
+        int b;
+        while (!out.full() && !exhausted && (b = in.read()) != -1) {
+            window[windowPos++] = (byte) b;
+            if (windowPos == WINDOW) {
+                windowPos = 0;
+                windowFull = true;
+            }
+            endobjMatched = b == ENDOBJ[endobjMatched] ? endobjMatched + 1 : (b == ENDOBJ[0] ? 1 : 0);
+            if (endobjMatched == ENDOBJ.length) {
+                endobjMatched = 0;
+                String text = windowText();
+                try {
+                    onObject(text.substring(0, text.length() - ENDOBJ.length), false);
+                } catch (RuntimeException e) {
+                    // malformed object: skip it, the rest of the file may still be fine
+                }
+                resetWindow();
+                continue;
+            }
+            streamMatched = b == STREAM[streamMatched] ? streamMatched + 1 : (b == STREAM[0] ? 1 : 0);
+            if (streamMatched == STREAM.length) {
+                streamMatched = 0;
+                String before = windowText();
+                if (before.endsWith("endstream") || !skipEol(in)) {
+                    continue;
+                }
+                try {
+                    onStream(before.substring(0, before.length() - STREAM.length), in);
+                } catch (RuntimeException e) {
+                    // malformed stream object (or its CMap): skip it
+                }
+                resetWindow();
+            }
+        }
+    }
+
+    private void parseSafely(byte[] content) {
+        try {
+            parseContent(content);
+        } catch (RuntimeException e) {
+            // unreadable content stream: the other pages still count
+        }
+    }
+
+    // ---------------- OBJECTS ----------------
+
+    // A plain object: font resource maps and ToUnicode references are all we need from it
+    private void onObject(String before, boolean stream) {
+        int obj = before.lastIndexOf("obj");
+        if (obj < 0) {
+            return;
+        }
+        String dict = before.substring(obj + 3);
+        Matcher header = OBJ_HEADER.matcher(before.substring(0, obj + 3));
+        Integer objNum = header.find() ? number(header.group(1)) : null;
+
+        Matcher fonts = FONT_DICT.matcher(dict);
+        while (fonts.find()) {
+            addFontEntries(fonts.group(1));
+        }
+        if (!stream && onlyReferences(dict)) {
+            // "/Font 12 0 R" points at a dictionary of nothing but references
+            addFontEntries(dict);
+        }
+        Matcher unicode = TO_UNICODE.matcher(dict);
+        Integer cmapObj = unicode.find() ? number(unicode.group(1)) : null;
+        if (objNum != null && cmapObj != null) {
+            toUnicode.put(objNum, cmapObj);
+        }
+    }
+
+    // << /F1 5 0 R /F2 7 0 R >> and nothing else (checked without a backtracking pattern over the whole dict)
+    private static boolean onlyReferences(String dict) {
+        String trimmed = dict.strip();
+        if (!trimmed.startsWith("<<") || !trimmed.endsWith(">>")) {
+            return false;
+        }
+        Matcher m = FONT_ENTRY.matcher(trimmed.substring(2, trimmed.length() - 2));
+        return m.find() && BLANK.matcher(m.reset().replaceAll("")).matches();
+    }
+
+    private void addFontEntries(String entries) {
+        Matcher m = FONT_ENTRY.matcher(entries);
+        while (m.find()) {
+            Integer fontObj = number(m.group(2));
+            if (fontObj != null) {
+                fontResources.putIfAbsent(m.group(1), fontObj);
+            }
+        }
+    }
+
+    // object number, or null when it cannot be one
+    private static Integer number(String digits) {
+        return digits.length() > 9 ? null : Integer.valueOf(digits);
+    }
+
+    private void onStream(String before, PushbackInputStream in) throws IOException {
+        onObject(before, true);
+        int obj = before.lastIndexOf("obj");
+        String dict = normalize(obj >= 0 ? before.substring(obj + 3) : before);
+        Matcher header = OBJ_HEADER.matcher(obj >= 0 ? before.substring(0, obj + 3) : "");
+        Integer objNum = header.find() ? number(header.group(1)) : null;
+
+        byte[] content = readStream(in, dict);
+        if (content == null) {
+            return;
+        }
+        if (objNum != null && indexOf(content, "begincmap") >= 0) {
+            cmaps.put(objNum, CMap.parse(content));
+        } else if (budget.tryReserve(content.length)) {
+            pending.add(content);
+            reserved += content.length;
+        } else {
+            parseSafely(content);
+        }
+    }
+
+    // Whitespace kept only where it separates a name from a value ("/Length 42/Filter/FlateDecode", "/Length1 900")
+    private static String normalize(String dict) {
+        return dict.replaceAll("\\s+", " ").replaceAll(" (?=[/\\[\\]<>])", "").replaceAll("(?<=[\\[<]) ", "").strip();
+    }
+
+    // Decoded stream bytes, or null (and the raw bytes left to the outer scan) when it cannot hold text
+    private byte[] readStream(PushbackInputStream in, String dict) throws IOException {
+        if (dict.contains("/Subtype/Image") || dict.contains("/Length1 ") || dict.contains("/Length2 ")
+                || dict.contains("/Subtype/Type1C") || dict.contains("/Subtype/CIDFontType0C")
+                || dict.contains("/Subtype/OpenType") || dict.contains("/Type/XRef") || dict.contains("/Type/ObjStm")
+                || dict.contains("/Type/Metadata") || dict.contains("/Type/EmbeddedFile")) {
+            return null;
+        }
+        if (!dict.contains("/Filter")) {
+            return readPlain(in);
+        }
+        if (dict.contains("/Filter/FlateDecode") || dict.contains("/Filter[/FlateDecode]")) {
+            return inflate(in);
+        }
+        return null;
+    }
+
+    // the keyword is followed by CRLF or LF; anything else means it was not a stream keyword
+    private static boolean skipEol(PushbackInputStream in) throws IOException {
+        int c = in.read();
+        if (c == '\n') {
+            return true;
+        }
+        if (c == '\r') {
+            int next = in.read();
+            if (next != '\n' && next != -1) {
+                in.unread(next);
+            }
+            return true;
+        }
+        if (c != -1) {
+            in.unread(c);
+        }
+        return false;
+    }
+
+    private static byte[] readPlain(PushbackInputStream in) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        int matched = 0;
+        int b;
+        while ((b = in.read()) != -1 && content.size() < MAX_STREAM) {
+            content.write(b);
+            matched = b == ENDSTREAM[matched] ? matched + 1 : (b == ENDSTREAM[0] ? 1 : 0);
+            if (matched == ENDSTREAM.length) {
+                byte[] bytes = content.toByteArray();
+                return Arrays.copyOf(bytes, bytes.length - ENDSTREAM.length);
+            }
+        }
+        return content.toByteArray();
+    }
+
+    // Inflates exactly one zlib stream; input read past its end is pushed back for the outer scan
+    private byte[] inflate(PushbackInputStream in) throws IOException {
+        Inflater inflater = new Inflater();
+        byte[] input = new byte[8192];
+        byte[] output = new byte[16384];
+        int lastRead = 0;
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try {
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    lastRead = in.read(input);
+                    if (lastRead == -1) {
+                        break;
+                    }
+                    inflater.setInput(input, 0, lastRead);
+                }
+                int produced = inflater.inflate(output);
+                if (produced == 0 && (inflater.needsDictionary() || !inflater.needsInput() && !inflater.finished())) {
+                    break;
+                }
+                content.write(output, 0, produced);
+                inflated += produced;
+                if (inflated > maxInflated) {
+                    exhausted = true;   // compression bomb or just huge: stop here, keep what was found
+                    return null;
+                }
+                if (content.size() > MAX_STREAM) {
+                    return null;
+                }
+            }
+            int remaining = inflater.getRemaining();
+            if (remaining > 0) {
+                in.unread(input, lastRead - remaining, remaining);
+            }
+            return content.toByteArray();
+        } catch (DataFormatException e) {
+            // corrupt or not really Flate: whatever decoded so far is still worth a look
+            return content.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private String windowText() {
+        if (!windowFull) {
+            return new String(window, 0, windowPos, StandardCharsets.ISO_8859_1);
+        }
+        byte[] ordered = new byte[WINDOW];
+        System.arraycopy(window, windowPos, ordered, 0, WINDOW - windowPos);
+        System.arraycopy(window, 0, ordered, WINDOW - windowPos, windowPos);
+        return new String(ordered, StandardCharsets.ISO_8859_1);
+    }
+
+    // the next object starts after this one
+    private void resetWindow() {
+        windowPos = 0;
+        windowFull = false;
+    }
+
+    // ---------------- CONTENT ----------------
+
+    // Text-showing operators of a content stream; positioning operators become spaces / line breaks
+    private void parseContent(byte[] data) {
+        List<byte[]> strings = new ArrayList<>();
+        List<Boolean> gaps = new ArrayList<>();   // word gap before strings[i] (large negative TJ kern)
+        boolean gap = false;
+        boolean inArray = false;
+        String lastName = null;
+        CMap font = null;
+        int i = 0;
+        int n = data.length;
+        while (i < n && !out.full()) {
+            int c = data[i] & 0xff;
+            if (c == '(') {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                i = readLiteral(data, i + 1, bytes);
+                strings.add(bytes.toByteArray());
+                gaps.add(gap);
+                gap = false;
+            } else if (c == '<' && i + 1 < n && data[i + 1] == '<') {
+                i += 2;
+            } else if (c == '<') {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                i = readHex(data, i + 1, bytes);
+                strings.add(bytes.toByteArray());
+                gaps.add(gap);
+                gap = false;
+            } else if (c == '[') {
+                inArray = true;
+                i++;
+            } else if (c == ']') {
+                inArray = false;
+                i++;
+            } else if (c == '%') {
+                while (i < n && data[i] != '\n' && data[i] != '\r') {
+                    i++;
+                }
+            } else if (c == '/') {
+                int start = ++i;
+                while (i < n && isRegular(data[i] & 0xff)) {
+                    i++;
+                }
+                lastName = new String(data, start, i - start, StandardCharsets.ISO_8859_1);
+            } else if (c == '-' || c == '+' || c == '.' || (c >= '0' && c <= '9')) {
+                int start = i++;
+                while (i < n && (data[i] == '.' || (data[i] >= '0' && data[i] <= '9'))) {
+                    i++;
+                }
+                // a large negative kern inside TJ is how most generators write a word gap
+                if (inArray && c == '-' && i - start > 3) {
+                    gap = true;
+                }
+            } else if (isRegular(c)) {
+                int start = i;
+                while (i < n && isRegular(data[i] & 0xff)) {
+                    i++;
+                }
+                String op = new String(data, start, i - start, StandardCharsets.ISO_8859_1);
+                switch (op) {
+                    case "Tf" -> font = lastName == null ? null : fontCMap(lastName);
+                    case "Tj", "TJ" -> show(strings, gaps, font);
+                    case "'", "\"" -> {
+                        out.newline();
+                        show(strings, gaps, font);
+                    }
+                    case "Td", "TD", "Tm" -> out.space();
+                    case "T*", "ET" -> out.newline();
+                    default -> {
+                    }
+                }
+                strings.clear();
+                gaps.clear();
+                gap = false;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private CMap fontCMap(String resourceName) {
+        Integer fontObj = fontResources.get(resourceName);
+        Integer cmapObj = fontObj == null ? null : toUnicode.get(fontObj);
+        return cmapObj == null ? null : cmaps.get(cmapObj);
+    }
+
+    private void show(List<byte[]> strings, List<Boolean> gaps, CMap font) {
+        for (int k = 0; k < strings.size(); k++) {
+            if (gaps.get(k)) {
+                out.space();
+            }
+            out.append(font != null ? font.decode(strings.get(k)) : decodeString(strings.get(k)));
+        }
+    }
+
+    private static boolean isRegular(int c) {
+        return c > ' ' && c < 127 && "()<>[]{}/%".indexOf(c) < 0;
+    }
+
+    private static int readLiteral(byte[] data, int i, ByteArrayOutputStream bytes) {
+        int depth = 1;
+        while (i < data.length) {
+            int c = data[i++] & 0xff;
+            if (c == '\\' && i < data.length) {
+                int e = data[i++] & 0xff;
+                switch (e) {
+                    case 'n' -> bytes.write('\n');
+                    case 'r' -> bytes.write('\r');
+                    case 't' -> bytes.write('\t');
+                    case 'b', 'f' -> bytes.write(' ');
+                    case '\r', '\n' -> {
+                        // line continuation
+                    }
+                    default -> {
+                        if (e >= '0' && e <= '7') {
+                            int v = e - '0';
+                            for (int k = 0; k < 2 && i < data.length && data[i] >= '0' && data[i] <= '7'; k++) {
+                                v = v * 8 + (data[i++] - '0');
+                            }
+                            bytes.write(v);
+                        } else {
+                            bytes.write(e);
+                        }
+                    }
+                }
+            } else if (c == '(') {
+                depth++;
+                bytes.write(c);
+            } else if (c == ')') {
+                if (--depth == 0) {
+                    break;
+                }
+                bytes.write(c);
+            } else {
+                bytes.write(c);
+            }
+        }
+        return i;
+    }
+
+    private static int readHex(byte[] data, int i, ByteArrayOutputStream bytes) {
+        int high = -1;
+        while (i < data.length && data[i] != '>') {
+            int digit = Character.digit(data[i++], 16);
+            if (digit < 0) {
+                continue;
+            }
+            if (high < 0) {
+                high = digit;
+            } else {
+                bytes.write(high * 16 + digit);
+                high = -1;
+            }
+        }
+        if (high >= 0) {
+            bytes.write(high * 16);
+        }
+        return i + 1;
+    }
+
+    // Without a CMap: UTF-16BE when it says so (or looks like it), else Latin-1 (close to WinAnsi)
+    private static String decodeString(byte[] bytes) {
+        if (bytes.length >= 2 && (bytes[0] & 0xff) == 0xfe && (bytes[1] & 0xff) == 0xff) {
+            return new String(bytes, 2, bytes.length - 2, StandardCharsets.UTF_16BE);
+        }
+        if (bytes.length >= 2 && bytes.length % 2 == 0) {
+            boolean wide = true;
+            for (int k = 0; k < bytes.length && wide; k += 2) {
+                wide = bytes[k] == 0;
+            }
+            if (wide) {
+                return new String(bytes, StandardCharsets.UTF_16BE);
+            }
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int indexOf(byte[] data, String ascii) {
+        byte[] needle = ascii.getBytes(StandardCharsets.US_ASCII);
+        outer:
+        for (int i = 0; i + needle.length <= data.length; i++) {
+            for (int k = 0; k < needle.length; k++) {
+                if (data[i + k] != needle[k]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // ---------------- TOUNICODE CMAP ----------------
+
+    // bfchar / bfrange mappings of a ToUnicode CMap; codes are codeBytes wide
+    static final class CMap {
+        private static final int MAX_CODE_BYTES = 4;
+
+        private final Map<Integer, String> map = new HashMap<>();
+        private int codeBytes = 2;
+
+        static CMap parse(byte[] data) {
+            CMap cmap = new CMap();
+            String text = new String(data, StandardCharsets.ISO_8859_1);
+            Matcher space = CODESPACE.matcher(text);
+            if (space.find()) {
+                cmap.codeBytes = Math.min(MAX_CODE_BYTES, Math.max(1, space.group(1).length() / 2));
+            }
+            Matcher chars = BFCHAR.matcher(text);
+            while (chars.find()) {
+                Matcher pair = BFCHAR_PAIR.matcher(chars.group(1));
+                while (pair.find()) {
+                    long code = code(pair.group(1));
+                    if (code >= 0) {
+                        cmap.map.put((int) code, utf16(pair.group(2)));
+                    }
+                }
+            }
+            Matcher ranges = BFRANGE.matcher(text);
+            while (ranges.find()) {
+                Matcher range = BFRANGE_ENTRY.matcher(ranges.group(1));
+                while (range.find()) {
+                    long lo = code(range.group(1));
+                    long hi = Math.min(code(range.group(2)), lo + MAX_RANGE);
+                    if (lo < 0 || hi < 0) {
+                        continue;
+                    }
+                    String dst = range.group(3);
+                    if (dst.startsWith("[")) {
+                        Matcher item = HEX_STRING.matcher(dst);
+                        for (long code = lo; code <= hi && item.find(); code++) {
+                            cmap.map.put((int) code, utf16(item.group(1)));
+                        }
+                    } else {
+                        String base = utf16(dst.substring(1, dst.length() - 1));
+                        if (base.isEmpty()) {
+                            continue;
+                        }
+                        // the last UTF-16 unit counts up with the code
+                        String prefix = base.substring(0, base.length() - 1);
+                        char last = base.charAt(base.length() - 1);
+                        for (long code = lo; code <= hi; code++) {
+                            cmap.map.put((int) code, prefix + (char) (last + (code - lo)));
+                        }
+                    }
+                }
+            }
+            return cmap;
+        }
+
+        // Codes are at most 4 bytes; longer ones (malformed) are ignored, -1
+        private static long code(String hex) {
+            return hex.length() > 2 * MAX_CODE_BYTES ? -1 : Long.parseLong(hex, 16);
+        }
+
+        private static String utf16(String hex) {
+            byte[] bytes = new byte[hex.length() / 2];
+            for (int k = 0; k < bytes.length; k++) {
+                bytes[k] = (byte) Integer.parseInt(hex.substring(2 * k, 2 * k + 2), 16);
+            }
+            return new String(bytes, StandardCharsets.UTF_16BE);
+        }
+
+        String decode(byte[] bytes) {
+            StringBuilder text = new StringBuilder();
+            for (int k = 0; k + codeBytes <= bytes.length; k += codeBytes) {
+                int code = 0;
+                for (int j = 0; j < codeBytes; j++) {
+                    code = (code << 8) | (bytes[k + j] & 0xff);
+                }
+                String s = map.get(code);
+                if (s != null) {
+                    text.append(s);
+                }
+            }
+            return text.toString();
+        }
+    }
+}
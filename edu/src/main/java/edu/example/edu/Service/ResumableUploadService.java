@@ -0,0 +1,339 @@
+package edu.example.edu.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import edu.example.edu.Config.AuthenticatedUser;
+import edu.example.edu.DTO.UploadInitiateDTO;
+import edu.example.edu.DTO.UploadSessionDTO;
+import edu.example.edu.Entity.UploadPart;
+import edu.example.edu.Entity.UploadSession;
+import edu.example.edu.Repository.UploadPartRepository;
+import edu.example.edu.Repository.UploadSessionRepository;
+import edu.example.edu.Service.FileStorageService.Area;
+import edu.example.edu.Service.MultipartUploadService.UploadRejectedException;
+
+/**
+ * Resumable uploads: initiate -> PUT chunks at the current offset -> complete.
+ *
+ * Each chunk is spooled locally and then stored as one part in the BlobStore under a name unique
+ * to that write, so consecutive chunks may land on different app instances. The part only counts
+ * once the transaction that moves the offset in upload_sessions (conditionally, from the offset the
+ * chunk started at) has also recorded it in upload_parts; a retried chunk racing in on another
+ * instance writes its own part and loses the update, and never overwrites the accepted one. If a
+ * connection drops mid-chunk, the bytes that did arrive are kept as a part and the client resumes
+ * from GET .../{id}. Completion streams the recorded parts in order into the content-addressed
+ * store and has the submission / syllabus controller create its row from the fileLink; the session
+ * and its parts are only dropped once that row exists, so a rejected row (unknown assignment,
+ * class subject, user...) leaves the upload open for another try without sending the file again.
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumableUploadService.class);
+    private static final int SNIFF_BYTES = 512;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadPartRepository uploadPartRepository;
+    private final FileStorageService fileStorageService;
+    private final BlobStore blobStore;
+    private final MultipartUploadService multipartUploadService;
+    private final TransactionTemplate transactionTemplate;
+    private final long maxFileSize;
+    private final long maxChunkBytes;
+    private final Duration expiry;
+
+    // one chunk writer per session on this node; the conditional offset update guards the rest
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
+
+    public ResumableUploadService(UploadSessionRepository uploadSessionRepository,
+                                  UploadPartRepository uploadPartRepository,
+                                  FileStorageService fileStorageService,
+                                  MultipartUploadService multipartUploadService,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${spring.servlet.multipart.max-file-size:50MB}") DataSize maxFileSize,
+                                  @Value("${files.resumable.max-chunk-size:8MB}") DataSize maxChunkSize,
+                                  @Value("${files.resumable.expiry-hours:24}") long expiryHours) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.uploadPartRepository = uploadPartRepository;
+        this.fileStorageService = fileStorageService;
+        this.blobStore = fileStorageService.getBlobStore();
+        this.multipartUploadService = multipartUploadService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxChunkBytes = maxChunkSize.toBytes();
+        this.expiry = Duration.ofHours(expiryHours);
+    }
+
+    // ✅ Start an upload; nothing is stored until chunks arrive
+    public UploadSessionDTO initiate(UploadInitiateDTO request, AuthenticatedUser me) {
+        Area area = parseArea(request.getArea());
+        String fileName = request.getFileName();
+        if (fileName == null || fileName.isBlank()) {
+            throw new UploadRejectedException(HttpStatus.BAD_REQUEST, "fileName is required");
+        }
+        if (!multipartUploadService.isAllowedExtension(fileName)) {
+            throw new UploadRejectedException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "File type not allowed: " + fileName);
+        }
+        Long totalSize = request.getTotalSize();
+        if (totalSize == null || totalSize <= 0) {
+            throw new UploadRejectedException(HttpStatus.BAD_REQUEST, "totalSize must be positive");
+        }
+        if (totalSize > maxFileSize) {
+            throw new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE, "File larger than " + maxFileSize + " bytes");
+        }
+
+        UploadSession session = new UploadSession();
+        session.setUploadId(UUID.randomUUID().toString().replace("-", ""));
+        session.setArea(area.name());
+        session.setFileName(fileName);
+        session.setTotalSize(totalSize);
+        session.setReceivedBytes(0);
+        session.setState(UploadSession.State.OPEN);
+        session.setOwnerId(me.getUserId());
+        session.setCreatedAt(Instant.now());
+        session.setUpdatedAt(session.getCreatedAt());
+        return toDTO(uploadSessionRepository.save(session));
+    }
+
+    public UploadSessionDTO status(String uploadId, AuthenticatedUser me) {
+        return toDTO(load(uploadId, me));
+    }
+
+    /**
+     * Appends the request body at offset, which must equal the bytes received so far.
+     * A chunk cut off by the network still counts for what arrived.
+     */
+    public UploadSessionDTO appendChunk(String uploadId, long offset, InputStream body, long declaredLength,
+                                        AuthenticatedUser me) throws IOException {
+        if (!inProgress.add(uploadId)) {
+            throw new UploadRejectedException(HttpStatus.CONFLICT, "Another chunk for this upload is in progress");
+        }
+        try {
+            UploadSession session = load(uploadId, me);
+            if (session.getState() == UploadSession.State.COMPLETING) {
+                throw new UploadRejectedException(HttpStatus.CONFLICT, "Upload is being completed");
+            }
+            long received = session.getReceivedBytes();
+            if (offset != received) {
+                throw new UploadRejectedException(HttpStatus.CONFLICT, "Expected offset " + received);
+            }
+            long allowed = Math.min(maxChunkBytes, session.getTotalSize() - received);
+            if (declaredLength > allowed) {
+                throw new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE, "Chunk larger than " + allowed + " bytes");
+            }
+
+            Path chunk = blobStore.newSpoolFile();
+            String partName = String.format("%016d-%s", received, UUID.randomUUID().toString().replace("-", "").substring(0, 16));
+            long written = 0;
+            IOException connectionLost = null;
+            try {
+                try (OutputStream out = Files.newOutputStream(chunk)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    try {
+                        int n;
+                        while ((n = body.read(buffer)) != -1) {
+                            if (written + n > allowed) {
+                                throw new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE, "Chunk larger than " + allowed + " bytes");
+                            }
+                            out.write(buffer, 0, n);
+                            written += n;
+                        }
+                    } catch (IOException e) {
+                        connectionLost = e;   // keep what arrived
+                    }
+                }
+                if (written > 0) {
+                    blobStore.writePart(uploadId, partName, chunk);
+                }
+            } finally {
+                Files.deleteIfExists(chunk);
+            }
+            if (connectionLost != null) {
+                accept(uploadId, received, written, partName);
+                throw connectionLost;
+            }
+            session.setReceivedBytes(accept(uploadId, received, written, partName));
+            session.setUpdatedAt(Instant.now());
+            return toDTO(session);
+        } finally {
+            inProgress.remove(uploadId);
+        }
+    }
+
+    // Moves the offset and records the part in one transaction; a chunk that lost the race leaves an
+    // unrecorded part behind, which deleteParts() removes with the rest when the session ends
+    private long accept(String uploadId, long from, long length, String partName) {
+        if (length == 0) {
+            return from;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (uploadSessionRepository.advance(uploadId, from, from + length, Instant.now()) == 0) {
+                throw new UploadRejectedException(HttpStatus.CONFLICT, "Upload offset changed concurrently");
+            }
+            uploadPartRepository.save(new UploadPart(null, uploadId, from, length, partName));
+        });
+        return from + length;
+    }
+
+    /**
+     * Moves the complete file into the blob store, creates the Submission / Syllabus row from its
+     * fileLink (createRow) and ends the session. The session is claimed (OPEN -> COMPLETING) in the
+     * database first, so a completion racing in on another instance gets 409 instead of storing the
+     * file and creating a second row. If createRow throws, the session is reopened with its parts;
+     * the stored blob is left unreferenced for OrphanFileCollector.
+     */
+    public <T> T complete(String uploadId, Area expectedArea, AuthenticatedUser me, Function<String, T> createRow)
+            throws IOException {
+        UploadSession session = load(uploadId, me);
+        if (!expectedArea.name().equals(session.getArea())) {
+            throw new UploadRejectedException(HttpStatus.BAD_REQUEST, "Upload was started for " + session.getArea());
+        }
+        if (session.getReceivedBytes() != session.getTotalSize()) {
+            throw new UploadRejectedException(HttpStatus.CONFLICT,
+                    "Upload incomplete: " + session.getReceivedBytes() + " of " + session.getTotalSize() + " bytes");
+        }
+        List<String> partNames = partNames(session);
+        if (uploadSessionRepository.claimForCompletion(uploadId, Instant.now()) == 0) {
+            throw new UploadRejectedException(HttpStatus.CONFLICT, "Upload is already being completed");
+        }
+
+        boolean done = false;
+        try {
+            byte[] head;
+            try (InputStream in = blobStore.openParts(uploadId, partNames)) {
+                head = in.readNBytes(SNIFF_BYTES);
+            }
+            String extension = MultipartUploadService.extension(session.getFileName());
+            if (!MultipartUploadService.matchesSignature(extension, head)) {
+                discard(session);
+                done = true;   // nothing to reopen
+                throw new UploadRejectedException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                        "File content does not match its extension: " + session.getFileName());
+            }
+
+            String fileLink;
+            try (InputStream in = blobStore.openParts(uploadId, partNames)) {
+                fileLink = fileStorageService.store(expectedArea, session.getFileName(), in);
+            }
+            T row = createRow.apply(fileLink);
+            done = true;
+            try {
+                discard(session);
+            } catch (IOException e) {
+                // the row exists; purgeExpired() removes what is left of the session later
+                log.warn("Could not remove completed upload {}: {}", uploadId, e.getMessage());
+            }
+            return row;
+        } finally {
+            if (!done) {
+                uploadSessionRepository.reopen(uploadId, Instant.now());
+            }
+        }
+    }
+
+    // Names of the recorded parts in offset order (every accepted chunk recorded one with its offset move)
+    private List<String> partNames(UploadSession session) throws IOException {
+        List<String> names = new ArrayList<>();
+        long covered = 0;
+        for (UploadPart part : uploadPartRepository.findByUploadIdOrderByPartOffsetAsc(session.getUploadId())) {
+            if (part.getPartOffset() != covered) {
+                break;
+            }
+            names.add(part.getPartName());
+            covered += part.getSize();
+        }
+        if (covered != session.getTotalSize()) {
+            throw new IOException("Upload " + session.getUploadId() + " has parts for " + covered + " of "
+                    + session.getTotalSize() + " bytes");
+        }
+        return names;
+    }
+
+    public void abort(String uploadId, AuthenticatedUser me) throws IOException {
+        discard(load(uploadId, me));
+    }
+
+    // Idle sessions: drop the partial file and the row
+    @Scheduled(fixedDelayString = "${files.resumable.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        List<UploadSession> expired;
+        int purged = 0;
+        do {
+            expired = uploadSessionRepository.findByUpdatedAtBefore(Instant.now().minus(expiry), Limit.of(500));
+            for (UploadSession session : expired) {
+                try {
+                    discard(session);
+                    purged++;
+                } catch (IOException e) {
+                    log.warn("Could not remove expired upload {}: {}", session.getUploadId(), e.getMessage());
+                    return;
+                }
+            }
+        } while (!expired.isEmpty());
+        if (purged > 0) {
+            log.info("Expired resumable uploads removed: {}", purged);
+        }
+    }
+
+    private void discard(UploadSession session) throws IOException {
+        blobStore.deleteParts(session.getUploadId());
+        uploadPartRepository.deleteByUploadId(session.getUploadId());
+        uploadSessionRepository.delete(session);
+    }
+
+    private UploadSession load(String uploadId, AuthenticatedUser me) {
+        if (!uploadId.matches("[0-9a-f]{32}")) {
+            throw new UploadRejectedException(HttpStatus.NOT_FOUND, "Upload not found");
+        }
+        UploadSession session = uploadSessionRepository.findById(uploadId)
+                .orElseThrow(() -> new UploadRejectedException(HttpStatus.NOT_FOUND, "Upload not found"));
+        if (me == null || !me.getUserId().equals(session.getOwnerId())) {
+            throw new UploadRejectedException(HttpStatus.FORBIDDEN, "Upload belongs to another user");
+        }
+        return session;
+    }
+
+    private static Area parseArea(String area) {
+        if ("SUBMISSIONS".equalsIgnoreCase(area)) {
+            return Area.SUBMISSIONS;
+        }
+        if ("SYLLABUS".equalsIgnoreCase(area)) {
+            return Area.SYLLABUS;
+        }
+        throw new UploadRejectedException(HttpStatus.BAD_REQUEST, "area must be SUBMISSIONS or SYLLABUS");
+    }
+
+    private UploadSessionDTO toDTO(UploadSession session) {
+        UploadSessionDTO dto = new UploadSessionDTO();
+        dto.setUploadId(session.getUploadId());
+        dto.setArea(session.getArea());
+        dto.setFileName(session.getFileName());
+        dto.setTotalSize(session.getTotalSize());
+        dto.setOffset(session.getReceivedBytes());
+        dto.setMaxChunkBytes(maxChunkBytes);
+        dto.setExpiresAt(session.getUpdatedAt().plus(expiry));
+        return dto;
+    }
+}
@@ -0,0 +1,543 @@
+package edu.example.edu.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Blobs as objects in an S3-compatible bucket (AWS S3, MinIO, Ceph RGW, LocalStack, ...).
+ *
+ * Keys mirror the filesystem layout: {prefix}blobs/{ab}/{cd}/{sha256}, {prefix}quarantine/blobs/...
+ * and {prefix}uploads/{uploadId}/{offset}-{random}. Requests are signed with AWS Signature V4 on the JDK
+ * HttpClient, so there is no SDK dependency; a blob PUT carries its sha256 as
+ * x-amz-content-sha256 and the store rejects it if the bytes do not match. Uploads stream from
+ * the local spool file, reads stream the response body (Range for partial reads), and downloads
+ * can be answered with a presigned-URL redirect so the bytes never pass through the app at all.
+ * 5xx answers (503 SlowDown under load) are retried a few times with jittered backoff.
+ *
+ * Point files.storage.s3.endpoint at a local MinIO (path-style addressing) to run against a
+ * stand-in.
+ */
+@Service
+@ConditionalOnProperty(name = "files.storage.backend", havingValue = "s3")
+public class S3BlobStore implements BlobStore {
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final String CACHE_CONTROL = "private, max-age=31536000, immutable";
+    // 500 InternalError and 503 SlowDown are S3's "try again"; every request here is safe to repeat
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long RETRY_BASE_MILLIS = 100;
+
+    // An object in a listing
+    private record ListedObject(String key, long size, long lastModified) {
+    }
+
+    private final HttpClient http;
+    private final URI endpoint;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final String prefix;
+    private final boolean pathStyle;
+    private final boolean presignedDownloads;
+    private final Duration presignTtl;
+    private final Duration requestTimeout;
+    private final Path spoolDir;
+
+    public S3BlobStore(@Value("${files.storage.s3.endpoint:https://s3.amazonaws.com}") String endpoint,
+                       @Value("${files.storage.s3.bucket:}") String bucket,
+                       @Value("${files.storage.s3.region:us-east-1}") String region,
+                       @Value("${files.storage.s3.access-key:}") String accessKey,
+                       @Value("${files.storage.s3.secret-key:}") String secretKey,
+                       @Value("${files.storage.s3.prefix:}") String prefix,
+                       @Value("${files.storage.s3.path-style:true}") boolean pathStyle,
+                       @Value("${files.storage.s3.presigned-downloads:true}") boolean presignedDownloads,
+                       @Value("${files.storage.s3.presign-ttl-seconds:300}") long presignTtlSeconds,
+                       @Value("${files.storage.s3.request-timeout-seconds:60}") long requestTimeoutSeconds,
+                       @Value("${files.storage.s3.spool-dir:}") String spoolDir) {
+        if (bucket == null || bucket.isBlank()) {
+            throw new IllegalStateException("files.storage.s3.bucket is required when files.storage.backend=s3");
+        }
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.prefix = prefix == null || prefix.isBlank() ? "" : prefix.endsWith("/") ? prefix : prefix + "/";
+        this.pathStyle = pathStyle;
+        this.presignedDownloads = presignedDownloads;
+        this.presignTtl = Duration.ofSeconds(presignTtlSeconds);
+        this.requestTimeout = Duration.ofSeconds(requestTimeoutSeconds);
+        this.spoolDir = (spoolDir == null || spoolDir.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "edu-upload-spool")
+                : Paths.get(spoolDir)).toAbsolutePath().normalize();
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    @Override
+    public Path newSpoolFile() throws IOException {
+        Files.createDirectories(spoolDir);
+        return spoolDir.resolve(UUID.randomUUID().toString());
+    }
+
+    @Override
+    public Path spoolDir() {
+        return spoolDir;
+    }
+
+    @Override
+    public void put(String sha256, Path spooled) throws IOException {
+        try {
+            // the hash we computed while spooling doubles as the signed payload hash: S3 verifies it
+            send("PUT", blobKey(sha256), Map.of(), Map.of(), sha256,
+                    HttpRequest.BodyPublishers.ofFile(spooled), HttpResponse.BodyHandlers.ofString(), 200);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    @Override
+    public BlobInfo stat(String sha256) throws IOException {
+        HttpResponse<Void> response = send("HEAD", blobKey(sha256), Map.of(), Map.of(), EMPTY_SHA256,
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding(), 200, 404);
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        HttpHeaders headers = response.headers();
+        long size = headers.firstValueAsLong("Content-Length").orElse(0);
+        long lastModified = headers.firstValue("Last-Modified")
+                .map(v -> ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                .orElse(0L);
+        return new BlobInfo(sha256, size, lastModified);
+    }
+
+    @Override
+    public InputStream open(String sha256, long offset, long length) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (offset > 0 || length >= 0) {
+            headers.put("Range", "bytes=" + offset + "-" + (length >= 0 ? String.valueOf(offset + length - 1) : ""));
+        }
+        HttpResponse<InputStream> response = send("GET", blobKey(sha256), Map.of(), headers, EMPTY_SHA256,
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream(), 200, 206, 404);
+        if (response.statusCode() == 404) {
+            response.body().close();
+            throw new NoSuchFileException(blobKey(sha256));
+        }
+        return response.body();
+    }
+
+    @Override
+    public Path localFile(String sha256) {
+        return null;
+    }
+
+    @Override
+    public URI downloadUrl(String sha256, String downloadName, String contentType) {
+        if (!presignedDownloads) {
+            return null;
+        }
+        String disposition = (StandardCharsets.US_ASCII.newEncoder().canEncode(downloadName)
+                ? ContentDisposition.inline().filename(downloadName)
+                : ContentDisposition.inline().filename(downloadName, StandardCharsets.UTF_8)).build().toString();
+        Map<String, String> query = new TreeMap<>();
+        query.put("response-cache-control", CACHE_CONTROL);
+        query.put("response-content-disposition", disposition);
+        query.put("response-content-type", contentType);
+        return presign("GET", blobKey(sha256), query);
+    }
+
+    @Override
+    public List<BlobInfo> list(String afterSha256, int limit) throws IOException {
+        return toBlobInfos(listObjects(prefix + "blobs/", afterSha256 == null ? null : blobKey(afterSha256), limit));
+    }
+
+    // ---------------- ORPHAN COLLECTION ----------------
+
+    @Override
+    public void quarantine(String sha256) throws IOException {
+        // a copy gets a fresh LastModified: that starts the quarantine clock
+        copy(blobKey(sha256), quarantineKey(sha256));
+        delete(blobKey(sha256));
+    }
+
+    @Override
+    public List<BlobInfo> listQuarantined(String afterSha256, int limit) throws IOException {
+        return toBlobInfos(listObjects(prefix + "quarantine/blobs/",
+                afterSha256 == null ? null : quarantineKey(afterSha256), limit));
+    }
+
+    @Override
+    public void restore(String sha256) throws IOException {
+        copy(quarantineKey(sha256), blobKey(sha256));
+        delete(quarantineKey(sha256));
+    }
+
+    @Override
+    public void deleteQuarantined(String sha256) throws IOException {
+        delete(quarantineKey(sha256));
+    }
+
+    // ---------------- RESUMABLE UPLOADS ----------------
+
+    @Override
+    public void writePart(String uploadId, String partName, Path chunk) throws IOException {
+        try {
+            send("PUT", partKey(uploadId, partName), Map.of(), Map.of(), UNSIGNED_PAYLOAD,
+                    HttpRequest.BodyPublishers.ofFile(chunk), HttpResponse.BodyHandlers.ofString(), 200);
+        } finally {
+            Files.deleteIfExists(chunk);
+        }
+    }
+
+    @Override
+    public InputStream openParts(String uploadId, List<String> partNames) throws IOException {
+        // each part is requested only when the previous one has been read
+        Iterator<String> it = partNames.iterator();
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return it.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return send("GET", partKey(uploadId, it.next()), Map.of(), Map.of(), EMPTY_SHA256,
+                            HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream(), 200).body();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void deleteParts(String uploadId) throws IOException {
+        for (ListedObject part : listAll(prefix + "uploads/" + uploadId + "/")) {
+            delete(part.key());
+        }
+    }
+
+    // ---------------- KEYS ----------------
+
+    private String blobKey(String sha256) {
+        return prefix + "blobs/" + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
+    private String quarantineKey(String sha256) {
+        return prefix + "quarantine/blobs/" + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
+    private String partKey(String uploadId, String partName) {
+        return prefix + "uploads/" + uploadId + "/" + partName;
+    }
+
+    private static List<BlobInfo> toBlobInfos(List<ListedObject> objects) {
+        List<BlobInfo> infos = new ArrayList<>(objects.size());
+        for (ListedObject o : objects) {
+            String sha256 = o.key().substring(o.key().lastIndexOf('/') + 1);
+            if (sha256.length() == 64) {
+                infos.add(new BlobInfo(sha256, o.size(), o.lastModified()));
+            }
+        }
+        return infos;
+    }
+
+    // ---------------- OPERATIONS ----------------
+
+    private void copy(String from, String to) throws IOException {
+        HttpResponse<String> response = send("PUT", to, Map.of(),
+                Map.of("x-amz-copy-source", "/" + bucket + "/" + encodePath(from)), EMPTY_SHA256,
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString(), 200);
+        // CopyObject may report a failure inside a 200 response
+        if (response.body().contains("<Error>")) {
+            throw new IOException("S3 copy " + from + " -> " + to + " failed: " + response.body());
+        }
+    }
+
+    private void delete(String key) throws IOException {
+        send("DELETE", key, Map.of(), Map.of(), EMPTY_SHA256, HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.discarding(), 200, 204, 404);
+    }
+
+    private List<ListedObject> listAll(String keyPrefix) throws IOException {
+        List<ListedObject> all = new ArrayList<>();
+        List<ListedObject> page;
+        do {
+            page = listObjects(keyPrefix, all.isEmpty() ? null : all.get(all.size() - 1).key(), 1000);
+            all.addAll(page);
+        } while (page.size() == 1000);
+        return all;
+    }
+
+    // ListObjectsV2: keys come back in lexicographic order, which is hash / offset order here
+    private List<ListedObject> listObjects(String keyPrefix, String startAfter, int maxKeys) throws IOException {
+        Map<String, String> query = new TreeMap<>();
+        query.put("list-type", "2");
+        query.put("prefix", keyPrefix);
+        query.put("max-keys", String.valueOf(Math.min(maxKeys, 1000)));
+        if (startAfter != null) {
+            query.put("start-after", startAfter);
+        }
+        HttpResponse<InputStream> response = send("GET", null, query, Map.of(), EMPTY_SHA256,
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream(), 200);
+
+        List<ListedObject> objects = new ArrayList<>();
+        try (InputStream body = response.body()) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            Document doc = factory.newDocumentBuilder().parse(body);
+            NodeList contents = doc.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                Element c = (Element) contents.item(i);
+                objects.add(new ListedObject(text(c, "Key"), Long.parseLong(text(c, "Size")),
+                        Instant.parse(text(c, "LastModified")).toEpochMilli()));
+            }
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Unreadable S3 listing", e);
+        }
+        return objects;
+    }
+
+    private static String text(Element parent, String tag) {
+        NodeList nodes = parent.getElementsByTagName(tag);
+        return nodes.getLength() == 0 ? "" : nodes.item(0).getTextContent();
+    }
+
+    // Signs and sends one request, retrying 5xx with backoff; any other status outside expected is an IOException
+    private <T> HttpResponse<T> send(String method, String key, Map<String, String> query, Map<String, String> headers,
+                                     String payloadHash, HttpRequest.BodyPublisher body,
+                                     HttpResponse.BodyHandler<T> handler, int... expected) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            HttpResponse<T> response = sendOnce(method, key, query, headers, payloadHash, body, handler);
+            for (int status : expected) {
+                if (response.statusCode() == status) {
+                    return response;
+                }
+            }
+            String error = "S3 " + method + " " + (key == null ? "/" : key) + " returned "
+                    + response.statusCode() + errorBody(response.body());
+            if (!retryable(response.statusCode()) || attempt == MAX_ATTEMPTS) {
+                throw new IOException(error);
+            }
+            // full jitter: 0..base*2^attempt, so instances that were slowed down together do not retry together
+            long backoff = ThreadLocalRandom.current().nextLong(RETRY_BASE_MILLIS << attempt);
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(error, e);
+            }
+        }
+    }
+
+    private static boolean retryable(int status) {
+        return status == 500 || status == 502 || status == 503 || status == 504;
+    }
+
+    // One signed attempt (a fresh x-amz-date each time; file body publishers re-read the file)
+    private <T> HttpResponse<T> sendOnce(String method, String key, Map<String, String> query, Map<String, String> headers,
+                                         String payloadHash, HttpRequest.BodyPublisher body,
+                                         HttpResponse.BodyHandler<T> handler) throws IOException {
+        Instant now = Instant.now();
+        URI uri = uri(key, query);
+
+        TreeMap<String, String> signed = new TreeMap<>();
+        signed.put("host", hostHeader(uri));
+        signed.put("x-amz-content-sha256", payloadHash);
+        signed.put("x-amz-date", AMZ_DATE.format(now));
+        headers.forEach((name, value) -> {
+            if (name.toLowerCase(Locale.ROOT).startsWith("x-amz-")) {
+                signed.put(name.toLowerCase(Locale.ROOT), value);
+            }
+        });
+        String signedHeaders = String.join(";", signed.keySet());
+        StringBuilder canonicalHeaders = new StringBuilder();
+        signed.forEach((name, value) -> canonicalHeaders.append(name).append(':').append(value.trim()).append('\n'));
+
+        String canonicalRequest = method + "\n" + uri.getRawPath() + "\n" + canonicalQuery(query) + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+        String scope = scope(now);
+        String authorization = "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature(now, scope, canonicalRequest);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .method(method, body)
+                .header("Authorization", authorization)
+                .header("x-amz-content-sha256", payloadHash)
+                .header("x-amz-date", AMZ_DATE.format(now));
+        headers.forEach(request::header);
+
+        try {
+            return http.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during S3 " + method + " " + key, e);
+        }
+    }
+
+    // Query-string signature (X-Amz-*) for a URL handed to the browser
+    private URI presign(String method, String key, Map<String, String> extraQuery) {
+        Instant now = Instant.now();
+        String scope = scope(now);
+        Map<String, String> query = new TreeMap<>(extraQuery);
+        query.put("X-Amz-Algorithm", "AWS4-HMAC-SHA256");
+        query.put("X-Amz-Credential", accessKey + "/" + scope);
+        query.put("X-Amz-Date", AMZ_DATE.format(now));
+        query.put("X-Amz-Expires", String.valueOf(presignTtl.toSeconds()));
+        query.put("X-Amz-SignedHeaders", "host");
+        URI unsigned = uri(key, query);
+
+        String canonicalRequest = method + "\n" + unsigned.getRawPath() + "\n" + canonicalQuery(query) + "\n"
+                + "host:" + hostHeader(unsigned) + "\n\n" + "host\n" + UNSIGNED_PAYLOAD;
+        query.put("X-Amz-Signature", signature(now, scope, canonicalRequest));
+        return uri(key, query);
+    }
+
+    private URI uri(String key, Map<String, String> query) {
+        // path-style: /{bucket}/{key}; virtual-hosted: {bucket}.host/{key}
+        String path;
+        if (key == null) {
+            path = pathStyle ? "/" + bucket : "/";
+        } else {
+            path = (pathStyle ? "/" + bucket + "/" : "/") + encodePath(key);
+        }
+        String authority = pathStyle ? endpoint.getRawAuthority() : bucket + "." + endpoint.getRawAuthority();
+        String q = canonicalQuery(query);
+        return URI.create(endpoint.getScheme() + "://" + authority + path + (q.isEmpty() ? "" : "?" + q));
+    }
+
+    // What the JDK client sends as Host: the port only when the URI has one that is not the scheme's default
+    static String hostHeader(URI uri) {
+        int port = uri.getPort();
+        boolean defaultPort = port == -1
+                || (port == 443 && "https".equalsIgnoreCase(uri.getScheme()))
+                || (port == 80 && "http".equalsIgnoreCase(uri.getScheme()));
+        return defaultPort ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    private static String canonicalQuery(Map<String, String> query) {
+        StringBuilder sb = new StringBuilder();
+        new TreeMap<>(query).forEach((name, value) -> {
+            if (sb.length() > 0) {
+                sb.append('&');
+            }
+            sb.append(encode(name)).append('=').append(encode(value));
+        });
+        return sb.toString();
+    }
+
+    private String scope(Instant now) {
+        return AMZ_DATE.format(now).substring(0, 8) + "/" + region + "/s3/aws4_request";
+    }
+
+    private String signature(Instant now, String scope, String canonicalRequest) {
+        String stringToSign = "AWS4-HMAC-SHA256\n" + AMZ_DATE.format(now) + "\n" + scope + "\n"
+                + HexFormat.of().formatHex(FileStorageService.newSha256().digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), AMZ_DATE.format(now).substring(0, 8));
+        key = hmac(key, region);
+        key = hmac(key, "s3");
+        key = hmac(key, "aws4_request");
+        return HexFormat.of().formatHex(hmac(key, stringToSign));
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    // RFC 3986 unreserved characters stay, everything else is %XX (what SigV4 expects)
+    private static String encode(String value) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                sb.append(c);
+            } else {
+                sb.append('%').append(HexFormat.of().withUpperCase().toHexDigits(b));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String encodePath(String key) {
+        StringBuilder sb = new StringBuilder();
+        for (String segment : key.split("/", -1)) {
+            if (sb.length() > 0) {
+                sb.append('/');
+            }
+            sb.append(encode(segment));
+        }
+        return sb.toString();
+    }
+
+    private static String errorBody(Object body) {
+        String text = null;
+        if (body instanceof String s) {
+            text = s;
+        } else if (body instanceof InputStream in) {
+            try (in) {
+                text = new String(in.readNBytes(512), StandardCharsets.UTF_8);
+            } catch (IOException ignored) {
+                // status alone will do
+            }
+        }
+        return text == null || text.isBlank() ? "" : ": " + (text.length() > 512 ? text.substring(0, 512) : text);
+    }
+}
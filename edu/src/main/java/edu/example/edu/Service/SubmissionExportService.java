@@ -0,0 +1,182 @@
+package edu.example.edu.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import edu.example.edu.Entity.Assignment;
+import edu.example.edu.Repository.AssignmentRepository;
+import edu.example.edu.Repository.SubmissionRepository;
+import edu.example.edu.Repository.SubmissionRepository.ExportRow;
+import edu.example.edu.Service.FileStorageService.Area;
+import edu.example.edu.Service.FileStorageService.StoredFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Streams every submission of an assignment as one ZIP, written straight into the response.
+ *
+ * Rows are read in keyset pages and each file is copied through the ZipOutputStream as it is
+ * reached, so memory stays at one page plus the copy buffer whatever the class size, and the
+ * first bytes leave before the last file has been looked at. Entries are
+ * "{student name} ({student id})/{submission id}-{file name}"; already-compressed formats are
+ * stored at deflate level 0. The optional manifest.csv (grade, feedback) is written last from a
+ * second pass over the rows; files found missing in the first pass are remembered by submission id,
+ * so storage is only looked at once per row.
+ */
+@Service
+public class SubmissionExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionExportService.class);
+    private static final int PAGE_SIZE = 200;
+
+    // worth deflating; everything else (pdf, OOXML, images, video, zip) is already compressed
+    private static final Set<String> COMPRESSIBLE = Set.of("txt", "csv", "doc", "xls", "ppt", "rtf", "html");
+
+    private final SubmissionRepository submissionRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final FileStorageService fileStorageService;
+    private final Counter exports;
+    private final Counter bytesExported;
+
+    public SubmissionExportService(SubmissionRepository submissionRepository,
+                                   AssignmentRepository assignmentRepository,
+                                   FileStorageService fileStorageService,
+                                   MeterRegistry registry) {
+        this.submissionRepository = submissionRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.fileStorageService = fileStorageService;
+        this.exports = registry.counter("submissions.export");
+        this.bytesExported = registry.counter("submissions.export.bytes");
+    }
+
+    public void streamZip(Long assignmentId, boolean includeManifest, HttpServletResponse response) throws IOException {
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+
+        String zipName = safeName(assignment.getTitle()) + "-submissions.zip";
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                (StandardCharsets.US_ASCII.newEncoder().canEncode(zipName)
+                        ? ContentDisposition.attachment().filename(zipName)
+                        : ContentDisposition.attachment().filename(zipName, StandardCharsets.UTF_8)).build().toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        response.flushBuffer();   // headers out now; the body follows entry by entry
+        exports.increment();
+
+        int files = 0;
+        Set<Long> missing = new HashSet<>();
+        long bytes = 0;
+        long afterId = 0;
+        try (ZipOutputStream zip = new ZipOutputStream(response.getOutputStream(), StandardCharsets.UTF_8)) {
+            List<ExportRow> page;
+            do {
+                page = submissionRepository.findExportPage(assignmentId, afterId, Limit.of(PAGE_SIZE));
+                for (ExportRow row : page) {
+                    afterId = row.getSubmissionId();
+                    StoredFile file = locate(row.getFileLink());
+                    if (file == null) {
+                        missing.add(row.getSubmissionId());
+                        continue;
+                    }
+                    String entryName = entryName(row);
+                    zip.setLevel(COMPRESSIBLE.contains(extension(entryName)) ? Deflater.BEST_SPEED : Deflater.NO_COMPRESSION);
+                    ZipEntry entry = new ZipEntry(entryName);
+                    entry.setLastModifiedTime(FileTime.fromMillis(file.getLastModified()));
+                    zip.putNextEntry(entry);
+                    try (InputStream in = file.open(0, file.getSize())) {
+                        bytes += in.transferTo(zip);
+                    }
+                    zip.closeEntry();
+                    files++;
+                }
+                zip.flush();
+            } while (page.size() == PAGE_SIZE);
+
+            if (includeManifest) {
+                writeManifest(assignmentId, afterId, missing, zip);
+            }
+        }
+        bytesExported.increment(bytes);
+        log.info("Submission export: assignment={} files={} missing={} bytes={}", assignmentId, files, missing.size(), bytes);
+    }
+
+    // Rows up to lastId (the ones the entries were written for); missing: submissions whose file was not found
+    private void writeManifest(Long assignmentId, long lastId, Set<Long> missing, ZipOutputStream zip) throws IOException {
+        zip.setLevel(Deflater.BEST_SPEED);
+        zip.putNextEntry(new ZipEntry("manifest.csv"));
+        // flushed, never closed: closing the writer would close the zip
+        Writer out = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        out.write("\uFEFFsubmission_id,student_id,student_name,submission_date,file,grade,feedback\r\n");
+        long afterId = 0;
+        List<ExportRow> page;
+        do {
+            page = submissionRepository.findExportPage(assignmentId, afterId, Limit.of(PAGE_SIZE));
+            for (ExportRow row : page) {
+                afterId = row.getSubmissionId();
+                if (afterId > lastId) {
+                    break;   // submitted after the entries were written
+                }
+                out.write(row.getSubmissionId() + "," + row.getStudentId() + "," + csv(row.getStudentName()) + ","
+                        + (row.getSubmissionDate() != null ? row.getSubmissionDate() : "") + ","
+                        + csv(missing.contains(row.getSubmissionId()) ? "MISSING" : entryName(row)) + ","
+                        + csv(row.getGrade()) + "," + csv(row.getFeedback()) + "\r\n");
+            }
+        } while (page.size() == PAGE_SIZE && afterId < lastId);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private StoredFile locate(String fileLink) throws IOException {
+        String key = Area.SUBMISSIONS.keyOf(fileLink);
+        return key == null ? null : fileStorageService.locate(Area.SUBMISSIONS, key);
+    }
+
+    static String entryName(ExportRow row) {
+        String key = Area.SUBMISSIONS.keyOf(row.getFileLink());
+        return safeName(row.getStudentName()) + " (" + row.getStudentId() + ")/"
+                + row.getSubmissionId() + "-" + safeName(FileStorageService.displayName(key));
+    }
+
+    // No path separators or characters Windows unzip tools reject
+    static String safeName(String name) {
+        if (name == null || name.isBlank()) {
+            return "unnamed";
+        }
+        String clean = name.trim().replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_");
+        return clean.equals(".") || clean.equals("..") ? "_" : clean;
+    }
+
+    private static String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -5,6 +5,7 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.example.edu.DTO.SubmissionDTO;
 import edu.example.edu.DTO.SubmissionComplianceDTO;
@@ -28,6 +29,9 @@ public class SubmissionService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FileStorageService fileStorageService;
+
     private SubmissionDTO toDTO(Submission submission) {
         SubmissionDTO dto = new SubmissionDTO();
         dto.setSubmissionId(submission.getSubmissionId());
@@ -60,9 +64,13 @@ public class SubmissionService {
         return submission;
     }
 
+    @Transactional
     public SubmissionDTO saveSubmission(SubmissionDTO dto) {
+        String oldLink = dto.getSubmissionId() == null ? null
+                : submissionRepository.findById(dto.getSubmissionId()).map(Submission::getFileLink).orElse(null);
         Submission submission = toEntity(dto);
         Submission saved = submissionRepository.save(submission);
+        fileStorageService.replace(oldLink, saved.getFileLink());
         return toDTO(saved);
     }
 
@@ -80,7 +88,9 @@ public class SubmissionService {
                 .map(this::toDTO).collect(Collectors.toList());
     }
 
+    @Transactional
     public void deleteSubmission(Long submissionId) {
+        submissionRepository.findById(submissionId).ifPresent(s -> fileStorageService.release(s.getFileLink()));
         submissionRepository.deleteById(submissionId);
     }
 
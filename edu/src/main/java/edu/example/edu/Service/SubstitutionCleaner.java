@@ -1,6 +1,8 @@
 package edu.example.edu.Service;
 
 import edu.example.edu.Repository.SubstitutionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -11,6 +13,8 @@ import java.time.LocalDate;
 @Service
 public class SubstitutionCleaner {
 
+    private static final Logger log = LoggerFactory.getLogger(SubstitutionCleaner.class);
+
     @Autowired
     private SubstitutionRepository substitutionRepository;
 
@@ -25,6 +29,6 @@ public class SubstitutionCleaner {
         substitutionRepository.findAll().stream()
                 .filter(s -> s.getDate().isBefore(today))
                 .forEach(s -> substitutionRepository.delete(s));
-        System.out.println("Old substitutions cleaned for " + today);
+        log.info("Old substitutions cleaned for {}", today);
     }
 }
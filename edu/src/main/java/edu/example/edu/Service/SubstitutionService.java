@@ -26,6 +26,12 @@ public class SubstitutionService {
         @Autowired
         private UserRepository userRepository;
 
+        @Autowired
+        private TimetableOccupancyIndex occupancyIndex;
+
+        @Autowired
+        private ClassTimetableCache classTimetableCache;
+
         // ➕ Create or Update Substitution
         public SubstitutionDTO saveSubstitution(SubstitutionDTO dto) {
                 Timetable timetable = timetableRepository.findById(dto.getTimetableId())
@@ -35,6 +41,11 @@ public class SubstitutionService {
                 User substituteTeacher = userRepository.findById(dto.getSubstituteTeacherId())
                                 .orElseThrow(() -> new RuntimeException("Substitute teacher not found"));
 
+                // an edited substitution may move away from today's class view
+                if (dto.getSubstitutionId() != null) {
+                        substitutionRepository.findById(dto.getSubstitutionId()).ifPresent(this::invalidateClassView);
+                }
+
                 Substitution substitution = new Substitution();
                 substitution.setSubstitutionId(dto.getSubstitutionId());
                 substitution.setTimetable(timetable);
@@ -44,6 +55,7 @@ public class SubstitutionService {
                 substitution.setReason(dto.getReason());
 
                 Substitution saved = substitutionRepository.save(substitution);
+                invalidateClassView(saved);
                 return convertToDTO(saved);
         }
 
@@ -72,7 +84,17 @@ public class SubstitutionService {
 
         // ❌ Delete
         public void deleteSubstitution(Long id) {
-                substitutionRepository.deleteById(id);
+                substitutionRepository.findById(id).ifPresent(s -> {
+                        substitutionRepository.delete(s);
+                        invalidateClassView(s);
+                });
+        }
+
+        // ✅ Today's substitutions are part of the cached class week (ClassTimetableCache)
+        private void invalidateClassView(Substitution s) {
+                if (java.time.LocalDate.now().equals(s.getDate())) {
+                        classTimetableCache.invalidate(s.getTimetable().getClassroom().getClassId());
+                }
         }
 
         // 🔄 Convert Entity → DTO
@@ -95,11 +117,9 @@ public class SubstitutionService {
                 // 1. Get all teachers
                 List<User> allTeachers = userRepository.findByRole(User.Role.TEACHER);
 
-                // 2. Teachers busy in Master Timetable
-                List<User> busyInTimetable = timetableRepository.findAll().stream()
-                                .filter(t -> t.getDayOfWeek() == dayEnum && t.getPeriodNumber() == periodNumber)
-                                .map(Timetable::getTeacher)
-                                .filter(java.util.Objects::nonNull)
+                // 2. Teachers busy in Master Timetable (in-memory occupancy, no table scan)
+                List<User> busyInTimetable = allTeachers.stream()
+                                .filter(t -> occupancyIndex.isTeacherBusy(t.getUserId(), dayEnum, periodNumber))
                                 .collect(Collectors.toList());
 
                 // 3. Teachers already busy as substitutes on this date/period
@@ -6,9 +6,11 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.example.edu.DTO.SyllabusDTO;
 import edu.example.edu.Entity.ClassSubject;
+import edu.example.edu.Entity.DocumentText.DocType;
 import edu.example.edu.Entity.Syllabus;
 import edu.example.edu.Entity.User;
 import edu.example.edu.Repository.ClassSubjectRepository;
@@ -27,7 +29,17 @@ public class SyllabusService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Autowired
+    private DocumentIndexer documentIndexer;
+
     // ✅ Create or update syllabus
+    @Transactional
     public SyllabusDTO saveSyllabus(SyllabusDTO syllabusDTO) {
         Syllabus syllabus = new Syllabus();
 
@@ -42,6 +54,7 @@ public class SyllabusService {
         User uploadedBy = userRepository.findById(syllabusDTO.getUploadedById())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        String oldLink = syllabus.getFileLink();
         syllabus.setClassSubject(classSubject);
         syllabus.setTitle(syllabusDTO.getTitle());
         syllabus.setDescription(syllabusDTO.getDescription());
@@ -51,6 +64,11 @@ public class SyllabusService {
         syllabus.setUploadedAt(LocalDateTime.now());
 
         Syllabus saved = syllabusRepository.save(syllabus);
+        fileStorageService.replace(oldLink, saved.getFileLink());
+        if (oldLink != null && !oldLink.equals(saved.getFileLink())) {
+            hotFileCache.invalidate(oldLink);
+        }
+        documentIndexer.submit(DocType.SYLLABUS, saved.getSyllabusId());
         return convertToDTO(saved);
     }
 
@@ -78,11 +96,14 @@ public class SyllabusService {
     }
 
     // ✅ Delete
+    @Transactional
     public void deleteSyllabus(Long id) {
-        if (!syllabusRepository.existsById(id)) {
-            throw new RuntimeException("Syllabus not found");
-        }
-        syllabusRepository.deleteById(id);
+        Syllabus syllabus = syllabusRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Syllabus not found"));
+        fileStorageService.release(syllabus.getFileLink());
+        hotFileCache.invalidate(syllabus.getFileLink());
+        syllabusRepository.delete(syllabus);
+        documentIndexer.remove(DocType.SYLLABUS, id);
     }
 
     // ✅ Helper: Entity → DTO
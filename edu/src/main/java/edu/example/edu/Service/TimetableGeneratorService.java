@@ -0,0 +1,302 @@
+package edu.example.edu.Service;
+
+import java.nio.file.AccessDeniedException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import edu.example.edu.Config.AuthenticatedUser;
+import edu.example.edu.DTO.TimetableGenerateRequestDTO;
+import edu.example.edu.DTO.TimetableGenerateResultDTO;
+import edu.example.edu.DTO.TimetableGridCellDTO;
+import edu.example.edu.DTO.TimetableGridDTO;
+import edu.example.edu.DTO.TimetableGridResultDTO;
+import edu.example.edu.DTO.TimetablePeriodTargetDTO;
+import edu.example.edu.Entity.Timetable.DayOfWeek;
+import edu.example.edu.Repository.ClassSubjectRepository;
+import edu.example.edu.Repository.ClassSubjectRepository.AssignmentRow;
+import edu.example.edu.Repository.ClassroomRepository;
+import edu.example.edu.Repository.ClassroomRepository.ClassroomRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Builds a school's whole timetable from its ClassSubject rows.
+ *
+ * Every (class, subject) gets periods-per-week lessons (from the request's targets, else the default),
+ * shared round-robin between the subject's teachers in that class. TimetableSolver places them on its
+ * ForkJoinPool; slots where a teacher already teaches outside this school's classes are kept free.
+ * The result replaces the week of every class that has lessons, through TimetableGridService.saveGrids,
+ * so it gets the same checks and the same single transaction as a hand-made grid.
+ */
+@Service
+public class TimetableGeneratorService {
+
+    private static final Logger log = LoggerFactory.getLogger(TimetableGeneratorService.class);
+
+    // also the highest period number a lesson may have (TimetableOccupancyIndex.onGrid)
+    public static final int MAX_PERIODS_PER_DAY = 16;
+
+    private final ClassroomRepository classroomRepository;
+    private final ClassSubjectRepository classSubjectRepository;
+    private final TimetableOccupancyIndex occupancyIndex;
+    private final TimetableGridService timetableGridService;
+    private final Timer solveTimer;
+
+    private final int restarts;
+    private final long timeLimitMillis;
+    private final ForkJoinPool solverPool;
+
+    public TimetableGeneratorService(ClassroomRepository classroomRepository,
+                                     ClassSubjectRepository classSubjectRepository,
+                                     TimetableOccupancyIndex occupancyIndex,
+                                     TimetableGridService timetableGridService,
+                                     MeterRegistry registry,
+                                     @Value("${timetable.generator.restarts:8}") int restarts,
+                                     @Value("${timetable.generator.time-limit-ms:20000}") long timeLimitMillis,
+                                     @Value("${timetable.generator.parallelism:0}") int parallelism) {
+        this.classroomRepository = classroomRepository;
+        this.classSubjectRepository = classSubjectRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.timetableGridService = timetableGridService;
+        this.solveTimer = registry.timer("timetable.generator.solve");
+        this.restarts = Math.max(1, restarts);
+        this.timeLimitMillis = timeLimitMillis;
+        this.solverPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        solverPool.shutdownNow();
+    }
+
+    public TimetableGenerateResultDTO generate(TimetableGenerateRequestDTO request, AuthenticatedUser caller)
+            throws AccessDeniedException {
+        Long schoolId = schoolFor(request, caller);
+        int days = orDefault(request.getDays(), 5);
+        int periodsPerDay = orDefault(request.getPeriodsPerDay(), 8);
+        int firstPeriod = orDefault(request.getFirstPeriod(), 1);
+        int defaultTarget = orDefault(request.getDefaultPeriodsPerWeek(), 4);
+        if (days < 1 || days > TimetableOccupancyIndex.DAYS) {
+            throw new RuntimeException("days must be between 1 and " + TimetableOccupancyIndex.DAYS);
+        }
+        if (periodsPerDay < 1 || periodsPerDay > MAX_PERIODS_PER_DAY || firstPeriod < 0 || defaultTarget < 0
+                || !TimetableOccupancyIndex.onGrid(firstPeriod + periodsPerDay - 1)) {
+            throw new RuntimeException("Invalid periods: periodsPerDay 1.." + MAX_PERIODS_PER_DAY
+                    + ", last period at most " + MAX_PERIODS_PER_DAY
+                    + ", firstPeriod and defaultPeriodsPerWeek not negative");
+        }
+        int slots = days * periodsPerDay;
+
+        // 1. classes and who teaches what there (two queries)
+        Map<Long, ClassroomRow> classrooms = new LinkedHashMap<>();
+        classroomRepository.findRowsBySchool(schoolId).forEach(c -> classrooms.put(c.getClassId(), c));
+        if (classrooms.isEmpty()) {
+            throw new RuntimeException("School has no classrooms");
+        }
+        Map<List<Long>, List<Long>> trackTeachers = new LinkedHashMap<>();   // [classId, subjectId] -> teacher ids
+        for (AssignmentRow a : classSubjectRepository.findAssignments(classrooms.keySet())) {
+            List<Long> teachers = trackTeachers.computeIfAbsent(List.of(a.getClassroomId(), a.getSubjectId()),
+                    k -> new ArrayList<>());
+            if (!teachers.contains(a.getTeacherId())) {
+                teachers.add(a.getTeacherId());
+            }
+        }
+        Map<List<Long>, Integer> targets = targets(request.getTargets());
+
+        // 2. dense indexes for the solver
+        List<Long> classIds = new ArrayList<>();
+        Map<Long, Integer> classIndex = new HashMap<>();
+        List<Long> teacherIds = new ArrayList<>();
+        Map<Long, Integer> teacherIndex = new HashMap<>();
+        List<List<Long>> tracks = new ArrayList<>();
+        List<Integer> trackCap = new ArrayList<>();
+        List<int[]> lessons = new ArrayList<>();   // {class, teacher, track}
+        int[] classLoad = new int[classrooms.size()];
+        for (Map.Entry<List<Long>, List<Long>> e : trackTeachers.entrySet()) {
+            Long classId = e.getKey().get(0);
+            Long subjectId = e.getKey().get(1);
+            int target = targets.getOrDefault(e.getKey(), targets.getOrDefault(subjectKey(subjectId), defaultTarget));
+            if (target <= 0) {
+                continue;
+            }
+            int c = classIndex.computeIfAbsent(classId, k -> {
+                classIds.add(k);
+                return classIds.size() - 1;
+            });
+            int track = tracks.size();
+            tracks.add(e.getKey());
+            trackCap.add((target + days - 1) / days);
+            List<Long> teachers = e.getValue();
+            for (int k = 0; k < target; k++) {
+                Long teacherId = teachers.get(k % teachers.size());
+                int t = teacherId == null ? -1 : teacherIndex.computeIfAbsent(teacherId, id -> {
+                    teacherIds.add(id);
+                    return teacherIds.size() - 1;
+                });
+                lessons.add(new int[] { c, t, track });
+            }
+            classLoad[c] += target;
+        }
+        if (lessons.isEmpty()) {
+            throw new RuntimeException("Nothing to place: no ClassSubject rows with periods for this school");
+        }
+
+        // 3. slots the teachers already spend outside these classes
+        Set<Long> classIdSet = new LinkedHashSet<>(classIds);
+        BitSet blocked = new BitSet();
+        int[] teacherLoad = new int[teacherIds.size()];
+        for (int[] lesson : lessons) {
+            if (lesson[1] >= 0) {
+                teacherLoad[lesson[1]]++;
+            }
+        }
+        for (int t = 0; t < teacherIds.size(); t++) {
+            BitSet busy = occupancyIndex.teacherSlotsOutside(teacherIds.get(t), classIdSet);
+            for (int s = 0; s < slots; s++) {
+                if (busy.get(TimetableOccupancyIndex.slot(DayOfWeek.values()[s % days], firstPeriod + s / days))) {
+                    blocked.set(t * slots + s);
+                    teacherLoad[t]++;
+                }
+            }
+        }
+
+        // 4. impossible inputs are reported instead of searched for
+        for (int c = 0; c < classIds.size(); c++) {
+            if (classLoad[c] > slots) {
+                throw new RuntimeException("Class " + classrooms.get(classIds.get(c)).getName() + " needs "
+                        + classLoad[c] + " periods but the week has " + slots);
+            }
+        }
+        for (int t = 0; t < teacherIds.size(); t++) {
+            if (teacherLoad[t] > slots) {
+                throw new RuntimeException("Teacher " + teacherIds.get(t) + " needs " + teacherLoad[t]
+                        + " periods (including other schools) but the week has " + slots);
+            }
+        }
+
+        TimetableSolver.Problem problem = new TimetableSolver.Problem(days, periodsPerDay, classIds.size(),
+                teacherIds.size(), column(lessons, 0), column(lessons, 1), column(lessons, 2),
+                trackCap.stream().mapToInt(Integer::intValue).toArray(), blocked);
+        long seed = request.getSeed() != null ? request.getSeed() : System.nanoTime();
+        long start = System.nanoTime();
+        TimetableSolver.Solution solution = TimetableSolver.solve(problem, restarts, timeLimitMillis, seed, solverPool);
+        long solveNanos = System.nanoTime() - start;
+        solveTimer.record(solveNanos, TimeUnit.NANOSECONDS);
+        log.info("Timetable for school {}: {} classes, {} teachers, {} lessons, clashes={}, uneven={}, {} ms",
+                schoolId, classIds.size(), teacherIds.size(), lessons.size(), solution.hardConflicts(),
+                solution.softPenalty(), solveNanos / 1_000_000);
+
+        TimetableGenerateResultDTO result = new TimetableGenerateResultDTO();
+        result.setSchoolId(schoolId);
+        result.setClassrooms(classIds.size());
+        result.setTeachers(teacherIds.size());
+        result.setLessons(lessons.size());
+        result.setSolved(solution.clashFree());
+        result.setClashes(solution.hardConflicts());
+        result.setUnevenDays(solution.softPenalty());
+        result.setRestarts(restarts);
+        result.setIterations(solution.iterations());
+        result.setSolveMillis(solveNanos / 1_000_000);
+        if (!solution.clashFree()) {
+            result.setMessage("No clash-free timetable found within " + timeLimitMillis + " ms; nothing was written");
+            return result;
+        }
+
+        // 5. write through the bulk grid path
+        Map<Long, List<TimetableGridCellDTO>> cells = new LinkedHashMap<>();
+        classIds.forEach(id -> cells.put(id, new ArrayList<>()));
+        for (int i = 0; i < lessons.size(); i++) {
+            int s = solution.lessonSlot()[i];
+            List<Long> track = tracks.get(lessons.get(i)[2]);
+            int t = lessons.get(i)[1];
+            cells.get(track.get(0)).add(new TimetableGridCellDTO(DayOfWeek.values()[s % days].name(),
+                    firstPeriod + s / days, track.get(1), t >= 0 ? teacherIds.get(t) : null));
+        }
+        List<TimetableGridDTO> grids = cells.entrySet().stream()
+                .map(e -> new TimetableGridDTO(e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+        List<TimetableGridResultDTO> saved = timetableGridService.saveGrids(grids, request.isDryRun(), caller);
+
+        boolean applied = !saved.isEmpty() && saved.get(0).isApplied();
+        result.setApplied(applied);
+        for (TimetableGridResultDTO grid : saved) {
+            result.setInserted(result.getInserted() + grid.getInserted());
+            result.setUpdated(result.getUpdated() + grid.getUpdated());
+            result.setDeleted(result.getDeleted() + grid.getDeleted());
+        }
+        if (!applied) {
+            result.setGrids(saved);
+            if (!request.isDryRun()) {
+                result.setMessage("The timetable changed while solving; see grids for the conflicting cells");
+            }
+        }
+        return result;
+    }
+
+    private static Long schoolFor(TimetableGenerateRequestDTO request, AuthenticatedUser caller)
+            throws AccessDeniedException {
+        if (caller == null) {
+            throw new AccessDeniedException("Timetable changes require a school-scoped account.");
+        }
+        if (caller.hasRole("ADMIN") && request.getSchoolId() != null) {
+            return request.getSchoolId();
+        }
+        if (caller.getSchoolId() == null) {
+            throw new AccessDeniedException("Timetable changes require a school-scoped account.");
+        }
+        if (request.getSchoolId() != null && !request.getSchoolId().equals(caller.getSchoolId())) {
+            throw new AccessDeniedException("You can only generate timetables for your school.");
+        }
+        return caller.getSchoolId();
+    }
+
+    // [classId, subjectId] for class targets, [null, subjectId] for school-wide ones
+    private static Map<List<Long>, Integer> targets(List<TimetablePeriodTargetDTO> targets) {
+        Map<List<Long>, Integer> out = new HashMap<>();
+        if (targets == null) {
+            return out;
+        }
+        for (TimetablePeriodTargetDTO t : targets) {
+            if (t.getSubjectId() == null || t.getPeriodsPerWeek() == null || t.getPeriodsPerWeek() < 0) {
+                throw new RuntimeException("Every target needs a subjectId and periodsPerWeek >= 0");
+            }
+            out.put(t.getClassroomId() != null ? List.of(t.getClassroomId(), t.getSubjectId()) : subjectKey(t.getSubjectId()),
+                    t.getPeriodsPerWeek());
+        }
+        return out;
+    }
+
+    private static List<Long> subjectKey(Long subjectId) {
+        List<Long> key = new ArrayList<>(2);
+        key.add(null);
+        key.add(subjectId);
+        return key;
+    }
+
+    private static int orDefault(Integer value, int fallback) {
+        return value != null ? value : fallback;
+    }
+
+    private static int[] column(List<int[]> rows, int index) {
+        int[] out = new int[rows.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = rows.get(i)[index];
+        }
+        return out;
+    }
+}
@@ -0,0 +1,498 @@
+package edu.example.edu.Service;
+
+import java.nio.file.AccessDeniedException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.example.edu.Config.AuthenticatedUser;
+import edu.example.edu.DTO.TimetableGridCellDTO;
+import edu.example.edu.DTO.TimetableGridCellResultDTO;
+import edu.example.edu.DTO.TimetableGridDTO;
+import edu.example.edu.DTO.TimetableGridResultDTO;
+import edu.example.edu.Entity.Subject;
+import edu.example.edu.Entity.Timetable.DayOfWeek;
+import edu.example.edu.Repository.ClassSubjectRepository;
+import edu.example.edu.Repository.ClassroomRepository;
+import edu.example.edu.Repository.ClassroomRepository.ClassroomRow;
+import edu.example.edu.Repository.SubjectRepository;
+import edu.example.edu.Repository.SubstitutionRepository;
+import edu.example.edu.Repository.TimetableRepository;
+import edu.example.edu.Repository.TimetableRepository.GridRow;
+
+/**
+ * Saves a classroom's whole week (day x period grid) in one request instead of a POST / PUT per cell.
+ *
+ * All checks run in memory: classrooms, subjects, current rows and ClassSubject assignments are read
+ * with one projection query each, teacher clashes with other classrooms come from TimetableOccupancyIndex
+ * (and are only confirmed against the table when one is reported).
+ * When no cell conflicts, the difference to the stored week is written in one transaction as JDBC
+ * batches (deletes, updates, inserts); otherwise nothing is written and the per-cell report says why.
+ * A lesson with substitutions on past days is not deleted (it is reported as a conflict until
+ * SubstitutionCleaner has removed them), and a batch statement that finds its row gone or changed
+ * rolls the whole write back.
+ */
+@Service
+public class TimetableGridService {
+
+    // a lesson that leaves the grid takes its substitutions for today and later along; past ones block it
+    private static final String DELETE_SUBSTITUTIONS_SQL = "delete from substitutions where timetable_id = ? and date >= ?";
+    private static final String DELETE_SQL = "delete from timetables where timetable_id = ?";
+    // teachers moving between rows of the same slot would trip uk_timetables_teacher_slot mid-batch
+    private static final String CLEAR_TEACHER_SQL = "update timetables set teacher_id = null where timetable_id = ?";
+    private static final String UPDATE_SQL = "update timetables set subject_id = ?, teacher_id = ? where timetable_id = ?";
+    private static final String INSERT_SQL =
+            "insert into timetables (classroom_id, subject_id, teacher_id, day_of_week, period_number) values (?, ?, ?, ?, ?)";
+
+    private final TimetableRepository timetableRepository;
+    private final ClassroomRepository classroomRepository;
+    private final SubjectRepository subjectRepository;
+    private final ClassSubjectRepository classSubjectRepository;
+    private final SubstitutionRepository substitutionRepository;
+    private final TimetableOccupancyIndex occupancyIndex;
+    private final ClassTimetableCache classTimetableCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public TimetableGridService(TimetableRepository timetableRepository,
+                                ClassroomRepository classroomRepository,
+                                SubjectRepository subjectRepository,
+                                ClassSubjectRepository classSubjectRepository,
+                                SubstitutionRepository substitutionRepository,
+                                TimetableOccupancyIndex occupancyIndex,
+                                ClassTimetableCache classTimetableCache,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate) {
+        this.timetableRepository = timetableRepository;
+        this.classroomRepository = classroomRepository;
+        this.subjectRepository = subjectRepository;
+        this.classSubjectRepository = classSubjectRepository;
+        this.substitutionRepository = substitutionRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.classTimetableCache = classTimetableCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // ✅ One classroom's week; slots missing from cells are cleared
+    public TimetableGridResultDTO saveGrid(Long classroomId, List<TimetableGridCellDTO> cells, boolean dryRun,
+                                           AuthenticatedUser caller) throws AccessDeniedException {
+        return saveGrids(List.of(new TimetableGridDTO(classroomId, cells)), dryRun, caller).get(0);
+    }
+
+    // ✅ Several classrooms at once (generator): checked together, written together or not at all
+    public List<TimetableGridResultDTO> saveGrids(List<TimetableGridDTO> grids, boolean dryRun, AuthenticatedUser caller)
+            throws AccessDeniedException {
+        if (caller == null || (caller.getSchoolId() == null && !caller.hasRole("ADMIN"))) {
+            throw new AccessDeniedException("Timetable changes require a school-scoped account.");
+        }
+
+        // 1. classrooms and caller scope
+        Set<Long> classIds = new LinkedHashSet<>();
+        for (TimetableGridDTO grid : grids) {
+            if (grid.getClassroomId() == null || !classIds.add(grid.getClassroomId())) {
+                throw new RuntimeException("Every grid needs a classroom, and each classroom may appear only once");
+            }
+        }
+        Map<Long, ClassroomRow> classrooms = new HashMap<>();
+        classroomRepository.findRowsByIds(classIds).forEach(c -> classrooms.put(c.getClassId(), c));
+        for (Long classId : classIds) {
+            ClassroomRow classroom = classrooms.get(classId);
+            if (classroom == null) {
+                throw new RuntimeException("Classroom not found: " + classId);
+            }
+            if (!caller.hasRole("ADMIN") && !Objects.equals(classroom.getSchoolId(), caller.getSchoolId())) {
+                throw new AccessDeniedException("You can only edit timetables of your school.");
+            }
+        }
+
+        // 2. everything the checks need, one query each
+        Set<Long> subjectIds = grids.stream()
+                .flatMap(g -> cells(g).stream())
+                .map(TimetableGridCellDTO::getSubjectId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> knownSubjects = subjectIds.isEmpty() ? Set.of()
+                : subjectRepository.findAllById(subjectIds).stream().map(Subject::getSubjectId).collect(Collectors.toSet());
+        Set<Assignment> assignments = classSubjectRepository.findAssignments(classIds).stream()
+                .map(a -> new Assignment(a.getClassroomId(), a.getSubjectId(), a.getTeacherId()))
+                .collect(Collectors.toSet());
+        Map<Long, Map<Integer, List<GridRow>>> stored = new HashMap<>();
+        for (GridRow row : timetableRepository.findGridRows(classIds)) {
+            if (!onGrid(row)) {
+                continue;   // legacy row outside the grid, left alone
+            }
+            stored.computeIfAbsent(row.getClassroomId(), k -> new HashMap<>())
+                    .computeIfAbsent(TimetableOccupancyIndex.slot(row.getDayOfWeek(), row.getPeriodNumber()),
+                            k -> new ArrayList<>(1))
+                    .add(row);
+        }
+
+        // 3. per-cell checks
+        List<Plan> plans = new ArrayList<>();
+        Map<Long, Map<Integer, Long>> teacherSlots = new HashMap<>();   // within this request: teacher -> slot -> classroom
+        List<Cell> suspected = new ArrayList<>();                       // cells the occupancy index reports a clash for
+        for (TimetableGridDTO grid : grids) {
+            Plan plan = new Plan(classrooms.get(grid.getClassroomId()));
+            plans.add(plan);
+            Set<Integer> seen = new HashSet<>();
+            for (TimetableGridCellDTO dto : cells(grid)) {
+                if (dto.getSubjectId() == null && dto.getTeacherId() == null) {
+                    continue;   // free period
+                }
+                Cell cell = new Cell(dto, plan.classroom.getClassId());
+                plan.cells.add(cell);
+                String problem = check(cell, seen, knownSubjects, assignments);
+                if (problem == null && dto.getTeacherId() != null) {
+                    Long otherClass = teacherSlots.computeIfAbsent(dto.getTeacherId(), k -> new HashMap<>())
+                            .putIfAbsent(cell.slot, plan.classroom.getClassId());
+                    if (otherClass != null) {
+                        problem = "Teacher is already alloted to class " + classrooms.get(otherClass).getName()
+                                + " at this time";
+                    } else {
+                        cell.clash = occupancyIndex.teacherConflictOutside(dto.getTeacherId(), cell.day, cell.period, classIds);
+                        if (cell.clash != null) {
+                            suspected.add(cell);
+                        }
+                    }
+                }
+                if (problem != null) {
+                    cell.conflict(problem);
+                }
+            }
+        }
+        if (!suspected.isEmpty()) {
+            confirmClashes(suspected);
+        }
+
+        // 4. difference to the stored rows
+        LocalDate today = LocalDate.now();
+        for (Plan plan : plans) {
+            diff(plan, stored.getOrDefault(plan.classroom.getClassId(), Map.of()));
+        }
+        keepHistory(plans, today);
+        int conflicts = 0;
+        for (Plan plan : plans) {
+            conflicts += plan.conflicts();
+        }
+
+        boolean apply = !dryRun && conflicts == 0;
+        if (apply) {
+            write(plans, classIds, today);
+        }
+
+        List<TimetableGridResultDTO> results = new ArrayList<>();
+        for (Plan plan : plans) {
+            results.add(plan.toResult(apply));
+        }
+        return results;
+    }
+
+    private static boolean onGrid(GridRow row) {
+        return row.getDayOfWeek() != null && TimetableOccupancyIndex.onGrid(row.getPeriodNumber());
+    }
+
+    private static List<TimetableGridCellDTO> cells(TimetableGridDTO grid) {
+        return grid.getCells() != null ? grid.getCells() : List.of();
+    }
+
+    // Everything that can be decided from the request and the loaded rows; null = fine
+    private static String check(Cell cell, Set<Integer> seen, Set<Long> knownSubjects, Set<Assignment> assignments) {
+        TimetableGridCellDTO dto = cell.dto;
+        try {
+            cell.day = DayOfWeek.valueOf(String.valueOf(dto.getDayOfWeek()).trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return "Unknown day: " + dto.getDayOfWeek();
+        }
+        if (dto.getPeriodNumber() == null || !TimetableOccupancyIndex.onGrid(dto.getPeriodNumber())) {
+            return "Invalid period number: " + dto.getPeriodNumber();
+        }
+        cell.period = dto.getPeriodNumber();
+        cell.slot = TimetableOccupancyIndex.slot(cell.day, cell.period);
+        if (!seen.add(cell.slot)) {
+            cell.slot = -1;   // the first cell for this slot owns it
+            return "Slot given more than once";
+        }
+        if (dto.getSubjectId() == null || !knownSubjects.contains(dto.getSubjectId())) {
+            return "Subject not found";
+        }
+        if (dto.getTeacherId() != null && !assignments.contains(
+                new Assignment(cell.classroomId, dto.getSubjectId(), dto.getTeacherId()))) {
+            return "Teacher is not assigned to this class and subject";
+        }
+        return null;
+    }
+
+    // The index may trail rows deleted by another instance: one query for the reported rows, stale ones are dropped
+    private void confirmClashes(List<Cell> suspected) {
+        Set<Long> ids = suspected.stream().map(c -> c.clash.timetableId()).collect(Collectors.toSet());
+        Set<Long> existing = new HashSet<>(timetableRepository.findExistingIds(ids));
+        Set<Long> otherClassIds = suspected.stream()
+                .filter(c -> existing.contains(c.clash.timetableId()))
+                .map(c -> c.clash.classroomId())
+                .collect(Collectors.toSet());
+        Map<Long, String> names = new HashMap<>();
+        if (!otherClassIds.isEmpty()) {
+            classroomRepository.findRowsByIds(otherClassIds).forEach(c -> names.put(c.getClassId(), c.getName()));
+        }
+        for (Cell cell : suspected) {
+            Long clashId = cell.clash.timetableId();
+            if (existing.contains(clashId)) {
+                cell.conflict("Teacher is already alloted to class " + names.get(cell.clash.classroomId())
+                        + " at this time");
+            } else {
+                occupancyIndex.remove(clashId);
+            }
+        }
+    }
+
+    private static void diff(Plan plan, Map<Integer, List<GridRow>> storedSlots) {
+        Map<Integer, List<GridRow>> remaining = new HashMap<>(storedSlots);
+        for (Cell cell : plan.cells) {
+            if (cell.slot < 0) {
+                continue;
+            }
+            List<GridRow> rows = remaining.remove(cell.slot);
+            if (cell.result != null) {
+                continue;   // conflict; nothing will be written anyway
+            }
+            if (rows == null) {
+                cell.status("INSERTED", null);
+                plan.inserts.add(cell);
+                continue;
+            }
+            GridRow keep = rows.get(0);
+            for (GridRow extra : rows.subList(1, rows.size())) {
+                plan.deletes.add(extra);   // legacy duplicates of the slot
+            }
+            if (Objects.equals(keep.getSubjectId(), cell.dto.getSubjectId())
+                    && Objects.equals(keep.getTeacherId(), cell.dto.getTeacherId())) {
+                cell.status("UNCHANGED", keep.getTimetableId());
+                continue;
+            }
+            cell.status("UPDATED", keep.getTimetableId());
+            plan.updates.add(cell);
+            if (keep.getTeacherId() != null && !keep.getTeacherId().equals(cell.dto.getTeacherId())) {
+                plan.clearTeacher.add(keep.getTimetableId());
+            }
+        }
+        remaining.values().forEach(plan.deletes::addAll);
+    }
+
+    // Rows to delete that still have substitutions on past days stay, and block the save as conflicts
+    private void keepHistory(List<Plan> plans, LocalDate today) {
+        List<Long> ids = plans.stream().flatMap(p -> p.deletes.stream()).map(GridRow::getTimetableId).toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> withHistory = new HashSet<>(substitutionRepository.findTimetableIdsWithSubstitutionsBefore(ids, today));
+        if (withHistory.isEmpty()) {
+            return;
+        }
+        for (Plan plan : plans) {
+            for (Iterator<GridRow> it = plan.deletes.iterator(); it.hasNext(); ) {
+                GridRow row = it.next();
+                if (withHistory.contains(row.getTimetableId())) {
+                    it.remove();
+                    plan.blocked.add(row);
+                }
+            }
+        }
+    }
+
+    private void write(List<Plan> plans, Set<Long> classIds, LocalDate today) {
+        List<Long> deletes = new ArrayList<>();
+        List<Long> clears = new ArrayList<>();
+        List<Cell> updates = new ArrayList<>();
+        List<Cell> inserts = new ArrayList<>();
+        for (Plan plan : plans) {
+            plan.deletes.forEach(r -> deletes.add(r.getTimetableId()));
+            clears.addAll(plan.clearTeacher);
+            updates.addAll(plan.updates);
+            inserts.addAll(plan.inserts);
+        }
+        if (deletes.isEmpty() && updates.isEmpty() && inserts.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!deletes.isEmpty()) {
+                    jdbcTemplate.batchUpdate(DELETE_SUBSTITUTIONS_SQL, deletes, deletes.size(), (ps, id) -> {
+                        ps.setLong(1, id);
+                        ps.setDate(2, Date.valueOf(today));
+                    });
+                }
+                // every statement below targets one row read in step 2; 0 rows = someone else got there first
+                checkApplied(batchById(DELETE_SQL, deletes));
+                checkApplied(batchById(CLEAR_TEACHER_SQL, clears));
+                if (!updates.isEmpty()) {
+                    checkApplied(jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (ps, cell) -> {
+                        ps.setLong(1, cell.dto.getSubjectId());
+                        setTeacher(ps, 2, cell.dto.getTeacherId());
+                        ps.setLong(3, cell.result.getTimetableId());
+                    }));
+                }
+                if (!inserts.isEmpty()) {
+                    checkApplied(jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (ps, cell) -> {
+                        ps.setLong(1, cell.classroomId);
+                        ps.setLong(2, cell.dto.getSubjectId());
+                        setTeacher(ps, 3, cell.dto.getTeacherId());
+                        ps.setString(4, cell.day.name());
+                        ps.setInt(5, cell.period);
+                    }));
+                }
+
+                // generated ids (one query), and the occupancy index once this commits
+                Map<Long, Map<Integer, Long>> ids = new HashMap<>();
+                for (GridRow row : timetableRepository.findGridRows(classIds)) {
+                    if (!onGrid(row)) {
+                        continue;
+                    }
+                    ids.computeIfAbsent(row.getClassroomId(), k -> new HashMap<>())
+                            .put(TimetableOccupancyIndex.slot(row.getDayOfWeek(), row.getPeriodNumber()), row.getTimetableId());
+                    occupancyIndex.put(new TimetableOccupancyIndex.Entry(row.getTimetableId(),
+                            schoolOf(plans, row.getClassroomId()), row.getClassroomId(), row.getTeacherId(),
+                            row.getDayOfWeek(), row.getPeriodNumber()));
+                }
+                deletes.forEach(occupancyIndex::remove);
+                classTimetableCache.invalidateAll(classIds);
+                for (Cell cell : inserts) {
+                    cell.result.setTimetableId(ids.getOrDefault(cell.classroomId, Map.of()).get(cell.slot));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("A teacher in this timetable was just booked elsewhere, please reload and try again");
+        }
+    }
+
+    private int[][] batchById(String sql, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new int[0][];
+        }
+        return jdbcTemplate.batchUpdate(sql, ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    // Throwing inside the transaction callback rolls back everything written so far
+    // (SUCCESS_NO_INFO from a rewritten MySQL batch is taken as applied)
+    private static void checkApplied(int[][] counts) {
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) {
+                    throw new RuntimeException("This timetable was changed by someone else meanwhile, please reload and try again");
+                }
+            }
+        }
+    }
+
+    private static void setTeacher(PreparedStatement ps, int index, Long teacherId) throws SQLException {
+        if (teacherId != null) {
+            ps.setLong(index, teacherId);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private static Long schoolOf(List<Plan> plans, Long classId) {
+        for (Plan plan : plans) {
+            if (plan.classroom.getClassId().equals(classId)) {
+                return plan.classroom.getSchoolId();
+            }
+        }
+        return null;
+    }
+
+    // ---------------- WORKING STATE ----------------
+
+    private record Assignment(Long classroomId, Long subjectId, Long teacherId) {
+    }
+
+    private static final class Cell {
+        final TimetableGridCellDTO dto;
+        final Long classroomId;
+        DayOfWeek day;
+        int period;
+        int slot = -1;
+        TimetableOccupancyIndex.Entry clash;
+        TimetableGridCellResultDTO result;
+
+        Cell(TimetableGridCellDTO dto, Long classroomId) {
+            this.dto = dto;
+            this.classroomId = classroomId;
+        }
+
+        void conflict(String message) {
+            result = new TimetableGridCellResultDTO(day != null ? day.name() : dto.getDayOfWeek(), dto.getPeriodNumber(),
+                    "CONFLICT", null, dto.getSubjectId(), dto.getTeacherId(), message);
+        }
+
+        void status(String status, Long timetableId) {
+            result = new TimetableGridCellResultDTO(day.name(), period, status, timetableId,
+                    dto.getSubjectId(), dto.getTeacherId(), null);
+        }
+    }
+
+    private static final class Plan {
+        final ClassroomRow classroom;
+        final List<Cell> cells = new ArrayList<>();
+        final List<Cell> inserts = new ArrayList<>();
+        final List<Cell> updates = new ArrayList<>();
+        final List<GridRow> deletes = new ArrayList<>();
+        final List<Long> clearTeacher = new ArrayList<>();
+        final List<GridRow> blocked = new ArrayList<>();   // would be deleted, but has substitution history
+
+        Plan(ClassroomRow classroom) {
+            this.classroom = classroom;
+        }
+
+        int conflicts() {
+            return (int) cells.stream().filter(c -> "CONFLICT".equals(c.result.getStatus())).count() + blocked.size();
+        }
+
+        TimetableGridResultDTO toResult(boolean applied) {
+            TimetableGridResultDTO dto = new TimetableGridResultDTO();
+            dto.setClassroomId(classroom.getClassId());
+            dto.setApplied(applied);
+            List<TimetableGridCellResultDTO> out = new ArrayList<>();
+            for (Cell cell : cells) {
+                out.add(cell.result);
+                switch (cell.result.getStatus()) {
+                    case "INSERTED" -> dto.setInserted(dto.getInserted() + 1);
+                    case "UPDATED" -> dto.setUpdated(dto.getUpdated() + 1);
+                    case "UNCHANGED" -> dto.setUnchanged(dto.getUnchanged() + 1);
+                    default -> dto.setConflicts(dto.getConflicts() + 1);
+                }
+            }
+            for (GridRow row : deletes) {
+                out.add(new TimetableGridCellResultDTO(row.getDayOfWeek().name(), row.getPeriodNumber(), "DELETED",
+                        row.getTimetableId(), row.getSubjectId(), row.getTeacherId(), null));
+            }
+            for (GridRow row : blocked) {
+                out.add(new TimetableGridCellResultDTO(row.getDayOfWeek().name(), row.getPeriodNumber(), "CONFLICT",
+                        row.getTimetableId(), row.getSubjectId(), row.getTeacherId(),
+                        "Lesson has substitutions on past days and cannot be removed until they are cleaned up"));
+            }
+            dto.setConflicts(dto.getConflicts() + blocked.size());
+            dto.setDeleted(deletes.size());
+            dto.setCells(out);
+            return dto;
+        }
+    }
+}
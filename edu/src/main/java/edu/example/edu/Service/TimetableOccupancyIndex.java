@@ -0,0 +1,314 @@
+package edu.example.edu.Service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.example.edu.Entity.Timetable;
+import edu.example.edu.Entity.Timetable.DayOfWeek;
+import edu.example.edu.Repository.TimetableRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Which teachers and classrooms are busy in which (day, period) slot, held in memory.
+ *
+ * One BitSet per teacher and per classroom, bit = period * 6 + day, grouped by school so
+ * "who is free" questions only look at one school. Conflict checks in TimetableService are a
+ * bit test instead of exists + findFirst queries; the unique constraints on timetables stay
+ * the final guard for writes racing in from other instances.
+ * Rebuilt from timetables at startup and every timetable.occupancy.refresh-interval-ms;
+ * put / remove are applied when the writing transaction commits.
+ */
+@Service
+public class TimetableOccupancyIndex {
+
+    public static final int DAYS = DayOfWeek.values().length;
+
+    private static final int LOAD_PAGE = 5000;
+
+    // One timetable row as the index sees it (teacherId null = no teacher yet)
+    public record Entry(Long timetableId, Long schoolId, Long classroomId, Long teacherId, DayOfWeek day, int period) {
+
+        int slot() {
+            return TimetableOccupancyIndex.slot(day, period);
+        }
+    }
+
+    // Busy slots of one teacher / classroom, and the rows behind each (more than one only in legacy data)
+    private static final class Occupancy {
+        final BitSet busy = new BitSet();
+        final Map<Integer, List<Long>> rows = new HashMap<>();
+    }
+
+    private static final class State {
+        final Map<Long, Entry> entries = new HashMap<>();
+        final Map<Long, Occupancy> teachers = new HashMap<>();
+        final Map<Long, Occupancy> classrooms = new HashMap<>();
+        final Map<Long, Set<Long>> schoolTeachers = new HashMap<>();
+        final Map<Long, Set<Long>> schoolClassrooms = new HashMap<>();
+    }
+
+    private final TimetableRepository timetableRepository;
+
+    private State state = new State();
+    // changes committed while a rebuild is reading the table, replayed on top of its result
+    private List<Runnable> journal;
+
+    public TimetableOccupancyIndex(TimetableRepository timetableRepository, MeterRegistry registry) {
+        this.timetableRepository = timetableRepository;
+        registry.gauge("timetable.occupancy.entries", Tags.empty(), this, TimetableOccupancyIndex::size);
+    }
+
+    public static int slot(DayOfWeek day, int period) {
+        if (!onGrid(period)) {
+            throw new RuntimeException("Invalid period number: " + period);
+        }
+        return period * DAYS + day.ordinal();
+    }
+
+    // Period numbers a lesson may have; keeps slot() small, so the BitSets stay a few words long
+    public static boolean onGrid(int period) {
+        return period >= 0 && period <= TimetableGeneratorService.MAX_PERIODS_PER_DAY;
+    }
+
+    // ---------------- LOAD ----------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            if (journal != null) {
+                return;   // a rebuild is already running
+            }
+            journal = new ArrayList<>();
+        }
+        State fresh = new State();
+        boolean loaded = false;
+        try {
+            long after = 0;
+            List<TimetableRepository.OccupancyRow> rows;
+            do {
+                rows = timetableRepository.findOccupancyPage(after, Limit.of(LOAD_PAGE));
+                for (TimetableRepository.OccupancyRow r : rows) {
+                    add(fresh, new Entry(r.getTimetableId(), r.getSchoolId(), r.getClassroomId(), r.getTeacherId(),
+                            r.getDayOfWeek(), r.getPeriodNumber()));
+                    after = r.getTimetableId();
+                }
+            } while (rows.size() == LOAD_PAGE);
+            loaded = true;
+        } finally {
+            synchronized (this) {
+                List<Runnable> committedMeanwhile = journal;
+                journal = null;
+                if (loaded) {
+                    // the journal's changes already went into the old state; replay them on the new one
+                    state = fresh;
+                    committedMeanwhile.forEach(Runnable::run);
+                }
+            }
+        }
+    }
+
+    // Picks up rows written by other instances (their own index is current, this one may trail)
+    @Scheduled(initialDelayString = "${timetable.occupancy.refresh-interval-ms:600000}",
+            fixedDelayString = "${timetable.occupancy.refresh-interval-ms:600000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    // ---------------- UPDATES ----------------
+
+    // ✅ Record a saved row once the current transaction commits (right away outside one)
+    public void put(Timetable t) {
+        put(new Entry(t.getTimetableId(),
+                t.getClassroom().getSchool() != null ? t.getClassroom().getSchool().getSchoolId() : null,
+                t.getClassroom().getClassId(),
+                t.getTeacher() != null ? t.getTeacher().getUserId() : null,
+                t.getDayOfWeek(), t.getPeriodNumber()));
+    }
+
+    public void put(Entry entry) {
+        afterCommit(() -> apply(() -> {
+            remove(state, entry.timetableId());
+            add(state, entry);
+        }));
+    }
+
+    // ✅ Forget a deleted row once the current transaction commits
+    public void remove(Long timetableId) {
+        afterCommit(() -> apply(() -> remove(state, timetableId)));
+    }
+
+    private synchronized void apply(Runnable change) {
+        change.run();
+        if (journal != null) {
+            journal.add(change);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static void add(State s, Entry e) {
+        if (!onGrid(e.period()) || e.day() == null) {
+            return;   // legacy row outside the grid, cannot collide with a valid one
+        }
+        s.entries.put(e.timetableId(), e);
+        mark(s.classrooms, e.classroomId(), e);
+        s.schoolClassrooms.computeIfAbsent(e.schoolId(), k -> new HashSet<>()).add(e.classroomId());
+        if (e.teacherId() != null) {
+            mark(s.teachers, e.teacherId(), e);
+            s.schoolTeachers.computeIfAbsent(e.schoolId(), k -> new HashSet<>()).add(e.teacherId());
+        }
+    }
+
+    private static void remove(State s, Long timetableId) {
+        Entry old = s.entries.remove(timetableId);
+        if (old == null) {
+            return;
+        }
+        unmark(s.classrooms, old.classroomId(), old);
+        if (old.teacherId() != null) {
+            unmark(s.teachers, old.teacherId(), old);
+        }
+    }
+
+    private static void mark(Map<Long, Occupancy> owners, Long ownerId, Entry e) {
+        Occupancy o = owners.computeIfAbsent(ownerId, k -> new Occupancy());
+        o.busy.set(e.slot());
+        o.rows.computeIfAbsent(e.slot(), k -> new ArrayList<>(1)).add(e.timetableId());
+    }
+
+    private static void unmark(Map<Long, Occupancy> owners, Long ownerId, Entry e) {
+        Occupancy o = owners.get(ownerId);
+        if (o == null) {
+            return;
+        }
+        List<Long> rows = o.rows.get(e.slot());
+        if (rows != null) {
+            rows.remove(e.timetableId());
+            if (rows.isEmpty()) {
+                o.rows.remove(e.slot());
+                o.busy.clear(e.slot());
+            }
+        }
+    }
+
+    // ---------------- QUERIES ----------------
+
+    // Row holding the teacher at that slot, ignoring ignoreTimetableId (the row being edited); null = free
+    public synchronized Long teacherConflict(Long teacherId, DayOfWeek day, int period, Long ignoreTimetableId) {
+        return conflict(state.teachers.get(teacherId), slot(day, period), ignoreTimetableId);
+    }
+
+    // Row holding the classroom at that slot, ignoring ignoreTimetableId; null = free
+    public synchronized Long classroomConflict(Long classroomId, DayOfWeek day, int period, Long ignoreTimetableId) {
+        return conflict(state.classrooms.get(classroomId), slot(day, period), ignoreTimetableId);
+    }
+
+    // Row of another classroom holding the teacher at that slot; null = free.
+    // Bulk grid saves rewrite every row of classroomIds, so those never count as a clash.
+    public synchronized Entry teacherConflictOutside(Long teacherId, DayOfWeek day, int period, Set<Long> classroomIds) {
+        Occupancy o = state.teachers.get(teacherId);
+        int slot = slot(day, period);
+        if (o == null || !o.busy.get(slot)) {
+            return null;
+        }
+        for (Long id : o.rows.get(slot)) {
+            Entry e = state.entries.get(id);
+            if (e != null && !classroomIds.contains(e.classroomId())) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    // Copy of a teacher's busy slots in classrooms other than classroomIds (timetable generator)
+    public synchronized BitSet teacherSlotsOutside(Long teacherId, Set<Long> classroomIds) {
+        BitSet busy = new BitSet();
+        Occupancy o = state.teachers.get(teacherId);
+        if (o != null) {
+            o.rows.forEach((slot, ids) -> {
+                for (Long id : ids) {
+                    Entry e = state.entries.get(id);
+                    if (e != null && !classroomIds.contains(e.classroomId())) {
+                        busy.set(slot);
+                    }
+                }
+            });
+        }
+        return busy;
+    }
+
+    private static Long conflict(Occupancy o, int slot, Long ignoreTimetableId) {
+        if (o == null || !o.busy.get(slot)) {
+            return null;
+        }
+        for (Long id : o.rows.get(slot)) {
+            if (!id.equals(ignoreTimetableId)) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    public synchronized boolean isTeacherBusy(Long teacherId, DayOfWeek day, int period) {
+        Occupancy o = state.teachers.get(teacherId);
+        return o != null && o.busy.get(slot(day, period));
+    }
+
+    // Copy of a teacher's busy slots (bit = slot(day, period))
+    public synchronized BitSet teacherSlots(Long teacherId) {
+        Occupancy o = state.teachers.get(teacherId);
+        return o == null ? new BitSet() : (BitSet) o.busy.clone();
+    }
+
+    // Copy of a classroom's busy slots
+    public synchronized BitSet classroomSlots(Long classroomId) {
+        Occupancy o = state.classrooms.get(classroomId);
+        return o == null ? new BitSet() : (BitSet) o.busy.clone();
+    }
+
+    // Teachers of the school that have lessons somewhere in the week but not at this slot
+    public synchronized Set<Long> freeTeachers(Long schoolId, DayOfWeek day, int period) {
+        int slot = slot(day, period);
+        Set<Long> free = new HashSet<>();
+        for (Long teacherId : state.schoolTeachers.getOrDefault(schoolId, Set.of())) {
+            Occupancy o = state.teachers.get(teacherId);
+            if (o == null || !o.busy.get(slot)) {
+                free.add(teacherId);
+            }
+        }
+        return free;
+    }
+
+    public synchronized Entry entry(Long timetableId) {
+        return state.entries.get(timetableId);
+    }
+
+    private synchronized int size() {
+        return state.entries.size();
+    }
+}
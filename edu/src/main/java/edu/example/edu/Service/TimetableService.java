@@ -1,11 +1,16 @@
 
 package edu.example.edu.Service;
 
+import java.nio.file.AccessDeniedException;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import edu.example.edu.Config.AuthenticatedUser;
+import edu.example.edu.DTO.TeacherTimetableEntryDTO;
 import edu.example.edu.DTO.TimetableDTO;
 import edu.example.edu.Entity.Classroom;
 import edu.example.edu.Entity.Subject;
@@ -25,19 +30,25 @@ public class TimetableService {
     private final SubjectRepository subjectRepository;
     private final UserRepository userRepository;
     private final ClassSubjectRepository classSubjectRepository;
+    private final TimetableOccupancyIndex occupancyIndex;
+    private final ClassTimetableCache classTimetableCache;
 
     public TimetableService(
             TimetableRepository timetableRepository,
             ClassroomRepository classroomRepository,
             SubjectRepository subjectRepository,
             UserRepository userRepository,
-            ClassSubjectRepository classSubjectRepository) {
+            ClassSubjectRepository classSubjectRepository,
+            TimetableOccupancyIndex occupancyIndex,
+            ClassTimetableCache classTimetableCache) {
 
         this.timetableRepository = timetableRepository;
         this.classroomRepository = classroomRepository;
         this.subjectRepository = subjectRepository;
         this.userRepository = userRepository;
         this.classSubjectRepository = classSubjectRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.classTimetableCache = classTimetableCache;
     }
 
     // Convert Entity to DTO
@@ -60,6 +71,9 @@ public class TimetableService {
         Subject subject = subjectRepository.findById(dto.getSubjectId())
                 .orElseThrow(() -> new RuntimeException("Subject not found"));
 
+        Timetable.DayOfWeek dayEnum = Timetable.DayOfWeek.valueOf(dto.getDayOfWeek());
+        checkPeriod(dto.getPeriodNumber());
+
         User teacher = null;
         if (dto.getTeacherId() != null) {
             teacher = userRepository.findById(dto.getTeacherId())
@@ -74,35 +88,27 @@ public class TimetableService {
             }
 
             // 2️⃣ prevent teacher collision: same teacher, same day, same period
-            Timetable.DayOfWeek dayEnum = Timetable.DayOfWeek.valueOf(dto.getDayOfWeek());
-            boolean exists = timetableRepository.existsByTeacherAndDayOfWeekAndPeriodNumber(
-                    teacher,
-                    dayEnum,
-                    dto.getPeriodNumber());
-
-            if (exists) {
-                Timetable conflict = timetableRepository.findFirstByTeacherAndDayOfWeekAndPeriodNumber(
-                        teacher, dayEnum, dto.getPeriodNumber()).orElse(null);
-
-                String className = (conflict != null) ? conflict.getClassroom().getName() : "another class";
-                throw new RuntimeException("Teacher is already alloted to class " + className + " at this time");
-            }
+            checkTeacherFree(teacher, dayEnum, dto.getPeriodNumber(), null);
         }
 
+        // 3️⃣ one lesson per class per slot
+        checkClassroomFree(classroom, dayEnum, dto.getPeriodNumber(), null);
+
         Timetable t = new Timetable();
         t.setClassroom(classroom);
         t.setSubject(subject);
         t.setTeacher(teacher);
-        t.setDayOfWeek(Timetable.DayOfWeek.valueOf(dto.getDayOfWeek()));
+        t.setDayOfWeek(dayEnum);
         t.setPeriodNumber(dto.getPeriodNumber());
 
-        return convertToDTO(timetableRepository.save(t));
+        return convertToDTO(save(t));
     }
 
     // ---------------- UPDATE ----------------
     public TimetableDTO updateTimetable(Long id, TimetableDTO dto) {
         Timetable t = timetableRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Timetable not found"));
+        Long previousClassId = t.getClassroom().getClassId();
 
         // classroom
         if (dto.getClassroomId() != null) {
@@ -127,6 +133,7 @@ public class TimetableService {
 
         Integer newPeriod = t.getPeriodNumber();
         if (dto.getPeriodNumber() != null) {
+            checkPeriod(dto.getPeriodNumber());
             newPeriod = dto.getPeriodNumber();
             t.setPeriodNumber(newPeriod);
         }
@@ -144,26 +151,71 @@ public class TimetableService {
                 throw new RuntimeException("Teacher is not assigned to this class and subject");
             }
 
-            // 2️⃣ collision check – ignore current timetable row (id)
-            boolean exists = timetableRepository
-                    .existsByTeacherAndDayOfWeekAndPeriodNumberAndTimetableIdNot(
-                            teacher,
-                            newDay,
-                            newPeriod,
-                            t.getTimetableId());
+            t.setTeacher(teacher);
+        }
 
-            if (exists) {
-                Timetable conflict = timetableRepository.findFirstByTeacherAndDayOfWeekAndPeriodNumberAndTimetableIdNot(
-                        teacher, newDay, newPeriod, t.getTimetableId()).orElse(null);
+        // 2️⃣ collision checks on the effective teacher / class / slot – ignore current timetable row (id)
+        if (t.getTeacher() != null) {
+            checkTeacherFree(t.getTeacher(), newDay, newPeriod, t.getTimetableId());
+        }
+        checkClassroomFree(t.getClassroom(), newDay, newPeriod, t.getTimetableId());
 
-                String className = (conflict != null) ? conflict.getClassroom().getName() : "another class";
-                throw new RuntimeException("Teacher is already alloted to class " + className + " at this time");
-            }
+        Timetable saved = save(t);
+        if (!previousClassId.equals(saved.getClassroom().getClassId())) {
+            classTimetableCache.invalidate(previousClassId);   // the lesson left that class's week
+        }
+        return convertToDTO(saved);
+    }
 
-            t.setTeacher(teacher);
+    // 0..MAX_PERIODS_PER_DAY, the slots TimetableOccupancyIndex (and the generator) know about
+    private static void checkPeriod(Integer period) {
+        if (period == null || !TimetableOccupancyIndex.onGrid(period)) {
+            throw new RuntimeException("Invalid period number: " + period + " (0.."
+                    + TimetableGeneratorService.MAX_PERIODS_PER_DAY + ")");
+        }
+    }
+
+    // Answered by TimetableOccupancyIndex; the DB is only asked when the index reports a clash
+    // (for the class name, and in case the clash was removed by another instance since the last refresh)
+    private void checkTeacherFree(User teacher, Timetable.DayOfWeek day, int period, Long ignoreId) {
+        Long conflictId = occupancyIndex.teacherConflict(teacher.getUserId(), day, period, ignoreId);
+        if (conflictId == null) {
+            return;
+        }
+        Timetable conflict = timetableRepository.findFirstByTeacherAndDayOfWeekAndPeriodNumberAndTimetableIdNot(
+                teacher, day, period, ignoreId != null ? ignoreId : -1L).orElse(null);
+        if (conflict != null) {
+            throw new RuntimeException("Teacher is already alloted to class " + conflict.getClassroom().getName()
+                    + " at this time");
+        }
+        occupancyIndex.remove(conflictId);
+    }
+
+    private void checkClassroomFree(Classroom classroom, Timetable.DayOfWeek day, int period, Long ignoreId) {
+        Long conflictId = occupancyIndex.classroomConflict(classroom.getClassId(), day, period, ignoreId);
+        if (conflictId == null) {
+            return;
         }
+        Timetable conflict = timetableRepository.findFirstByClassroomAndDayOfWeekAndPeriodNumberAndTimetableIdNot(
+                classroom, day, period, ignoreId != null ? ignoreId : -1L).orElse(null);
+        if (conflict != null) {
+            throw new RuntimeException("Class " + classroom.getName() + " already has "
+                    + conflict.getSubject().getName() + " at this time");
+        }
+        occupancyIndex.remove(conflictId);
+    }
 
-        return convertToDTO(timetableRepository.save(t));
+    // unique constraints catch a clash the index could not see yet (written by another instance)
+    private Timetable save(Timetable t) {
+        Timetable saved;
+        try {
+            saved = timetableRepository.saveAndFlush(t);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("This teacher or class was just booked at this time, please reload the timetable");
+        }
+        occupancyIndex.put(saved);
+        classTimetableCache.invalidate(saved.getClassroom().getClassId());
+        return saved;
     }
 
     // ---------------- GET ALL ----------------
@@ -183,7 +235,11 @@ public class TimetableService {
 
     // ---------------- DELETE ----------------
     public void deleteTimetable(Long id) {
-        timetableRepository.deleteById(id);
+        timetableRepository.findById(id).ifPresent(t -> {
+            timetableRepository.delete(t);
+            classTimetableCache.invalidate(t.getClassroom().getClassId());
+        });
+        occupancyIndex.remove(id);
     }
 
     // Get teachers for class and subject
@@ -200,11 +256,40 @@ public class TimetableService {
                 .collect(Collectors.toList());
     }
 
-    // FINAL DTO method for Student & Teacher
-    public List<TimetableDTO> getTimetableDTOsByClass(Long classId) {
-        return timetableRepository.findByClassroom_ClassId(classId)
-                .stream()
-                .map(this::convertToDTO)
+    // FINAL DTO method for Student & Teacher (cached, with today's substitutes)
+    public ClassTimetableCache.View getClassWeek(Long classId) {
+        return classTimetableCache.get(classId);
+    }
+
+    // ---------------- TEACHER VIEW ----------------
+
+    // ✅ A teacher's week (or one day) with class and subject names, one query.
+    // Teachers see their own; school admins / principals teachers of their school; ADMIN anyone.
+    public List<TeacherTimetableEntryDTO> getTeacherTimetable(Long teacherId, String day, AuthenticatedUser caller)
+            throws AccessDeniedException {
+        if (caller == null) {
+            throw new AccessDeniedException("Login required.");
+        }
+        if (caller.hasRole("TEACHER")) {
+            if (!teacherId.equals(caller.getUserId())) {
+                throw new AccessDeniedException("You can only view your own timetable.");
+            }
+        } else if (!caller.hasRole("ADMIN")
+                && (caller.getSchoolId() == null
+                        || userRepository.findIdsInSchool(List.of(teacherId), caller.getSchoolId()).isEmpty())) {
+            throw new AccessDeniedException("You can only view teachers of your school.");
+        }
+
+        List<TimetableRepository.TeacherSlotRow> rows = day == null
+                ? timetableRepository.findTeacherWeek(teacherId)
+                : timetableRepository.findTeacherDay(teacherId, Timetable.DayOfWeek.valueOf(day.trim().toUpperCase()));
+
+        // days are stored as names, so the week is put in order here rather than by the database
+        return rows.stream()
+                .sorted(Comparator.comparing(TimetableRepository.TeacherSlotRow::getDayOfWeek)
+                        .thenComparingInt(TimetableRepository.TeacherSlotRow::getPeriodNumber))
+                .map(r -> new TeacherTimetableEntryDTO(r.getTimetableId(), r.getDayOfWeek().name(), r.getPeriodNumber(),
+                        r.getClassroomId(), r.getClassroomName(), r.getSection(), r.getSubjectId(), r.getSubjectName()))
                 .collect(Collectors.toList());
     }
 }
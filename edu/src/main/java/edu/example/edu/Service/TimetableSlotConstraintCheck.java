@@ -0,0 +1,113 @@
+package edu.example.edu.Service;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import edu.example.edu.Repository.TimetableRepository;
+
+/**
+ * Startup check for the slot unique constraints on timetables (see the Timetable entity).
+ *
+ * They are only created by ddl-auto=update, and only on a table that has no duplicate slots yet;
+ * when the ALTER fails Hibernate logs it and carries on, leaving the occupancy index without its
+ * final guard against writes from other instances. This looks for the constraints' unique indexes
+ * and for the slots that would block them, and logs both at ERROR with the statements to run.
+ * Duplicates are not removed here: which of two lessons in one slot is the real one is for the
+ * school to decide.
+ */
+@Service
+public class TimetableSlotConstraintCheck {
+
+    private static final Logger log = LoggerFactory.getLogger(TimetableSlotConstraintCheck.class);
+
+    // clashes listed per constraint; enough to find the classes, not a dump of the table
+    private static final int MAX_REPORTED = 20;
+
+    private static final List<String> TEACHER_SLOT = List.of("teacher_id", "day_of_week", "period_number");
+    private static final List<String> CLASSROOM_SLOT = List.of("classroom_id", "day_of_week", "period_number");
+
+    private final TimetableRepository timetableRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public TimetableSlotConstraintCheck(TimetableRepository timetableRepository, JdbcTemplate jdbcTemplate) {
+        this.timetableRepository = timetableRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void check() {
+        Set<Set<String>> unique;
+        try {
+            unique = jdbcTemplate.execute((ConnectionCallback<Set<Set<String>>>) con ->
+                    uniqueIndexes(con.getMetaData(), con.getCatalog()));
+        } catch (RuntimeException e) {
+            log.warn("Could not read the indexes of timetables: {}", e.getMessage());
+            return;
+        }
+        check("uk_timetables_teacher_slot", TEACHER_SLOT, unique, "teacher",
+                timetableRepository.findTeacherSlotClashes(Limit.of(MAX_REPORTED)));
+        check("uk_timetables_classroom_slot", CLASSROOM_SLOT, unique, "classroom",
+                timetableRepository.findClassroomSlotClashes(Limit.of(MAX_REPORTED)));
+    }
+
+    private void check(String name, List<String> columns, Set<Set<String>> unique, String owner,
+                       List<TimetableRepository.SlotClashRow> clashes) {
+        boolean present = unique.contains(upper(columns));
+        if (present && clashes.isEmpty()) {
+            return;
+        }
+        if (!clashes.isEmpty()) {
+            String listed = clashes.stream()
+                    .map(c -> owner + " " + c.getOwnerId() + " " + c.getDayOfWeek() + " period " + c.getPeriodNumber()
+                            + " (" + c.getLessons() + " lessons)")
+                    .collect(Collectors.joining(", "));
+            log.error("timetables has {}{} slots with more than one lesson per {}: {}. Delete all but one lesson"
+                            + " in each (timetable screens or DELETE FROM timetables WHERE timetable_id = ...)",
+                    clashes.size() == MAX_REPORTED ? "at least " : "", clashes.size(), owner, listed);
+        }
+        if (!present) {
+            log.error("Unique constraint {} is missing on timetables, so double bookings written by other instances"
+                            + " are not rejected. Once no slot clashes: ALTER TABLE timetables ADD CONSTRAINT {} UNIQUE ({})",
+                    name, name, String.join(", ", columns));
+        }
+    }
+
+    // column sets of the unique indexes of timetables (names upper-cased; H2 reports them that way)
+    private static Set<Set<String>> uniqueIndexes(DatabaseMetaData meta, String catalog) throws SQLException {
+        Map<String, Set<String>> byIndex = new HashMap<>();
+        for (String table : new String[] { "timetables", "TIMETABLES" }) {
+            try (ResultSet rs = meta.getIndexInfo(catalog, null, table, true, false)) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    if (index != null && column != null && !rs.getBoolean("NON_UNIQUE")) {
+                        byIndex.computeIfAbsent(table + "." + index, k -> new HashSet<>())
+                                .add(column.toUpperCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+        return new HashSet<>(byIndex.values());
+    }
+
+    private static Set<String> upper(List<String> columns) {
+        return columns.stream().map(c -> c.toUpperCase(Locale.ROOT)).collect(Collectors.toSet());
+    }
+}
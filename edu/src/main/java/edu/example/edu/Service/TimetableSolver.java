@@ -0,0 +1,382 @@
+package edu.example.edu.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Places lessons into (day, period) slots so that no classroom and no teacher is in two places at once.
+ *
+ * Tabu search over single-lesson moves and same-class swaps, started from a greedy placement.
+ * Independent restarts (different seeds) run in parallel on a ForkJoinPool; the first one that ends
+ * clash-free stops the others, otherwise the best one wins when the time limit is up.
+ * Besides the hard constraints a soft penalty keeps a subject from piling up on one day of a class:
+ * each (class, subject) "track" may have trackCap lessons per day before it counts.
+ *
+ * Slots are numbered day + period * days, everything else by dense indexes (see TimetableGeneratorService).
+ */
+final class TimetableSolver {
+
+    private static final int HARD = 1000;       // one clash outweighs any amount of uneven spreading
+    private static final int NOISE_PERCENT = 3;
+    private static final int TABU_MIN = 7;
+    private static final int TABU_SPREAD = 10;
+    private static final int POLISH_ROUNDS = 30;  // x lessons, spent on the soft penalty once clash-free
+
+    /**
+     * @param lessonClass         classroom index of each lesson
+     * @param lessonTeacher       teacher index of each lesson, -1 = no teacher
+     * @param lessonTrack         (class, subject) index of each lesson
+     * @param trackCap            lessons of a track per day before the soft penalty applies
+     * @param blockedTeacherSlots bit teacher * slots + slot: the teacher is busy elsewhere then
+     */
+    record Problem(int days, int periodsPerDay, int classrooms, int teachers,
+                   int[] lessonClass, int[] lessonTeacher, int[] lessonTrack, int[] trackCap,
+                   BitSet blockedTeacherSlots) {
+
+        int slots() {
+            return days * periodsPerDay;
+        }
+
+        int lessons() {
+            return lessonClass.length;
+        }
+    }
+
+    record Solution(int[] lessonSlot, int hardConflicts, int softPenalty, int restart, long iterations) {
+
+        boolean clashFree() {
+            return hardConflicts == 0;
+        }
+
+        boolean betterThan(Solution other) {
+            return other == null || hardConflicts < other.hardConflicts
+                    || (hardConflicts == other.hardConflicts && softPenalty < other.softPenalty);
+        }
+    }
+
+    private TimetableSolver() {
+    }
+
+    static Solution solve(Problem problem, int restarts, long timeLimitMillis, long seed, ForkJoinPool pool) {
+        long deadline = System.nanoTime() + timeLimitMillis * 1_000_000L;
+        AtomicBoolean done = new AtomicBoolean();
+        List<ForkJoinTask<Solution>> tasks = new ArrayList<>();
+        for (int r = 0; r < Math.max(1, restarts); r++) {
+            int restart = r;
+            SplittableRandom random = new SplittableRandom(seed + restart * 0x9E3779B97F4A7C15L);
+            tasks.add(pool.submit(ForkJoinTask.adapt(() -> new Search(problem, random, deadline, done).run(restart))));
+        }
+        Solution best = null;
+        for (ForkJoinTask<Solution> task : tasks) {
+            Solution s = task.join();
+            if (s.betterThan(best)) {
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    // ---------------- ONE RESTART ----------------
+
+    private static final class Search {
+        private final Problem p;
+        private final SplittableRandom random;
+        private final long deadline;
+        private final AtomicBoolean done;
+
+        private final int slots;
+        private final int days;
+        private final int[] slot;
+        private final int[] classCount;      // classroom * slots + slot -> lessons there
+        private final int[] teacherCount;    // teacher * slots + slot -> lessons there
+        private final int[] trackDay;        // track * days + day -> lessons of the track that day
+        private final int[][] classLessons;
+        private final int[] tabuSlot;
+        private final long[] tabuUntil;
+        private final int[] conflicted;
+
+        private int hard;
+        private int soft;
+        // split result of the last delta() call
+        private int lastHard;
+        private int lastSoft;
+        private long iteration;
+
+        Search(Problem p, SplittableRandom random, long deadline, AtomicBoolean done) {
+            this.p = p;
+            this.random = random;
+            this.deadline = deadline;
+            this.done = done;
+            this.slots = p.slots();
+            this.days = p.days();
+            int n = p.lessons();
+            this.slot = new int[n];
+            this.classCount = new int[p.classrooms() * slots];
+            this.teacherCount = new int[Math.max(1, p.teachers()) * slots];
+            this.trackDay = new int[p.trackCap().length * days];
+            this.tabuSlot = new int[n];
+            this.tabuUntil = new long[n];
+            this.conflicted = new int[n];
+
+            int[] perClass = new int[p.classrooms()];
+            for (int c : p.lessonClass()) {
+                perClass[c]++;
+            }
+            this.classLessons = new int[p.classrooms()][];
+            for (int c = 0; c < perClass.length; c++) {
+                classLessons[c] = new int[perClass[c]];
+                perClass[c] = 0;
+            }
+            for (int i = 0; i < n; i++) {
+                int c = p.lessonClass()[i];
+                classLessons[c][perClass[c]++] = i;
+            }
+        }
+
+        Solution run(int restart) {
+            construct();
+            int[] best = slot.clone();
+            int bestHard = hard;
+            int bestSoft = soft;
+            long polishLeft = (long) POLISH_ROUNDS * p.lessons();
+
+            while (!done.get() && (bestHard > 0 || (bestSoft > 0 && polishLeft-- > 0))) {
+                if ((iteration & 255) == 0 && System.nanoTime() > deadline) {
+                    break;
+                }
+                step(pickLesson());
+                iteration++;
+                if (hard < bestHard || (hard == bestHard && soft < bestSoft)) {
+                    bestHard = hard;
+                    bestSoft = soft;
+                    System.arraycopy(slot, 0, best, 0, best.length);
+                }
+            }
+            if (bestHard == 0) {
+                done.set(true);
+            }
+            return new Solution(best, bestHard, bestSoft, restart, iteration);
+        }
+
+        // Greedy start: busiest teachers first, each lesson into its cheapest slot so far
+        private void construct() {
+            int n = p.lessons();
+            int[] load = new int[Math.max(1, p.teachers())];
+            for (int t : p.lessonTeacher()) {
+                if (t >= 0) {
+                    load[t]++;
+                }
+            }
+            Integer[] order = new Integer[n];
+            long[] key = new long[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+                int t = p.lessonTeacher()[i];
+                key[i] = ((long) (t >= 0 ? load[t] : 0) << 32) | random.nextInt(1 << 30);
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(key[b], key[a]));
+
+            Arrays.fill(slot, -1);
+            for (int i : order) {
+                int bestSlot = -1;
+                int bestDelta = Integer.MAX_VALUE;
+                int ties = 0;
+                for (int s = 0; s < slots; s++) {
+                    int d = delta(i, s);
+                    if (d < bestDelta) {
+                        bestDelta = d;
+                        bestSlot = s;
+                        ties = 1;
+                    } else if (d == bestDelta && random.nextInt(++ties) == 0) {
+                        bestSlot = s;
+                    }
+                }
+                move(i, bestSlot);
+            }
+        }
+
+        // A clashing lesson while there are clashes (sampled, then scanned), otherwise any lesson
+        private int pickLesson() {
+            int n = p.lessons();
+            if (hard == 0) {
+                return random.nextInt(n);
+            }
+            for (int tries = 0; tries < 20; tries++) {
+                int i = random.nextInt(n);
+                if (clashes(i)) {
+                    return i;
+                }
+            }
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (clashes(i)) {
+                    conflicted[count++] = i;
+                }
+            }
+            return count == 0 ? random.nextInt(n) : conflicted[random.nextInt(count)];
+        }
+
+        private boolean clashes(int i) {
+            int s = slot[i];
+            if (classCount[p.lessonClass()[i] * slots + s] > 1) {
+                return true;
+            }
+            int t = p.lessonTeacher()[i];
+            return t >= 0 && (teacherCount[t * slots + s] > 1 || p.blockedTeacherSlots().get(t * slots + s));
+        }
+
+        // Best non-tabu move of lesson i to another slot, or swap with a lesson of its class;
+        // taken even when it is worse (that is how the search leaves a local minimum), the way back stays tabu
+        private void step(int i) {
+            int from = slot[i];
+            if (random.nextInt(100) < NOISE_PERCENT) {
+                int s = random.nextInt(slots);
+                if (s != from) {
+                    move(i, s);
+                    makeTabu(i, from);
+                }
+                return;
+            }
+
+            int bestDelta = Integer.MAX_VALUE;
+            int bestSlot = -1;
+            int bestSwap = -1;
+            int ties = 0;
+            for (int s = 0; s < slots; s++) {
+                if (s == from || isTabu(i, s)) {
+                    continue;
+                }
+                int d = delta(i, s);
+                if (d < bestDelta) {
+                    bestDelta = d;
+                    bestSlot = s;
+                    bestSwap = -1;
+                    ties = 1;
+                } else if (d == bestDelta && random.nextInt(++ties) == 0) {
+                    bestSlot = s;
+                    bestSwap = -1;
+                }
+            }
+            for (int j : classLessons[p.lessonClass()[i]]) {
+                int to = slot[j];
+                if (to == from || isTabu(i, to) || isTabu(j, from)) {
+                    continue;
+                }
+                int d = swapDelta(i, j);
+                if (d < bestDelta) {
+                    bestDelta = d;
+                    bestSwap = j;
+                    ties = 1;
+                } else if (d == bestDelta && random.nextInt(++ties) == 0) {
+                    bestSwap = j;
+                }
+            }
+
+            if (bestSwap >= 0) {
+                int to = slot[bestSwap];
+                move(i, to);
+                move(bestSwap, from);
+                makeTabu(i, from);
+                makeTabu(bestSwap, to);
+            } else if (bestSlot >= 0) {
+                move(i, bestSlot);
+                makeTabu(i, from);
+            }
+        }
+
+        private boolean isTabu(int lesson, int s) {
+            return tabuSlot[lesson] == s && tabuUntil[lesson] > iteration;
+        }
+
+        private void makeTabu(int lesson, int s) {
+            tabuSlot[lesson] = s;
+            tabuUntil[lesson] = iteration + TABU_MIN + random.nextInt(TABU_SPREAD);
+        }
+
+        private int swapDelta(int i, int j) {
+            int a = slot[i];
+            int b = slot[j];
+            int d = delta(i, b);
+            move(i, b);
+            d += delta(j, a);
+            move(i, a);
+            return d;
+        }
+
+        // Cost change (HARD * clashes + soft) of putting lesson i into slot `to`; slot -1 = not placed yet
+        private int delta(int i, int to) {
+            int from = slot[i];
+            int c = p.lessonClass()[i];
+            int t = p.lessonTeacher()[i];
+            int h = 0;
+            if (classCount[c * slots + to] >= 1) {
+                h++;
+            }
+            if (from >= 0 && classCount[c * slots + from] >= 2) {
+                h--;
+            }
+            if (t >= 0) {
+                if (teacherCount[t * slots + to] >= 1) {
+                    h++;
+                }
+                if (p.blockedTeacherSlots().get(t * slots + to)) {
+                    h++;
+                }
+                if (from >= 0) {
+                    if (teacherCount[t * slots + from] >= 2) {
+                        h--;
+                    }
+                    if (p.blockedTeacherSlots().get(t * slots + from)) {
+                        h--;
+                    }
+                }
+            }
+
+            int sd = 0;
+            int track = p.lessonTrack()[i];
+            int cap = p.trackCap()[track];
+            int toDay = to % days;
+            int fromDay = from >= 0 ? from % days : -1;
+            if (toDay != fromDay) {
+                if (trackDay[track * days + toDay] >= cap) {
+                    sd++;
+                }
+                if (fromDay >= 0 && trackDay[track * days + fromDay] > cap) {
+                    sd--;
+                }
+            }
+            lastHard = h;
+            lastSoft = sd;
+            return h * HARD + sd;
+        }
+
+        private void move(int i, int to) {
+            delta(i, to);
+            hard += lastHard;
+            soft += lastSoft;
+            int from = slot[i];
+            int c = p.lessonClass()[i];
+            int t = p.lessonTeacher()[i];
+            int track = p.lessonTrack()[i];
+            if (from >= 0) {
+                classCount[c * slots + from]--;
+                trackDay[track * days + from % days]--;
+                if (t >= 0) {
+                    teacherCount[t * slots + from]--;
+                }
+            }
+            classCount[c * slots + to]++;
+            trackDay[track * days + to % days]++;
+            if (t >= 0) {
+                teacherCount[t * slots + to]++;
+            }
+            slot[i] = to;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package edu.example.edu.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import edu.example.edu.Config.JwtUtil;
+import edu.example.edu.Entity.RevokedToken;
+import edu.example.edu.Repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * JWT revocation list.
+ *
+ * Revocations are persisted in revoked_tokens (per token "jti" or per user "not before").
+ * Each node keeps a Bloom filter over all revoked keys plus the exact entries in memory,
+ * so the common "not revoked" case in JwtFilter is answered by Bloom probes alone.
+ * Nodes pick up revocations made elsewhere by polling rows with a higher id.
+ */
+@Service
+public class TokenRevocationService {
+
+    // re-read this many ids behind the cursor, so rows committed out of id order are not missed
+    private static final long SYNC_OVERLAP = 100;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final JwtUtil jwtUtil;
+    private final int bloomCapacity;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();   // jti -> expiry millis
+    private final Map<Long, Long> userNotBefore = new ConcurrentHashMap<>();     // userId -> not-before (epoch millis)
+    private volatile BloomFilter bloom;
+    private volatile long lastSeenId = 0;
+
+    private final Counter bloomNegatives;
+    private final Counter bloomFalsePositives;
+    private final Counter revokedHits;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  JwtUtil jwtUtil,
+                                  @Value("${jwt.revocation.bloom-capacity:100000}") int bloomCapacity,
+                                  MeterRegistry registry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.jwtUtil = jwtUtil;
+        this.bloomCapacity = bloomCapacity;
+        this.bloom = new BloomFilter(bloomCapacity);
+        this.bloomNegatives = registry.counter("jwt.revocation.check", "result", "bloom_negative");
+        this.bloomFalsePositives = registry.counter("jwt.revocation.check", "result", "false_positive");
+        this.revokedHits = registry.counter("jwt.revocation.check", "result", "revoked");
+        registry.gaugeMapSize("jwt.revocation.tokens", Tags.empty(), revokedTokens);
+        registry.gaugeMapSize("jwt.revocation.users", Tags.empty(), userNotBefore);
+    }
+
+    @PostConstruct
+    public void load() {
+        sync();
+    }
+
+    // ---------------- HOT PATH (JwtFilter) ----------------
+
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        Long userId = JwtUtil.getLongClaim(claims, "userId");
+        BloomFilter b = bloom;
+
+        boolean maybeToken = jti != null && b.mightContain(tokenKey(jti));
+        boolean maybeUser = userId != null && b.mightContain(userKey(userId));
+        if (!maybeToken && !maybeUser) {
+            bloomNegatives.increment();
+            return false;
+        }
+
+        // exact check only for the rare Bloom positives
+        boolean revoked = (maybeToken && revokedTokens.containsKey(jti))
+                || (maybeUser && issuedBeforeNotBefore(claims, userNotBefore.get(userId)));
+        if (revoked) {
+            revokedHits.increment();
+        } else {
+            bloomFalsePositives.increment();
+        }
+        return revoked;
+    }
+
+    // ---------------- REVOKE ----------------
+
+    // Revoke one token (logout)
+    public void revokeToken(String tokenId, Instant expiresAt, Long userId, String reason) {
+        if (tokenId == null) {
+            // legacy token without jti: fall back to revoking everything the user holds
+            revokeAllForUser(userId, reason);
+            return;
+        }
+        RevokedToken row = new RevokedToken();
+        row.setTokenId(tokenId);
+        row.setExpiresAt(expiresAt);
+        row.setReason(reason);
+        apply(revokedTokenRepository.save(row));
+    }
+
+    // Revoke every token issued to the user up to now (password / role change, rejection, delete)
+    public void revokeAllForUser(Long userId, String reason) {
+        if (userId == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        RevokedToken row = new RevokedToken();
+        row.setUserId(userId);
+        row.setNotBefore(now);
+        row.setExpiresAt(now.plusMillis(jwtUtil.getTokenValidityMillis()));
+        row.setReason(reason);
+        apply(revokedTokenRepository.save(row));
+    }
+
+    // Bulk variant (bulk reject): one saveAll instead of a save per user
+    public void revokeAllForUsers(Collection<Long> userIds, String reason) {
+        Instant now = Instant.now();
+        List<RevokedToken> rows = userIds.stream().map(id -> {
+            RevokedToken row = new RevokedToken();
+            row.setUserId(id);
+            row.setNotBefore(now);
+            row.setExpiresAt(now.plusMillis(jwtUtil.getTokenValidityMillis()));
+            row.setReason(reason);
+            return row;
+        }).collect(Collectors.toList());
+        revokedTokenRepository.saveAll(rows).forEach(this::apply);
+    }
+
+    // ---------------- SYNC / CLEANUP ----------------
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public void sync() {
+        List<RevokedToken> rows = revokedTokenRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(
+                Math.max(0, lastSeenId - SYNC_OVERLAP), Instant.now());
+        rows.forEach(this::apply);
+    }
+
+    // Drop expired entries and rebuild the Bloom filter (Bloom filters cannot delete)
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        long validity = jwtUtil.getTokenValidityMillis();
+
+        synchronized (this) {
+            revokedTokens.values().removeIf(expiry -> expiry < now);
+            userNotBefore.values().removeIf(nb -> nb + validity < now);
+
+            BloomFilter rebuilt = new BloomFilter(Math.max(bloomCapacity, 2 * (revokedTokens.size() + userNotBefore.size())));
+            revokedTokens.keySet().forEach(jti -> rebuilt.add(tokenKey(jti)));
+            userNotBefore.keySet().forEach(id -> rebuilt.add(userKey(id)));
+            bloom = rebuilt;
+        }
+
+        revokedTokenRepository.deleteByExpiresAtBefore(Instant.now());
+    }
+
+    private synchronized void apply(RevokedToken row) {
+        if (row.getTokenId() != null) {
+            revokedTokens.put(row.getTokenId(), row.getExpiresAt().toEpochMilli());
+            bloom.add(tokenKey(row.getTokenId()));
+        }
+        if (row.getUserId() != null && row.getNotBefore() != null) {
+            userNotBefore.merge(row.getUserId(), row.getNotBefore().toEpochMilli(), Math::max);
+            bloom.add(userKey(row.getUserId()));
+        }
+        if (row.getId() != null && row.getId() > lastSeenId) {
+            lastSeenId = row.getId();
+        }
+    }
+
+    private static boolean issuedBeforeNotBefore(Claims claims, Long notBeforeMillis) {
+        if (notBeforeMillis == null) {
+            return false;
+        }
+        Long issuedMillis = JwtUtil.getLongClaim(claims, "iatMs");
+        if (issuedMillis != null) {
+            return issuedMillis < notBeforeMillis;
+        }
+        // older tokens only have second-precision "iat"; without any iat they cannot prove they are newer
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt == null || issuedAt.getTime() < notBeforeMillis;
+    }
+
+    private static String tokenKey(String jti) {
+        return "t:" + jti;
+    }
+
+    private static String userKey(Long userId) {
+        return "u:" + userId;
+    }
+
+    /**
+     * Fixed-size Bloom filter (~1% false positives at the configured capacity),
+     * k probes derived from two 64-bit hashes (Kirsch-Mitzenmacher double hashing).
+     */
+    static final class BloomFilter {
+
+        private static final int HASHES = 7;
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+
+        BloomFilter(int expectedEntries) {
+            // m = -n ln(p) / (ln 2)^2 with p = 0.01  ->  ~9.6 bits per entry
+            long m = Math.max(1024, (long) Math.ceil(expectedEntries * 9.6));
+            this.bits = new AtomicLongArray((int) ((m + 63) / 64));
+            this.bitCount = (long) bits.length() * 64;
+        }
+
+        void add(String key) {
+            long[] h = hash(key);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(h[0] + i * h[1], bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << (bit & 63);
+                long prev;
+                do {
+                    prev = bits.get(word);
+                } while ((prev & mask) == 0 && !bits.compareAndSet(word, prev, prev | mask));
+            }
+        }
+
+        boolean mightContain(String key) {
+            long[] h = hash(key);
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(h[0] + i * h[1], bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a 64 over the UTF-8 bytes, second hash from a murmur3-style finaliser
+        private static long[] hash(String key) {
+            long h1 = 0xcbf29ce484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                h1 ^= b;
+                h1 *= 0x100000001b3L;
+            }
+            long h2 = h1;
+            h2 ^= h2 >>> 33;
+            h2 *= 0xff51afd7ed558ccdL;
+            h2 ^= h2 >>> 33;
+            h2 *= 0xc4ceb9fe1a85ec53L;
+            h2 ^= h2 >>> 33;
+            return new long[] { h1, h2 | 1 };
+        }
+    }
+}
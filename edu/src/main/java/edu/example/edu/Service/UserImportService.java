@@ -0,0 +1,583 @@
+package edu.example.edu.Service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.example.edu.Config.AuthenticatedUser;
+import edu.example.edu.DTO.RegisterDTO;
+import edu.example.edu.DTO.UserDTO;
+import edu.example.edu.DTO.UserImportJobDTO;
+import edu.example.edu.DTO.UserImportRowResultDTO;
+import edu.example.edu.Entity.School;
+import edu.example.edu.Entity.User;
+import edu.example.edu.Entity.User.ApprovalStatus;
+import edu.example.edu.Repository.SchoolRepository;
+import edu.example.edu.Repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bulk user import (replaces the row-by-row bulkRegister).
+ *
+ * Rows are read with a streaming JSON / CSV parser and processed in chunks:
+ * one IN query per chunk for existing emails, each school looked up once per import,
+ * the default password hashed once (per-row passwords hashed in parallel on a
+ * ForkJoinPool) and a single JDBC batch insert per chunk.
+ * Large imports run in the background and report progress via {@link #getJob}.
+ */
+@Service
+public class UserImportService {
+
+    private static final String INSERT_SQL =
+            "insert into users (name, email, password, role, approval_status, school_id) values (?, ?, ?, ?, ?, ?)";
+
+    private final UserRepository userRepository;
+    private final SchoolRepository schoolRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final UserSearchIndex userSearchIndex;
+
+    private final int chunkSize;
+    private final String defaultPassword;
+    private final long jobRetentionMillis;
+    private final int maxReportedRows;
+
+    private final ForkJoinPool hashPool;
+    private final ExecutorService jobExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "user-import");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public UserImportService(UserRepository userRepository,
+                             SchoolRepository schoolRepository,
+                             PasswordEncoder passwordEncoder,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             ObjectMapper objectMapper,
+                             UserSearchIndex userSearchIndex,
+                             @Value("${users.import.chunk-size:500}") int chunkSize,
+                             @Value("${users.import.default-password:123456}") String defaultPassword,
+                             @Value("${users.import.job-retention-minutes:60}") long jobRetentionMinutes,
+                             @Value("${users.import.max-reported-rows:1000}") int maxReportedRows) {
+        this.userRepository = userRepository;
+        this.schoolRepository = schoolRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.userSearchIndex = userSearchIndex;
+        this.chunkSize = chunkSize;
+        this.defaultPassword = defaultPassword;
+        this.jobRetentionMillis = jobRetentionMinutes * 60_000L;
+        this.maxReportedRows = maxReportedRows;
+        this.hashPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        hashPool.shutdownNow();
+    }
+
+    // ---------------- PARSING (streaming) ----------------
+
+    public enum Format { JSON, CSV }
+
+    // Rows of one import, read on demand; null = end of input
+    private interface RowReader extends Closeable {
+        RegisterDTO next() throws IOException;
+    }
+
+    // JSON array of RegisterDTO objects, read token by token (no full-body String / tree)
+    private RowReader jsonReader(InputStream in) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new RuntimeException("Expected a JSON array of users");
+        }
+        return new RowReader() {
+            @Override
+            public RegisterDTO next() throws IOException {
+                return parser.nextToken() == JsonToken.START_OBJECT
+                        ? objectMapper.readValue(parser, RegisterDTO.class) : null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                parser.close();
+            }
+        };
+    }
+
+    // CSV with a header line: name,email,password,role,schoolId (any order, password/schoolId optional)
+    private static RowReader csvReader(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String headerLine = reader.readLine();
+        Map<String, Integer> idx = new HashMap<>();
+        if (headerLine != null) {
+            List<String> header = splitCsvLine(headerLine.replace("\uFEFF", ""));
+            for (int i = 0; i < header.size(); i++) {
+                idx.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        return new RowReader() {
+            @Override
+            public RegisterDTO next() throws IOException {
+                String line;
+                do {
+                    line = headerLine == null ? null : reader.readLine();
+                } while (line != null && line.isBlank());
+                if (line == null) {
+                    return null;
+                }
+                List<String> cols = splitCsvLine(line);
+                RegisterDTO dto = new RegisterDTO();
+                dto.setName(column(cols, idx, "name"));
+                dto.setEmail(column(cols, idx, "email"));
+                dto.setPassword(column(cols, idx, "password"));
+                dto.setRole(column(cols, idx, "role"));
+                String schoolId = column(cols, idx, "schoolid");
+                dto.setSchoolId(schoolId == null || schoolId.isBlank() ? null : Long.valueOf(schoolId.trim()));
+                return dto;
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    private static RowReader listReader(List<RegisterDTO> rows) {
+        Iterator<RegisterDTO> it = rows.iterator();
+        return new RowReader() {
+            @Override
+            public RegisterDTO next() {
+                return it.hasNext() ? it.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    // ---------------- JOBS ----------------
+
+    // Start a background import; poll getJob(jobId) for progress and the rows that were not created.
+    // The request body is spooled to a temp file (it is gone once the request returns) and the
+    // job streams rows from there chunk by chunk, so memory does not grow with the file.
+    public UserImportJobDTO startImport(InputStream body, Format format, AuthenticatedUser caller) throws IOException {
+        Path spool = Files.createTempFile("user-import-", format == Format.CSV ? ".csv" : ".json");
+        try {
+            Files.copy(body, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), caller, maxReportedRows);
+        jobs.put(job.id, job);
+        jobExecutor.submit(() -> {
+            try (InputStream in = Files.newInputStream(spool);
+                 RowReader rows = format == Format.CSV ? csvReader(in) : jsonReader(in)) {
+                run(job, rows, caller, null);
+            } catch (IOException | RuntimeException e) {
+                job.finish("FAILED", e.getMessage());
+            } finally {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException ignored) {
+                    // temp dir cleanup will get it
+                }
+            }
+        });
+        return job.toDTO(false);
+    }
+
+    // ✅ Only the account that started a job (or an ADMIN) sees its rows: they hold emails and errors
+    public UserImportJobDTO getJob(String jobId, boolean includeResults, AuthenticatedUser caller)
+            throws AccessDeniedException {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Import job not found: " + jobId);
+        }
+        if (caller == null || !(caller.hasRole("ADMIN") || caller.getUserId().equals(job.ownerUserId))) {
+            throw new AccessDeniedException("You can only view your own import jobs.");
+        }
+        return job.toDTO(includeResults);
+    }
+
+    // Synchronous import used by /bulk-register; returns the created users only
+    public List<UserDTO> importNow(List<RegisterDTO> rows, AuthenticatedUser caller) {
+        List<UserDTO> created = new ArrayList<>();
+        try {
+            run(new ImportJob("inline", caller, 0), listReader(rows), caller, created);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // cannot happen for an in-memory list
+        }
+        return created;
+    }
+
+    @Scheduled(fixedDelay = 300_000)
+    public void purgeFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - jobRetentionMillis;
+        jobs.values().removeIf(j -> j.finishedAtMillis > 0 && j.finishedAtMillis < cutoff);
+    }
+
+    // ---------------- PIPELINE ----------------
+
+    private void run(ImportJob job, RowReader rows, AuthenticatedUser caller, List<UserDTO> createdOut)
+            throws IOException {
+        try {
+            // default password hashed ONCE per import
+            String defaultHash = passwordEncoder.encode(defaultPassword);
+            Map<Long, School> schools = new HashMap<>();
+            Set<Long> missingSchools = new HashSet<>();
+            Set<String> seenEmails = new HashSet<>();
+            int rowNumber = 0;
+
+            List<RegisterDTO> dtos = new ArrayList<>(chunkSize);
+            boolean more = true;
+            while (more) {
+                dtos.clear();
+                RegisterDTO dto;
+                while (dtos.size() < chunkSize && (dto = rows.next()) != null) {
+                    dtos.add(dto);
+                }
+                more = dtos.size() == chunkSize;
+                job.totalRows += dtos.size();
+                resolveSchools(dtos, caller, schools, missingSchools);
+
+                List<Row> chunk = new ArrayList<>(dtos.size());
+                for (RegisterDTO d : dtos) {
+                    chunk.add(validate(++rowNumber, d, caller, schools, seenEmails));
+                }
+                processChunk(chunk, defaultHash);
+
+                for (Row row : chunk) {
+                    job.record(row.result);
+                    if (createdOut != null && "CREATED".equals(row.result.getStatus())) {
+                        createdOut.add(row.toUserDTO());
+                    }
+                }
+            }
+            job.finish("COMPLETED", null);
+        } catch (IOException | RuntimeException e) {
+            // rows of earlier chunks stay imported; the job reports how far it got
+            job.finish("FAILED", e.getMessage());
+            if (createdOut != null) {
+                throw e;
+            }
+        }
+    }
+
+    // Schools referenced by the chunk that are not known yet, in one query
+    private void resolveSchools(List<RegisterDTO> dtos, AuthenticatedUser caller,
+                                Map<Long, School> schools, Set<Long> missing) {
+        Set<Long> ids = dtos.stream().map(RegisterDTO::getSchoolId)
+                .filter(id -> id != null).collect(Collectors.toSet());
+        if (caller != null && caller.getSchoolId() != null) {
+            ids.add(caller.getSchoolId());
+        }
+        ids.removeAll(schools.keySet());
+        ids.removeAll(missing);
+        if (ids.isEmpty()) {
+            return;
+        }
+        schoolRepository.findAllById(ids).forEach(s -> schools.put(s.getSchoolId(), s));
+        ids.removeAll(schools.keySet());
+        missing.addAll(ids);
+    }
+
+    private Row validate(int rowNumber, RegisterDTO dto, AuthenticatedUser caller,
+                         Map<Long, School> schools, Set<String> seenEmails) {
+        Row row = new Row(rowNumber, dto);
+        String email = dto.getEmail() == null ? null : dto.getEmail().trim();
+
+        if (email == null || email.isEmpty() || dto.getName() == null || dto.getName().isBlank()) {
+            return row.fail("name and email are required");
+        }
+        if (!seenEmails.add(email.toLowerCase(Locale.ROOT))) {
+            return row.skip("Duplicate email in file");
+        }
+        row.email = email;
+
+        try {
+            row.role = User.Role.valueOf(dto.getRole().trim().toUpperCase(Locale.ROOT));
+        } catch (RuntimeException e) {
+            return row.fail("Invalid role: " + dto.getRole());
+        }
+
+        // rows without schoolId go to the caller's school; non-admins may only import into their own school
+        Long schoolId = dto.getSchoolId();
+        if (schoolId == null && caller != null) {
+            schoolId = caller.getSchoolId();
+        }
+        if (schoolId != null && caller != null && !caller.hasRole("ADMIN")
+                && caller.getSchoolId() != null && !caller.getSchoolId().equals(schoolId)) {
+            return row.fail("You can only import users into your school");
+        }
+        if (schoolId != null && !schools.containsKey(schoolId)) {
+            return row.fail("School not found with id " + schoolId);
+        }
+        row.schoolId = schoolId;
+
+        // Auto-approve admins
+        row.approvalStatus = (row.role == User.Role.ADMIN || row.role == User.Role.SCHOOLADMIN)
+                ? ApprovalStatus.APPROVED : ApprovalStatus.PENDING;
+        return row;
+    }
+
+    private void processChunk(List<Row> chunk, String defaultHash) {
+        List<Row> pending = chunk.stream().filter(r -> r.result == null).collect(Collectors.toList());
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 1. existing emails - one IN query per chunk
+        Set<String> existing = userRepository.findByEmailIn(
+                pending.stream().map(r -> r.email).collect(Collectors.toList()))
+                .stream().map(u -> u.getEmail().toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        for (Row row : pending) {
+            if (existing.contains(row.email.toLowerCase(Locale.ROOT))) {
+                row.skip("Email already registered");
+            }
+        }
+        List<Row> toInsert = pending.stream().filter(r -> r.result == null).collect(Collectors.toList());
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        // 2. passwords: shared default hash, explicit passwords hashed in parallel
+        hashPool.submit(() -> toInsert.parallelStream().forEach(row -> {
+            String raw = row.dto.getPassword();
+            row.passwordHash = (raw == null || raw.isBlank()) ? defaultHash : passwordEncoder.encode(raw);
+        })).join();
+
+        // 3. one JDBC batch per chunk; on a constraint clash fall back to row-by-row for this chunk only
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, toInsert,
+                    toInsert.size(), (ps, row) -> bind(ps, row)));
+        } catch (DataAccessException batchError) {
+            for (Row row : toInsert) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, row));
+                } catch (DataAccessException e) {
+                    row.fail("Insert failed: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        // 4. generated ids, again one IN query
+        List<Row> inserted = toInsert.stream().filter(r -> r.result == null).collect(Collectors.toList());
+        Map<String, Long> ids = new HashMap<>();
+        userRepository.findByEmailIn(inserted.stream().map(r -> r.email).collect(Collectors.toList()))
+                .forEach(u -> ids.put(u.getEmail().toLowerCase(Locale.ROOT), u.getUserId()));
+        for (Row row : inserted) {
+            row.userId = ids.get(row.email.toLowerCase(Locale.ROOT));
+            row.result = new UserImportRowResultDTO(row.rowNumber, row.email, "CREATED", row.userId, null);
+            userSearchIndex.upsert(row.userId, row.dto.getName(), row.email, row.role, row.approvalStatus, row.schoolId, null);
+        }
+    }
+
+    private void bind(PreparedStatement ps, Row row) throws SQLException {
+        ps.setString(1, row.dto.getName());
+        ps.setString(2, row.email);
+        ps.setString(3, row.passwordHash);
+        ps.setString(4, row.role.name());
+        ps.setString(5, row.approvalStatus.name());
+        if (row.schoolId != null) {
+            ps.setLong(6, row.schoolId);
+        } else {
+            ps.setNull(6, Types.BIGINT);
+        }
+    }
+
+    // ---------------- HELPERS ----------------
+
+    private static String column(List<String> cols, Map<String, Integer> idx, String name) {
+        Integer i = idx.get(name);
+        return (i == null || i >= cols.size()) ? null : cols.get(i).trim();
+    }
+
+    // Minimal RFC 4180 split: commas, double-quoted fields, "" as an escaped quote
+    private static List<String> splitCsvLine(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        out.add(cur.toString());
+        return out;
+    }
+
+    private static class Row {
+        final int rowNumber;
+        final RegisterDTO dto;
+        String email;
+        User.Role role;
+        ApprovalStatus approvalStatus;
+        Long schoolId;
+        String passwordHash;
+        Long userId;
+        UserImportRowResultDTO result;   // null while the row is still in flight
+
+        Row(int rowNumber, RegisterDTO dto) {
+            this.rowNumber = rowNumber;
+            this.dto = dto;
+        }
+
+        Row fail(String message) {
+            result = new UserImportRowResultDTO(rowNumber, dto.getEmail(), "FAILED", null, message);
+            return this;
+        }
+
+        Row skip(String message) {
+            result = new UserImportRowResultDTO(rowNumber, dto.getEmail(), "SKIPPED_DUPLICATE", null, message);
+            return this;
+        }
+
+        UserDTO toUserDTO() {
+            UserDTO u = new UserDTO();
+            u.setUserId(userId);
+            u.setName(dto.getName());
+            u.setEmail(email);
+            u.setRole(role.name());
+            u.setApprovalStatus(approvalStatus.name());
+            u.setSchoolId(schoolId);
+            return u;
+        }
+    }
+
+    private static class ImportJob {
+        final String id;
+        final Long ownerUserId;
+        volatile int totalRows;     // rows read so far; final once the job has finished
+        final LocalDateTime startedAt = LocalDateTime.now();
+        // only skipped / failed rows, capped: a large import would otherwise hold one result per row
+        final List<UserImportRowResultDTO> results = Collections.synchronizedList(new ArrayList<>());
+        final int maxResults;
+        volatile boolean resultsTruncated;
+        volatile String status = "RUNNING";
+        volatile String message;
+        volatile int processed;
+        volatile int created;
+        volatile int skipped;
+        volatile int failed;
+        volatile LocalDateTime finishedAt;
+        volatile long finishedAtMillis;
+
+        ImportJob(String id, AuthenticatedUser owner, int maxResults) {
+            this.id = id;
+            this.ownerUserId = owner != null ? owner.getUserId() : null;
+            this.maxResults = maxResults;
+        }
+
+        // single writer (the import thread), so plain volatile increments are fine
+        void record(UserImportRowResultDTO r) {
+            processed++;
+            if (!"CREATED".equals(r.getStatus())) {
+                if (results.size() < maxResults) {
+                    results.add(r);
+                } else {
+                    resultsTruncated = true;
+                }
+            }
+            switch (r.getStatus()) {
+                case "CREATED" -> created++;
+                case "SKIPPED_DUPLICATE" -> skipped++;
+                default -> failed++;
+            }
+        }
+
+        void finish(String status, String message) {
+            this.status = status;
+            this.message = message;
+            this.finishedAt = LocalDateTime.now();
+            this.finishedAtMillis = System.currentTimeMillis();
+        }
+
+        UserImportJobDTO toDTO(boolean includeResults) {
+            UserImportJobDTO dto = new UserImportJobDTO();
+            dto.setJobId(id);
+            dto.setStatus(status);
+            dto.setTotalRows(totalRows);
+            dto.setProcessedRows(processed);
+            dto.setCreated(created);
+            dto.setSkipped(skipped);
+            dto.setFailed(failed);
+            dto.setMessage(message);
+            dto.setStartedAt(startedAt);
+            dto.setFinishedAt(finishedAt);
+            if (includeResults) {
+                synchronized (results) {
+                    dto.setResults(new ArrayList<>(results));
+                }
+                dto.setResultsTruncated(resultsTruncated);
+            }
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package edu.example.edu.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import edu.example.edu.DTO.UserDTO;
+import edu.example.edu.Repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Read-through cache of UserDTO profiles for GET /api/users/{id} and /api/users/batch.
+ *
+ * Misses are loaded with the DirectoryRow projection (no User entity, no lazy collections),
+ * many ids in one IN query. Entries live for the TTL or until UserService / EnrollmentService
+ * invalidate them on approve, reject, role change, enrollment and delete.
+ */
+@Service
+public class UserProfileCache {
+
+    private static final int LOAD_CHUNK = 1000;
+
+    private final UserRepository userRepository;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // bumped on every invalidation; a load that raced with one is not cached (it may be stale)
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter expiredEvictions;
+    private final Counter sizeEvictions;
+    private final Counter invalidations;
+
+    public UserProfileCache(UserRepository userRepository,
+                            @Value("${users.profile-cache.max-size:50000}") int maxSize,
+                            @Value("${users.profile-cache.ttl-seconds:300}") long ttlSeconds,
+                            MeterRegistry registry) {
+        this.userRepository = userRepository;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.hits = registry.counter("users.profile.cache", "result", "hit");
+        this.misses = registry.counter("users.profile.cache", "result", "miss");
+        this.expiredEvictions = registry.counter("users.profile.cache.evictions", "cause", "expired");
+        this.sizeEvictions = registry.counter("users.profile.cache.evictions", "cause", "size");
+        this.invalidations = registry.counter("users.profile.cache.invalidations");
+        registry.gaugeMapSize("users.profile.cache.size", Tags.empty(), entries);
+    }
+
+    // Single profile, or null when the user does not exist
+    public UserDTO get(Long userId) {
+        return getAll(List.of(userId)).get(userId);
+    }
+
+    // Profiles in request order; unknown ids are left out
+    public Map<Long, UserDTO> getAll(Collection<Long> userIds) {
+        long now = System.currentTimeMillis();
+        Map<Long, UserDTO> found = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        for (Long id : userIds) {
+            if (id == null || found.containsKey(id)) {
+                continue;
+            }
+            Entry entry = entries.get(id);
+            if (entry != null && entry.expiresAt > now) {
+                hits.increment();
+                found.put(id, copy(entry.profile));
+                continue;
+            }
+            if (entry != null && entries.remove(id, entry)) {
+                expiredEvictions.increment();
+            }
+            misses.increment();
+            found.put(id, null);   // keeps the request order, filled below
+            missing.add(id);
+        }
+
+        if (!missing.isEmpty()) {
+            load(missing, found);
+        }
+        found.values().removeIf(p -> p == null);
+        return found;
+    }
+
+    public void invalidate(Long userId) {
+        generation.incrementAndGet();
+        if (entries.remove(userId) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public void invalidateAll(Collection<Long> userIds) {
+        generation.incrementAndGet();
+        for (Long id : userIds) {
+            if (entries.remove(id) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    // Set-based updates (bulk approval by filter) only know the school
+    public void invalidateSchool(Long schoolId) {
+        generation.incrementAndGet();
+        entries.entrySet().removeIf(e -> {
+            if (schoolId.equals(e.getValue().profile.getSchoolId())) {
+                invalidations.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void load(List<Long> ids, Map<Long, UserDTO> into) {
+        long gen = generation.get();
+        List<UserDTO> loaded = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += LOAD_CHUNK) {
+            for (UserRepository.DirectoryRow row : userRepository.findDirectoryRowsByIdIn(
+                    ids.subList(i, Math.min(i + LOAD_CHUNK, ids.size())))) {
+                loaded.add(UserService.toDTO(row));
+            }
+        }
+
+        boolean cacheable = maxSize > 0 && generation.get() == gen;
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        for (UserDTO profile : loaded) {
+            into.put(profile.getUserId(), profile);
+            if (cacheable) {
+                if (entries.size() >= maxSize) {
+                    evict();
+                }
+                entries.put(profile.getUserId(), new Entry(copy(profile), expiresAt));
+            }
+        }
+    }
+
+    // Same policy as JwtClaimsCache: expired first, then arbitrary entries down to 90%
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> {
+            if (e.getValue().expiresAt <= now) {
+                expiredEvictions.increment();
+                return true;
+            }
+            return false;
+        });
+
+        int target = (int) (maxSize * 0.9);
+        Iterator<Long> it = entries.keySet().iterator();
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    // UserDTO is mutable, so callers never get the cached instance
+    private static UserDTO copy(UserDTO p) {
+        UserDTO dto = new UserDTO();
+        dto.setUserId(p.getUserId());
+        dto.setName(p.getName());
+        dto.setEmail(p.getEmail());
+        dto.setRole(p.getRole());
+        dto.setApprovalStatus(p.getApprovalStatus());
+        dto.setSchoolId(p.getSchoolId());
+        dto.setClassroomId(p.getClassroomId());
+        return dto;
+    }
+
+    private record Entry(UserDTO profile, long expiresAt) {
+    }
+}
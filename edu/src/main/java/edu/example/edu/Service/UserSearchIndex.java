@@ -0,0 +1,293 @@
+package edu.example.edu.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import edu.example.edu.DTO.UserDTO;
+import edu.example.edu.Entity.User;
+import edu.example.edu.Entity.User.ApprovalStatus;
+import edu.example.edu.Repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * In-memory typeahead index over User.name and User.email.
+ *
+ * One sorted token map per (school, role); a query word is answered by a range scan
+ * [word, word + '￿') on that map, so no LIKE '%..%' ever reaches the users table.
+ * Tokens are every name word, the whole name, the email and the email local part.
+ * Loaded at startup with keyset pages, then kept current by UserService / UserImportService /
+ * EnrollmentService / UserController calling upsert / remove.
+ */
+@Service
+public class UserSearchIndex {
+
+    private static final int LOAD_PAGE = 5000;
+    // matches ranked per query (keeps very short prefixes cheap)
+    private static final int MAX_MATCHES = 500;
+
+    private final UserRepository userRepository;
+    private final Timer searchTimer;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<String, Set<Long>>> buckets = new ConcurrentHashMap<>();
+
+    public UserSearchIndex(UserRepository userRepository, MeterRegistry registry) {
+        this.userRepository = userRepository;
+        this.searchTimer = registry.timer("users.search");
+        registry.gaugeMapSize("users.search.indexed", Tags.empty(), entries);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        load(null);
+    }
+
+    // Re-read one school after a set-based update the index cannot follow row by row
+    public void reloadSchool(Long schoolId) {
+        load(schoolId);
+    }
+
+    private void load(Long schoolId) {
+        long after = 0;
+        List<UserRepository.DirectoryRow> rows;
+        do {
+            rows = userRepository.findDirectoryPage(after, schoolId, null, null, null, Limit.of(LOAD_PAGE));
+            for (UserRepository.DirectoryRow r : rows) {
+                upsert(r.getUserId(), r.getName(), r.getEmail(), r.getRole(), r.getApprovalStatus(),
+                        r.getSchoolId(), r.getClassroomId());
+                after = r.getUserId();
+            }
+        } while (rows.size() == LOAD_PAGE);
+    }
+
+    // ---------------- UPDATES ----------------
+
+    public void upsert(User user) {
+        upsert(user.getUserId(), user.getName(), user.getEmail(), user.getRole(), user.getApprovalStatus(),
+                user.getSchool() != null ? user.getSchool().getSchoolId() : null,
+                user.getClassroom() != null ? user.getClassroom().getClassId() : null);
+    }
+
+    public synchronized void upsert(Long userId, String name, String email, User.Role role,
+                                    ApprovalStatus status, Long schoolId, Long classroomId) {
+        if (userId == null) {
+            return;
+        }
+        Entry old = entries.get(userId);
+        Entry entry = new Entry(userId, name, email, role, status, schoolId, classroomId);
+        if (old != null) {
+            unlink(old);
+        }
+        entries.put(userId, entry);
+        NavigableMap<String, Set<Long>> tokens = buckets.computeIfAbsent(bucketKey(schoolId, role),
+                k -> new ConcurrentSkipListMap<>());
+        for (String token : entry.tokens) {
+            tokens.computeIfAbsent(token, k -> ConcurrentHashMap.newKeySet()).add(userId);
+        }
+    }
+
+    public synchronized void remove(Long userId) {
+        Entry old = entries.remove(userId);
+        if (old != null) {
+            unlink(old);
+        }
+    }
+
+    // Status is not part of any token, so a status change only swaps the entry
+    public synchronized void updateStatus(Collection<Long> userIds, ApprovalStatus status) {
+        for (Long id : userIds) {
+            entries.computeIfPresent(id, (k, e) -> new Entry(e.userId, e.name, e.email, e.role, status,
+                    e.schoolId, e.classroomId));
+        }
+    }
+
+    private void unlink(Entry old) {
+        NavigableMap<String, Set<Long>> tokens = buckets.get(bucketKey(old.schoolId, old.role));
+        if (tokens == null) {
+            return;
+        }
+        for (String token : old.tokens) {
+            tokens.computeIfPresent(token, (k, ids) -> {
+                ids.remove(old.userId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    // ---------------- SEARCH ----------------
+
+    // Top-N users of the school whose name / email words start with every word of the query
+    // role == null searches all roles of the school
+    public List<UserDTO> search(Long schoolId, User.Role role, String query, int limit) {
+        return searchTimer.record(() -> doSearch(schoolId, false, role, query, limit));
+    }
+
+    // Same across every school, school-less users included (ADMIN without a schoolId)
+    public List<UserDTO> searchAllSchools(User.Role role, String query, int limit) {
+        return searchTimer.record(() -> doSearch(null, true, role, query, limit));
+    }
+
+    private List<UserDTO> doSearch(Long schoolId, boolean allSchools, User.Role role, String query, int limit) {
+        List<String> words = words(query);
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // the longest word has the narrowest range, the other words are checked per candidate
+        String seek = words.stream().max(Comparator.comparingInt(String::length)).get();
+
+        List<NavigableMap<String, Set<Long>>> scopes = new ArrayList<>();
+        if (allSchools) {
+            String roleSuffix = role != null ? ":" + role : null;
+            buckets.forEach((key, tokens) -> {
+                if (roleSuffix == null || key.endsWith(roleSuffix)) {
+                    scopes.add(tokens);
+                }
+            });
+        } else {
+            for (User.Role r : role != null ? List.of(role) : List.of(User.Role.values())) {
+                NavigableMap<String, Set<Long>> tokens = buckets.get(bucketKey(schoolId, r));
+                if (tokens != null) {
+                    scopes.add(tokens);
+                }
+            }
+        }
+
+        // every word is checked while scanning, so the cap only drops real matches
+        Set<Long> seen = new HashSet<>();
+        List<Entry> matches = new ArrayList<>();
+        scan:
+        for (NavigableMap<String, Set<Long>> tokens : scopes) {
+            for (Set<Long> ids : tokens.subMap(seek, true, seek + Character.MAX_VALUE, false).values()) {
+                for (Long id : ids) {
+                    Entry e = seen.add(id) ? entries.get(id) : null;
+                    if (e != null && e.matchesAll(words)) {
+                        matches.add(e);
+                        if (matches.size() >= MAX_MATCHES) {
+                            break scan;
+                        }
+                    }
+                }
+            }
+        }
+
+        String whole = String.join(" ", words);
+        return matches.stream()
+                .sorted(Comparator.comparingInt((Entry e) -> e.rank(whole))
+                        .thenComparing(e -> e.name == null ? "" : e.name, String.CASE_INSENSITIVE_ORDER)
+                        .thenComparing(e -> e.userId))
+                .limit(limit)
+                .map(Entry::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    // ---------------- HELPERS ----------------
+
+    private static String bucketKey(Long schoolId, User.Role role) {
+        return schoolId + ":" + role;
+    }
+
+    private static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> out = new ArrayList<>();
+        for (String w : text.toLowerCase(Locale.ROOT).split("[\\s,;]+")) {
+            if (!w.isEmpty()) {
+                out.add(w);
+            }
+        }
+        return out;
+    }
+
+    private static final class Entry {
+        final Long userId;
+        final String name;
+        final String email;
+        final User.Role role;
+        final ApprovalStatus status;
+        final Long schoolId;
+        final Long classroomId;
+        final String lowerName;
+        final String lowerEmail;
+        final Set<String> tokens = new LinkedHashSet<>();
+
+        Entry(Long userId, String name, String email, User.Role role, ApprovalStatus status,
+              Long schoolId, Long classroomId) {
+            this.userId = userId;
+            this.name = name;
+            this.email = email;
+            this.role = role;
+            this.status = status;
+            this.schoolId = schoolId;
+            this.classroomId = classroomId;
+            this.lowerName = name == null ? "" : String.join(" ", words(name));
+            this.lowerEmail = email == null ? "" : email.toLowerCase(Locale.ROOT);
+
+            if (!lowerName.isEmpty()) {
+                tokens.add(lowerName);
+                tokens.addAll(words(lowerName));
+            }
+            if (!lowerEmail.isEmpty()) {
+                tokens.add(lowerEmail);
+                int at = lowerEmail.indexOf('@');
+                if (at > 0) {
+                    tokens.add(lowerEmail.substring(0, at));
+                }
+            }
+        }
+
+        boolean matchesAll(List<String> queryWords) {
+            for (String w : queryWords) {
+                boolean hit = false;
+                for (String t : tokens) {
+                    if (t.startsWith(w)) {
+                        hit = true;
+                        break;
+                    }
+                }
+                if (!hit) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 0 = whole name starts with the query, 1 = email starts with it, 2 = word-level match
+        int rank(String whole) {
+            if (lowerName.startsWith(whole)) {
+                return 0;
+            }
+            return lowerEmail.startsWith(whole) ? 1 : 2;
+        }
+
+        UserDTO toDTO() {
+            UserDTO dto = new UserDTO();
+            dto.setUserId(userId);
+            dto.setName(name);
+            dto.setEmail(email);
+            dto.setRole(role != null ? role.name() : null);
+            dto.setApprovalStatus(status != null ? status.name() : null);
+            dto.setSchoolId(schoolId);
+            dto.setClassroomId(classroomId);
+            return dto;
+        }
+    }
+}
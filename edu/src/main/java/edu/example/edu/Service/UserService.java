@@ -1,15 +1,27 @@
 package edu.example.edu.Service;
 
 import java.nio.file.AccessDeniedException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import edu.example.edu.Config.AuthenticatedUser;
+import edu.example.edu.DTO.BulkApprovalRequestDTO;
+import edu.example.edu.DTO.BulkApprovalResultDTO;
 import edu.example.edu.DTO.LoginDTO;
 import edu.example.edu.DTO.RegisterDTO;
 import edu.example.edu.DTO.UserDTO;
+import edu.example.edu.DTO.UserPageDTO;
 import edu.example.edu.Entity.School;
 import edu.example.edu.Entity.User;
 import edu.example.edu.Entity.User.ApprovalStatus;
@@ -21,12 +33,27 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final SchoolRepository schoolRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
-
-    public UserService(UserRepository userRepository, SchoolRepository schoolRepository) {
+    private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserSearchIndex userSearchIndex;
+    private final UserProfileCache userProfileCache;
+
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public UserService(UserRepository userRepository, SchoolRepository schoolRepository,
+                       PasswordEncoder passwordEncoder, TokenRevocationService tokenRevocationService,
+                       UserSearchIndex userSearchIndex, UserProfileCache userProfileCache,
+                       @Value("${users.directory.default-page-size:50}") int defaultPageSize,
+                       @Value("${users.directory.max-page-size:500}") int maxPageSize) {
         this.userRepository = userRepository;
         this.schoolRepository = schoolRepository;
-        this.passwordEncoder = new BCryptPasswordEncoder(); 
+        this.passwordEncoder = passwordEncoder;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userSearchIndex = userSearchIndex;
+        this.userProfileCache = userProfileCache;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     private UserDTO convertToDTO(User user) {
@@ -63,7 +90,9 @@ public class UserService {
             user.setApprovalStatus(ApprovalStatus.PENDING);
         }
 
-        return convertToDTO(userRepository.save(user));
+        User saved = userRepository.save(user);
+        userSearchIndex.upsert(saved);
+        return convertToDTO(saved);
     }
 
     // ✅ Login user
@@ -86,14 +115,91 @@ public class UserService {
         return userRepository.findAll().stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
+    // ✅ Keyset-paginated directory: "after" is the last userId of the previous page (cost does not grow with depth)
+    // Non-ADMIN callers only ever see their own school, whatever schoolId they pass
+    public UserPageDTO getUserDirectory(Long after, Integer limit, Long schoolId, String role, String status,
+                                        Long classroomId, AuthenticatedUser caller) throws AccessDeniedException {
+        if (caller != null && !caller.hasRole("ADMIN")) {
+            if (caller.getSchoolId() == null || (schoolId != null && !schoolId.equals(caller.getSchoolId()))) {
+                throw new AccessDeniedException("You can only list users from your school.");
+            }
+            schoolId = caller.getSchoolId();
+        }
+
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        User.Role roleFilter = role == null || role.isBlank() ? null : User.Role.valueOf(role.trim().toUpperCase());
+        ApprovalStatus statusFilter = status == null || status.isBlank() ? null : ApprovalStatus.valueOf(status.trim().toUpperCase());
+
+        // one extra row tells us whether another page exists without a count(*)
+        List<UserRepository.DirectoryRow> rows = userRepository.findDirectoryPage(
+                after == null ? 0L : after, schoolId, roleFilter, statusFilter, classroomId, Limit.of(pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<UserDTO> items = rows.stream().limit(pageSize).map(UserService::toDTO).collect(Collectors.toList());
+
+        UserPageDTO page = new UserPageDTO();
+        page.setItems(items);
+        page.setHasMore(hasMore);
+        page.setNextCursor(hasMore ? items.get(items.size() - 1).getUserId() : null);
+        return page;
+    }
+
+    // ✅ Typeahead search (in-memory index), same school pinning as the directory
+    public List<UserDTO> searchUsers(String query, Long schoolId, String role, Integer limit,
+                                     AuthenticatedUser caller) throws AccessDeniedException {
+        if (caller != null && !caller.hasRole("ADMIN")) {
+            if (caller.getSchoolId() == null || (schoolId != null && !schoolId.equals(caller.getSchoolId()))) {
+                throw new AccessDeniedException("You can only search users from your school.");
+            }
+            schoolId = caller.getSchoolId();
+        }
+        int topN = limit == null || limit <= 0 ? 10 : Math.min(limit, 100);
+        User.Role roleFilter = role == null || role.isBlank() ? null : User.Role.valueOf(role.trim().toUpperCase());
+        // ADMIN without a school searches everyone, not just the school-less users
+        return schoolId == null
+                ? userSearchIndex.searchAllSchools(roleFilter, query, topN)
+                : userSearchIndex.search(schoolId, roleFilter, query, topN);
+    }
+
+    static UserDTO toDTO(UserRepository.DirectoryRow row) {
+        UserDTO dto = new UserDTO();
+        dto.setUserId(row.getUserId());
+        dto.setName(row.getName());
+        dto.setEmail(row.getEmail());
+        dto.setRole(row.getRole() != null ? row.getRole().name() : null);
+        dto.setApprovalStatus(row.getApprovalStatus() != null ? row.getApprovalStatus().name() : null);
+        dto.setSchoolId(row.getSchoolId());
+        dto.setClassroomId(row.getClassroomId());
+        return dto;
+    }
+
+    public List<UserDTO> getUsersBySchool(Long schoolId) {
+        return userRepository.findBySchool_SchoolId(schoolId).stream().map(this::convertToDTO).collect(Collectors.toList());
+    }
+
+    // ✅ Served from UserProfileCache (projection load on miss)
     public UserDTO getUserById(Long id) {
-        return userRepository.findById(id).map(this::convertToDTO)
-                .orElseThrow(() -> new RuntimeException("User not found with id " + id));
+        UserDTO profile = userProfileCache.get(id);
+        if (profile == null) {
+            throw new RuntimeException("User not found with id " + id);
+        }
+        return profile;
+    }
+
+    // ✅ Many profiles in one call (names next to marks / submissions / substitutions)
+    public List<UserDTO> getUsersByIds(List<Long> ids) {
+        if (ids.size() > 500) {
+            throw new RuntimeException("At most 500 ids per request");
+        }
+        return new ArrayList<>(userProfileCache.getAll(ids).values());
     }
 
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) throw new RuntimeException("User not found with id " + id);
         userRepository.deleteById(id);
+        userSearchIndex.remove(id);
+        userProfileCache.invalidate(id);
+        tokenRevocationService.revokeAllForUser(id, "deleted");
     }
 
     // ✅ Get pending users by school
@@ -112,7 +218,10 @@ public class UserService {
         }
 
         user.setApprovalStatus(ApprovalStatus.APPROVED);
-        return convertToDTO(userRepository.save(user));
+        User saved = userRepository.save(user);
+        userSearchIndex.upsert(saved);
+        userProfileCache.invalidate(userId);
+        return convertToDTO(saved);
     }
 
     // ✅ Reject user (school-admin restricted)
@@ -125,61 +234,118 @@ public class UserService {
         }
 
         user.setApprovalStatus(ApprovalStatus.REJECTED);
-        return convertToDTO(userRepository.save(user));
+        UserDTO saved = convertToDTO(userRepository.save(user));
+        userSearchIndex.upsert(user);
+        userProfileCache.invalidate(userId);
+        tokenRevocationService.revokeAllForUser(userId, "rejected");
+        return saved;
     }
 
 
-    // Update user role (only principal can do this)
-    public UserDTO updateUserRole(Long userId, String newRole, Long principalId) throws AccessDeniedException {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with id " + userId));
+    // ✅ Bulk approve / reject: set-based UPDATEs, the school check is part of the WHERE clause
+    private static final int BULK_CHUNK = 1000;
 
-        User principal = userRepository.findById(principalId)
-                .orElseThrow(() -> new RuntimeException("Principal not found with id " + principalId));
+    @Transactional
+    public BulkApprovalResultDTO bulkUpdateApproval(BulkApprovalRequestDTO request, AuthenticatedUser caller)
+            throws AccessDeniedException {
+        if (caller == null || caller.getSchoolId() == null) {
+            throw new AccessDeniedException("Bulk approval requires a school-scoped account.");
+        }
 
-        // Only principal can change roles
-        if (principal.getRole() != User.Role.PRINCIPAL) {
-            throw new AccessDeniedException("Only principal can change user roles.");
+        String action = request.getAction() == null ? "" : request.getAction().trim().toUpperCase();
+        ApprovalStatus status = switch (action) {
+            case "APPROVE" -> ApprovalStatus.APPROVED;
+            case "REJECT" -> ApprovalStatus.REJECTED;
+            default -> throw new RuntimeException("action must be APPROVE or REJECT");
+        };
+
+        BulkApprovalResultDTO result = new BulkApprovalResultDTO();
+        result.setAction(action);
+        Long schoolId = caller.getSchoolId();
+
+        // Filter mode: every PENDING user of the caller's school (optionally one role), one UPDATE
+        if (request.getUserIds() == null || request.getUserIds().isEmpty()) {
+            User.Role role = request.getRole() == null ? null : User.Role.valueOf(request.getRole().trim().toUpperCase());
+            int updated = userRepository.updatePendingApprovalStatus(schoolId, role, status);
+            if (updated > 0) {
+                afterCommit(() -> {
+                    userSearchIndex.reloadSchool(schoolId);
+                    userProfileCache.invalidateSchool(schoolId);
+                });
+            }
+            result.setRequested(updated);
+            result.setUpdated(updated);
+            result.setRejectedIds(List.of());
+            return result;
         }
 
-        // Only allow changing roles for users in the same school
-        if (!user.getSchool().getSchoolId().equals(principal.getSchool().getSchoolId())) {
-            throw new AccessDeniedException("You can only change roles for users in your school.");
+        // Id mode: one UPDATE per chunk of ids, ids outside the school simply do not match
+        List<Long> ids = request.getUserIds().stream().distinct().collect(Collectors.toList());
+        Set<Long> accepted = new HashSet<>();
+        int updated = 0;
+        for (int i = 0; i < ids.size(); i += BULK_CHUNK) {
+            List<Long> chunk = ids.subList(i, Math.min(i + BULK_CHUNK, ids.size()));
+            updated += userRepository.updateApprovalStatusByIds(chunk, schoolId, status);
+            accepted.addAll(userRepository.findIdsInSchool(chunk, schoolId));
         }
 
-        user.setRole(User.Role.valueOf(newRole.toUpperCase()));
-        return convertToDTO(userRepository.save(user));
-    }
+        afterCommit(() -> {
+            userSearchIndex.updateStatus(accepted, status);
+            userProfileCache.invalidateAll(accepted);
+        });
 
-    public List<UserDTO> bulkRegister(List<RegisterDTO> usersDto) {
-    return usersDto.stream().map(dto -> {
-        if (userRepository.existsByEmail(dto.getEmail())) {
-            // skip duplicates or handle as needed
-            return null;
+        // approved-then-rejected users may still hold tokens
+        if (status == ApprovalStatus.REJECTED && !accepted.isEmpty()) {
+            tokenRevocationService.revokeAllForUsers(accepted, "rejected");
         }
 
-        School school = null;
-        if (dto.getSchoolId() != null) {
-            school = schoolRepository.findById(dto.getSchoolId())
-                    .orElseThrow(() -> new RuntimeException("School not found with id " + dto.getSchoolId()));
+        result.setRequested(ids.size());
+        result.setUpdated(updated);
+        result.setRejectedIds(ids.stream().filter(id -> !accepted.contains(id)).collect(Collectors.toList()));
+        return result;
+    }
+
+    // Caches and the search index follow the bulk UPDATE once it commits: a profile loaded in between
+    // would otherwise be cached with the old status (right away outside a transaction)
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
+    }
 
-        User user = new User();
-        user.setName(dto.getName());
-        user.setEmail(dto.getEmail());
-        user.setPassword(passwordEncoder.encode("123456")); // default password
-        user.setRole(User.Role.valueOf(dto.getRole().toUpperCase()));
-        user.setSchool(school);
+    // Update user role (principal: own school only, admin: any school)
+    // Caller identity comes from the token, so no extra lookup for the principal
+    public UserDTO updateUserRole(Long userId, String newRole, AuthenticatedUser caller) throws AccessDeniedException {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id " + userId));
 
-        if (user.getRole() == User.Role.ADMIN || user.getRole() == User.Role.SCHOOLADMIN) {
-            user.setApprovalStatus(ApprovalStatus.APPROVED);
-        } else {
-            user.setApprovalStatus(ApprovalStatus.PENDING);
+        if (!caller.hasRole("ADMIN")) {
+            // Only principal can change roles
+            if (!caller.hasRole("PRINCIPAL")) {
+                throw new AccessDeniedException("Only principal can change user roles.");
+            }
+
+            // Only allow changing roles for users in the same school
+            if (user.getSchool() == null || !user.getSchool().getSchoolId().equals(caller.getSchoolId())) {
+                throw new AccessDeniedException("You can only change roles for users in your school.");
+            }
         }
 
-        return convertToDTO(userRepository.save(user));
-    }).filter(dto -> dto != null).collect(Collectors.toList());
-}
+        user.setRole(User.Role.valueOf(newRole.trim().toUpperCase()));
+        UserDTO saved = convertToDTO(userRepository.save(user));
+        userSearchIndex.upsert(user);
+        userProfileCache.invalidate(userId);
+        // old tokens still carry the previous role
+        tokenRevocationService.revokeAllForUser(userId, "role change");
+        return saved;
+    }
 
 public String forgotPassword(String email, String newPassword) {
     User user = userRepository.findByEmail(email)
@@ -187,6 +353,7 @@ public String forgotPassword(String email, String newPassword) {
 
     user.setPassword(passwordEncoder.encode(newPassword));
     userRepository.save(user);
+    tokenRevocationService.revokeAllForUser(user.getUserId(), "password change");
 
     return "Password updated successfully";
 }
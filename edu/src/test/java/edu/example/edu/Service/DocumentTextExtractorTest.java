@@ -0,0 +1,221 @@
+package edu.example.edu.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class DocumentTextExtractorTest {
+
+	private static final String CMAP = "/CIDInit /ProcSet findresource begin\n"
+			+ "begincmap\n"
+			+ "1 begincodespacerange\n<0000> <FFFF>\nendcodespacerange\n"
+			+ "2 beginbfchar\n<0001> <0048>\n<0002> <0069>\nendbfchar\n"
+			+ "1 beginbfrange\n<0003> <0005> <0061>\nendbfrange\n"
+			+ "endcmap\n";
+
+	private final DocumentTextExtractor extractor =
+			new DocumentTextExtractor(1000, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+
+	@Test
+	void pdfFlateContentIsDecodedWithTheToUnicodeCMapThatFollowsIt() throws IOException {
+		byte[] pdf = pdf(
+				"BT /F1 12 Tf 72 712 Td <00010002> Tj ET\nBT /F2 12 Tf 72 700 Td (plain words) Tj ET",
+				CMAP);
+
+		assertEquals("Hi\nplain words", extract("notes.pdf", pdf));
+	}
+
+	@Test
+	void pdfBfRangeIsExpanded() throws IOException {
+		byte[] pdf = pdf("BT /F1 12 Tf <000300040005> Tj ET", CMAP);
+
+		assertEquals("abc", extract("range.pdf", pdf));
+	}
+
+	@Test
+	void pdfCMapCodesLongerThanFourBytesAreIgnored() throws IOException {
+		String cmap = CMAP.replace("endbfchar", "<0123456789ABCDEF01> <0041>\nendbfchar")
+				.replace("endbfrange", "<00000000000000000001> <00000000000000000009> <0041>\nendbfrange");
+		byte[] pdf = pdf("BT /F1 12 Tf <00010002> Tj ET", cmap);
+
+		assertEquals("Hi", extract("long-codes.pdf", pdf));
+	}
+
+	@Test
+	void pdfMalformedObjectsAreSkipped() throws IOException {
+		String body = "%PDF-1.4\n"
+				+ "99999999999999 0 obj\n<< /Font << /F1 88888888888888 0 R >> /ToUnicode 77777777777777 0 R >>\nendobj\n"
+				+ "4 0 obj\n<< /Length 34 >>\nstream\nBT /F9 12 Tf (still readable) Tj ET\nendstream\nendobj\n"
+				+ "%%EOF\n";
+
+		assertEquals("still readable", extract("broken.pdf", body.getBytes(StandardCharsets.ISO_8859_1)));
+	}
+
+	@Test
+	void pdfStopsInflatingAtTheCap() throws IOException {
+		DocumentTextExtractor small =
+				new DocumentTextExtractor(1000, DataSize.ofKilobytes(64), DataSize.ofMegabytes(1));
+		ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+		pdf.writeBytes(ascii("%PDF-1.4\n1 0 obj\n<< /Length 5 /Filter /FlateDecode >>\nstream\n"));
+		pdf.writeBytes(deflate(new byte[1024 * 1024]));
+		pdf.writeBytes(ascii("\nendstream\nendobj\n2 0 obj\n<< /Length 20 >>\nstream\nBT (after) Tj ET\nendstream\nendobj\n"));
+
+		assertEquals("", small.extract("bomb.pdf", new ByteArrayInputStream(pdf.toByteArray())));
+	}
+
+	@Test
+	void pdfBufferBudgetIsReturnedAfterEachScan() throws IOException {
+		PdfTextScanner.BufferBudget budget = new PdfTextScanner.BufferBudget(1024);
+		DocumentTextExtractor.TextSink out = new DocumentTextExtractor.TextSink(1000);
+
+		new PdfTextScanner(out, budget, Long.MAX_VALUE).scan(new ByteArrayInputStream(pdf("BT (held) Tj ET", CMAP)));
+
+		assertEquals("held", out.toString());
+		assertEquals(1024, budget.available());
+	}
+
+	@Test
+	void pdfContentIsParsedAtOnceWhenTheBudgetIsSpent() throws IOException {
+		PdfTextScanner.BufferBudget budget = new PdfTextScanner.BufferBudget(0);
+		DocumentTextExtractor.TextSink out = new DocumentTextExtractor.TextSink(1000);
+
+		new PdfTextScanner(out, budget, Long.MAX_VALUE).scan(new ByteArrayInputStream(pdf("BT (not held) Tj ET", CMAP)));
+
+		assertEquals("not held", out.toString());
+	}
+
+	@Test
+	void docxParagraphsBecomeLines() throws IOException {
+		byte[] docx = zip(
+				"[Content_Types].xml", "<Types/>",
+				"word/document.xml", "<w:document xmlns:w=\"urn:w\"><w:body>"
+						+ "<w:p><w:r><w:t>First</w:t></w:r><w:r><w:t xml:space=\"preserve\"> paragraph</w:t></w:r></w:p>"
+						+ "<w:p><w:r><w:t>Second</w:t></w:r></w:p></w:body></w:document>",
+				"word/styles.xml", "<w:styles xmlns:w=\"urn:w\"><w:t>not body text</w:t></w:styles>");
+
+		assertEquals("First paragraph\nSecond", extract("report.docx", docx));
+	}
+
+	@Test
+	void pptxReadsEverySlide() throws IOException {
+		byte[] pptx = zip(
+				"ppt/presentation.xml", "<p:presentation xmlns:p=\"urn:p\"/>",
+				"ppt/slides/slide1.xml", "<p:sld xmlns:p=\"urn:p\" xmlns:a=\"urn:a\"><a:p><a:r><a:t>Title</a:t></a:r></a:p></p:sld>",
+				"ppt/slides/slide2.xml", "<p:sld xmlns:p=\"urn:p\" xmlns:a=\"urn:a\"><a:p><a:r><a:t>Body</a:t></a:r></a:p></p:sld>",
+				"ppt/notesSlides/notesSlide1.xml", "<p:notes xmlns:p=\"urn:p\" xmlns:a=\"urn:a\"><a:t>speaker</a:t></p:notes>");
+
+		assertEquals("Title\nBody", extract("lecture.pptx", pptx));
+	}
+
+	@Test
+	void zipEntriesThatAreOnlySkippedCountTowardsTheCap() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.setLevel(Deflater.BEST_COMPRESSION);
+			zip.putNextEntry(new ZipEntry("word/media/padding.bin"));
+			zip.write(new byte[8 * 1024 * 1024]);
+			zip.closeEntry();
+			zip.putNextEntry(new ZipEntry("word/document.xml"));
+			zip.write(ascii("<w:document xmlns:w=\"urn:w\"><w:p><w:t>late</w:t></w:p></w:document>"));
+			zip.closeEntry();
+		}
+
+		assertEquals("", extract("bomb.docx", bytes.toByteArray()));
+	}
+
+	@Test
+	void textBeforeTheCapIsKept() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.putNextEntry(new ZipEntry("word/document.xml"));
+			zip.write(ascii("<w:document xmlns:w=\"urn:w\"><w:p><w:t>early</w:t></w:p></w:document>"));
+			zip.closeEntry();
+			zip.putNextEntry(new ZipEntry("word/media/padding.bin"));
+			zip.write(new byte[8 * 1024 * 1024]);
+			zip.closeEntry();
+		}
+
+		assertEquals("early", extract("bomb.docx", bytes.toByteArray()));
+	}
+
+	@Test
+	void txtIsCollapsedAndCapped() throws IOException {
+		DocumentTextExtractor capped = new DocumentTextExtractor(12, DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+		byte[] txt = "  Übung\t\t1\r\n\n\nLösungen folgen  ".getBytes(StandardCharsets.UTF_8);
+
+		assertEquals("Übung 1\nLösungen folgen", extract("ex.txt", txt));
+		assertEquals("Übung 1\nLösu", capped.extract("ex.txt", new ByteArrayInputStream(txt)));
+	}
+
+	@Test
+	void onlyKnownExtensionsAreSupported() {
+		assertTrue(extractor.supports("Slides.PPTX"));
+		assertFalse(extractor.supports("sheet.xlsx"));
+		assertFalse(extractor.supports("README"));
+	}
+
+	// ---------------- HELPERS ----------------
+
+	private String extract(String fileName, byte[] content) throws IOException {
+		return extractor.extract(fileName, new ByteArrayInputStream(content));
+	}
+
+	// One page whose Flate content uses /F1 (Type0 with a ToUnicode CMap) and /F2; the fonts and the
+	// CMap come after the content, as most generators write them
+	private static byte[] pdf(String content, String cmap) {
+		byte[] deflated = deflate(ascii(content));
+		ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+		pdf.writeBytes(ascii("%PDF-1.4\n"
+				+ "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n"
+				+ "2 0 obj\n<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n"
+				+ "3 0 obj\n<< /Type /Page /Parent 2 0 R /Resources << /Font << /F1 5 0 R /F2 7 0 R >> >> /Contents 4 0 R >>\nendobj\n"
+				+ "4 0 obj\n<< /Length " + deflated.length + " /Filter /FlateDecode >>\nstream\n"));
+		pdf.writeBytes(deflated);
+		pdf.writeBytes(ascii("\nendstream\nendobj\n"
+				+ "5 0 obj\n<< /Type /Font /Subtype /Type0 /BaseFont /ABCDEF+Sans /ToUnicode 6 0 R >>\nendobj\n"
+				+ "6 0 obj\n<< /Length " + cmap.length() + " >>\nstream\n" + cmap + "\nendstream\nendobj\n"
+				+ "7 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>\nendobj\n"
+				+ "trailer\n<< /Root 1 0 R >>\n%%EOF\n"));
+		return pdf.toByteArray();
+	}
+
+	private static byte[] zip(String... namesAndContents) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			for (int i = 0; i < namesAndContents.length; i += 2) {
+				zip.putNextEntry(new ZipEntry(namesAndContents[i]));
+				zip.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		deflater.setInput(data);
+		deflater.finish();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		while (!deflater.finished()) {
+			out.write(buf, 0, deflater.deflate(buf));
+		}
+		deflater.end();
+		return out.toByteArray();
+	}
+
+	private static byte[] ascii(String s) {
+		return s.getBytes(StandardCharsets.ISO_8859_1);
+	}
+}
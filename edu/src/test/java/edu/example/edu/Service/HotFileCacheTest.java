@@ -0,0 +1,109 @@
+package edu.example.edu.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import edu.example.edu.Service.FileStorageService.Area;
+import edu.example.edu.Service.FileStorageService.StoredFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class HotFileCacheTest {
+
+	private static final String HASH = "ab".repeat(32);
+	private static final byte[] CONTENT = "handout".getBytes(StandardCharsets.UTF_8);
+
+	private final HotFileCache cache = new HotFileCache(true, DataSize.ofMegabytes(1), DataSize.ofKilobytes(64),
+			new SimpleMeterRegistry());
+
+	@Test
+	void concurrentMissesShareOneLoad() throws Exception {
+		BlobStore store = mock(BlobStore.class);
+		CountDownLatch release = new CountDownLatch(1);
+		when(store.open(eq(HASH), anyLong(), anyLong())).thenAnswer(call -> {
+			release.await(5, TimeUnit.SECONDS);   // keep the first load running while the others miss
+			return new ByteArrayInputStream(CONTENT);
+		});
+		StoredFile file = new StoredFile(CONTENT.length, 1000, null, HASH, store);
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<HotFileCache.Entry>> loads = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				loads.add(pool.submit(() -> cache.load(Area.ASSIGNMENTS, HASH + "_a.txt", file)));
+			}
+			Thread.sleep(200);
+			release.countDown();
+			HotFileCache.Entry first = loads.get(0).get(5, TimeUnit.SECONDS);
+			for (Future<HotFileCache.Entry> load : loads) {
+				assertSame(first, load.get(5, TimeUnit.SECONDS));
+			}
+			verify(store, times(1)).open(eq(HASH), anyLong(), anyLong());
+			assertEquals("handout", StandardCharsets.UTF_8.decode(first.getData().duplicate()).toString());
+		} finally {
+			pool.shutdownNow();
+		}
+		assertNotNull(cache.get(Area.ASSIGNMENTS, HASH + "_a.txt"));
+	}
+
+	@Test
+	void failedLoadIsNotRemembered() throws IOException {
+		BlobStore store = mock(BlobStore.class);
+		when(store.open(eq(HASH), anyLong(), anyLong()))
+				.thenThrow(new IOException("blob store down"))
+				.thenReturn(new ByteArrayInputStream(CONTENT));
+		StoredFile file = new StoredFile(CONTENT.length, 1000, null, HASH, store);
+
+		assertThrows(IOException.class, () -> cache.load(Area.SYLLABUS, HASH + "_s.txt", file));
+		assertEquals(CONTENT.length, cache.load(Area.SYLLABUS, HASH + "_s.txt", file).size());
+	}
+
+	@Test
+	void filesOverTheLimitAreNotLoaded() throws IOException {
+		BlobStore store = mock(BlobStore.class);
+		StoredFile big = new StoredFile(DataSize.ofKilobytes(65).toBytes(), 1000, null, HASH, store);
+		assertNull(cache.load(Area.ASSIGNMENTS, HASH + "_big.bin", big));
+		verify(store, never()).open(eq(HASH), anyLong(), anyLong());
+	}
+
+	@Test
+	void windowVictimLargerThanTheMainSpaceIsDropped() throws IOException {
+		// 100 KB with 64 KB files: 64 KB window, 36 KB main space
+		HotFileCache small = new HotFileCache(true, DataSize.ofKilobytes(100), DataSize.ofKilobytes(64),
+				new SimpleMeterRegistry());
+		BlobStore store = mock(BlobStore.class);
+		int size = (int) DataSize.ofKilobytes(40).toBytes();
+		when(store.open(eq(HASH), anyLong(), anyLong()))
+				.thenAnswer(call -> new ByteArrayInputStream(new byte[size]));
+		StoredFile file = new StoredFile(size, 1000, null, HASH, store);
+
+		small.load(Area.ASSIGNMENTS, HASH + "_1.bin", file);
+		small.load(Area.ASSIGNMENTS, HASH + "_2.bin", file);
+
+		assertNull(small.get(Area.ASSIGNMENTS, HASH + "_1.bin"));
+		assertNotNull(small.get(Area.ASSIGNMENTS, HASH + "_2.bin"));
+	}
+}
@@ -0,0 +1,226 @@
+package edu.example.edu.Service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MultipartStreamReaderTest {
+
+	private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+	// MultipartStreamReader.BUFFER_SIZE
+	private static final int BUFFER = 64 * 1024;
+
+	@Test
+	void readsFieldsAndFile() throws IOException {
+		byte[] body = body("", part("title", null, "Week 1"), part("file", "a.txt", "hello"), "");
+		Map<String, String> parts = readAll(new ByteArrayInputStream(body));
+		assertEquals(Map.of("title", "Week 1", "file:a.txt", "hello"), parts);
+	}
+
+	@Test
+	void fieldsInEitherOrder() throws IOException {
+		Map<String, String> fileFirst = readAll(new ByteArrayInputStream(
+				body("", part("file", "a.txt", "x"), part("title", null, "t"), "")));
+		Map<String, String> fieldFirst = readAll(new ByteArrayInputStream(
+				body("", part("title", null, "t"), part("file", "a.txt", "x"), "")));
+		assertEquals(fieldFirst, fileFirst);
+		assertEquals(2, fileFirst.size());
+	}
+
+	@Test
+	void ignoresPreambleAndEpilogue() throws IOException {
+		byte[] body = body("This is the preamble.\r\nIt is to be ignored.\r\n",
+				part("title", null, "t"), "\r\nThis is the epilogue, also ignored.\r\n--" + BOUNDARY + "\r\n");
+		assertEquals(Map.of("title", "t"), readAll(new ByteArrayInputStream(body)));
+	}
+
+	@Test
+	void keepsCrlfAndDashesInsideContent() throws IOException {
+		String tricky = "line\r\n--\r\n--" + BOUNDARY.substring(0, 20) + "\r\n\r\n--" + BOUNDARY.substring(2) + "\r\n-";
+		byte[] body = body("", part("file", "a.txt", tricky), part("title", null, "\r\n--"), "");
+		Map<String, String> parts = readAll(new ByteArrayInputStream(body));
+		assertEquals(tricky, parts.get("file:a.txt"));
+		assertEquals("\r\n--", parts.get("title"));
+	}
+
+	@Test
+	void emptyPartBodyAndNoHeaders() throws IOException {
+		String noHeaders = "--" + BOUNDARY + "\r\n\r\nraw\r\n";
+		byte[] body = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"empty\"\r\n\r\n\r\n"
+				+ noHeaders + "--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+		MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(body), BOUNDARY);
+		assertTrue(reader.nextPart());
+		reader.headers();
+		assertEquals(0, reader.body().readAllBytes().length);
+		assertTrue(reader.nextPart());
+		assertTrue(reader.headers().isEmpty());
+		assertEquals("raw", new String(reader.body().readAllBytes(), StandardCharsets.ISO_8859_1));
+		assertFalse(reader.nextPart());
+		assertFalse(reader.nextPart());
+	}
+
+	// the delimiter straddles the buffer end at every offset around BUFFER_SIZE, fed in odd-sized reads
+	@Test
+	void boundarySplitAcrossReadBuffers() throws IOException {
+		Random random = new Random(7);
+		String headers = "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"b.bin\"\r\n\r\n";
+		int firstBodyByte = 2 + headers.length();   // the reader's own leading CRLF comes first
+		for (int shift = -BOUNDARY.length() - 6; shift <= 6; shift++) {
+			byte[] content = new byte[BUFFER - firstBodyByte + shift];
+			random.nextBytes(content);
+			for (int i = 0; i < content.length; i++) {
+				if (content[i] == '\r') {
+					content[i] = 'r';   // random bytes must not start a delimiter by themselves
+				}
+			}
+			byte[] body = concat(headers.getBytes(StandardCharsets.ISO_8859_1), content,
+					("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+			for (InputStream in : new InputStream[] { new ByteArrayInputStream(body), new Trickle(body, 1 + (shift & 7)) }) {
+				MultipartStreamReader reader = new MultipartStreamReader(in, BOUNDARY);
+				assertTrue(reader.nextPart());
+				reader.headers();
+				assertArrayEquals(content, reader.body().readAllBytes(), "shift " + shift);
+				assertFalse(reader.nextPart());
+			}
+		}
+	}
+
+	@Test
+	void largeFileInTinyReads() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; sb.length() < 3 * BUFFER; i++) {
+			sb.append("row ").append(i).append("\r\n--").append(i % 10 == 0 ? BOUNDARY.substring(0, i % 40) : "").append('\n');
+		}
+		String content = sb.toString();
+		byte[] body = body("", part("file", "big.txt", content), part("title", null, "t"), "");
+		assertEquals(content, readAll(new Trickle(body, 3)).get("file:big.txt"));
+	}
+
+	@Test
+	void missingClosingBoundaryFails() {
+		byte[] body = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"title\"\r\n\r\nvalue\r\n")
+				.getBytes(StandardCharsets.ISO_8859_1);
+		assertThrows(EOFException.class, () -> readAll(new ByteArrayInputStream(body)));
+	}
+
+	@Test
+	void bodyEndingAfterBoundaryFails() {
+		byte[] body = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"title\"\r\n\r\nvalue\r\n--" + BOUNDARY)
+				.getBytes(StandardCharsets.ISO_8859_1);
+		assertThrows(EOFException.class, () -> readAll(new ByteArrayInputStream(body)));
+	}
+
+	@Test
+	void truncatedHeadersFail() {
+		byte[] body = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; na")
+				.getBytes(StandardCharsets.ISO_8859_1);
+		assertThrows(EOFException.class, () -> readAll(new ByteArrayInputStream(body)));
+	}
+
+	@Test
+	void emptyBodyFails() {
+		assertThrows(EOFException.class, () -> readAll(new ByteArrayInputStream(new byte[0])));
+	}
+
+	@Test
+	void oversizedHeadersFail() {
+		String longValue = "x".repeat(9 * 1024);
+		byte[] body = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + longValue + "\"\r\n\r\nv\r\n--"
+				+ BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+		IOException e = assertThrows(IOException.class, () -> readAll(new ByteArrayInputStream(body)));
+		assertEquals("Multipart part headers too large", e.getMessage());
+	}
+
+	@Test
+	void garbageAfterBoundaryFails() {
+		byte[] body = ("--" + BOUNDARY + "junk\r\n\r\nv\r\n--" + BOUNDARY + "--").getBytes(StandardCharsets.ISO_8859_1);
+		assertThrows(IOException.class, () -> readAll(new ByteArrayInputStream(body)));
+	}
+
+	@Test
+	void parsesHeaderParams() {
+		assertEquals(BOUNDARY, MultipartStreamReader.boundaryOf("multipart/form-data; boundary=" + BOUNDARY));
+		assertEquals("a b", MultipartStreamReader.boundaryOf("multipart/form-data; charset=utf-8; boundary=\"a b\""));
+		assertNull(MultipartStreamReader.boundaryOf("multipart/form-data"));
+		assertNull(MultipartStreamReader.boundaryOf("multipart/form-data; boundary=" + "x".repeat(71)));
+		String disposition = "form-data; name=\"file\"; filename=\"r\\\"e;port.pdf\"";
+		assertEquals("file", MultipartStreamReader.headerParam(disposition, "name"));
+		assertEquals("r\"e;port.pdf", MultipartStreamReader.headerParam(disposition, "filename"));
+		assertNull(MultipartStreamReader.headerParam("form-data; name=\"title\"", "filename"));
+	}
+
+	// ---------------- HELPERS ----------------
+
+	// name -> value for fields, "name:filename" -> content for files
+	private static Map<String, String> readAll(InputStream in) throws IOException {
+		MultipartStreamReader reader = new MultipartStreamReader(in, BOUNDARY);
+		Map<String, String> parts = new LinkedHashMap<>();
+		while (reader.nextPart()) {
+			String disposition = reader.headers().get("content-disposition");
+			String name = MultipartStreamReader.headerParam(disposition, "name");
+			String fileName = MultipartStreamReader.headerParam(disposition, "filename");
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			InputStream body = reader.body();
+			byte[] chunk = new byte[1000];
+			int n;
+			while ((n = body.read(chunk, 0, chunk.length)) != -1) {
+				out.write(chunk, 0, n);
+			}
+			parts.put(fileName == null ? name : name + ":" + fileName, out.toString(StandardCharsets.ISO_8859_1));
+		}
+		return parts;
+	}
+
+	private static String part(String name, String fileName, String content) {
+		return "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\""
+				+ (fileName != null ? "; filename=\"" + fileName + "\"\r\nContent-Type: application/octet-stream" : "")
+				+ "\r\n\r\n" + content + "\r\n";
+	}
+
+	private static byte[] body(String preamble, String... partsAndEpilogue) {
+		StringBuilder sb = new StringBuilder(preamble);
+		for (int i = 0; i < partsAndEpilogue.length - 1; i++) {
+			sb.append(partsAndEpilogue[i]);
+		}
+		sb.append("--").append(BOUNDARY).append("--").append(partsAndEpilogue[partsAndEpilogue.length - 1]);
+		return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	private static byte[] concat(byte[]... arrays) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] a : arrays) {
+			out.writeBytes(a);
+		}
+		return out.toByteArray();
+	}
+
+	// Hands out at most `step` bytes per read, like a slow client
+	private static final class Trickle extends ByteArrayInputStream {
+		private final int step;
+
+		Trickle(byte[] data, int step) {
+			super(data);
+			this.step = step;
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) {
+			return super.read(b, off, Math.min(len, step));
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package edu.example.edu.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+
+import edu.example.edu.Service.FileStorageService.Area;
+import edu.example.edu.Service.MultipartUploadService.StreamedUpload;
+import edu.example.edu.Service.MultipartUploadService.UploadRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MultipartUploadServiceTest {
+
+	private static final String BOUNDARY = "XyZ123";
+	private static final int MAX_FILE = 1000;
+	private static final int MAX_REQUEST = 4000;
+
+	private FileStorageService storage;
+	private MultipartUploadService service;
+	private final AtomicLong storedBytes = new AtomicLong(-1);
+
+	@BeforeEach
+	void setUp() throws IOException {
+		storage = mock(FileStorageService.class);
+		// drain like the real store() does, so the caps fire while "storing"
+		when(storage.store(any(), any(), any())).thenAnswer(call -> {
+			storedBytes.set(call.getArgument(2, InputStream.class).transferTo(OutputStream.nullOutputStream()));
+			return "/api/syllabus/files/" + "0".repeat(64) + "_" + call.getArgument(1);
+		});
+		service = new MultipartUploadService(storage, DataSize.ofBytes(MAX_FILE), DataSize.ofBytes(MAX_REQUEST),
+				"pdf,txt", new SimpleMeterRegistry());
+	}
+
+	@Test
+	void storesFileAndReadsFieldsAroundIt() throws IOException {
+		StreamedUpload upload = service.receive(request(false,
+				field("title", "T"), file("notes.txt", "hello".getBytes(StandardCharsets.UTF_8)), field("moduleName", "M")),
+				Area.SYLLABUS, "file");
+		assertEquals("T", upload.requiredField("title"));
+		assertEquals("M", upload.requiredField("moduleName"));
+		assertEquals("notes.txt", upload.getFileName());
+		assertEquals(5, upload.getSize());
+		assertEquals(5, storedBytes.get());
+	}
+
+	@Test
+	void fileOverTheCapIsRejectedMidPart() {
+		byte[] content = "a".repeat(MAX_FILE + 1).getBytes(StandardCharsets.UTF_8);
+		UploadRejectedException e = assertThrows(UploadRejectedException.class, () -> service.receive(
+				request(false, file("big.txt", content), field("title", "T")), Area.SYLLABUS, "file"));
+		assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatusCode());
+		assertEquals(-1, storedBytes.get());   // the store never finished
+	}
+
+	@Test
+	void fileExactlyAtTheCapIsStored() throws IOException {
+		byte[] content = "a".repeat(MAX_FILE).getBytes(StandardCharsets.UTF_8);
+		StreamedUpload upload = service.receive(request(false, file("ok.txt", content)), Area.SYLLABUS, "file");
+		assertEquals(MAX_FILE, upload.getSize());
+	}
+
+	@Test
+	void requestOverTheCapWithoutContentLengthIsRejectedWhileReading() {
+		// chunked request: only the running count can catch it; the skipped part alone is over the limit
+		byte[] skipped = "b".repeat(MAX_REQUEST).getBytes(StandardCharsets.UTF_8);
+		UploadRejectedException e = assertThrows(UploadRejectedException.class, () -> service.receive(
+				request(false, file("other", "x.txt", skipped), field("title", "T")), Area.SYLLABUS, "file"));
+		assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatusCode());
+	}
+
+	@Test
+	void requestOverTheCapIsRejectedUpFront() throws IOException {
+		MockHttpServletRequest request = request(true, field("pad", "p".repeat(MAX_REQUEST)));
+		UploadRejectedException e = assertThrows(UploadRejectedException.class,
+				() -> service.receive(request, Area.SYLLABUS, "file"));
+		assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatusCode());
+		verify(storage, never()).store(any(), any(), any());
+	}
+
+	@Test
+	void contentNotMatchingTheExtensionIsRejected() throws IOException {
+		UploadRejectedException e = assertThrows(UploadRejectedException.class, () -> service.receive(
+				request(false, file("fake.pdf", "not a pdf".getBytes(StandardCharsets.UTF_8))), Area.SYLLABUS, "file"));
+		assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatusCode());
+		verify(storage, never()).store(any(), any(), any());
+	}
+
+	@Test
+	void extensionNotAllowedIsRejected() {
+		UploadRejectedException e = assertThrows(UploadRejectedException.class, () -> service.receive(
+				request(false, file("run.exe", new byte[] { 'M', 'Z' })), Area.SYLLABUS, "file"));
+		assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatusCode());
+	}
+
+	@Test
+	void emptyFilePartMeansNoFile() throws IOException {
+		StreamedUpload upload = service.receive(request(false, file("", new byte[0]), field("title", "T")),
+				Area.SYLLABUS, "file");
+		assertNull(upload.getFileLink());
+		assertEquals("T", upload.field("title"));
+		verify(storage, never()).store(eq(Area.SYLLABUS), any(), any());
+	}
+
+	@Test
+	void notMultipartIsRejected() {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/syllabus");
+		request.setContentType("application/json");
+		request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+		UploadRejectedException e = assertThrows(UploadRejectedException.class,
+				() -> service.receive(request, Area.SYLLABUS, "file"));
+		assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, e.getStatusCode());
+	}
+
+	// ---------------- HELPERS ----------------
+
+	private static byte[] field(String name, String value) {
+		return ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n")
+				.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] file(String fileName, byte[] content) {
+		return file("file", fileName, content);
+	}
+
+	private static byte[] file(String name, String fileName, byte[] content) {
+		byte[] head = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\"; filename=\""
+				+ fileName + "\"\r\nContent-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8);
+		byte[] part = new byte[head.length + content.length + 2];
+		System.arraycopy(head, 0, part, 0, head.length);
+		System.arraycopy(content, 0, part, head.length, content.length);
+		part[part.length - 2] = '\r';
+		part[part.length - 1] = '\n';
+		return part;
+	}
+
+	// withLength = false behaves like a chunked request (no Content-Length)
+	private static MockHttpServletRequest request(boolean withLength, byte[]... parts) {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		for (byte[] p : parts) {
+			body.writeBytes(p);
+		}
+		body.writeBytes(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/syllabus") {
+			@Override
+			public long getContentLengthLong() {
+				return withLength ? super.getContentLengthLong() : -1;
+			}
+		};
+		request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+		request.setContent(body.toByteArray());
+		return request;
+	}
+}
@@ -0,0 +1,499 @@
+package edu.example.edu.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.example.edu.Service.BlobStore.BlobInfo;
+
+// S3BlobStore against an in-process S3 stand-in that checks every SigV4 signature the way S3 does
+class S3BlobStoreTest {
+
+	private static final String BUCKET = "edu-files";
+	private static final String REGION = "eu-west-1";
+	private static final String ACCESS_KEY = "AKIDTEST";
+	private static final String SECRET_KEY = "secret/key+test";
+	private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+	@TempDir
+	Path spool;
+
+	private StubS3 s3;
+	private S3BlobStore store;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		s3 = new StubS3();
+		store = new S3BlobStore("http://127.0.0.1:" + s3.port() + "/", BUCKET, REGION, ACCESS_KEY, SECRET_KEY, "edu",
+				true, true, 300, 10, spool.toString());
+	}
+
+	@AfterEach
+	void tearDown() {
+		s3.stop();
+	}
+
+	@Test
+	void putSendsTheContentHashAndStatReadsItBack() throws IOException {
+		byte[] content = "week 1 handout".getBytes(StandardCharsets.UTF_8);
+		String sha256 = put(content);
+
+		assertEquals("edu/blobs/" + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256,
+				s3.objects.firstKey());
+		BlobInfo info = store.stat(sha256);
+		assertEquals(content.length, info.size());
+		assertTrue(info.lastModified() > 0);
+		assertNull(store.stat("0".repeat(64)));
+		assertTrue(Files.list(spool).findAny().isEmpty(), "spooled file is consumed");
+	}
+
+	@Test
+	void putWithWrongHashIsRejectedByTheStore() throws IOException {
+		Path spooled = store.newSpoolFile();
+		Files.writeString(spooled, "tampered");
+		IOException e = assertThrows(IOException.class, () -> store.put("ab".repeat(32), spooled));
+		assertTrue(e.getMessage().contains("400"), e.getMessage());
+		assertTrue(s3.objects.isEmpty());
+	}
+
+	@Test
+	void openReadsRanges() throws IOException {
+		String sha256 = put("0123456789".getBytes(StandardCharsets.UTF_8));
+		try (InputStream in = store.open(sha256, 3, 4)) {
+			assertEquals("3456", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		try (InputStream in = store.open(sha256, 0, -1)) {
+			assertEquals("0123456789", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		assertThrows(NoSuchFileException.class, () -> store.open("0".repeat(64), 0, -1));
+	}
+
+	@Test
+	void listPagesWithStartAfter() throws IOException {
+		List<String> hashes = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			hashes.add(put(("file " + i).getBytes(StandardCharsets.UTF_8)));
+		}
+		hashes.sort(null);
+
+		List<BlobInfo> first = store.list(null, 2);
+		assertEquals(hashes.subList(0, 2), first.stream().map(BlobInfo::sha256).toList());
+		List<BlobInfo> rest = store.list(first.get(1).sha256(), 10);
+		assertEquals(hashes.subList(2, 5), rest.stream().map(BlobInfo::sha256).toList());
+		assertEquals(6, rest.get(0).size());
+	}
+
+	@Test
+	void quarantineAndRestoreCopyTheObject() throws IOException {
+		String sha256 = put("orphan".getBytes(StandardCharsets.UTF_8));
+
+		store.quarantine(sha256);
+		assertNull(store.stat(sha256));
+		assertEquals(List.of(sha256), store.listQuarantined(null, 10).stream().map(BlobInfo::sha256).toList());
+		assertTrue(store.list(null, 10).isEmpty());
+
+		store.restore(sha256);
+		assertEquals(6, store.stat(sha256).size());
+		assertTrue(store.listQuarantined(null, 10).isEmpty());
+
+		store.quarantine(sha256);
+		store.deleteQuarantined(sha256);
+		assertTrue(s3.objects.isEmpty());
+	}
+
+	@Test
+	void copyFailureReportedInsideA200IsAnError() throws IOException {
+		String sha256 = put("orphan".getBytes(StandardCharsets.UTF_8));
+		s3.copyErrorInBody = true;
+		assertThrows(IOException.class, () -> store.quarantine(sha256));
+		assertEquals(6, store.stat(sha256).size(), "source is kept when the copy failed");
+	}
+
+	@Test
+	void presignedDownloadIsAcceptedByTheStore() throws Exception {
+		String sha256 = put("slides".getBytes(StandardCharsets.UTF_8));
+		URI url = store.downloadUrl(sha256, "Week 1 – slides.pdf", "application/pdf");
+
+		assertTrue(url.getRawQuery().contains("X-Amz-Signature="));
+		HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(url).build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, response.statusCode(), response.body());
+		assertEquals("slides", response.body());
+		assertEquals("application/pdf", response.headers().firstValue("Content-Type").orElse(null));
+		assertTrue(response.headers().firstValue("Content-Disposition").orElse("").contains("filename*=UTF-8''"));
+
+		URI tampered = URI.create(url.toString().replace("response-content-type=application%2Fpdf", "response-content-type=text%2Fhtml"));
+		assertEquals(403, HttpClient.newHttpClient().send(HttpRequest.newBuilder(tampered).build(),
+				HttpResponse.BodyHandlers.discarding()).statusCode());
+	}
+
+	@Test
+	void partsAreConcatenatedInTheGivenOrderAndDeletedTogether() throws IOException {
+		writePart("u1", "0000000000000000-aaaa", "hello ");
+		writePart("u1", "0000000000000006-bbbb", "world");
+		writePart("u1", "0000000000000006-cccc", "lost race");
+		writePart("u2", "0000000000000000-dddd", "other upload");
+
+		try (InputStream in = store.openParts("u1", List.of("0000000000000000-aaaa", "0000000000000006-bbbb"))) {
+			assertEquals("hello world", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		store.deleteParts("u1");
+		assertEquals(List.of("edu/uploads/u2/0000000000000000-dddd"), List.copyOf(s3.objects.keySet()));
+	}
+
+	@Test
+	void slowDownAndInternalErrorsAreRetried() throws IOException {
+		String sha256 = put("retry me".getBytes(StandardCharsets.UTF_8));
+		s3.failNext(2, 503, "SlowDown");
+		assertEquals(8, store.stat(sha256).size());
+		s3.failNext(1, 500, "InternalError");
+		try (InputStream in = store.open(sha256, 0, -1)) {
+			assertEquals("retry me", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+		s3.failNext(1, 503, "SlowDown");
+		assertEquals(sha256, put("retry me".getBytes(StandardCharsets.UTF_8)));   // the file body is sent again
+
+		s3.failNext(10, 503, "SlowDown");
+		IOException e = assertThrows(IOException.class, () -> store.stat(sha256));
+		assertTrue(e.getMessage().contains("503"), e.getMessage());
+		assertEquals(6, s3.failuresLeft.get(), "gives up after 4 attempts");
+	}
+
+	@Test
+	void clientErrorsAreNotRetried() throws IOException {
+		s3.failNext(3, 403, "AccessDenied");
+		assertThrows(IOException.class, () -> store.stat("0".repeat(64)));
+		assertEquals(2, s3.failuresLeft.get());
+	}
+
+	@Test
+	void hostHeaderLeavesOutTheDefaultPort() {
+		assertEquals("s3.example.com", S3BlobStore.hostHeader(URI.create("https://s3.example.com:443/b/k")));
+		assertEquals("s3.example.com", S3BlobStore.hostHeader(URI.create("http://s3.example.com:80/b/k")));
+		assertEquals("s3.example.com", S3BlobStore.hostHeader(URI.create("https://s3.example.com/b/k")));
+		assertEquals("minio:9000", S3BlobStore.hostHeader(URI.create("http://minio:9000/b/k")));
+		assertEquals("minio:80", S3BlobStore.hostHeader(URI.create("https://minio:80/b/k")));
+	}
+
+	// ---------------- HELPERS ----------------
+
+	private String put(byte[] content) throws IOException {
+		String sha256 = HexFormat.of().formatHex(FileStorageService.newSha256().digest(content));
+		Path spooled = store.newSpoolFile();
+		Files.write(spooled, content);
+		store.put(sha256, spooled);
+		return sha256;
+	}
+
+	private void writePart(String uploadId, String partName, String content) throws IOException {
+		Path chunk = store.newSpoolFile();
+		Files.writeString(chunk, content);
+		store.writePart(uploadId, partName, chunk);
+	}
+
+	/**
+	 * Path-style S3 subset: PUT (plain and x-amz-copy-source), GET (object with Range, ListObjectsV2),
+	 * HEAD, DELETE. Rejects with 403 any request whose header or query signature does not verify,
+	 * and with 400 a signed payload hash that does not match the body.
+	 */
+	private static final class StubS3 {
+		private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+		private record StoredObject(byte[] data, Instant lastModified) {
+		}
+
+		final ConcurrentSkipListMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+		final AtomicInteger failuresLeft = new AtomicInteger();
+		private volatile int failStatus;
+		private volatile String failCode;
+		volatile boolean copyErrorInBody;
+		private final HttpServer server;
+
+		StubS3() throws IOException {
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.createContext("/", exchange -> {
+				try (exchange) {
+					handle(exchange);
+				} catch (RuntimeException e) {
+					respond(exchange, 500, "<Error><Code>InternalError</Code><Message>" + e + "</Message></Error>");
+				}
+			});
+			server.start();
+		}
+
+		int port() {
+			return server.getAddress().getPort();
+		}
+
+		void stop() {
+			server.stop(0);
+		}
+
+		void failNext(int times, int status, String code) {
+			failStatus = status;
+			failCode = code;
+			failuresLeft.set(times);
+		}
+
+		private void handle(HttpExchange exchange) throws IOException {
+			byte[] body = exchange.getRequestBody().readAllBytes();
+			String method = exchange.getRequestMethod();
+			Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+			if (!verifySignature(exchange, query)) {
+				respond(exchange, 403, "<Error><Code>SignatureDoesNotMatch</Code></Error>");
+				return;
+			}
+			if (failuresLeft.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+				respond(exchange, failStatus, "<Error><Code>" + failCode + "</Code></Error>");
+				return;
+			}
+			String payloadHash = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+			if (payloadHash != null && !payloadHash.equals(UNSIGNED_PAYLOAD) && !payloadHash.equals(sha256(body))) {
+				respond(exchange, 400, "<Error><Code>XAmzContentSHA256Mismatch</Code></Error>");
+				return;
+			}
+
+			String path = URLDecoder.decode(exchange.getRequestURI().getRawPath().replace("+", "%2B"), StandardCharsets.UTF_8);
+			if (!path.startsWith("/" + BUCKET)) {
+				respond(exchange, 404, "<Error><Code>NoSuchBucket</Code></Error>");
+				return;
+			}
+			String key = path.length() > BUCKET.length() + 2 ? path.substring(BUCKET.length() + 2) : null;
+
+			switch (method) {
+				case "PUT" -> {
+					String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+					if (copySource == null) {
+						objects.put(key, new StoredObject(body, Instant.now()));
+						respond(exchange, 200, "");
+						return;
+					}
+					if (copyErrorInBody) {
+						respond(exchange, 200, "<Error><Code>InternalError</Code></Error>");
+						return;
+					}
+					String from = URLDecoder.decode(copySource, StandardCharsets.UTF_8).substring(BUCKET.length() + 2);
+					StoredObject source = objects.get(from);
+					if (source == null) {
+						respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+						return;
+					}
+					objects.put(key, new StoredObject(source.data(), Instant.now()));
+					respond(exchange, 200, "<CopyObjectResult><ETag>\"x\"</ETag></CopyObjectResult>");
+				}
+				case "DELETE" -> {
+					objects.remove(key);
+					respond(exchange, 204, null);
+				}
+				case "HEAD" -> {
+					StoredObject o = objects.get(key);
+					if (o == null) {
+						exchange.sendResponseHeaders(404, -1);
+						return;
+					}
+					exchange.getResponseHeaders().set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(o.lastModified().atZone(ZoneOffset.UTC)));
+					exchange.getResponseHeaders().set("Content-Length", String.valueOf(o.data().length));
+					exchange.sendResponseHeaders(200, -1);
+				}
+				case "GET" -> {
+					if (key == null) {
+						list(exchange, query);
+						return;
+					}
+					StoredObject o = objects.get(key);
+					if (o == null) {
+						respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+						return;
+					}
+					if (query.containsKey("response-content-type")) {
+						exchange.getResponseHeaders().set("Content-Type", query.get("response-content-type"));
+						exchange.getResponseHeaders().set("Content-Disposition", query.get("response-content-disposition"));
+					}
+					String range = exchange.getRequestHeaders().getFirst("Range");
+					byte[] data = o.data();
+					int status = 200;
+					if (range != null) {
+						String[] bounds = range.substring("bytes=".length()).split("-", -1);
+						int from = Integer.parseInt(bounds[0]);
+						int to = bounds[1].isEmpty() ? data.length - 1 : Math.min(Integer.parseInt(bounds[1]), data.length - 1);
+						data = java.util.Arrays.copyOfRange(data, from, to + 1);
+						status = 206;
+					}
+					exchange.sendResponseHeaders(status, data.length);
+					exchange.getResponseBody().write(data);
+				}
+				default -> respond(exchange, 405, "");
+			}
+		}
+
+		private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+			String prefix = query.getOrDefault("prefix", "");
+			String startAfter = query.get("start-after");
+			int maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+			StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+					+ "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">");
+			int n = 0;
+			for (var e : (startAfter == null ? objects : objects.tailMap(startAfter, false)).entrySet()) {
+				if (!e.getKey().startsWith(prefix)) {
+					continue;
+				}
+				if (n++ == maxKeys) {
+					break;
+				}
+				xml.append("<Contents><Key>").append(e.getKey()).append("</Key><LastModified>")
+						.append(e.getValue().lastModified()).append("</LastModified><Size>")
+						.append(e.getValue().data().length).append("</Size></Contents>");
+			}
+			respond(exchange, 200, xml.append("</ListBucketResult>").toString());
+		}
+
+		// Recomputes the signature from what actually arrived: Host header, raw path, decoded query
+		private static boolean verifySignature(HttpExchange exchange, Map<String, String> query) {
+			String method = exchange.getRequestMethod();
+			String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+			String amzDate;
+			String credential;
+			String signedHeaders;
+			String payloadHash;
+			String given;
+			Map<String, String> canonicalQuery = new TreeMap<>(query);
+			if (authorization != null) {
+				Map<String, String> parts = new TreeMap<>();
+				for (String p : authorization.substring("AWS4-HMAC-SHA256 ".length()).split(",\\s*")) {
+					int eq = p.indexOf('=');
+					parts.put(p.substring(0, eq), p.substring(eq + 1));
+				}
+				credential = parts.get("Credential");
+				signedHeaders = parts.get("SignedHeaders");
+				given = parts.get("Signature");
+				amzDate = exchange.getRequestHeaders().getFirst("x-amz-date");
+				payloadHash = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+			} else if (query.containsKey("X-Amz-Signature")) {
+				credential = query.get("X-Amz-Credential");
+				signedHeaders = query.get("X-Amz-SignedHeaders");
+				given = canonicalQuery.remove("X-Amz-Signature");
+				amzDate = query.get("X-Amz-Date");
+				payloadHash = UNSIGNED_PAYLOAD;
+				Instant signedAt = Instant.from(AMZ_DATE.parse(amzDate));
+				if (Instant.now().isAfter(signedAt.plusSeconds(Long.parseLong(query.get("X-Amz-Expires"))))) {
+					return false;
+				}
+			} else {
+				return false;
+			}
+			String scope = credential.substring(credential.indexOf('/') + 1);
+			if (!credential.startsWith(ACCESS_KEY + "/") || !scope.equals(amzDate.substring(0, 8) + "/" + REGION + "/s3/aws4_request")) {
+				return false;
+			}
+
+			StringBuilder canonicalHeaders = new StringBuilder();
+			for (String name : signedHeaders.split(";")) {
+				String value = exchange.getRequestHeaders().getFirst(name);
+				if (value == null) {
+					return false;
+				}
+				canonicalHeaders.append(name).append(':').append(value.trim()).append('\n');
+			}
+			StringBuilder q = new StringBuilder();
+			canonicalQuery.forEach((k, v) -> q.append(q.length() > 0 ? "&" : "").append(encode(k)).append('=').append(encode(v)));
+			String canonicalRequest = method + "\n" + exchange.getRequestURI().getRawPath() + "\n" + q + "\n"
+					+ canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+			String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n"
+					+ sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8));
+			byte[] key = hmac(("AWS4" + SECRET_KEY).getBytes(StandardCharsets.UTF_8), amzDate.substring(0, 8));
+			key = hmac(key, REGION);
+			key = hmac(key, "s3");
+			key = hmac(key, "aws4_request");
+			return HexFormat.of().formatHex(hmac(key, stringToSign)).equals(given);
+		}
+
+		private static Map<String, String> query(String raw) {
+			Map<String, String> query = new TreeMap<>();
+			if (raw != null) {
+				for (String pair : raw.split("&")) {
+					int eq = pair.indexOf('=');
+					query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+							URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+				}
+			}
+			return query;
+		}
+
+		private static String encode(String value) {
+			StringBuilder sb = new StringBuilder();
+			for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+				char c = (char) (b & 0xFF);
+				if (Character.isLetterOrDigit(c) && c < 128 || c == '-' || c == '_' || c == '.' || c == '~') {
+					sb.append(c);
+				} else {
+					sb.append('%').append(HexFormat.of().withUpperCase().toHexDigits(b));
+				}
+			}
+			return sb.toString();
+		}
+
+		private static String sha256(byte[] data) {
+			return HexFormat.of().formatHex(FileStorageService.newSha256().digest(data));
+		}
+
+		private static byte[] hmac(byte[] key, String data) {
+			try {
+				Mac mac = Mac.getInstance("HmacSHA256");
+				mac.init(new SecretKeySpec(key, "HmacSHA256"));
+				return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+			if (body == null) {
+				exchange.sendResponseHeaders(status, -1);
+				return;
+			}
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/xml");
+			if (bytes.length == 0) {
+				exchange.sendResponseHeaders(status, -1);   // the body stream is closed already: writing to it would drop the connection
+				return;
+			}
+			exchange.sendResponseHeaders(status, bytes.length);
+			exchange.getResponseBody().write(bytes);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package edu.example.edu.Service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+// Solve time of TimetableSolver for generated schools; run with: mvn test -Dtest=TimetableSolverBenchmarkTest -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TimetableSolverBenchmarkTest {
+
+	private static final int DAYS = 5;
+	private static final int PERIODS_PER_DAY = 8;
+	// periods per week of each subject: 36 of the 40 slots per class
+	private static final int[] SUBJECT_TARGETS = { 6, 6, 5, 5, 4, 4, 3, 3 };
+	// lessons a teacher may get at most, out of 40
+	private static final int TEACHER_LOAD = 32;
+
+	@Test
+	void solveTimes() {
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try {
+			for (int classrooms : new int[] { 50, 80, 120 }) {
+				TimetableSolver.Problem problem = school(classrooms);
+				for (int restarts : new int[] { 1, Math.max(4, pool.getParallelism()) }) {
+					long start = System.nanoTime();
+					TimetableSolver.Solution solution = TimetableSolver.solve(problem, restarts, 60_000, 42, pool);
+					long millis = (System.nanoTime() - start) / 1_000_000;
+					System.out.printf("classrooms=%d teachers=%d lessons=%d restarts=%d -> %d ms, clashes=%d, uneven=%d, iterations=%d%n",
+							classrooms, problem.teachers(), problem.lessons(), restarts, millis,
+							solution.hardConflicts(), solution.softPenalty(), solution.iterations());
+					assertTrue(solution.clashFree(), "no clash-free timetable for " + classrooms + " classrooms");
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	// Every class takes every subject; each subject's teachers take consecutive classes up to TEACHER_LOAD
+	private static TimetableSolver.Problem school(int classrooms) {
+		List<Integer> lessonClass = new ArrayList<>();
+		List<Integer> lessonTeacher = new ArrayList<>();
+		List<Integer> lessonTrack = new ArrayList<>();
+		List<Integer> trackCap = new ArrayList<>();
+		int teachers = 0;
+		for (int target : SUBJECT_TARGETS) {
+			int classesPerTeacher = TEACHER_LOAD / target;
+			int firstTeacher = teachers;
+			for (int c = 0; c < classrooms; c++) {
+				int teacher = firstTeacher + c / classesPerTeacher;
+				teachers = Math.max(teachers, teacher + 1);
+				int track = trackCap.size();
+				trackCap.add((target + DAYS - 1) / DAYS);
+				for (int k = 0; k < target; k++) {
+					lessonClass.add(c);
+					lessonTeacher.add(teacher);
+					lessonTrack.add(track);
+				}
+			}
+		}
+		return new TimetableSolver.Problem(DAYS, PERIODS_PER_DAY, classrooms, teachers,
+				toArray(lessonClass), toArray(lessonTeacher), toArray(lessonTrack), toArray(trackCap), new BitSet());
+	}
+
+	private static int[] toArray(List<Integer> values) {
+		return values.stream().mapToInt(Integer::intValue).toArray();
+	}
+}